@@ -31,6 +31,8 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import org.apache.calcite.jdbc.CalciteSchemaBuilder;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.pinot.broker.api.RequesterIdentity;
 import org.apache.pinot.broker.broker.AccessControlFactory;
 import org.apache.pinot.broker.querylog.QueryLogger;
@@ -54,8 +56,10 @@ import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.common.utils.request.RequestUtils;
 import org.apache.pinot.core.query.reduce.ExecutionStatsAggregator;
 import org.apache.pinot.core.transport.ServerInstance;
+import org.apache.pinot.core.transport.server.routing.stats.ServerRoutingStatsManager;
 import org.apache.pinot.query.QueryEnvironment;
 import org.apache.pinot.query.catalog.PinotCatalog;
+import org.apache.pinot.query.catalog.SegmentZKMetadataTableStatsProvider;
 import org.apache.pinot.query.mailbox.MailboxService;
 import org.apache.pinot.query.planner.DispatchableSubPlan;
 import org.apache.pinot.query.routing.WorkerManager;
@@ -75,12 +79,28 @@ public class MultiStageBrokerRequestHandler extends BaseBrokerRequestHandler {
   private static final Logger LOGGER = LoggerFactory.getLogger(MultiStageBrokerRequestHandler.class);
 
   private final QueryEnvironment _queryEnvironment;
+  private final SegmentZKMetadataTableStatsProvider _tableStatsProvider;
   private final MailboxService _mailboxService;
   private final QueryDispatcher _queryDispatcher;
 
   public MultiStageBrokerRequestHandler(PinotConfiguration config, String brokerIdFromConfig,
       BrokerRoutingManager routingManager, AccessControlFactory accessControlFactory,
       QueryQuotaManager queryQuotaManager, TableCache tableCache, BrokerMetrics brokerMetrics) {
+    this(config, brokerIdFromConfig, routingManager, accessControlFactory, queryQuotaManager, tableCache, brokerMetrics,
+        null, null);
+  }
+
+  /**
+   * @param propertyStore used to read the table statistics for the join reordering and the adaptive stage
+   *                      parallelism, can be null when both are disabled.
+   * @param serverRoutingStatsManager used to pick the least loaded servers with the adaptive stage parallelism, can be
+   *                                  null.
+   */
+  public MultiStageBrokerRequestHandler(PinotConfiguration config, String brokerIdFromConfig,
+      BrokerRoutingManager routingManager, AccessControlFactory accessControlFactory,
+      QueryQuotaManager queryQuotaManager, TableCache tableCache, BrokerMetrics brokerMetrics,
+      @Nullable ZkHelixPropertyStore<ZNRecord> propertyStore,
+      @Nullable ServerRoutingStatsManager serverRoutingStatsManager) {
     super(config, brokerIdFromConfig, routingManager, accessControlFactory, queryQuotaManager, tableCache,
         brokerMetrics);
     LOGGER.info("Using Multi-stage BrokerRequestHandler.");
@@ -96,9 +116,33 @@ public class MultiStageBrokerRequestHandler extends BaseBrokerRequestHandler {
     // This config has to be set to a valid port number.
     int reducerPort =
         Integer.parseInt(config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_QUERY_RUNNER_PORT));
+    boolean joinReorderEnabled = config.getProperty(CommonConstants.Broker.CONFIG_OF_MULTI_STAGE_JOIN_REORDER_ENABLED,
+        CommonConstants.Broker.DEFAULT_MULTI_STAGE_JOIN_REORDER_ENABLED);
+    boolean adaptiveParallelismEnabled =
+        config.getProperty(CommonConstants.Broker.CONFIG_OF_MULTI_STAGE_ADAPTIVE_PARALLELISM_ENABLED,
+            CommonConstants.Broker.DEFAULT_MULTI_STAGE_ADAPTIVE_PARALLELISM_ENABLED);
+    SegmentZKMetadataTableStatsProvider tableStatsProvider = null;
+    if (propertyStore != null && (joinReorderEnabled || adaptiveParallelismEnabled)) {
+      tableStatsProvider = new SegmentZKMetadataTableStatsProvider(propertyStore,
+          config.getProperty(CommonConstants.Broker.CONFIG_OF_MULTI_STAGE_TABLE_STATS_REFRESH_INTERVAL_MS,
+              CommonConstants.Broker.DEFAULT_MULTI_STAGE_TABLE_STATS_REFRESH_INTERVAL_MS));
+    }
+    _tableStatsProvider = tableStatsProvider;
+    WorkerManager workerManager = new WorkerManager(reducerHostname, reducerPort, routingManager,
+        adaptiveParallelismEnabled ? tableStatsProvider : null, serverRoutingStatsManager,
+        config.getProperty(CommonConstants.Broker.CONFIG_OF_MULTI_STAGE_NUM_ROWS_PER_WORKER,
+            CommonConstants.Broker.DEFAULT_MULTI_STAGE_NUM_ROWS_PER_WORKER),
+        config.getProperty(CommonConstants.Broker.CONFIG_OF_MULTI_STAGE_MAX_STAGE_PARALLELISM,
+            CommonConstants.Broker.DEFAULT_MULTI_STAGE_MAX_STAGE_PARALLELISM));
     _queryEnvironment = new QueryEnvironment(new TypeFactory(new TypeSystem()),
-        CalciteSchemaBuilder.asRootSchema(new PinotCatalog(tableCache)),
-        new WorkerManager(reducerHostname, reducerPort, routingManager), _tableCache);
+        CalciteSchemaBuilder.asRootSchema(new PinotCatalog(tableCache, joinReorderEnabled ? tableStatsProvider : null)),
+        workerManager, _tableCache,
+        config.getProperty(CommonConstants.Broker.CONFIG_OF_MULTI_STAGE_PLAN_CACHE_SIZE,
+            CommonConstants.Broker.DEFAULT_MULTI_STAGE_PLAN_CACHE_SIZE));
+    if (joinReorderEnabled && tableStatsProvider != null) {
+      // The join order of the cached plans depends on the stats of the tables referenced by the plans
+      tableStatsProvider.registerStatsChangeListener(_queryEnvironment::invalidatePlanCache);
+    }
     _mailboxService = new MailboxService(reducerHostname, reducerPort, config);
     _queryDispatcher = new QueryDispatcher(_mailboxService);
 
@@ -303,5 +347,8 @@ public class MultiStageBrokerRequestHandler extends BaseBrokerRequestHandler {
   public void shutDown() {
     _queryDispatcher.shutdown();
     _mailboxService.shutdown();
+    if (_tableStatsProvider != null) {
+      _tableStatsProvider.close();
+    }
   }
 }
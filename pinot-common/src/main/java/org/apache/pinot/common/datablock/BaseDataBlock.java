@@ -22,8 +22,10 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
@@ -76,6 +78,11 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  *
  * To support both row and columnar data format. the size of the data payload will be exactly the same. the only
  * difference is the data layout in FIXED_SIZE_DATA and VARIABLE_SIZE_DATA section, see each impl for details.
+ *
+ * When deserialized from a heap buffer, the FIXED_SIZE_DATA and VARIABLE_SIZE_DATA sections are read directly from
+ * slices of the buffer instead of being copied, and {@link #toByteBuffers()} returns them without copying for the
+ * sender to write them out. Sections in direct buffers are still copied because the owner of the buffer might release
+ * the memory while the block is alive.
  */
 @SuppressWarnings("DuplicatedCode")
 public abstract class BaseDataBlock implements DataBlock {
@@ -174,24 +181,34 @@ public abstract class BaseDataBlock implements DataBlock {
       _dataSchema = null;
     }
 
-    // Read fixed size data.
-    if (fixedSizeDataLength != 0) {
-      _fixedSizeDataBytes = new byte[fixedSizeDataLength];
-      byteBuffer.position(fixedSizeDataStart);
-      byteBuffer.get(_fixedSizeDataBytes);
-      _fixedSizeData = ByteBuffer.wrap(_fixedSizeDataBytes);
-    } else {
+    if (!byteBuffer.isDirect()) {
+      // Read fixed size data and variable size data without copying.
       _fixedSizeDataBytes = null;
-      _fixedSizeData = null;
-    }
-
-    // Read variable size data.
-    _variableSizeDataBytes = new byte[variableSizeDataLength];
-    if (variableSizeDataLength != 0) {
-      byteBuffer.position(variableSizeDataStart);
-      byteBuffer.get(_variableSizeDataBytes);
+      _fixedSizeData =
+          fixedSizeDataLength != 0 ? sliceSection(byteBuffer, fixedSizeDataStart, fixedSizeDataLength) : null;
+      _variableSizeDataBytes = null;
+      _variableSizeData = sliceSection(byteBuffer, variableSizeDataStart, variableSizeDataLength);
+      byteBuffer.position(variableSizeDataStart + variableSizeDataLength);
+    } else {
+      // Read fixed size data.
+      if (fixedSizeDataLength != 0) {
+        _fixedSizeDataBytes = new byte[fixedSizeDataLength];
+        byteBuffer.position(fixedSizeDataStart);
+        byteBuffer.get(_fixedSizeDataBytes);
+        _fixedSizeData = ByteBuffer.wrap(_fixedSizeDataBytes);
+      } else {
+        _fixedSizeDataBytes = null;
+        _fixedSizeData = null;
+      }
+
+      // Read variable size data.
+      _variableSizeDataBytes = new byte[variableSizeDataLength];
+      if (variableSizeDataLength != 0) {
+        byteBuffer.position(variableSizeDataStart);
+        byteBuffer.get(_variableSizeDataBytes);
+      }
+      _variableSizeData = ByteBuffer.wrap(_variableSizeDataBytes);
     }
-    _variableSizeData = ByteBuffer.wrap(_variableSizeDataBytes);
 
     // Read metadata.
     int metadataLength = byteBuffer.getInt();
@@ -200,6 +217,45 @@ public abstract class BaseDataBlock implements DataBlock {
     }
   }
 
+  private static ByteBuffer sliceSection(ByteBuffer byteBuffer, int start, int length) {
+    ByteBuffer duplicate = byteBuffer.duplicate();
+    duplicate.limit(start + length);
+    duplicate.position(start);
+    return duplicate.slice();
+  }
+
+  /**
+   * Returns the fixed size data as a byte array, which is copied out of the buffer when the block is deserialized
+   * without copying.
+   */
+  @Nullable
+  protected byte[] getFixedSizeDataBytes() {
+    if (_fixedSizeDataBytes == null && _fixedSizeData != null) {
+      _fixedSizeDataBytes = toByteArray(_fixedSizeData);
+    }
+    return _fixedSizeDataBytes;
+  }
+
+  /**
+   * Returns the variable size data as a byte array, which is copied out of the buffer when the block is deserialized
+   * without copying.
+   */
+  @Nullable
+  protected byte[] getVariableSizeDataBytes() {
+    if (_variableSizeDataBytes == null && _variableSizeData != null) {
+      _variableSizeDataBytes = toByteArray(_variableSizeData);
+    }
+    return _variableSizeDataBytes;
+  }
+
+  private static byte[] toByteArray(ByteBuffer section) {
+    ByteBuffer duplicate = section.duplicate();
+    duplicate.clear();
+    byte[] bytes = new byte[duplicate.remaining()];
+    duplicate.get(bytes);
+    return bytes;
+  }
+
   @Override
   public int getVersion() {
     return 0;
@@ -439,6 +495,14 @@ public abstract class BaseDataBlock implements DataBlock {
     UnsynchronizedByteArrayOutputStream byteArrayOutputStream = new UnsynchronizedByteArrayOutputStream(8192);
     DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
     writeLeadingSections(dataOutputStream);
+    // Write fixed size data bytes.
+    if (_fixedSizeData != null) {
+      writeSection(dataOutputStream, _fixedSizeData);
+    }
+    // Write variable size data bytes.
+    if (_variableSizeData != null) {
+      writeSection(dataOutputStream, _variableSizeData);
+    }
 
     // Write metadata: length followed by actual metadata bytes.
     // NOTE: We ignore metadata serialization time in "responseSerializationCpuTimeNs" as it's negligible while
@@ -450,6 +514,50 @@ public abstract class BaseDataBlock implements DataBlock {
     return byteArrayOutputStream.toByteArray();
   }
 
+  @Override
+  public List<ByteBuffer> toByteBuffers()
+      throws IOException {
+    List<ByteBuffer> byteBuffers = new ArrayList<>(4);
+    UnsynchronizedByteArrayOutputStream byteArrayOutputStream = new UnsynchronizedByteArrayOutputStream(1024);
+    DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+    writeLeadingSections(dataOutputStream);
+    byteBuffers.add(ByteBuffer.wrap(byteArrayOutputStream.toByteArray()));
+    if (_fixedSizeData != null) {
+      byteBuffers.add(getSection(_fixedSizeData));
+    }
+    if (_variableSizeData != null) {
+      byteBuffers.add(getSection(_variableSizeData));
+    }
+
+    // Write metadata: length followed by actual metadata bytes.
+    byte[] metadataBytes = serializeMetadata();
+    ByteBuffer metadataBuffer = ByteBuffer.allocate(Integer.BYTES + metadataBytes.length);
+    metadataBuffer.putInt(metadataBytes.length);
+    metadataBuffer.put(metadataBytes);
+    metadataBuffer.flip();
+    byteBuffers.add(metadataBuffer);
+    return byteBuffers;
+  }
+
+  /**
+   * Returns a view of the whole section independent of the position of the section buffer.
+   */
+  private static ByteBuffer getSection(ByteBuffer section) {
+    ByteBuffer duplicate = section.duplicate();
+    duplicate.clear();
+    return duplicate;
+  }
+
+  private static void writeSection(DataOutputStream dataOutputStream, ByteBuffer section)
+      throws IOException {
+    ByteBuffer duplicate = getSection(section);
+    if (duplicate.hasArray()) {
+      dataOutputStream.write(duplicate.array(), duplicate.arrayOffset(), duplicate.remaining());
+    } else {
+      dataOutputStream.write(toByteArray(duplicate));
+    }
+  }
+
   private void writeLeadingSections(DataOutputStream dataOutputStream)
       throws IOException {
     dataOutputStream.writeInt(getDataBlockVersionType());
@@ -488,17 +596,17 @@ public abstract class BaseDataBlock implements DataBlock {
 
     // Write fixed size data section offset(START|SIZE).
     dataOutputStream.writeInt(dataOffset);
-    if (_fixedSizeDataBytes != null) {
-      dataOutputStream.writeInt(_fixedSizeDataBytes.length);
-      dataOffset += _fixedSizeDataBytes.length;
+    if (_fixedSizeData != null) {
+      dataOutputStream.writeInt(_fixedSizeData.capacity());
+      dataOffset += _fixedSizeData.capacity();
     } else {
       dataOutputStream.writeInt(0);
     }
 
     // Write variable size data section offset(START|SIZE).
     dataOutputStream.writeInt(dataOffset);
-    if (_variableSizeDataBytes != null) {
-      dataOutputStream.writeInt(_variableSizeDataBytes.length);
+    if (_variableSizeData != null) {
+      dataOutputStream.writeInt(_variableSizeData.capacity());
     } else {
       dataOutputStream.writeInt(0);
     }
@@ -514,14 +622,6 @@ public abstract class BaseDataBlock implements DataBlock {
     if (dataSchemaBytes != null) {
       dataOutputStream.write(dataSchemaBytes);
     }
-    // Write fixed size data bytes.
-    if (_fixedSizeDataBytes != null) {
-      dataOutputStream.write(_fixedSizeDataBytes);
-    }
-    // Write variable size data bytes.
-    if (_variableSizeDataBytes != null) {
-      dataOutputStream.write(_variableSizeDataBytes);
-    }
   }
 
   private byte[] serializeMetadata()
@@ -0,0 +1,418 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.common.datablock;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Encodes and decodes the fixed width columns of the {@link EncodedColumnarDataBlock}.
+ *
+ * <p>Each encoded column starts with one byte of encoding, followed by the encoded values:
+ * <ul>
+ *   <li>{@link #PLAIN}: the values one after another</li>
+ *   <li>{@link #RUN_LENGTH}: number of runs, followed by the value and the length of each run</li>
+ *   <li>{@link #BIT_PACKED}: the min value and the bit width, followed by the (value - min) of each row packed into
+ *   longs (integral values only)</li>
+ * </ul>
+ * The encoding with the smallest size is picked for each column. Variable size columns are written by the block builder
+ * with the {@link #VARIABLE_SIZE} encoding, which stores the offset and length in the variable size data for each row.
+ */
+public class ColumnEncodingUtils {
+  public static final byte PLAIN = 0;
+  public static final byte RUN_LENGTH = 1;
+  public static final byte BIT_PACKED = 2;
+  public static final byte VARIABLE_SIZE = 3;
+
+  private ColumnEncodingUtils() {
+  }
+
+  /**
+   * Writes the int values with the encoding of the smallest size.
+   */
+  public static void writeIntColumn(DataOutputStream dataOutputStream, int[] values, int numValues)
+      throws IOException {
+    int numRuns = 0;
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (int i = 0; i < numValues; i++) {
+      int value = values[i];
+      if (i == 0 || value != values[i - 1]) {
+        numRuns++;
+      }
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+    long plainSize = (long) numValues * Integer.BYTES;
+    long runLengthSize = Integer.BYTES + (long) numRuns * Integer.BYTES * 2;
+    int bitWidth = numValues > 0 ? getBitWidth(max - min) : 0;
+    long bitPackedSize = Integer.BYTES + 1 + getNumPackedLongs(numValues, bitWidth) * Long.BYTES;
+    if (runLengthSize < plainSize && runLengthSize <= bitPackedSize) {
+      dataOutputStream.writeByte(RUN_LENGTH);
+      dataOutputStream.writeInt(numRuns);
+      int runStart = 0;
+      for (int i = 1; i <= numValues; i++) {
+        if (i == numValues || values[i] != values[runStart]) {
+          dataOutputStream.writeInt(values[runStart]);
+          dataOutputStream.writeInt(i - runStart);
+          runStart = i;
+        }
+      }
+    } else if (bitPackedSize < plainSize) {
+      dataOutputStream.writeByte(BIT_PACKED);
+      dataOutputStream.writeInt((int) min);
+      dataOutputStream.writeByte(bitWidth);
+      BitPacker bitPacker = new BitPacker(dataOutputStream, bitWidth);
+      for (int i = 0; i < numValues; i++) {
+        bitPacker.pack(values[i] - min);
+      }
+      bitPacker.flush();
+    } else {
+      dataOutputStream.writeByte(PLAIN);
+      for (int i = 0; i < numValues; i++) {
+        dataOutputStream.writeInt(values[i]);
+      }
+    }
+  }
+
+  /**
+   * Writes the long values with the encoding of the smallest size.
+   */
+  public static void writeLongColumn(DataOutputStream dataOutputStream, long[] values, int numValues)
+      throws IOException {
+    int numRuns = 0;
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (int i = 0; i < numValues; i++) {
+      long value = values[i];
+      if (i == 0 || value != values[i - 1]) {
+        numRuns++;
+      }
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+    long plainSize = (long) numValues * Long.BYTES;
+    long runLengthSize = Integer.BYTES + (long) numRuns * (Long.BYTES + Integer.BYTES);
+    // The range can overflow when the values span over half of the long range, where bit packing doesn't help
+    long range = max - min;
+    long bitPackedSize = Long.MAX_VALUE;
+    int bitWidth = 0;
+    if (numValues > 0 && range >= 0) {
+      bitWidth = getBitWidth(range);
+      bitPackedSize = Long.BYTES + 1 + getNumPackedLongs(numValues, bitWidth) * Long.BYTES;
+    }
+    if (runLengthSize < plainSize && runLengthSize <= bitPackedSize) {
+      dataOutputStream.writeByte(RUN_LENGTH);
+      dataOutputStream.writeInt(numRuns);
+      int runStart = 0;
+      for (int i = 1; i <= numValues; i++) {
+        if (i == numValues || values[i] != values[runStart]) {
+          dataOutputStream.writeLong(values[runStart]);
+          dataOutputStream.writeInt(i - runStart);
+          runStart = i;
+        }
+      }
+    } else if (bitPackedSize < plainSize) {
+      dataOutputStream.writeByte(BIT_PACKED);
+      dataOutputStream.writeLong(min);
+      dataOutputStream.writeByte(bitWidth);
+      BitPacker bitPacker = new BitPacker(dataOutputStream, bitWidth);
+      for (int i = 0; i < numValues; i++) {
+        bitPacker.pack(values[i] - min);
+      }
+      bitPacker.flush();
+    } else {
+      dataOutputStream.writeByte(PLAIN);
+      for (int i = 0; i < numValues; i++) {
+        dataOutputStream.writeLong(values[i]);
+      }
+    }
+  }
+
+  /**
+   * Writes the float values with either plain or run-length encoding.
+   */
+  public static void writeFloatColumn(DataOutputStream dataOutputStream, float[] values, int numValues)
+      throws IOException {
+    int[] bits = new int[numValues];
+    for (int i = 0; i < numValues; i++) {
+      bits[i] = Float.floatToRawIntBits(values[i]);
+    }
+    int numRuns = getNumRuns(bits, numValues);
+    if (Integer.BYTES + (long) numRuns * Integer.BYTES * 2 < (long) numValues * Integer.BYTES) {
+      dataOutputStream.writeByte(RUN_LENGTH);
+      dataOutputStream.writeInt(numRuns);
+      int runStart = 0;
+      for (int i = 1; i <= numValues; i++) {
+        if (i == numValues || bits[i] != bits[runStart]) {
+          dataOutputStream.writeInt(bits[runStart]);
+          dataOutputStream.writeInt(i - runStart);
+          runStart = i;
+        }
+      }
+    } else {
+      dataOutputStream.writeByte(PLAIN);
+      for (int i = 0; i < numValues; i++) {
+        dataOutputStream.writeInt(bits[i]);
+      }
+    }
+  }
+
+  /**
+   * Writes the double values with either plain or run-length encoding.
+   */
+  public static void writeDoubleColumn(DataOutputStream dataOutputStream, double[] values, int numValues)
+      throws IOException {
+    int numRuns = 0;
+    for (int i = 0; i < numValues; i++) {
+      if (i == 0 || Double.doubleToRawLongBits(values[i]) != Double.doubleToRawLongBits(values[i - 1])) {
+        numRuns++;
+      }
+    }
+    if (Integer.BYTES + (long) numRuns * (Long.BYTES + Integer.BYTES) < (long) numValues * Long.BYTES) {
+      dataOutputStream.writeByte(RUN_LENGTH);
+      dataOutputStream.writeInt(numRuns);
+      int runStart = 0;
+      for (int i = 1; i <= numValues; i++) {
+        if (i == numValues
+            || Double.doubleToRawLongBits(values[i]) != Double.doubleToRawLongBits(values[runStart])) {
+          dataOutputStream.writeDouble(values[runStart]);
+          dataOutputStream.writeInt(i - runStart);
+          runStart = i;
+        }
+      }
+    } else {
+      dataOutputStream.writeByte(PLAIN);
+      for (int i = 0; i < numValues; i++) {
+        dataOutputStream.writeDouble(values[i]);
+      }
+    }
+  }
+
+  /**
+   * Reads the int values of the column starting at the given offset of the buffer.
+   */
+  public static int[] readIntColumn(ByteBuffer buffer, int offset, int numValues) {
+    int[] values = new int[numValues];
+    byte encoding = buffer.get(offset++);
+    switch (encoding) {
+      case PLAIN:
+        for (int i = 0; i < numValues; i++) {
+          values[i] = buffer.getInt(offset);
+          offset += Integer.BYTES;
+        }
+        break;
+      case RUN_LENGTH: {
+        int numRuns = buffer.getInt(offset);
+        offset += Integer.BYTES;
+        int index = 0;
+        for (int i = 0; i < numRuns; i++) {
+          int value = buffer.getInt(offset);
+          int runLength = buffer.getInt(offset + Integer.BYTES);
+          offset += Integer.BYTES * 2;
+          for (int j = 0; j < runLength; j++) {
+            values[index++] = value;
+          }
+        }
+        break;
+      }
+      case BIT_PACKED: {
+        int min = buffer.getInt(offset);
+        int bitWidth = buffer.get(offset + Integer.BYTES);
+        offset += Integer.BYTES + 1;
+        long mask = getMask(bitWidth);
+        for (int i = 0; i < numValues; i++) {
+          values[i] = (int) (min + unpack(buffer, offset, i, bitWidth, mask));
+        }
+        break;
+      }
+      default:
+        throw new IllegalStateException("Unsupported encoding: " + encoding + " for int column");
+    }
+    return values;
+  }
+
+  /**
+   * Reads the long values of the column starting at the given offset of the buffer.
+   */
+  public static long[] readLongColumn(ByteBuffer buffer, int offset, int numValues) {
+    long[] values = new long[numValues];
+    byte encoding = buffer.get(offset++);
+    switch (encoding) {
+      case PLAIN:
+        for (int i = 0; i < numValues; i++) {
+          values[i] = buffer.getLong(offset);
+          offset += Long.BYTES;
+        }
+        break;
+      case RUN_LENGTH: {
+        int numRuns = buffer.getInt(offset);
+        offset += Integer.BYTES;
+        int index = 0;
+        for (int i = 0; i < numRuns; i++) {
+          long value = buffer.getLong(offset);
+          int runLength = buffer.getInt(offset + Long.BYTES);
+          offset += Long.BYTES + Integer.BYTES;
+          for (int j = 0; j < runLength; j++) {
+            values[index++] = value;
+          }
+        }
+        break;
+      }
+      case BIT_PACKED: {
+        long min = buffer.getLong(offset);
+        int bitWidth = buffer.get(offset + Long.BYTES);
+        offset += Long.BYTES + 1;
+        long mask = getMask(bitWidth);
+        for (int i = 0; i < numValues; i++) {
+          values[i] = min + unpack(buffer, offset, i, bitWidth, mask);
+        }
+        break;
+      }
+      default:
+        throw new IllegalStateException("Unsupported encoding: " + encoding + " for long column");
+    }
+    return values;
+  }
+
+  /**
+   * Reads the float values of the column starting at the given offset of the buffer.
+   */
+  public static float[] readFloatColumn(ByteBuffer buffer, int offset, int numValues) {
+    // Float values are encoded with their int bits
+    int[] bits = readIntColumn(buffer, offset, numValues);
+    float[] values = new float[numValues];
+    for (int i = 0; i < numValues; i++) {
+      values[i] = Float.intBitsToFloat(bits[i]);
+    }
+    return values;
+  }
+
+  /**
+   * Reads the double values of the column starting at the given offset of the buffer.
+   */
+  public static double[] readDoubleColumn(ByteBuffer buffer, int offset, int numValues) {
+    double[] values = new double[numValues];
+    byte encoding = buffer.get(offset++);
+    switch (encoding) {
+      case PLAIN:
+        for (int i = 0; i < numValues; i++) {
+          values[i] = buffer.getDouble(offset);
+          offset += Double.BYTES;
+        }
+        break;
+      case RUN_LENGTH: {
+        int numRuns = buffer.getInt(offset);
+        offset += Integer.BYTES;
+        int index = 0;
+        for (int i = 0; i < numRuns; i++) {
+          double value = buffer.getDouble(offset);
+          int runLength = buffer.getInt(offset + Double.BYTES);
+          offset += Double.BYTES + Integer.BYTES;
+          for (int j = 0; j < runLength; j++) {
+            values[index++] = value;
+          }
+        }
+        break;
+      }
+      default:
+        throw new IllegalStateException("Unsupported encoding: " + encoding + " for double column");
+    }
+    return values;
+  }
+
+  private static int getNumRuns(int[] values, int numValues) {
+    int numRuns = 0;
+    for (int i = 0; i < numValues; i++) {
+      if (i == 0 || values[i] != values[i - 1]) {
+        numRuns++;
+      }
+    }
+    return numRuns;
+  }
+
+  private static int getBitWidth(long range) {
+    return Long.SIZE - Long.numberOfLeadingZeros(range);
+  }
+
+  private static long getNumPackedLongs(int numValues, int bitWidth) {
+    return ((long) numValues * bitWidth + Long.SIZE - 1) / Long.SIZE;
+  }
+
+  private static long getMask(int bitWidth) {
+    return bitWidth == Long.SIZE ? -1L : (1L << bitWidth) - 1;
+  }
+
+  private static long unpack(ByteBuffer buffer, int offset, int index, int bitWidth, long mask) {
+    if (bitWidth == 0) {
+      return 0;
+    }
+    long bitPosition = (long) index * bitWidth;
+    int wordOffset = offset + (int) (bitPosition >>> 6) * Long.BYTES;
+    int bitOffset = (int) (bitPosition & 63);
+    long value = buffer.getLong(wordOffset) >>> bitOffset;
+    if (bitOffset + bitWidth > Long.SIZE) {
+      value |= buffer.getLong(wordOffset + Long.BYTES) << (Long.SIZE - bitOffset);
+    }
+    return value & mask;
+  }
+
+  /**
+   * Packs the values of the given bit width from the lowest bits of each long.
+   */
+  private static class BitPacker {
+    final DataOutputStream _dataOutputStream;
+    final int _bitWidth;
+    long _word;
+    int _numBitsInWord;
+
+    BitPacker(DataOutputStream dataOutputStream, int bitWidth) {
+      _dataOutputStream = dataOutputStream;
+      _bitWidth = bitWidth;
+    }
+
+    void pack(long value)
+        throws IOException {
+      if (_bitWidth == 0) {
+        return;
+      }
+      _word |= value << _numBitsInWord;
+      int numBits = _numBitsInWord + _bitWidth;
+      if (numBits >= Long.SIZE) {
+        _dataOutputStream.writeLong(_word);
+        int numBitsWritten = Long.SIZE - _numBitsInWord;
+        _word = numBitsWritten < Long.SIZE ? value >>> numBitsWritten : 0;
+        _numBitsInWord = numBits - Long.SIZE;
+      } else {
+        _numBitsInWord = numBits;
+      }
+    }
+
+    void flush()
+        throws IOException {
+      if (_numBitsInWord > 0) {
+        _dataOutputStream.writeLong(_word);
+        _word = 0;
+        _numBitsInWord = 0;
+      }
+    }
+  }
+}
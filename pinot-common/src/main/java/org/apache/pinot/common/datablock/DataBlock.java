@@ -20,6 +20,8 @@ package org.apache.pinot.common.datablock;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.CustomObject;
@@ -45,6 +47,13 @@ public interface DataBlock {
   byte[] toBytes()
       throws IOException;
 
+  /**
+   * Returns the serialized form of the data block as a list of buffers, whose concatenation is the same as
+   * {@link #toBytes()}. The data sections are returned as views of the block without being copied.
+   */
+  List<ByteBuffer> toByteBuffers()
+      throws IOException;
+
   // --------------------------------------------------------------------------
   // The following APIs are copied from {@link DataTable} and will be deprecated soon.
   // --------------------------------------------------------------------------
@@ -82,7 +82,8 @@ public final class DataBlockUtils {
     DataBlock.Type type = DataBlock.Type.fromOrdinal(versionType >> VERSION_TYPE_SHIFT);
     switch (type) {
       case COLUMNAR:
-        return new ColumnarDataBlock(byteBuffer);
+        return version == EncodedColumnarDataBlock.VERSION ? new EncodedColumnarDataBlock(byteBuffer)
+            : new ColumnarDataBlock(byteBuffer);
       case ROW:
         return new RowDataBlock(byteBuffer);
       case METADATA:
@@ -283,6 +284,19 @@ public final class DataBlockUtils {
     RoaringBitmap nullBitmap = extractNullBitmaps(dataBlock)[columnIndex];
     int numRows = dataBlock.getNumberOfRows();
 
+    // Copy the decoded column directly from the encoded columnar block without reading value by value
+    DataSchema.ColumnDataType columnDataType = columnDataTypes[columnIndex];
+    if (dataBlock instanceof EncodedColumnarDataBlock && (columnDataType == DataSchema.ColumnDataType.INT
+        || columnDataType == DataSchema.ColumnDataType.BOOLEAN)) {
+      int[] values = ((EncodedColumnarDataBlock) dataBlock).getIntColumn(columnIndex).clone();
+      if (nullBitmap != null) {
+        for (int rowId : nullBitmap.toArray()) {
+          values[rowId] = 0;
+        }
+      }
+      return values;
+    }
+
     int[] rows = new int[numRows];
     for (int rowId = 0; rowId < numRows; rowId++) {
       if (nullBitmap != null && nullBitmap.contains(rowId)) {
@@ -330,6 +344,17 @@ public final class DataBlockUtils {
     RoaringBitmap nullBitmap = extractNullBitmaps(dataBlock)[columnIndex];
     int numRows = dataBlock.getNumberOfRows();
 
+    if (dataBlock instanceof EncodedColumnarDataBlock
+        && columnDataTypes[columnIndex] == DataSchema.ColumnDataType.LONG) {
+      long[] values = ((EncodedColumnarDataBlock) dataBlock).getLongColumn(columnIndex).clone();
+      if (nullBitmap != null) {
+        for (int rowId : nullBitmap.toArray()) {
+          values[rowId] = 0;
+        }
+      }
+      return values;
+    }
+
     long[] rows = new long[numRows];
     for (int rowId = 0; rowId < numRows; rowId++) {
       if (nullBitmap != null && nullBitmap.contains(rowId)) {
@@ -377,6 +402,17 @@ public final class DataBlockUtils {
     RoaringBitmap nullBitmap = extractNullBitmaps(dataBlock)[columnIndex];
     int numRows = dataBlock.getNumberOfRows();
 
+    if (dataBlock instanceof EncodedColumnarDataBlock
+        && columnDataTypes[columnIndex] == DataSchema.ColumnDataType.FLOAT) {
+      float[] values = ((EncodedColumnarDataBlock) dataBlock).getFloatColumn(columnIndex).clone();
+      if (nullBitmap != null) {
+        for (int rowId : nullBitmap.toArray()) {
+          values[rowId] = 0;
+        }
+      }
+      return values;
+    }
+
     float[] rows = new float[numRows];
     for (int rowId = 0; rowId < numRows; rowId++) {
       if (nullBitmap != null && nullBitmap.contains(rowId)) {
@@ -425,6 +461,17 @@ public final class DataBlockUtils {
     RoaringBitmap nullBitmap = extractNullBitmaps(dataBlock)[columnIndex];
     int numRows = dataBlock.getNumberOfRows();
 
+    if (dataBlock instanceof EncodedColumnarDataBlock
+        && columnDataTypes[columnIndex] == DataSchema.ColumnDataType.DOUBLE) {
+      double[] values = ((EncodedColumnarDataBlock) dataBlock).getDoubleColumn(columnIndex).clone();
+      if (nullBitmap != null) {
+        for (int rowId : nullBitmap.toArray()) {
+          values[rowId] = 0;
+        }
+      }
+      return values;
+    }
+
     double[] rows = new double[numRows];
     for (int rowId = 0; rowId < numRows; rowId++) {
       if (nullBitmap != null && nullBitmap.contains(rowId)) {
@@ -0,0 +1,190 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.common.datablock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.apache.pinot.common.utils.DataSchema;
+
+
+/**
+ * Column-wise data block with per-column encodings, which is more compact than the {@link ColumnarDataBlock} for
+ * transferring data across servers.
+ *
+ * <p>The FIXED_SIZE_DATA section is laid out as:
+ * <ul>
+ *   <li>(NUM_COLUMNS + 1) integers of column start offsets, where the last one is the end of the columns</li>
+ *   <li>Encoded columns, see {@link ColumnEncodingUtils} for the encodings. STRING values are stored as ids of the
+ *   string dictionary, BOOLEAN values as INT and TIMESTAMP values as LONG</li>
+ *   <li>Offset and length of the null bitmap of each column in the VARIABLE_SIZE_DATA section</li>
+ * </ul>
+ *
+ * <p>Fixed width columns are decoded into primitive arrays on first access, which can be read as a whole through the
+ * column access methods without materializing the rows.
+ */
+public class EncodedColumnarDataBlock extends BaseDataBlock {
+  public static final int VERSION = 2;
+
+  private int[] _columnOffsets;
+  private Object[] _decodedColumns;
+
+  public EncodedColumnarDataBlock() {
+    super();
+  }
+
+  public EncodedColumnarDataBlock(int numRows, DataSchema dataSchema, String[] stringDictionary,
+      byte[] fixedSizeDataBytes, byte[] variableSizeDataBytes) {
+    super(numRows, dataSchema, stringDictionary, fixedSizeDataBytes, variableSizeDataBytes);
+    computeBlockObjectConstants();
+  }
+
+  public EncodedColumnarDataBlock(ByteBuffer byteBuffer)
+      throws IOException {
+    super(byteBuffer);
+    computeBlockObjectConstants();
+  }
+
+  protected void computeBlockObjectConstants() {
+    _fixDataSize = 0;
+    if (_dataSchema != null && _fixedSizeData != null) {
+      _columnOffsets = new int[_numColumns + 1];
+      for (int i = 0; i <= _numColumns; i++) {
+        _columnOffsets[i] = _fixedSizeData.getInt(i * Integer.BYTES);
+      }
+      _fixDataSize = _columnOffsets[_numColumns];
+      _decodedColumns = new Object[_numColumns];
+    }
+  }
+
+  @Override
+  protected int getDataBlockVersionType() {
+    return VERSION + (Type.COLUMNAR.ordinal() << DataBlockUtils.VERSION_TYPE_SHIFT);
+  }
+
+  /**
+   * Returns the encoding of the column, one of the encodings defined in {@link ColumnEncodingUtils}.
+   */
+  public byte getColumnEncoding(int colId) {
+    return _fixedSizeData.get(_columnOffsets[colId]);
+  }
+
+  /**
+   * Returns the values of an INT, BOOLEAN or STRING (dictionary ids) column. The returned array is shared with the
+   * block and should not be modified.
+   */
+  public int[] getIntColumn(int colId) {
+    Object column = _decodedColumns[colId];
+    if (column == null) {
+      column = ColumnEncodingUtils.readIntColumn(_fixedSizeData, _columnOffsets[colId], _numRows);
+      _decodedColumns[colId] = column;
+    }
+    return (int[]) column;
+  }
+
+  /**
+   * Returns the values of a LONG or TIMESTAMP column. The returned array is shared with the block and should not be
+   * modified.
+   */
+  public long[] getLongColumn(int colId) {
+    Object column = _decodedColumns[colId];
+    if (column == null) {
+      column = ColumnEncodingUtils.readLongColumn(_fixedSizeData, _columnOffsets[colId], _numRows);
+      _decodedColumns[colId] = column;
+    }
+    return (long[]) column;
+  }
+
+  /**
+   * Returns the values of a FLOAT column. The returned array is shared with the block and should not be modified.
+   */
+  public float[] getFloatColumn(int colId) {
+    Object column = _decodedColumns[colId];
+    if (column == null) {
+      column = ColumnEncodingUtils.readFloatColumn(_fixedSizeData, _columnOffsets[colId], _numRows);
+      _decodedColumns[colId] = column;
+    }
+    return (float[]) column;
+  }
+
+  /**
+   * Returns the values of a DOUBLE column. The returned array is shared with the block and should not be modified.
+   */
+  public double[] getDoubleColumn(int colId) {
+    Object column = _decodedColumns[colId];
+    if (column == null) {
+      column = ColumnEncodingUtils.readDoubleColumn(_fixedSizeData, _columnOffsets[colId], _numRows);
+      _decodedColumns[colId] = column;
+    }
+    return (double[]) column;
+  }
+
+  @Override
+  public int getInt(int rowId, int colId) {
+    return getIntColumn(colId)[rowId];
+  }
+
+  @Override
+  public long getLong(int rowId, int colId) {
+    return getLongColumn(colId)[rowId];
+  }
+
+  @Override
+  public float getFloat(int rowId, int colId) {
+    return getFloatColumn(colId)[rowId];
+  }
+
+  @Override
+  public double getDouble(int rowId, int colId) {
+    return getDoubleColumn(colId)[rowId];
+  }
+
+  @Override
+  public String getString(int rowId, int colId) {
+    return _stringDictionary[getIntColumn(colId)[rowId]];
+  }
+
+  /**
+   * Only the variable size columns have fixed size values (offset and length in the variable size data) for each row.
+   */
+  @Override
+  protected int getOffsetInFixedBuffer(int rowId, int colId) {
+    return _columnOffsets[colId] + 1 + rowId * Integer.BYTES * 2;
+  }
+
+  @Override
+  protected int positionOffsetInVariableBufferAndGetLength(int rowId, int colId) {
+    int offset = getOffsetInFixedBuffer(rowId, colId);
+    _variableSizeData.position(_fixedSizeData.getInt(offset));
+    return _fixedSizeData.getInt(offset + 4);
+  }
+
+  @Override
+  public EncodedColumnarDataBlock toMetadataOnlyDataTable() {
+    EncodedColumnarDataBlock metadataOnlyDataTable = new EncodedColumnarDataBlock();
+    metadataOnlyDataTable._metadata.putAll(_metadata);
+    metadataOnlyDataTable._errCodeToExceptionMap.putAll(_errCodeToExceptionMap);
+    return metadataOnlyDataTable;
+  }
+
+  @Override
+  public EncodedColumnarDataBlock toDataOnlyDataTable() {
+    return new EncodedColumnarDataBlock(_numRows, _dataSchema, _stringDictionary, getFixedSizeDataBytes(),
+        getVariableSizeDataBytes());
+  }
+}
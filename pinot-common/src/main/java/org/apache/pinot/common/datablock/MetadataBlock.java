@@ -118,8 +118,9 @@ public class MetadataBlock extends BaseDataBlock {
   public MetadataBlock(ByteBuffer byteBuffer)
       throws IOException {
     super(byteBuffer);
-    if (_variableSizeDataBytes != null && _variableSizeDataBytes.length > 0) {
-      _contents = JSON.readValue(_variableSizeDataBytes, Contents.class);
+    byte[] variableSizeDataBytes = getVariableSizeDataBytes();
+    if (variableSizeDataBytes != null && variableSizeDataBytes.length > 0) {
+      _contents = JSON.readValue(variableSizeDataBytes, Contents.class);
     } else {
       _contents = new Contents();
     }
@@ -185,6 +185,18 @@ public class QueryOptionsUtils {
     return groupByTrimThreshold != null ? Integer.parseInt(groupByTrimThreshold) : null;
   }
 
+  @Nullable
+  public static Integer getGroupByCombineNumPartitions(Map<String, String> queryOptions) {
+    String groupByCombineNumPartitions = queryOptions.get(QueryOptionKey.GROUP_BY_COMBINE_NUM_PARTITIONS);
+    return groupByCombineNumPartitions != null ? Integer.parseInt(groupByCombineNumPartitions) : null;
+  }
+
+  @Nullable
+  public static Integer getMaxDocsPerBlock(Map<String, String> queryOptions) {
+    String maxDocsPerBlock = queryOptions.get(QueryOptionKey.MAX_DOCS_PER_BLOCK);
+    return maxDocsPerBlock != null ? Integer.parseInt(maxDocsPerBlock) : null;
+  }
+
   public static boolean shouldDropResults(Map<String, String> queryOptions) {
     return Boolean.parseBoolean(queryOptions.get(CommonConstants.Broker.Request.QueryOptionKey.DROP_RESULTS));
   }
@@ -199,4 +211,16 @@ public class QueryOptionsUtils {
   public static String getJoinOverflowMode(Map<String, String> queryOptions) {
     return queryOptions.get(QueryOptionKey.JOIN_OVERFLOW_MODE);
   }
+
+  @Nullable
+  public static Integer getMaxRowsInSort(Map<String, String> queryOptions) {
+    String maxRowsInSort = queryOptions.get(QueryOptionKey.MAX_ROWS_IN_SORT);
+    return maxRowsInSort != null ? Integer.parseInt(maxRowsInSort) : null;
+  }
+
+  @Nullable
+  public static Integer getMaxGroupsInAggregate(Map<String, String> queryOptions) {
+    String maxGroupsInAggregate = queryOptions.get(QueryOptionKey.MAX_GROUPS_IN_AGGREGATE);
+    return maxGroupsInAggregate != null ? Integer.parseInt(maxGroupsInAggregate) : null;
+  }
 }
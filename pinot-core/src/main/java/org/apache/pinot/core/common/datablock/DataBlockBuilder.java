@@ -29,9 +29,11 @@ import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
 import org.apache.pinot.common.CustomObject;
+import org.apache.pinot.common.datablock.ColumnEncodingUtils;
 import org.apache.pinot.common.datablock.ColumnarDataBlock;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.datablock.DataBlockUtils;
+import org.apache.pinot.common.datablock.EncodedColumnarDataBlock;
 import org.apache.pinot.common.datablock.RowDataBlock;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.RoaringBitmapUtils;
@@ -130,122 +132,7 @@ public class DataBlockBuilder {
           nullBitmaps[colId].add(rowId);
           value = nullPlaceholders[colId];
         }
-        switch (rowBuilder._columnDataTypes[colId]) {
-          // Single-value column
-          case INT:
-            byteBuffer.putInt(((Number) value).intValue());
-            break;
-          case LONG:
-            byteBuffer.putLong(((Number) value).longValue());
-            break;
-          case FLOAT:
-            byteBuffer.putFloat(((Number) value).floatValue());
-            break;
-          case DOUBLE:
-            byteBuffer.putDouble(((Number) value).doubleValue());
-            break;
-          case BIG_DECIMAL:
-            setColumn(rowBuilder, byteBuffer, (BigDecimal) value);
-            break;
-          case BOOLEAN:
-            if (value instanceof Boolean) {
-              byteBuffer.putInt(((Boolean) value) ? 1 : 0);
-            } else {
-              byteBuffer.putInt(((Number) value).intValue() > 0 ? 1 : 0);
-            }
-            break;
-          case TIMESTAMP:
-            // Certain non strong typed functions in v2 might return long value instead of Timestamp.
-            if (value instanceof Long) {
-              byteBuffer.putLong((long) value);
-            } else {
-              byteBuffer.putLong(((Timestamp) value).getTime());
-            }
-            break;
-          case STRING:
-            setColumn(rowBuilder, byteBuffer, (String) value);
-            break;
-          case BYTES:
-            if (value instanceof byte[]) {
-              setColumn(rowBuilder, byteBuffer, new ByteArray((byte[]) value));
-            } else {
-              setColumn(rowBuilder, byteBuffer, (ByteArray) value);
-            }
-            break;
-          case OBJECT:
-            setColumn(rowBuilder, byteBuffer, value);
-            break;
-          // Multi-value column
-          case INT_ARRAY:
-            setColumn(rowBuilder, byteBuffer, (int[]) value);
-            break;
-          case LONG_ARRAY:
-            // LONG_ARRAY type covers INT_ARRAY and LONG_ARRAY
-            if (value instanceof int[]) {
-              int[] ints = (int[]) value;
-              int length = ints.length;
-              long[] longs = new long[length];
-              ArrayCopyUtils.copy(ints, longs, length);
-              setColumn(rowBuilder, byteBuffer, longs);
-            } else {
-              setColumn(rowBuilder, byteBuffer, (long[]) value);
-            }
-            break;
-          case FLOAT_ARRAY:
-            setColumn(rowBuilder, byteBuffer, (float[]) value);
-            break;
-          case DOUBLE_ARRAY:
-            // DOUBLE_ARRAY type covers INT_ARRAY, LONG_ARRAY, FLOAT_ARRAY and DOUBLE_ARRAY
-            if (value instanceof int[]) {
-              int[] ints = (int[]) value;
-              int length = ints.length;
-              double[] doubles = new double[length];
-              ArrayCopyUtils.copy(ints, doubles, length);
-              setColumn(rowBuilder, byteBuffer, doubles);
-            } else if (value instanceof long[]) {
-              long[] longs = (long[]) value;
-              int length = longs.length;
-              double[] doubles = new double[length];
-              ArrayCopyUtils.copy(longs, doubles, length);
-              setColumn(rowBuilder, byteBuffer, doubles);
-            } else if (value instanceof float[]) {
-              float[] floats = (float[]) value;
-              int length = floats.length;
-              double[] doubles = new double[length];
-              ArrayCopyUtils.copy(floats, doubles, length);
-              setColumn(rowBuilder, byteBuffer, doubles);
-            } else {
-              setColumn(rowBuilder, byteBuffer, (double[]) value);
-            }
-            break;
-          case BYTES_ARRAY:
-            setColumn(rowBuilder, byteBuffer, (byte[][]) value);
-            break;
-          case STRING_ARRAY:
-            setColumn(rowBuilder, byteBuffer, (String[]) value);
-            break;
-          case BOOLEAN_ARRAY:
-            boolean[] booleans = (boolean[]) value;
-            int length = booleans.length;
-            int[] ints = new int[length];
-            ArrayCopyUtils.copy(booleans, ints, length);
-            setColumn(rowBuilder, byteBuffer, ints);
-            break;
-          case TIMESTAMP_ARRAY:
-            Timestamp[] timestamps = (Timestamp[]) value;
-            length = timestamps.length;
-            long[] longs = new long[length];
-            ArrayCopyUtils.copy(timestamps, longs, length);
-            setColumn(rowBuilder, byteBuffer, longs);
-            break;
-          case UNKNOWN:
-            setColumn(rowBuilder, byteBuffer, (Object) null);
-            break;
-          default:
-            throw new IllegalStateException(
-                String.format("Unsupported data type: %s for column: %s", rowBuilder._columnDataTypes[colId],
-                    rowBuilder._dataSchema.getColumnName(colId)));
-        }
+        setValue(rowBuilder, byteBuffer, colId, value);
       }
       rowBuilder._fixedSizeDataByteArrayOutputStream.write(byteBuffer.array(), 0, byteBuffer.position());
     }
@@ -506,6 +393,257 @@ public class DataBlockBuilder {
     return buildColumnarBlock(columnarBuilder);
   }
 
+  /**
+   * Builds an {@link EncodedColumnarDataBlock} from the rows, where each fixed width column is written with the
+   * encoding of the smallest size (see {@link ColumnEncodingUtils}), and variable size columns are written the same way
+   * as the {@link ColumnarDataBlock}.
+   */
+  public static EncodedColumnarDataBlock buildEncodedFromRows(List<Object[]> rows, DataSchema dataSchema)
+      throws IOException {
+    int numRows = rows.size();
+    DataBlockBuilder builder = new DataBlockBuilder(dataSchema, DataBlock.Type.COLUMNAR, numRows);
+    builder._numRows = numRows;
+    int numColumns = builder._numColumns;
+    RoaringBitmap[] nullBitmaps = new RoaringBitmap[numColumns];
+    DataSchema.ColumnDataType[] columnDataTypes = dataSchema.getColumnDataTypes();
+    DataSchema.ColumnDataType[] storedColumnDataTypes = dataSchema.getStoredColumnDataTypes();
+    Object2IntOpenHashMap<String> dictionary = builder._dictionary;
+
+    // Column start offsets are written in front of the encoded columns
+    int headerSize = (numColumns + 1) * Integer.BYTES;
+    int[] columnOffsets = new int[numColumns + 1];
+    UnsynchronizedByteArrayOutputStream columnsByteArrayOutputStream = new UnsynchronizedByteArrayOutputStream(8192);
+    DataOutputStream columnsOutputStream = new DataOutputStream(columnsByteArrayOutputStream);
+    for (int colId = 0; colId < numColumns; colId++) {
+      columnOffsets[colId] = headerSize + columnsOutputStream.size();
+      RoaringBitmap nullBitmap = new RoaringBitmap();
+      nullBitmaps[colId] = nullBitmap;
+      Object nullPlaceholder = columnDataTypes[colId].convert(storedColumnDataTypes[colId].getNullPlaceholder());
+      switch (columnDataTypes[colId]) {
+        case INT: {
+          int[] values = new int[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            values[rowId] = ((Number) getValue(rows, rowId, colId, nullBitmap, nullPlaceholder)).intValue();
+          }
+          ColumnEncodingUtils.writeIntColumn(columnsOutputStream, values, numRows);
+          break;
+        }
+        case BOOLEAN: {
+          int[] values = new int[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            Object value = getValue(rows, rowId, colId, nullBitmap, nullPlaceholder);
+            if (value instanceof Boolean) {
+              values[rowId] = ((Boolean) value) ? 1 : 0;
+            } else {
+              values[rowId] = ((Number) value).intValue() > 0 ? 1 : 0;
+            }
+          }
+          ColumnEncodingUtils.writeIntColumn(columnsOutputStream, values, numRows);
+          break;
+        }
+        case STRING: {
+          int[] dictIds = new int[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            String value = (String) getValue(rows, rowId, colId, nullBitmap, nullPlaceholder);
+            dictIds[rowId] = dictionary.computeIntIfAbsent(value, k -> dictionary.size());
+          }
+          ColumnEncodingUtils.writeIntColumn(columnsOutputStream, dictIds, numRows);
+          break;
+        }
+        case LONG: {
+          long[] values = new long[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            values[rowId] = ((Number) getValue(rows, rowId, colId, nullBitmap, nullPlaceholder)).longValue();
+          }
+          ColumnEncodingUtils.writeLongColumn(columnsOutputStream, values, numRows);
+          break;
+        }
+        case TIMESTAMP: {
+          long[] values = new long[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            Object value = getValue(rows, rowId, colId, nullBitmap, nullPlaceholder);
+            // Certain non strong typed functions in v2 might return long value instead of Timestamp.
+            values[rowId] = value instanceof Long ? (long) value : ((Timestamp) value).getTime();
+          }
+          ColumnEncodingUtils.writeLongColumn(columnsOutputStream, values, numRows);
+          break;
+        }
+        case FLOAT: {
+          float[] values = new float[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            values[rowId] = ((Number) getValue(rows, rowId, colId, nullBitmap, nullPlaceholder)).floatValue();
+          }
+          ColumnEncodingUtils.writeFloatColumn(columnsOutputStream, values, numRows);
+          break;
+        }
+        case DOUBLE: {
+          double[] values = new double[numRows];
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            values[rowId] = ((Number) getValue(rows, rowId, colId, nullBitmap, nullPlaceholder)).doubleValue();
+          }
+          ColumnEncodingUtils.writeDoubleColumn(columnsOutputStream, values, numRows);
+          break;
+        }
+        default: {
+          // Variable size values are written into the variable size data with offset and length for each row
+          columnsOutputStream.writeByte(ColumnEncodingUtils.VARIABLE_SIZE);
+          ByteBuffer byteBuffer = ByteBuffer.allocate(numRows * Integer.BYTES * 2);
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            setValue(builder, byteBuffer, colId, getValue(rows, rowId, colId, nullBitmap, nullPlaceholder));
+          }
+          columnsOutputStream.write(byteBuffer.array(), 0, byteBuffer.position());
+          break;
+        }
+      }
+    }
+    columnOffsets[numColumns] = headerSize + columnsOutputStream.size();
+    for (int columnOffset : columnOffsets) {
+      builder._fixedSizeDataOutputStream.writeInt(columnOffset);
+    }
+    columnsByteArrayOutputStream.writeTo(builder._fixedSizeDataOutputStream);
+    // Write null bitmaps after writing data.
+    for (RoaringBitmap nullBitmap : nullBitmaps) {
+      builder.setNullRowIds(nullBitmap);
+    }
+    return new EncodedColumnarDataBlock(numRows, dataSchema, getReverseDictionary(dictionary),
+        builder._fixedSizeDataByteArrayOutputStream.toByteArray(),
+        builder._variableSizeDataByteArrayOutputStream.toByteArray());
+  }
+
+  private static Object getValue(List<Object[]> rows, int rowId, int colId, RoaringBitmap nullBitmap,
+      Object nullPlaceholder) {
+    Object value = rows.get(rowId)[colId];
+    if (value == null) {
+      nullBitmap.add(rowId);
+      return nullPlaceholder;
+    }
+    return value;
+  }
+
+  /**
+   * Writes a single value of the given column, where variable size values are written into the variable size data with
+   * the offset and length written into the byte buffer.
+   */
+  private static void setValue(DataBlockBuilder builder, ByteBuffer byteBuffer, int colId, Object value)
+      throws IOException {
+    switch (builder._columnDataTypes[colId]) {
+      // Single-value column
+      case INT:
+        byteBuffer.putInt(((Number) value).intValue());
+        break;
+      case LONG:
+        byteBuffer.putLong(((Number) value).longValue());
+        break;
+      case FLOAT:
+        byteBuffer.putFloat(((Number) value).floatValue());
+        break;
+      case DOUBLE:
+        byteBuffer.putDouble(((Number) value).doubleValue());
+        break;
+      case BIG_DECIMAL:
+        setColumn(builder, byteBuffer, (BigDecimal) value);
+        break;
+      case BOOLEAN:
+        if (value instanceof Boolean) {
+          byteBuffer.putInt(((Boolean) value) ? 1 : 0);
+        } else {
+          byteBuffer.putInt(((Number) value).intValue() > 0 ? 1 : 0);
+        }
+        break;
+      case TIMESTAMP:
+        // Certain non strong typed functions in v2 might return long value instead of Timestamp.
+        if (value instanceof Long) {
+          byteBuffer.putLong((long) value);
+        } else {
+          byteBuffer.putLong(((Timestamp) value).getTime());
+        }
+        break;
+      case STRING:
+        setColumn(builder, byteBuffer, (String) value);
+        break;
+      case BYTES:
+        if (value instanceof byte[]) {
+          setColumn(builder, byteBuffer, new ByteArray((byte[]) value));
+        } else {
+          setColumn(builder, byteBuffer, (ByteArray) value);
+        }
+        break;
+      case OBJECT:
+        setColumn(builder, byteBuffer, value);
+        break;
+      // Multi-value column
+      case INT_ARRAY:
+        setColumn(builder, byteBuffer, (int[]) value);
+        break;
+      case LONG_ARRAY:
+        // LONG_ARRAY type covers INT_ARRAY and LONG_ARRAY
+        if (value instanceof int[]) {
+          int[] ints = (int[]) value;
+          int length = ints.length;
+          long[] longs = new long[length];
+          ArrayCopyUtils.copy(ints, longs, length);
+          setColumn(builder, byteBuffer, longs);
+        } else {
+          setColumn(builder, byteBuffer, (long[]) value);
+        }
+        break;
+      case FLOAT_ARRAY:
+        setColumn(builder, byteBuffer, (float[]) value);
+        break;
+      case DOUBLE_ARRAY:
+        // DOUBLE_ARRAY type covers INT_ARRAY, LONG_ARRAY, FLOAT_ARRAY and DOUBLE_ARRAY
+        if (value instanceof int[]) {
+          int[] ints = (int[]) value;
+          int length = ints.length;
+          double[] doubles = new double[length];
+          ArrayCopyUtils.copy(ints, doubles, length);
+          setColumn(builder, byteBuffer, doubles);
+        } else if (value instanceof long[]) {
+          long[] longs = (long[]) value;
+          int length = longs.length;
+          double[] doubles = new double[length];
+          ArrayCopyUtils.copy(longs, doubles, length);
+          setColumn(builder, byteBuffer, doubles);
+        } else if (value instanceof float[]) {
+          float[] floats = (float[]) value;
+          int length = floats.length;
+          double[] doubles = new double[length];
+          ArrayCopyUtils.copy(floats, doubles, length);
+          setColumn(builder, byteBuffer, doubles);
+        } else {
+          setColumn(builder, byteBuffer, (double[]) value);
+        }
+        break;
+      case BYTES_ARRAY:
+        setColumn(builder, byteBuffer, (byte[][]) value);
+        break;
+      case STRING_ARRAY:
+        setColumn(builder, byteBuffer, (String[]) value);
+        break;
+      case BOOLEAN_ARRAY:
+        boolean[] booleans = (boolean[]) value;
+        int length = booleans.length;
+        int[] ints = new int[length];
+        ArrayCopyUtils.copy(booleans, ints, length);
+        setColumn(builder, byteBuffer, ints);
+        break;
+      case TIMESTAMP_ARRAY:
+        Timestamp[] timestamps = (Timestamp[]) value;
+        length = timestamps.length;
+        long[] longs = new long[length];
+        ArrayCopyUtils.copy(timestamps, longs, length);
+        setColumn(builder, byteBuffer, longs);
+        break;
+      case UNKNOWN:
+        setColumn(builder, byteBuffer, (Object) null);
+        break;
+      default:
+        throw new IllegalStateException(
+            String.format("Unsupported data type: %s for column: %s", builder._columnDataTypes[colId],
+                builder._dataSchema.getColumnName(colId)));
+    }
+  }
+
   private static RowDataBlock buildRowBlock(DataBlockBuilder builder) {
     return new RowDataBlock(builder._numRows, builder._dataSchema, getReverseDictionary(builder._dictionary),
         builder._fixedSizeDataByteArrayOutputStream.toByteArray(),
@@ -0,0 +1,488 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.table;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.pinot.common.request.context.ExpressionContext;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.local.customobject.AvgPair;
+
+
+/**
+ * {@link IndexedTable} that stores the group keys and the fixed-width intermediate results in primitive arrays instead
+ * of {@link Key} and {@link Record} objects, which significantly reduces the number of long-lived objects (and the GC
+ * pressure) for queries with a large number of groups.
+ * <ul>
+ *   <li>Group keys (INT/LONG/FLOAT/DOUBLE only) are encoded as long values and stored in a single long array</li>
+ *   <li>
+ *     Intermediate results of COUNT are stored in a long array, SUM/MIN/MAX in a double array, and AVG in a double
+ *     array (sum) and a long array (count)
+ *   </li>
+ *   <li>Intermediate results of the other aggregation functions (e.g. sketches) are kept as objects</li>
+ * </ul>
+ * The records are only materialized when trimming the table and when finishing the table. Use
+ * {@link #isSupported(DataSchema, QueryContext)} to check whether the table can be used for a query.
+ */
+@NotThreadSafe
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class PrimitiveIndexedTable extends IndexedTable {
+  private static final float LOAD_FACTOR = 0.75f;
+  // Initialize the table with 512 slots so that the slots can fit into a single memory page
+  private static final int INITIAL_NUM_SLOTS = 1 << 9;
+  private static final int INVALID_ID = -1;
+
+  private final ColumnDataType[] _keyColumnDataTypes;
+  private final ValueHolder[] _valueHolders;
+  private final long[] _keyBuffer;
+
+  // Open addressing hash table from the hash of the key to (groupId + 1), where 0 stands for empty slot
+  private int[] _slots;
+  private int _mask;
+  private int _maxNumGroups;
+  private int[] _groupHashes;
+  private long[] _groupKeys;
+  private int _numGroups;
+
+  public PrimitiveIndexedTable(DataSchema dataSchema, QueryContext queryContext, int resultSize, int trimSize,
+      int trimThreshold) {
+    super(dataSchema, queryContext, resultSize, trimSize, trimThreshold, new HashMap<>());
+    assert isSupported(dataSchema, queryContext);
+    _keyColumnDataTypes = Arrays.copyOf(dataSchema.getColumnDataTypes(), _numKeyColumns);
+    int numAggregationFunctions = _aggregationFunctions.length;
+    _valueHolders = new ValueHolder[numAggregationFunctions];
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      _valueHolders[i] = createValueHolder(_aggregationFunctions[i]);
+    }
+    _keyBuffer = new long[_numKeyColumns];
+    _slots = new int[INITIAL_NUM_SLOTS];
+    _mask = INITIAL_NUM_SLOTS - 1;
+    _maxNumGroups = (int) (INITIAL_NUM_SLOTS * LOAD_FACTOR);
+    _groupHashes = new int[_maxNumGroups];
+    _groupKeys = new long[_maxNumGroups * _numKeyColumns];
+    for (ValueHolder valueHolder : _valueHolders) {
+      valueHolder.ensureCapacity(_maxNumGroups);
+    }
+  }
+
+  /**
+   * Returns whether the table can be used for the given data schema and query, where all the group-by columns must be
+   * INT/LONG/FLOAT/DOUBLE and null handling must be disabled.
+   */
+  public static boolean isSupported(DataSchema dataSchema, QueryContext queryContext) {
+    List<ExpressionContext> groupByExpressions = queryContext.getGroupByExpressions();
+    if (groupByExpressions == null || queryContext.isNullHandlingEnabled()) {
+      return false;
+    }
+    ColumnDataType[] columnDataTypes = dataSchema.getColumnDataTypes();
+    int numKeyColumns = groupByExpressions.size();
+    for (int i = 0; i < numKeyColumns; i++) {
+      switch (columnDataTypes[i]) {
+        case INT:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+          break;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean upsert(Record record) {
+    // NOTE: The record will always have key columns (group-by expressions) in the front.
+    Object[] values = record.getValues();
+    upsert(values, values);
+    return true;
+  }
+
+  @Override
+  public boolean upsert(Key key, Record record) {
+    upsert(key.getValues(), record.getValues());
+    return true;
+  }
+
+  private void upsert(Object[] keyValues, Object[] values) {
+    int hash = encodeKey(keyValues);
+    int numGroups = _numGroups;
+    // NOTE: Without ORDER BY, the table stops accepting new keys once the number of groups reaches resultSize.
+    int groupId = getGroupId(hash, _hasOrderBy || numGroups < _resultSize);
+    if (groupId == INVALID_ID) {
+      return;
+    }
+    int numAggregationFunctions = _valueHolders.length;
+    if (groupId == numGroups) {
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        _valueHolders[i].set(groupId, values[_numKeyColumns + i]);
+      }
+    } else {
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        _valueHolders[i].merge(groupId, values[_numKeyColumns + i]);
+      }
+    }
+    if (_hasOrderBy && _numGroups >= _trimThreshold) {
+      trim();
+    }
+  }
+
+  /**
+   * Encodes the key values into the key buffer, and returns the hash of the key.
+   */
+  private int encodeKey(Object[] keyValues) {
+    int hash = 1;
+    for (int i = 0; i < _numKeyColumns; i++) {
+      long encodedValue;
+      switch (_keyColumnDataTypes[i]) {
+        case INT:
+          encodedValue = ((Number) keyValues[i]).intValue();
+          break;
+        case LONG:
+          encodedValue = ((Number) keyValues[i]).longValue();
+          break;
+        case FLOAT:
+          // NOTE: Use floatToIntBits() (instead of floatToRawIntBits()) to match the semantic of Float.equals()
+          encodedValue = Float.floatToIntBits(((Number) keyValues[i]).floatValue());
+          break;
+        case DOUBLE:
+          encodedValue = Double.doubleToLongBits(((Number) keyValues[i]).doubleValue());
+          break;
+        default:
+          throw new IllegalStateException("Unsupported key column data type: " + _keyColumnDataTypes[i]);
+      }
+      _keyBuffer[i] = encodedValue;
+      hash = 31 * hash + Long.hashCode(encodedValue);
+    }
+    return hash;
+  }
+
+  private Object decodeKeyValue(int columnId, long encodedValue) {
+    switch (_keyColumnDataTypes[columnId]) {
+      case INT:
+        return (int) encodedValue;
+      case LONG:
+        return encodedValue;
+      case FLOAT:
+        return Float.intBitsToFloat((int) encodedValue);
+      case DOUBLE:
+        return Double.longBitsToDouble(encodedValue);
+      default:
+        throw new IllegalStateException("Unsupported key column data type: " + _keyColumnDataTypes[columnId]);
+    }
+  }
+
+  /**
+   * Returns the group id for the key in the key buffer. Creates a new group id (the current number of groups) if the
+   * key does not exist and {@code createIfAbsent} is {@code true}, or returns {@link #INVALID_ID} otherwise.
+   */
+  private int getGroupId(int hash, boolean createIfAbsent) {
+    int index = HashCommon.mix(hash) & _mask;
+    int slot;
+    while ((slot = _slots[index]) != 0) {
+      int groupId = slot - 1;
+      if (_groupHashes[groupId] == hash && keyEquals(groupId)) {
+        return groupId;
+      }
+      index = (index + 1) & _mask;
+    }
+    if (!createIfAbsent) {
+      return INVALID_ID;
+    }
+    int groupId = _numGroups++;
+    _slots[index] = groupId + 1;
+    _groupHashes[groupId] = hash;
+    System.arraycopy(_keyBuffer, 0, _groupKeys, groupId * _numKeyColumns, _numKeyColumns);
+    if (_numGroups == _maxNumGroups) {
+      expand();
+    }
+    return groupId;
+  }
+
+  private boolean keyEquals(int groupId) {
+    int offset = groupId * _numKeyColumns;
+    for (int i = 0; i < _numKeyColumns; i++) {
+      if (_groupKeys[offset + i] != _keyBuffer[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void expand() {
+    int numSlots = _slots.length << 1;
+    _slots = new int[numSlots];
+    _mask = numSlots - 1;
+    _maxNumGroups = (int) (numSlots * LOAD_FACTOR);
+    _groupHashes = Arrays.copyOf(_groupHashes, _maxNumGroups);
+    _groupKeys = Arrays.copyOf(_groupKeys, _maxNumGroups * _numKeyColumns);
+    for (ValueHolder valueHolder : _valueHolders) {
+      valueHolder.ensureCapacity(_maxNumGroups);
+    }
+    for (int groupId = 0; groupId < _numGroups; groupId++) {
+      int index = HashCommon.mix(_groupHashes[groupId]) & _mask;
+      while (_slots[index] != 0) {
+        index = (index + 1) & _mask;
+      }
+      _slots[index] = groupId + 1;
+    }
+  }
+
+  /**
+   * Materializes all the groups as records into the lookup map, and clears the primitive storage.
+   */
+  private void materializeRecords() {
+    int numAggregationFunctions = _valueHolders.length;
+    for (int groupId = 0; groupId < _numGroups; groupId++) {
+      Object[] keyValues = new Object[_numKeyColumns];
+      Object[] values = new Object[_numColumns];
+      int offset = groupId * _numKeyColumns;
+      for (int i = 0; i < _numKeyColumns; i++) {
+        Object keyValue = decodeKeyValue(i, _groupKeys[offset + i]);
+        keyValues[i] = keyValue;
+        values[i] = keyValue;
+      }
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        values[_numKeyColumns + i] = _valueHolders[i].get(groupId);
+      }
+      _lookupMap.put(new Key(keyValues), new Record(values));
+    }
+    for (ValueHolder valueHolder : _valueHolders) {
+      valueHolder.clear(_numGroups);
+    }
+    Arrays.fill(_slots, 0);
+    _numGroups = 0;
+  }
+
+  /**
+   * Trims the table to the trim size with the {@link TableResizer}, and puts the remaining records back into the
+   * primitive storage.
+   */
+  private void trim() {
+    materializeRecords();
+    resize();
+    for (Map.Entry<Key, Record> entry : _lookupMap.entrySet()) {
+      upsert(entry.getKey().getValues(), entry.getValue().getValues());
+    }
+    _lookupMap.clear();
+  }
+
+  @Override
+  public void finish(boolean sort, boolean storeFinalResult) {
+    materializeRecords();
+    super.finish(sort, storeFinalResult);
+  }
+
+  @Override
+  public int size() {
+    return _topRecords != null ? _topRecords.size() : _numGroups;
+  }
+
+  private static ValueHolder createValueHolder(AggregationFunction aggregationFunction) {
+    switch (aggregationFunction.getType()) {
+      case COUNT:
+      case COUNTMV:
+        return new CountValueHolder();
+      case SUM:
+      case SUMMV:
+        return new SumValueHolder();
+      case MIN:
+      case MINMV:
+        return new MinValueHolder();
+      case MAX:
+      case MAXMV:
+        return new MaxValueHolder();
+      case AVG:
+      case AVGMV:
+        return new AvgValueHolder();
+      default:
+        return new ObjectValueHolder(aggregationFunction);
+    }
+  }
+
+  /**
+   * Holder of the intermediate results of an aggregation function for all the groups.
+   */
+  private static abstract class ValueHolder {
+
+    abstract void ensureCapacity(int capacity);
+
+    /**
+     * Sets the intermediate result for a new group.
+     */
+    abstract void set(int groupId, Object value);
+
+    /**
+     * Merges the intermediate result into an existing group.
+     */
+    abstract void merge(int groupId, Object value);
+
+    abstract Object get(int groupId);
+
+    /**
+     * Releases the references to the intermediate results of the first {@code numGroups} groups.
+     */
+    void clear(int numGroups) {
+    }
+  }
+
+  private static class CountValueHolder extends ValueHolder {
+    long[] _counts = new long[0];
+
+    @Override
+    void ensureCapacity(int capacity) {
+      _counts = Arrays.copyOf(_counts, capacity);
+    }
+
+    @Override
+    void set(int groupId, Object value) {
+      _counts[groupId] = (Long) value;
+    }
+
+    @Override
+    void merge(int groupId, Object value) {
+      _counts[groupId] += (Long) value;
+    }
+
+    @Override
+    Object get(int groupId) {
+      return _counts[groupId];
+    }
+  }
+
+  private static abstract class DoubleValueHolder extends ValueHolder {
+    double[] _values = new double[0];
+
+    @Override
+    void ensureCapacity(int capacity) {
+      _values = Arrays.copyOf(_values, capacity);
+    }
+
+    @Override
+    void set(int groupId, Object value) {
+      _values[groupId] = (Double) value;
+    }
+
+    @Override
+    Object get(int groupId) {
+      return _values[groupId];
+    }
+  }
+
+  private static class SumValueHolder extends DoubleValueHolder {
+
+    @Override
+    void merge(int groupId, Object value) {
+      _values[groupId] += (Double) value;
+    }
+  }
+
+  private static class MinValueHolder extends DoubleValueHolder {
+
+    @Override
+    void merge(int groupId, Object value) {
+      // NOTE: Keep the same semantic as MinAggregationFunction.merge() for NaN
+      double existingValue = _values[groupId];
+      double newValue = (Double) value;
+      _values[groupId] = existingValue < newValue ? existingValue : newValue;
+    }
+  }
+
+  private static class MaxValueHolder extends DoubleValueHolder {
+
+    @Override
+    void merge(int groupId, Object value) {
+      // NOTE: Keep the same semantic as MaxAggregationFunction.merge() for NaN
+      double existingValue = _values[groupId];
+      double newValue = (Double) value;
+      _values[groupId] = existingValue > newValue ? existingValue : newValue;
+    }
+  }
+
+  private static class AvgValueHolder extends ValueHolder {
+    double[] _sums = new double[0];
+    long[] _counts = new long[0];
+
+    @Override
+    void ensureCapacity(int capacity) {
+      _sums = Arrays.copyOf(_sums, capacity);
+      _counts = Arrays.copyOf(_counts, capacity);
+    }
+
+    @Override
+    void set(int groupId, Object value) {
+      AvgPair avgPair = (AvgPair) value;
+      _sums[groupId] = avgPair.getSum();
+      _counts[groupId] = avgPair.getCount();
+    }
+
+    @Override
+    void merge(int groupId, Object value) {
+      AvgPair avgPair = (AvgPair) value;
+      _sums[groupId] += avgPair.getSum();
+      _counts[groupId] += avgPair.getCount();
+    }
+
+    @Override
+    Object get(int groupId) {
+      return new AvgPair(_sums[groupId], _counts[groupId]);
+    }
+  }
+
+  private static class ObjectValueHolder extends ValueHolder {
+    final AggregationFunction _aggregationFunction;
+    Object[] _values = new Object[0];
+
+    ObjectValueHolder(AggregationFunction aggregationFunction) {
+      _aggregationFunction = aggregationFunction;
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+      _values = Arrays.copyOf(_values, capacity);
+    }
+
+    @Override
+    void set(int groupId, Object value) {
+      _values[groupId] = value;
+    }
+
+    @Override
+    void merge(int groupId, Object value) {
+      _values[groupId] = _aggregationFunction.merge(_values[groupId], value);
+    }
+
+    @Override
+    Object get(int groupId) {
+      return _values[groupId];
+    }
+
+    @Override
+    void clear(int numGroups) {
+      Arrays.fill(_values, 0, numGroups, null);
+    }
+  }
+}
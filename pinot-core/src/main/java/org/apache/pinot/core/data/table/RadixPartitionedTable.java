@@ -0,0 +1,243 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.table;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.spi.trace.Tracing;
+
+
+/**
+ * Lock-free alternative of the {@link ConcurrentIndexedTable} to combine the group-by results from multiple threads.
+ * <ul>
+ *   <li>
+ *     Each writer thread creates its own {@link Partitions}, and upserts the records into the map of the partition
+ *     (based on the hash of the key) without any synchronization.
+ *   </li>
+ *   <li>
+ *     Once all the writers are done, each partition is merged across the writers by {@link #mergePartition(int)}.
+ *     Different partitions have disjoint keys, so they can be merged in parallel by different threads without any
+ *     lock.
+ *   </li>
+ *   <li>
+ *     The merged partitions are added into an {@link IndexedTable} by {@link #toIndexedTable()}.
+ *   </li>
+ * </ul>
+ * For ORDER BY queries, a partition is trimmed the same way as the indexed table when it reaches the trim threshold
+ * scaled down by the number of partitions, and the merged partitions are trimmed to the trim size before being added to
+ * the indexed table, which is safe because the top records of all the keys are always within the top records of each
+ * partition. Without ORDER BY, same as the {@link ConcurrentIndexedTable}, a writer stops adding new keys once it has
+ * enough keys for the result, and only updates the existing keys afterwards.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class RadixPartitionedTable {
+  public static final int MAX_NUM_PARTITIONS = 1024;
+
+  private final DataSchema _dataSchema;
+  private final QueryContext _queryContext;
+  private final int _resultSize;
+  private final int _trimSize;
+  private final int _trimThreshold;
+  private final int _partitionTrimThreshold;
+  private final int _numKeyColumns;
+  private final AggregationFunction[] _aggregationFunctions;
+  private final TableResizer _tableResizer;
+  private final int _numPartitionBits;
+  private final int _numPartitions;
+  private final List<Partitions> _writerPartitions = new CopyOnWriteArrayList<>();
+  private final Map<Key, Record>[] _mergedPartitions;
+
+  /**
+   * Constructor for the RadixPartitionedTable.
+   *
+   * @param dataSchema    Data schema of the table
+   * @param queryContext  Query context
+   * @param resultSize    Number of records to keep in the final result
+   * @param trimThreshold Trim a partition when the number of records exceeds the threshold
+   * @param numPartitions Number of partitions, rounded up to the next power of 2 and capped at
+   *                      {@link #MAX_NUM_PARTITIONS}
+   */
+  public RadixPartitionedTable(DataSchema dataSchema, QueryContext queryContext, int resultSize, int trimThreshold,
+      int numPartitions) {
+    _dataSchema = dataSchema;
+    _queryContext = queryContext;
+    _resultSize = resultSize;
+    // NOTE: Same as the IndexedTable, trimSize is bounded by trimThreshold/2 to protect the server from using too much
+    //       memory.
+    _trimSize = Math.min(resultSize, trimThreshold / 2);
+    _trimThreshold = trimThreshold;
+    assert queryContext.getGroupByExpressions() != null;
+    _numKeyColumns = queryContext.getGroupByExpressions().size();
+    _aggregationFunctions = queryContext.getAggregationFunctions();
+    _tableResizer = queryContext.getOrderByExpressions() != null ? new TableResizer(dataSchema, queryContext) : null;
+    _numPartitionBits = 32 - Integer.numberOfLeadingZeros(Math.min(Math.max(numPartitions, 1), MAX_NUM_PARTITIONS) - 1);
+    _numPartitions = 1 << _numPartitionBits;
+    _mergedPartitions = new Map[_numPartitions];
+    // NOTE: Split the trim threshold across the partitions so that a writer holds about the same number of records as
+    //       the indexed table, but keep it above the trim size so that a partition is not trimmed on every new key.
+    _partitionTrimThreshold = Math.max(trimThreshold / _numPartitions, 2 * _trimSize);
+  }
+
+  public int getNumPartitions() {
+    return _numPartitions;
+  }
+
+  /**
+   * Creates the partitions for a writer thread. The returned partitions should only be accessed by a single thread.
+   */
+  public Partitions createPartitions() {
+    Partitions partitions = new Partitions();
+    _writerPartitions.add(partitions);
+    return partitions;
+  }
+
+  /**
+   * Merges the given partition of all the writers. Should be called after all the writers are done, and each partition
+   * should only be merged once. Different partitions can be merged concurrently.
+   */
+  public void mergePartition(int partitionId) {
+    Map<Key, Record> mergedPartition = null;
+    int numMergedKeys = 0;
+    for (Partitions partitions : _writerPartitions) {
+      Map<Key, Record> partition = partitions._partitions[partitionId];
+      if (partition == null) {
+        continue;
+      }
+      if (mergedPartition == null) {
+        mergedPartition = partition;
+        continue;
+      }
+      // Merge the smaller partition into the larger one
+      if (partition.size() > mergedPartition.size()) {
+        Map<Key, Record> temp = mergedPartition;
+        mergedPartition = partition;
+        partition = temp;
+      }
+      for (Map.Entry<Key, Record> entry : partition.entrySet()) {
+        mergeRecord(mergedPartition, entry.getKey(), entry.getValue());
+        Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(numMergedKeys);
+        numMergedKeys++;
+      }
+    }
+    if (mergedPartition != null && _tableResizer != null) {
+      _tableResizer.resizeRecordsMap(mergedPartition, _trimSize);
+    }
+    _mergedPartitions[partitionId] = mergedPartition;
+  }
+
+  /**
+   * Returns an indexed table with the merged partitions. Should be called after all the partitions are merged.
+   */
+  public IndexedTable toIndexedTable() {
+    IndexedTable indexedTable;
+    if (PrimitiveIndexedTable.isSupported(_dataSchema, _queryContext)) {
+      indexedTable = new PrimitiveIndexedTable(_dataSchema, _queryContext, _resultSize, _resultSize, _trimThreshold);
+    } else {
+      indexedTable = new SimpleIndexedTable(_dataSchema, _queryContext, _resultSize, _resultSize, _trimThreshold);
+    }
+    for (Map<Key, Record> mergedPartition : _mergedPartitions) {
+      if (mergedPartition != null) {
+        for (Map.Entry<Key, Record> entry : mergedPartition.entrySet()) {
+          indexedTable.upsert(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    return indexedTable;
+  }
+
+  /**
+   * Merges the record into the record map, returns {@code true} if the key is newly added.
+   */
+  private boolean mergeRecord(Map<Key, Record> recordMap, Key key, Record record) {
+    Record existingRecord = recordMap.putIfAbsent(key, record);
+    if (existingRecord == null) {
+      return true;
+    }
+    mergeValues(existingRecord, record);
+    return false;
+  }
+
+  private void mergeValues(Record existingRecord, Record record) {
+    Object[] existingValues = existingRecord.getValues();
+    Object[] newValues = record.getValues();
+    int numAggregationFunctions = _aggregationFunctions.length;
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      int colId = _numKeyColumns + i;
+      existingValues[colId] = _aggregationFunctions[i].merge(existingValues[colId], newValues[colId]);
+    }
+  }
+
+  /**
+   * Partitions of a single writer thread.
+   */
+  @NotThreadSafe
+  public class Partitions {
+    private final Map<Key, Record>[] _partitions = new Map[_numPartitions];
+    // Number of keys across the partitions, only tracked without ORDER BY where the partitions are never trimmed
+    private int _numKeys;
+
+    private Partitions() {
+    }
+
+    public int getNumKeys() {
+      return _numKeys;
+    }
+
+    public void upsert(Key key, Record record) {
+      // Take the partition id from the high bits of the scrambled hash. The low bits are used by the hash map within
+      // the partition, where all the keys would collide if they share the same low bits.
+      int partitionId = _numPartitionBits == 0 ? 0 : (key.hashCode() * 0x9E3779B9) >>> (32 - _numPartitionBits);
+      Map<Key, Record> partition = _partitions[partitionId];
+      if (_tableResizer == null) {
+        if (_numKeys >= _resultSize) {
+          // Only update the existing keys once there are enough keys for the result
+          if (partition != null) {
+            Record existingRecord = partition.get(key);
+            if (existingRecord != null) {
+              mergeValues(existingRecord, record);
+            }
+          }
+          return;
+        }
+        if (partition == null) {
+          partition = new HashMap<>();
+          _partitions[partitionId] = partition;
+        }
+        if (mergeRecord(partition, key, record)) {
+          _numKeys++;
+        }
+        return;
+      }
+      if (partition == null) {
+        partition = new HashMap<>();
+        _partitions[partitionId] = partition;
+      }
+      mergeRecord(partition, key, record);
+      if (partition.size() >= _partitionTrimThreshold) {
+        _tableResizer.resizeRecordsMap(partition, _trimSize);
+      }
+    }
+  }
+}
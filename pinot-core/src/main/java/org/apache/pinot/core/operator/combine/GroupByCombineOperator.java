@@ -24,14 +24,19 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.data.table.ConcurrentIndexedTable;
 import org.apache.pinot.core.data.table.IndexedTable;
 import org.apache.pinot.core.data.table.IntermediateRecord;
 import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.PrimitiveIndexedTable;
+import org.apache.pinot.core.data.table.RadixPartitionedTable;
 import org.apache.pinot.core.data.table.Record;
 import org.apache.pinot.core.data.table.UnboundedConcurrentIndexedTable;
 import org.apache.pinot.core.operator.AcquireReleaseColumnsSegmentOperator;
@@ -43,6 +48,7 @@ import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
 import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.core.util.GroupByUtils;
+import org.apache.pinot.core.util.trace.TraceRunnable;
 import org.apache.pinot.spi.trace.Tracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +56,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Combine operator for group-by queries.
+ * <p>By default, all the combine tasks upsert the segment results into a shared {@link ConcurrentIndexedTable}. When
+ * the number of combine partitions is configured, the tasks upsert into a {@link RadixPartitionedTable} instead, and
+ * the partitions are merged in parallel after all the segments are processed.
  * TODO: Use CombineOperatorUtils.getNumThreadsForQuery() to get the parallelism of the query instead of using
  *       all threads
  */
@@ -65,11 +74,13 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
   private final int _numAggregationFunctions;
   private final int _numGroupByExpressions;
   private final int _numColumns;
+  private final int _numPartitions;
   // We use a CountDownLatch to track if all Futures are finished by the query timeout, and cancel the unfinished
   // _futures (try to interrupt the execution if it already started).
   private final CountDownLatch _operatorLatch;
 
   private volatile IndexedTable _indexedTable;
+  private RadixPartitionedTable _partitionedTable;
   private volatile boolean _numGroupsLimitReached;
 
   public GroupByCombineOperator(List<Operator> operators, QueryContext queryContext, ExecutorService executorService) {
@@ -100,6 +111,7 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
     _numGroupByExpressions = _queryContext.getGroupByExpressions().size();
     _numColumns = _numGroupByExpressions + _numAggregationFunctions;
     _operatorLatch = new CountDownLatch(_numTasks);
+    _numPartitions = queryContext.getGroupByCombineNumPartitions();
   }
 
   /**
@@ -123,6 +135,7 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
    */
   @Override
   protected void processSegments() {
+    RadixPartitionedTable.Partitions partitions = null;
     int operatorId;
     while (_processingException.get() == null && (operatorId = _nextOperatorId.getAndIncrement()) < _numOperators) {
       Operator operator = _operators.get(operatorId);
@@ -131,12 +144,20 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
           ((AcquireReleaseColumnsSegmentOperator) operator).acquire();
         }
         GroupByResultsBlock resultsBlock = (GroupByResultsBlock) operator.nextBlock();
-        if (_indexedTable == null) {
+        if (_numPartitions > 0) {
+          if (partitions == null) {
+            partitions = getPartitionedTable(resultsBlock.getDataSchema()).createPartitions();
+          }
+        } else if (_indexedTable == null) {
           synchronized (this) {
             if (_indexedTable == null) {
               DataSchema dataSchema = resultsBlock.getDataSchema();
               // NOTE: Use trimSize as resultSize on server size.
-              if (_trimThreshold >= MAX_TRIM_THRESHOLD) {
+              if (_numTasks == 1 && PrimitiveIndexedTable.isSupported(dataSchema, _queryContext)) {
+                // Single writer thread, use the table with primitive storage to reduce the GC pressure
+                _indexedTable =
+                    new PrimitiveIndexedTable(dataSchema, _queryContext, _trimSize, _trimSize, _trimThreshold);
+              } else if (_trimThreshold >= MAX_TRIM_THRESHOLD) {
                 // special case of trim threshold where it is set to max value.
                 // there won't be any trimming during upsert in this case.
                 // thus we can avoid the overhead of read-lock and write-lock
@@ -175,7 +196,7 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
               for (int i = 0; i < _numAggregationFunctions; i++) {
                 values[_numGroupByExpressions + i] = aggregationGroupByResult.getResultForGroupId(i, groupId);
               }
-              _indexedTable.upsert(new Key(keys), new Record(values));
+              upsert(partitions, new Key(keys), new Record(values));
               Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(mergedKeys);
               mergedKeys++;
             }
@@ -183,7 +204,7 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
         } else {
           for (IntermediateRecord intermediateResult : intermediateRecords) {
             //TODO: change upsert api so that it accepts intermediateRecord directly
-            _indexedTable.upsert(intermediateResult._key, intermediateResult._record);
+            upsert(partitions, intermediateResult._key, intermediateResult._record);
             Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(mergedKeys);
             mergedKeys++;
           }
@@ -196,6 +217,60 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
     }
   }
 
+  private synchronized RadixPartitionedTable getPartitionedTable(DataSchema dataSchema) {
+    if (_partitionedTable == null) {
+      // NOTE: Use trimSize as resultSize on server size.
+      _partitionedTable =
+          new RadixPartitionedTable(dataSchema, _queryContext, _trimSize, _trimThreshold, _numPartitions);
+    }
+    return _partitionedTable;
+  }
+
+  private void upsert(@Nullable RadixPartitionedTable.Partitions partitions, Key key, Record record) {
+    if (partitions != null) {
+      partitions.upsert(key, record);
+    } else {
+      _indexedTable.upsert(key, record);
+    }
+  }
+
+  /**
+   * Merges the partitions of the partitioned table in parallel, using the main thread and up to (numTasks - 1) extra
+   * tasks, and returns the merged indexed table.
+   */
+  private IndexedTable mergePartitions()
+      throws Exception {
+    RadixPartitionedTable partitionedTable = _partitionedTable;
+    int numPartitions = partitionedTable.getNumPartitions();
+    AtomicInteger nextPartitionId = new AtomicInteger();
+    TraceRunnable mergeTask = new TraceRunnable() {
+      @Override
+      public void runJob() {
+        int partitionId;
+        while ((partitionId = nextPartitionId.getAndIncrement()) < numPartitions) {
+          partitionedTable.mergePartition(partitionId);
+        }
+      }
+    };
+    Future[] futures = new Future[Math.min(_numTasks, numPartitions) - 1];
+    try {
+      for (int i = 0; i < futures.length; i++) {
+        futures[i] = _executorService.submit(mergeTask);
+      }
+      mergeTask.run();
+      for (Future future : futures) {
+        future.get(_queryContext.getEndTimeMs() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+      }
+    } finally {
+      for (Future future : futures) {
+        if (future != null && !future.isDone()) {
+          future.cancel(true);
+        }
+      }
+    }
+    return partitionedTable.toIndexedTable();
+  }
+
   @Override
   public void onProcessSegmentsException(Throwable t) {
     _processingException.compareAndSet(null, t);
@@ -238,7 +313,7 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
       return new ExceptionResultsBlock(processingException);
     }
 
-    IndexedTable indexedTable = _indexedTable;
+    IndexedTable indexedTable = _numPartitions > 0 ? mergePartitions() : _indexedTable;
     if (!_queryContext.isServerReturnFinalResult()) {
       indexedTable.finish(false);
     } else {
@@ -184,13 +184,15 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] dictIds) {
-      // reimplemented here to ensure applySV can be inlined
+      // Branch-free compaction: always write the doc id and only advance the cursor on a match. The range check is
+      // done with a single comparison by flipping the sign bit, i.e. an unsigned comparison of (dictId - startDictId)
+      // against the number of matching dictionary ids.
+      int startDictId = _startDictId;
+      int upperBound = Math.max(_numMatchingDictIds, 0) + Integer.MIN_VALUE;
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        int dictId = dictIds[i];
-        if (applySV(dictId)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += dictIds[i] - startDictId + Integer.MIN_VALUE < upperBound ? 1 : 0;
       }
       return matches;
     }
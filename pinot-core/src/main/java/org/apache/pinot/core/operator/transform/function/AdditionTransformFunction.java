@@ -104,6 +104,25 @@ public class AdditionTransformFunction extends BaseTransformFunction {
     return _doubleValuesSV;
   }
 
+  @Override
+  public double[] transformToDoubleValuesSV(ValueBlock valueBlock, int[] selectedDocIds, int numSelectedDocs) {
+    if (_resultDataType == DataType.BIG_DECIMAL) {
+      return transformToDoubleValuesSV(valueBlock);
+    }
+    initDoubleValuesSV(valueBlock.getNumDocs());
+    for (int i = 0; i < numSelectedDocs; i++) {
+      _doubleValuesSV[selectedDocIds[i]] = _literalDoubleSum;
+    }
+    for (TransformFunction transformFunction : _transformFunctions) {
+      double[] values = transformFunction.transformToDoubleValuesSV(valueBlock, selectedDocIds, numSelectedDocs);
+      for (int i = 0; i < numSelectedDocs; i++) {
+        int docId = selectedDocIds[i];
+        _doubleValuesSV[docId] += values[docId];
+      }
+    }
+    return _doubleValuesSV;
+  }
+
   @Override
   public BigDecimal[] transformToBigDecimalValuesSV(ValueBlock valueBlock) {
     int length = valueBlock.getNumDocs();
@@ -48,6 +48,8 @@ public abstract class BinaryOperatorTransformFunction extends BaseTransformFunct
   protected TransformFunction _rightTransformFunction;
   protected DataType _leftStoredType;
   protected DataType _rightStoredType;
+  // Numeric literal on the right side, which can be compared directly without materializing the literal array
+  private LiteralTransformFunction _rightLiteral;
 
   protected BinaryOperatorTransformFunction(TransformFunctionType transformFunctionType) {
     // translate to integer in [0, 5] for guaranteed tableswitch
@@ -91,6 +93,10 @@ public abstract class BinaryOperatorTransformFunction extends BaseTransformFunct
     _rightTransformFunction = arguments.get(1);
     _leftStoredType = _leftTransformFunction.getResultMetadata().getDataType().getStoredType();
     _rightStoredType = _rightTransformFunction.getResultMetadata().getDataType().getStoredType();
+    if (_rightTransformFunction instanceof LiteralTransformFunction && isNumeric(
+        _rightTransformFunction.getResultMetadata().getDataType())) {
+      _rightLiteral = (LiteralTransformFunction) _rightTransformFunction;
+    }
     // Data type check: left and right types should be compatible.
     if (_leftStoredType == DataType.BYTES || _rightStoredType == DataType.BYTES) {
       Preconditions.checkState(_leftStoredType == _rightStoredType, String.format(
@@ -111,6 +117,119 @@ public abstract class BinaryOperatorTransformFunction extends BaseTransformFunct
     return _intValuesSV;
   }
 
+  /**
+   * Evaluates the comparison only on the selected documents when both sides are numeric, and falls back to evaluate all
+   * the documents otherwise. When the right side is a literal, the values are compared against the literal value
+   * directly without materializing the literal array.
+   */
+  @Override
+  public int[] transformToIntValuesSV(ValueBlock valueBlock, int[] selectedDocIds, int numSelectedDocs) {
+    if (!isNumeric(_leftStoredType) || !isNumeric(_rightStoredType)) {
+      return transformToIntValuesSV(valueBlock);
+    }
+    initIntValuesSV(valueBlock.getNumDocs());
+    boolean leftIsIntegral = _leftStoredType == DataType.INT || _leftStoredType == DataType.LONG;
+    boolean rightIsIntegral = _rightStoredType == DataType.INT || _rightStoredType == DataType.LONG;
+    if (leftIsIntegral && rightIsIntegral) {
+      long[] leftValues = _leftTransformFunction.transformToLongValuesSV(valueBlock, selectedDocIds, numSelectedDocs);
+      if (_rightLiteral != null) {
+        long rightValue = getLongLiteral(_rightLiteral);
+        for (int i = 0; i < numSelectedDocs; i++) {
+          int docId = selectedDocIds[i];
+          _intValuesSV[docId] = getIntResult(Long.compare(leftValues[docId], rightValue));
+        }
+      } else {
+        long[] rightValues =
+            _rightTransformFunction.transformToLongValuesSV(valueBlock, selectedDocIds, numSelectedDocs);
+        for (int i = 0; i < numSelectedDocs; i++) {
+          int docId = selectedDocIds[i];
+          _intValuesSV[docId] = getIntResult(Long.compare(leftValues[docId], rightValues[docId]));
+        }
+      }
+    } else if (_leftStoredType == DataType.LONG) {
+      long[] leftValues = _leftTransformFunction.transformToLongValuesSV(valueBlock, selectedDocIds, numSelectedDocs);
+      if (_rightLiteral != null) {
+        double rightValue = getDoubleLiteral(_rightLiteral);
+        for (int i = 0; i < numSelectedDocs; i++) {
+          int docId = selectedDocIds[i];
+          _intValuesSV[docId] = getIntResult(compare(leftValues[docId], rightValue));
+        }
+      } else {
+        double[] rightValues =
+            _rightTransformFunction.transformToDoubleValuesSV(valueBlock, selectedDocIds, numSelectedDocs);
+        for (int i = 0; i < numSelectedDocs; i++) {
+          int docId = selectedDocIds[i];
+          _intValuesSV[docId] = getIntResult(compare(leftValues[docId], rightValues[docId]));
+        }
+      }
+    } else if (_rightStoredType == DataType.LONG) {
+      double[] leftValues =
+          _leftTransformFunction.transformToDoubleValuesSV(valueBlock, selectedDocIds, numSelectedDocs);
+      if (_rightLiteral != null) {
+        long rightValue = getLongLiteral(_rightLiteral);
+        for (int i = 0; i < numSelectedDocs; i++) {
+          int docId = selectedDocIds[i];
+          _intValuesSV[docId] = getIntResult(compare(leftValues[docId], rightValue));
+        }
+      } else {
+        long[] rightValues =
+            _rightTransformFunction.transformToLongValuesSV(valueBlock, selectedDocIds, numSelectedDocs);
+        for (int i = 0; i < numSelectedDocs; i++) {
+          int docId = selectedDocIds[i];
+          _intValuesSV[docId] = getIntResult(compare(leftValues[docId], rightValues[docId]));
+        }
+      }
+    } else {
+      // NOTE: INT and FLOAT values can be represented exactly as DOUBLE, so the result is the same as comparing them
+      //       with Integer.compare()/Float.compare()
+      double[] leftValues =
+          _leftTransformFunction.transformToDoubleValuesSV(valueBlock, selectedDocIds, numSelectedDocs);
+      if (_rightLiteral != null) {
+        double rightValue = getDoubleLiteral(_rightLiteral);
+        for (int i = 0; i < numSelectedDocs; i++) {
+          int docId = selectedDocIds[i];
+          _intValuesSV[docId] = getIntResult(Double.compare(leftValues[docId], rightValue));
+        }
+      } else {
+        double[] rightValues =
+            _rightTransformFunction.transformToDoubleValuesSV(valueBlock, selectedDocIds, numSelectedDocs);
+        for (int i = 0; i < numSelectedDocs; i++) {
+          int docId = selectedDocIds[i];
+          _intValuesSV[docId] = getIntResult(Double.compare(leftValues[docId], rightValues[docId]));
+        }
+      }
+    }
+    return _intValuesSV;
+  }
+
+  private static boolean isNumeric(DataType dataType) {
+    return dataType == DataType.INT || dataType == DataType.LONG || dataType == DataType.FLOAT
+        || dataType == DataType.DOUBLE;
+  }
+
+  /**
+   * Returns the literal value as long, matching the values returned by the literal for its data type (INT/LONG).
+   */
+  private static long getLongLiteral(LiteralTransformFunction literal) {
+    return literal.getResultMetadata().getDataType() == DataType.INT ? literal.getIntLiteral()
+        : literal.getLongLiteral();
+  }
+
+  /**
+   * Returns the literal value as double, matching the values returned by the literal for its data type
+   * (INT/LONG/FLOAT/DOUBLE).
+   */
+  private static double getDoubleLiteral(LiteralTransformFunction literal) {
+    switch (literal.getResultMetadata().getDataType()) {
+      case INT:
+        return literal.getIntLiteral();
+      case FLOAT:
+        return literal.getFloatLiteral();
+      default:
+        return literal.getDoubleLiteral();
+    }
+  }
+
   private void fillResultArray(ValueBlock valueBlock) {
     int length = valueBlock.getNumDocs();
     initIntValuesSV(length);
@@ -64,6 +64,15 @@ public class CaseTransformFunction extends ComputeDifferentlyWhenNullHandlingEna
   private boolean[] _computeThenStatements;
   private TransformResultMetadata _resultMetadata;
   private int[] _selectedResults;
+  // Documents not matched by any WHEN statement
+  private int[] _unselectedDocIds;
+  private int _numUnselectedDocs;
+  // Documents grouped by the matched WHEN statement, see groupSelectedDocIds()
+  private int[] _thenStatementDocIds;
+  private int[] _thenStatementOffsets;
+  private int[] _thenStatementCursors;
+  // Documents to be evaluated by a THEN statement
+  private int[] _selectedDocIds;
 
   @Override
   public String getName() {
@@ -84,6 +93,8 @@ public class CaseTransformFunction extends ComputeDifferentlyWhenNullHandlingEna
     _thenStatements = new ArrayList<>(numWhenStatements);
     constructStatementList(arguments);
     _computeThenStatements = new boolean[_thenStatements.size()];
+    _thenStatementOffsets = new int[_thenStatements.size() + 1];
+    _thenStatementCursors = new int[_thenStatements.size()];
     _resultMetadata = calculateResultMetadata();
   }
 
@@ -260,47 +271,54 @@ public class CaseTransformFunction extends ComputeDifferentlyWhenNullHandlingEna
   /**
    * Evaluate the ValueBlock for the WHEN statements, returns an array with the index(1 to N) of matched WHEN clause -1
    * means there is no match.
+   * <p>Each WHEN statement is only evaluated on the documents not matched by the previous WHEN statements, and the
+   * documents not matched by any WHEN statement are stored in {@link #_unselectedDocIds}.
    */
   private int[] getSelectedArray(ValueBlock valueBlock, boolean nullHandlingEnabled) {
     int numDocs = valueBlock.getNumDocs();
     if (_selectedResults == null || _selectedResults.length < numDocs) {
       _selectedResults = new int[numDocs];
+      _unselectedDocIds = new int[numDocs];
+      _thenStatementDocIds = new int[numDocs];
+      _selectedDocIds = new int[numDocs];
     }
     Arrays.fill(_selectedResults, -1);
     Arrays.fill(_computeThenStatements, false);
-    BitSet unselectedDocs = new BitSet();
-    unselectedDocs.set(0, numDocs);
+    for (int docId = 0; docId < numDocs; docId++) {
+      _unselectedDocIds[docId] = docId;
+    }
+    int numUnselectedDocs = numDocs;
     int numWhenStatements = _whenStatements.size();
-    for (int i = 0; i < numWhenStatements; i++) {
+    for (int i = 0; i < numWhenStatements && numUnselectedDocs > 0; i++) {
       TransformFunction whenStatement = _whenStatements.get(i);
-      int[] conditions = getWhenConditions(whenStatement, valueBlock, nullHandlingEnabled);
-      for (int docId = unselectedDocs.nextSetBit(0); docId >= 0; docId = unselectedDocs.nextSetBit(docId + 1)) {
+      int[] conditions =
+          getWhenConditions(whenStatement, valueBlock, _unselectedDocIds, numUnselectedDocs, nullHandlingEnabled);
+      int numRemainingDocs = 0;
+      for (int j = 0; j < numUnselectedDocs; j++) {
+        int docId = _unselectedDocIds[j];
         if (conditions[docId] == 1) {
-          unselectedDocs.clear(docId);
           _selectedResults[docId] = i;
+          _computeThenStatements[i] = true;
+        } else {
+          _unselectedDocIds[numRemainingDocs++] = docId;
         }
       }
-      if (unselectedDocs.isEmpty()) {
-        break;
-      }
-    }
-    // try to prune clauses now
-    for (int i = 0; i < numDocs; i++) {
-      if (_selectedResults[i] != -1) {
-        _computeThenStatements[_selectedResults[i]] = true;
-      }
+      numUnselectedDocs = numRemainingDocs;
     }
+    _numUnselectedDocs = numUnselectedDocs;
     return _selectedResults;
   }
 
-  // Returns an array of valueBlock length to indicate whether a row is selected or not.
+  // Returns an array of valueBlock length to indicate whether a row is selected or not. Only the values for the given
+  // documents are computed.
   // When nullHandlingEnabled is set to true, we also check whether the row is null and set to false if null.
-  private static int[] getWhenConditions(TransformFunction whenStatement, ValueBlock valueBlock,
-      boolean nullHandlingEnabled) {
+  private static int[] getWhenConditions(TransformFunction whenStatement, ValueBlock valueBlock, int[] docIds,
+      int numDocs, boolean nullHandlingEnabled) {
+    int[] intResult = numDocs == valueBlock.getNumDocs() ? whenStatement.transformToIntValuesSV(valueBlock)
+        : whenStatement.transformToIntValuesSV(valueBlock, docIds, numDocs);
     if (!nullHandlingEnabled) {
-      return whenStatement.transformToIntValuesSV(valueBlock);
+      return intResult;
     }
-    int[] intResult = whenStatement.transformToIntValuesSV(valueBlock);
     RoaringBitmap bitmap = whenStatement.getNullBitmap(valueBlock);
     if (bitmap != null) {
       for (int i : bitmap) {
@@ -310,35 +328,71 @@ public class CaseTransformFunction extends ComputeDifferentlyWhenNullHandlingEna
     return intResult;
   }
 
+  /**
+   * Groups the documents matched by the WHEN statements by the index of the matched WHEN statement, where the
+   * documents for the i-th THEN statement are stored in range [_thenStatementOffsets[i], _thenStatementOffsets[i + 1])
+   * of {@link #_thenStatementDocIds}. Should be called after {@link #getSelectedArray(ValueBlock, boolean)}.
+   */
+  private void groupSelectedDocIds(int numDocs) {
+    int numThenStatements = _thenStatements.size();
+    Arrays.fill(_thenStatementOffsets, 0);
+    for (int docId = 0; docId < numDocs; docId++) {
+      int selected = _selectedResults[docId];
+      if (selected >= 0) {
+        _thenStatementOffsets[selected + 1]++;
+      }
+    }
+    for (int i = 0; i < numThenStatements; i++) {
+      _thenStatementOffsets[i + 1] += _thenStatementOffsets[i];
+    }
+    System.arraycopy(_thenStatementOffsets, 0, _thenStatementCursors, 0, numThenStatements);
+    for (int docId = 0; docId < numDocs; docId++) {
+      int selected = _selectedResults[docId];
+      if (selected >= 0) {
+        _thenStatementDocIds[_thenStatementCursors[selected]++] = docId;
+      }
+    }
+  }
+
+  /**
+   * Copies the documents for the given THEN statement into {@link #_selectedDocIds}, and returns the number of them.
+   * Should be called after {@link #groupSelectedDocIds(int)}.
+   */
+  private int getSelectedDocIds(int thenStatementIndex) {
+    int startOffset = _thenStatementOffsets[thenStatementIndex];
+    int numSelectedDocs = _thenStatementOffsets[thenStatementIndex + 1] - startOffset;
+    System.arraycopy(_thenStatementDocIds, startOffset, _selectedDocIds, 0, numSelectedDocs);
+    return numSelectedDocs;
+  }
+
   @Override
   protected int[] transformToIntValuesSVUsingValue(ValueBlock valueBlock) {
-    int[] selected = getSelectedArray(valueBlock, false);
+    getSelectedArray(valueBlock, false);
     int numDocs = valueBlock.getNumDocs();
     initIntValuesSV(numDocs);
+    groupSelectedDocIds(numDocs);
     int numThenStatements = _thenStatements.size();
-    BitSet unselectedDocs = new BitSet();
-    unselectedDocs.set(0, numDocs);
-    Map<Integer, int[]> thenStatementsIndexToValues = new HashMap<>();
     for (int i = 0; i < numThenStatements; i++) {
-      if (_computeThenStatements[i]) {
-        thenStatementsIndexToValues.put(i, _thenStatements.get(i).transformToIntValuesSV(valueBlock));
-      }
-    }
-    for (int docId = 0; docId < numDocs; docId++) {
-      if (selected[docId] >= 0) {
-        _intValuesSV[docId] = thenStatementsIndexToValues.get(selected[docId])[docId];
-        unselectedDocs.clear(docId);
+      int numSelectedDocs = getSelectedDocIds(i);
+      if (numSelectedDocs > 0) {
+        int[] values = _thenStatements.get(i).transformToIntValuesSV(valueBlock, _selectedDocIds, numSelectedDocs);
+        for (int j = 0; j < numSelectedDocs; j++) {
+          int docId = _selectedDocIds[j];
+          _intValuesSV[docId] = values[docId];
+        }
       }
     }
-    if (!unselectedDocs.isEmpty()) {
+    if (_numUnselectedDocs > 0) {
       if (_elseStatement == null) {
-        for (int docId = unselectedDocs.nextSetBit(0); docId >= 0; docId = unselectedDocs.nextSetBit(docId + 1)) {
-          _intValuesSV[docId] = (int) DataSchema.ColumnDataType.INT.getNullPlaceholder();
+        int nullPlaceholder = (int) DataSchema.ColumnDataType.INT.getNullPlaceholder();
+        for (int j = 0; j < _numUnselectedDocs; j++) {
+          _intValuesSV[_unselectedDocIds[j]] = nullPlaceholder;
         }
       } else {
-        int[] intValuesSV = _elseStatement.transformToIntValuesSV(valueBlock);
-        for (int docId = unselectedDocs.nextSetBit(0); docId >= 0; docId = unselectedDocs.nextSetBit(docId + 1)) {
-          _intValuesSV[docId] = intValuesSV[docId];
+        int[] values = _elseStatement.transformToIntValuesSV(valueBlock, _unselectedDocIds, _numUnselectedDocs);
+        for (int j = 0; j < _numUnselectedDocs; j++) {
+          int docId = _unselectedDocIds[j];
+          _intValuesSV[docId] = values[docId];
         }
       }
     }
@@ -397,33 +451,32 @@ public class CaseTransformFunction extends ComputeDifferentlyWhenNullHandlingEna
 
   @Override
   protected long[] transformToLongValuesSVUsingValue(ValueBlock valueBlock) {
-    int[] selected = getSelectedArray(valueBlock, false);
+    getSelectedArray(valueBlock, false);
     int numDocs = valueBlock.getNumDocs();
     initLongValuesSV(numDocs);
+    groupSelectedDocIds(numDocs);
     int numThenStatements = _thenStatements.size();
-    BitSet unselectedDocs = new BitSet();
-    unselectedDocs.set(0, numDocs);
-    Map<Integer, long[]> thenStatementsIndexToValues = new HashMap<>();
     for (int i = 0; i < numThenStatements; i++) {
-      if (_computeThenStatements[i]) {
-        thenStatementsIndexToValues.put(i, _thenStatements.get(i).transformToLongValuesSV(valueBlock));
-      }
-    }
-    for (int docId = 0; docId < numDocs; docId++) {
-      if (selected[docId] >= 0) {
-        _longValuesSV[docId] = thenStatementsIndexToValues.get(selected[docId])[docId];
-        unselectedDocs.clear(docId);
+      int numSelectedDocs = getSelectedDocIds(i);
+      if (numSelectedDocs > 0) {
+        long[] values = _thenStatements.get(i).transformToLongValuesSV(valueBlock, _selectedDocIds, numSelectedDocs);
+        for (int j = 0; j < numSelectedDocs; j++) {
+          int docId = _selectedDocIds[j];
+          _longValuesSV[docId] = values[docId];
+        }
       }
     }
-    if (!unselectedDocs.isEmpty()) {
+    if (_numUnselectedDocs > 0) {
       if (_elseStatement == null) {
-        for (int docId = unselectedDocs.nextSetBit(0); docId >= 0; docId = unselectedDocs.nextSetBit(docId + 1)) {
-          _longValuesSV[docId] = (long) DataSchema.ColumnDataType.LONG.getNullPlaceholder();
+        long nullPlaceholder = (long) DataSchema.ColumnDataType.LONG.getNullPlaceholder();
+        for (int j = 0; j < _numUnselectedDocs; j++) {
+          _longValuesSV[_unselectedDocIds[j]] = nullPlaceholder;
         }
       } else {
-        long[] longValuesSV = _elseStatement.transformToLongValuesSV(valueBlock);
-        for (int docId = unselectedDocs.nextSetBit(0); docId >= 0; docId = unselectedDocs.nextSetBit(docId + 1)) {
-          _longValuesSV[docId] = longValuesSV[docId];
+        long[] values = _elseStatement.transformToLongValuesSV(valueBlock, _unselectedDocIds, _numUnselectedDocs);
+        for (int j = 0; j < _numUnselectedDocs; j++) {
+          int docId = _unselectedDocIds[j];
+          _longValuesSV[docId] = values[docId];
         }
       }
     }
@@ -482,33 +535,32 @@ public class CaseTransformFunction extends ComputeDifferentlyWhenNullHandlingEna
 
   @Override
   protected float[] transformToFloatValuesSVUsingValue(ValueBlock valueBlock) {
-    int[] selected = getSelectedArray(valueBlock, false);
+    getSelectedArray(valueBlock, false);
     int numDocs = valueBlock.getNumDocs();
     initFloatValuesSV(numDocs);
+    groupSelectedDocIds(numDocs);
     int numThenStatements = _thenStatements.size();
-    BitSet unselectedDocs = new BitSet();
-    unselectedDocs.set(0, numDocs);
-    Map<Integer, float[]> thenStatementsIndexToValues = new HashMap<>();
     for (int i = 0; i < numThenStatements; i++) {
-      if (_computeThenStatements[i]) {
-        thenStatementsIndexToValues.put(i, _thenStatements.get(i).transformToFloatValuesSV(valueBlock));
-      }
-    }
-    for (int docId = 0; docId < numDocs; docId++) {
-      if (selected[docId] >= 0) {
-        _floatValuesSV[docId] = thenStatementsIndexToValues.get(selected[docId])[docId];
-        unselectedDocs.clear(docId);
+      int numSelectedDocs = getSelectedDocIds(i);
+      if (numSelectedDocs > 0) {
+        float[] values = _thenStatements.get(i).transformToFloatValuesSV(valueBlock, _selectedDocIds, numSelectedDocs);
+        for (int j = 0; j < numSelectedDocs; j++) {
+          int docId = _selectedDocIds[j];
+          _floatValuesSV[docId] = values[docId];
+        }
       }
     }
-    if (!unselectedDocs.isEmpty()) {
+    if (_numUnselectedDocs > 0) {
       if (_elseStatement == null) {
-        for (int docId = unselectedDocs.nextSetBit(0); docId >= 0; docId = unselectedDocs.nextSetBit(docId + 1)) {
-          _floatValuesSV[docId] = (float) DataSchema.ColumnDataType.FLOAT.getNullPlaceholder();
+        float nullPlaceholder = (float) DataSchema.ColumnDataType.FLOAT.getNullPlaceholder();
+        for (int j = 0; j < _numUnselectedDocs; j++) {
+          _floatValuesSV[_unselectedDocIds[j]] = nullPlaceholder;
         }
       } else {
-        float[] floatValuesSV = _elseStatement.transformToFloatValuesSV(valueBlock);
-        for (int docId = unselectedDocs.nextSetBit(0); docId >= 0; docId = unselectedDocs.nextSetBit(docId + 1)) {
-          _floatValuesSV[docId] = floatValuesSV[docId];
+        float[] values = _elseStatement.transformToFloatValuesSV(valueBlock, _unselectedDocIds, _numUnselectedDocs);
+        for (int j = 0; j < _numUnselectedDocs; j++) {
+          int docId = _unselectedDocIds[j];
+          _floatValuesSV[docId] = values[docId];
         }
       }
     }
@@ -567,33 +619,33 @@ public class CaseTransformFunction extends ComputeDifferentlyWhenNullHandlingEna
 
   @Override
   protected double[] transformToDoubleValuesSVUsingValue(ValueBlock valueBlock) {
-    int[] selected = getSelectedArray(valueBlock, false);
+    getSelectedArray(valueBlock, false);
     int numDocs = valueBlock.getNumDocs();
     initDoubleValuesSV(numDocs);
+    groupSelectedDocIds(numDocs);
     int numThenStatements = _thenStatements.size();
-    BitSet unselectedDocs = new BitSet();
-    unselectedDocs.set(0, numDocs);
-    Map<Integer, double[]> thenStatementsIndexToValues = new HashMap<>();
     for (int i = 0; i < numThenStatements; i++) {
-      if (_computeThenStatements[i]) {
-        thenStatementsIndexToValues.put(i, _thenStatements.get(i).transformToDoubleValuesSV(valueBlock));
-      }
-    }
-    for (int docId = 0; docId < numDocs; docId++) {
-      if (selected[docId] >= 0) {
-        _doubleValuesSV[docId] = thenStatementsIndexToValues.get(selected[docId])[docId];
-        unselectedDocs.clear(docId);
+      int numSelectedDocs = getSelectedDocIds(i);
+      if (numSelectedDocs > 0) {
+        double[] values =
+            _thenStatements.get(i).transformToDoubleValuesSV(valueBlock, _selectedDocIds, numSelectedDocs);
+        for (int j = 0; j < numSelectedDocs; j++) {
+          int docId = _selectedDocIds[j];
+          _doubleValuesSV[docId] = values[docId];
+        }
       }
     }
-    if (!unselectedDocs.isEmpty()) {
+    if (_numUnselectedDocs > 0) {
       if (_elseStatement == null) {
-        for (int docId = unselectedDocs.nextSetBit(0); docId >= 0; docId = unselectedDocs.nextSetBit(docId + 1)) {
-          _doubleValuesSV[docId] = (double) DataSchema.ColumnDataType.DOUBLE.getNullPlaceholder();
+        double nullPlaceholder = (double) DataSchema.ColumnDataType.DOUBLE.getNullPlaceholder();
+        for (int j = 0; j < _numUnselectedDocs; j++) {
+          _doubleValuesSV[_unselectedDocIds[j]] = nullPlaceholder;
         }
       } else {
-        float[] doubleValuesSV = _elseStatement.transformToFloatValuesSV(valueBlock);
-        for (int docId = unselectedDocs.nextSetBit(0); docId >= 0; docId = unselectedDocs.nextSetBit(docId + 1)) {
-          _doubleValuesSV[docId] = doubleValuesSV[docId];
+        double[] values = _elseStatement.transformToDoubleValuesSV(valueBlock, _unselectedDocIds, _numUnselectedDocs);
+        for (int j = 0; j < _numUnselectedDocs; j++) {
+          int docId = _unselectedDocIds[j];
+          _doubleValuesSV[docId] = values[docId];
         }
       }
     }
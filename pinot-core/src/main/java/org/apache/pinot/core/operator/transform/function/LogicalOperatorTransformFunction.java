@@ -34,6 +34,7 @@ import org.glassfish.jersey.internal.guava.Preconditions;
  */
 public abstract class LogicalOperatorTransformFunction extends BaseTransformFunction {
   protected List<TransformFunction> _arguments;
+  private int[] _undecidedDocIds;
 
   @Override
   public void init(List<TransformFunction> arguments, Map<String, ColumnContext> columnContextMap) {
@@ -75,5 +76,38 @@ public abstract class LogicalOperatorTransformFunction extends BaseTransformFunc
     return _intValuesSV;
   }
 
+  /**
+   * Short-circuits the evaluation: each argument is only evaluated on the selected documents whose result is not
+   * decided by the previous arguments yet (e.g. documents with {@code false} result are skipped for AND).
+   */
+  @Override
+  public int[] transformToIntValuesSV(ValueBlock valueBlock, int[] selectedDocIds, int numSelectedDocs) {
+    initIntValuesSV(valueBlock.getNumDocs());
+    if (_undecidedDocIds == null || _undecidedDocIds.length < numSelectedDocs) {
+      _undecidedDocIds = new int[numSelectedDocs];
+    }
+    int[] undecidedDocIds = selectedDocIds;
+    int numUndecidedDocs = numSelectedDocs;
+    int numArguments = _arguments.size();
+    for (int i = 0; i < numArguments && numUndecidedDocs > 0; i++) {
+      int[] results = _arguments.get(i).transformToIntValuesSV(valueBlock, undecidedDocIds, numUndecidedDocs);
+      boolean lastArgument = i == numArguments - 1;
+      int numRemainingDocs = 0;
+      for (int j = 0; j < numUndecidedDocs; j++) {
+        int docId = undecidedDocIds[j];
+        // NOTE: Normalize the result of the first argument the same way as the full evaluation
+        int result = i == 0 ? getLogicalFuncResult(results[docId], results[docId])
+            : getLogicalFuncResult(_intValuesSV[docId], results[docId]);
+        _intValuesSV[docId] = result;
+        if (!lastArgument && getLogicalFuncResult(result, 0) != getLogicalFuncResult(result, 1)) {
+          _undecidedDocIds[numRemainingDocs++] = docId;
+        }
+      }
+      undecidedDocIds = _undecidedDocIds;
+      numUndecidedDocs = numRemainingDocs;
+    }
+    return _intValuesSV;
+  }
+
   abstract int getLogicalFuncResult(int left, int right);
 }
@@ -123,6 +123,39 @@ public class SubtractionTransformFunction extends BaseTransformFunction {
     return _doubleValuesSV;
   }
 
+  @SuppressWarnings("Duplicates")
+  @Override
+  public double[] transformToDoubleValuesSV(ValueBlock valueBlock, int[] selectedDocIds, int numSelectedDocs) {
+    if (_resultDataType == DataType.BIG_DECIMAL) {
+      return transformToDoubleValuesSV(valueBlock);
+    }
+    initDoubleValuesSV(valueBlock.getNumDocs());
+    if (_firstTransformFunction == null) {
+      for (int i = 0; i < numSelectedDocs; i++) {
+        _doubleValuesSV[selectedDocIds[i]] = _doubleLiterals[0];
+      }
+    } else {
+      double[] values = _firstTransformFunction.transformToDoubleValuesSV(valueBlock, selectedDocIds, numSelectedDocs);
+      for (int i = 0; i < numSelectedDocs; i++) {
+        int docId = selectedDocIds[i];
+        _doubleValuesSV[docId] = values[docId];
+      }
+    }
+    if (_secondTransformFunction == null) {
+      for (int i = 0; i < numSelectedDocs; i++) {
+        _doubleValuesSV[selectedDocIds[i]] -= _doubleLiterals[1];
+      }
+    } else {
+      double[] values =
+          _secondTransformFunction.transformToDoubleValuesSV(valueBlock, selectedDocIds, numSelectedDocs);
+      for (int i = 0; i < numSelectedDocs; i++) {
+        int docId = selectedDocIds[i];
+        _doubleValuesSV[docId] -= values[docId];
+      }
+    }
+    return _doubleValuesSV;
+  }
+
   @Override
   public BigDecimal[] transformToBigDecimalValuesSV(ValueBlock valueBlock) {
     int length = valueBlock.getNumDocs();
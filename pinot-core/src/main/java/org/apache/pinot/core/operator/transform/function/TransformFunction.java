@@ -128,6 +128,43 @@ public interface TransformFunction {
    */
   byte[][] transformToBytesValuesSV(ValueBlock valueBlock);
 
+  /**
+   * SELECTION-AWARE SINGLE-VALUED APIs
+   * <p>Only the values for the selected documents are guaranteed to be computed, where the selected documents are the
+   * first {@code numSelectedDocs} entries of {@code selectedDocIds} (indexes into the value block, in ascending order).
+   * The values for the other documents in the returned array are undefined.
+   * <p>The default implementations compute the values for all the documents. Transform functions that can skip the
+   * unselected documents should override them.
+   */
+
+  /**
+   * Transforms the data from the given value block to single-valued int values for the selected documents.
+   */
+  default int[] transformToIntValuesSV(ValueBlock valueBlock, int[] selectedDocIds, int numSelectedDocs) {
+    return transformToIntValuesSV(valueBlock);
+  }
+
+  /**
+   * Transforms the data from the given value block to single-valued long values for the selected documents.
+   */
+  default long[] transformToLongValuesSV(ValueBlock valueBlock, int[] selectedDocIds, int numSelectedDocs) {
+    return transformToLongValuesSV(valueBlock);
+  }
+
+  /**
+   * Transforms the data from the given value block to single-valued float values for the selected documents.
+   */
+  default float[] transformToFloatValuesSV(ValueBlock valueBlock, int[] selectedDocIds, int numSelectedDocs) {
+    return transformToFloatValuesSV(valueBlock);
+  }
+
+  /**
+   * Transforms the data from the given value block to single-valued double values for the selected documents.
+   */
+  default double[] transformToDoubleValuesSV(ValueBlock valueBlock, int[] selectedDocIds, int numSelectedDocs) {
+    return transformToDoubleValuesSV(valueBlock);
+  }
+
   /**
    * MULTI-VALUED APIs
    */
@@ -18,15 +18,23 @@
  */
 package org.apache.pinot.core.plan;
 
+import java.util.Collection;
 import javax.annotation.Nullable;
 import org.apache.pinot.core.operator.DocIdSetOperator;
 import org.apache.pinot.core.operator.filter.BaseFilterOperator;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.datasource.DataSource;
+import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
 
 
 public class DocIdSetPlanNode implements PlanNode {
   public static final int MAX_DOC_PER_CALL = 10_000;
+  // Lower bound of the adaptive block size to keep the per-block overhead bounded for very wide projections
+  public static final int MIN_DOC_PER_CALL = 1_000;
+  // Estimated size of a variable width (STRING, BYTES, BIG_DECIMAL) value used for the adaptive block sizing
+  public static final int ESTIMATED_VARIABLE_WIDTH_VALUE_SIZE = 32;
 
   private final IndexSegment _indexSegment;
   private final QueryContext _queryContext;
@@ -43,6 +51,47 @@ public class DocIdSetPlanNode implements PlanNode {
     _filterOperator = filterOperator;
   }
 
+  /**
+   * Returns the maximum number of documents per block for the given query when projecting the given columns.
+   * <ul>
+   *   <li>When the query overrides it with the {@code maxDocsPerBlock} query option, uses the override</li>
+   *   <li>When the adaptive block sizing is enabled, fits the projected values of a block into the target block size
+   *   based on the number and width of the projected columns</li>
+   *   <li>Otherwise, uses {@link #MAX_DOC_PER_CALL}</li>
+   * </ul>
+   * The returned value is always within (0, {@link #MAX_DOC_PER_CALL}] as the block level buffers are sized to
+   * {@link #MAX_DOC_PER_CALL}.
+   */
+  public static int getMaxDocPerCall(QueryContext queryContext, Collection<DataSource> dataSources) {
+    int maxDocsPerBlock = queryContext.getMaxDocsPerBlock();
+    if (maxDocsPerBlock > 0) {
+      return Math.min(maxDocsPerBlock, MAX_DOC_PER_CALL);
+    }
+    int targetBlockSizeBytes = queryContext.getTargetBlockSizeBytes();
+    if (targetBlockSizeBytes <= 0) {
+      return MAX_DOC_PER_CALL;
+    }
+    long bytesPerDoc = 0;
+    for (DataSource dataSource : dataSources) {
+      DataSourceMetadata dataSourceMetadata = dataSource.getDataSourceMetadata();
+      DataType storedType = dataSourceMetadata.getDataType().getStoredType();
+      int bytesPerValue = storedType.isFixedWidth() ? storedType.size() : ESTIMATED_VARIABLE_WIDTH_VALUE_SIZE;
+      if (dataSource.getDictionary() != null) {
+        // Dictionary ids are fetched in addition to the values
+        bytesPerValue += Integer.BYTES;
+      }
+      if (dataSourceMetadata.isSingleValue()) {
+        bytesPerDoc += bytesPerValue;
+      } else {
+        bytesPerDoc += (long) bytesPerValue * Math.max(dataSourceMetadata.getMaxNumValuesPerMVEntry(), 1);
+      }
+    }
+    if (bytesPerDoc == 0) {
+      return MAX_DOC_PER_CALL;
+    }
+    return (int) Math.max(Math.min(targetBlockSizeBytes / bytesPerDoc, MAX_DOC_PER_CALL), MIN_DOC_PER_CALL);
+  }
+
   @Override
   public DocIdSetOperator run() {
     return new DocIdSetOperator(
@@ -74,9 +74,12 @@ public class ProjectPlanNode implements PlanNode {
     Map<String, DataSource> dataSourceMap = new HashMap<>(HashUtil.getHashMapCapacity(projectionColumns.size()));
     projectionColumns.forEach(column -> dataSourceMap.put(column, _indexSegment.getDataSource(column)));
     // NOTE: Skip creating DocIdSetOperator when maxDocsPerCall is 0 (for selection query with LIMIT 0)
-    DocIdSetOperator docIdSetOperator =
-        _maxDocsPerCall > 0 ? new DocIdSetPlanNode(_indexSegment, _queryContext, _maxDocsPerCall, _filterOperator).run()
-            : null;
+    DocIdSetOperator docIdSetOperator = null;
+    if (_maxDocsPerCall > 0) {
+      int maxDocsPerCall =
+          Math.min(_maxDocsPerCall, DocIdSetPlanNode.getMaxDocPerCall(_queryContext, dataSourceMap.values()));
+      docIdSetOperator = new DocIdSetPlanNode(_indexSegment, _queryContext, maxDocsPerCall, _filterOperator).run();
+    }
     ProjectionOperator projectionOperator =
         ProjectionOperatorUtils.getProjectionOperator(dataSourceMap, docIdSetOperator);
     return hasNonIdentifierExpression ? new TransformOperator(_queryContext, projectionOperator, _expressions)
@@ -86,6 +86,18 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   // set as pinot.server.query.executor.groupby.trim.threshold
   public static final String GROUPBY_TRIM_THRESHOLD_KEY = "groupby.trim.threshold";
   public static final int DEFAULT_GROUPBY_TRIM_THRESHOLD = 1_000_000;
+  // Instance config key for the number of partitions used by the lock-free partitioned group-by combine, where each
+  // combine task pre-aggregates into its own partitioned maps which are then merged per partition in parallel.
+  // Non-positive value disables it, and the combine uses a single concurrent indexed table.
+  // Set as pinot.server.query.executor.groupby.combine.num.partitions
+  public static final String GROUPBY_COMBINE_NUM_PARTITIONS_KEY = "groupby.combine.num.partitions";
+  public static final int DEFAULT_GROUPBY_COMBINE_NUM_PARTITIONS = 0;
+  // Instance config key for the target size in bytes of the projected values within a block, which is used to size the
+  // blocks based on the number and width of the projected columns (capped by DocIdSetPlanNode.MAX_DOC_PER_CALL).
+  // Non-positive value disables the adaptive sizing, and blocks hold up to DocIdSetPlanNode.MAX_DOC_PER_CALL docs.
+  // Set as pinot.server.query.executor.target.block.size.bytes
+  public static final String TARGET_BLOCK_SIZE_BYTES_KEY = "target.block.size.bytes";
+  public static final int DEFAULT_TARGET_BLOCK_SIZE_BYTES = 1024 * 1024;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(InstancePlanMakerImplV2.class);
 
@@ -98,6 +110,8 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   private int _minSegmentGroupTrimSize = DEFAULT_MIN_SEGMENT_GROUP_TRIM_SIZE;
   private int _minServerGroupTrimSize = DEFAULT_MIN_SERVER_GROUP_TRIM_SIZE;
   private int _groupByTrimThreshold = DEFAULT_GROUPBY_TRIM_THRESHOLD;
+  private int _groupByCombineNumPartitions = DEFAULT_GROUPBY_COMBINE_NUM_PARTITIONS;
+  private int _targetBlockSizeBytes = DEFAULT_TARGET_BLOCK_SIZE_BYTES;
 
   public InstancePlanMakerImplV2() {
   }
@@ -128,10 +142,15 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     _groupByTrimThreshold = queryExecutorConfig.getProperty(GROUPBY_TRIM_THRESHOLD_KEY, DEFAULT_GROUPBY_TRIM_THRESHOLD);
     Preconditions.checkState(_groupByTrimThreshold > 0,
         "Invalid configurable: groupByTrimThreshold: %d must be positive", _groupByTrimThreshold);
+    _groupByCombineNumPartitions =
+        queryExecutorConfig.getProperty(GROUPBY_COMBINE_NUM_PARTITIONS_KEY, DEFAULT_GROUPBY_COMBINE_NUM_PARTITIONS);
+    _targetBlockSizeBytes =
+        queryExecutorConfig.getProperty(TARGET_BLOCK_SIZE_BYTES_KEY, DEFAULT_TARGET_BLOCK_SIZE_BYTES);
     LOGGER.info("Initialized plan maker with maxExecutionThreads: {}, maxInitialResultHolderCapacity: {}, "
-            + "numGroupsLimit: {}, minSegmentGroupTrimSize: {}, minServerGroupTrimSize: {}, groupByTrimThreshold: {}",
-        _maxExecutionThreads, _maxInitialResultHolderCapacity, _numGroupsLimit, _minSegmentGroupTrimSize,
-        _minServerGroupTrimSize, _groupByTrimThreshold);
+            + "numGroupsLimit: {}, minSegmentGroupTrimSize: {}, minServerGroupTrimSize: {}, groupByTrimThreshold: {}, "
+            + "groupByCombineNumPartitions: {}, targetBlockSizeBytes: {}", _maxExecutionThreads,
+        _maxInitialResultHolderCapacity, _numGroupsLimit, _minSegmentGroupTrimSize, _minServerGroupTrimSize,
+        _groupByTrimThreshold, _groupByCombineNumPartitions, _targetBlockSizeBytes);
   }
 
   @Override
@@ -191,6 +210,13 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     }
     queryContext.setMaxExecutionThreads(maxExecutionThreads);
 
+    // Set block sizing
+    Integer maxDocsPerBlock = QueryOptionsUtils.getMaxDocsPerBlock(queryOptions);
+    if (maxDocsPerBlock != null) {
+      queryContext.setMaxDocsPerBlock(maxDocsPerBlock);
+    }
+    queryContext.setTargetBlockSizeBytes(_targetBlockSizeBytes);
+
     // Set group-by query options
     if (QueryContextUtils.isAggregationQuery(queryContext) && queryContext.getGroupByExpressions() != null) {
       // Set maxInitialResultHolderCapacity
@@ -226,6 +252,13 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
       } else {
         queryContext.setGroupTrimThreshold(_groupByTrimThreshold);
       }
+      // Set groupByCombineNumPartitions
+      Integer groupByCombineNumPartitions = QueryOptionsUtils.getGroupByCombineNumPartitions(queryOptions);
+      if (groupByCombineNumPartitions != null) {
+        queryContext.setGroupByCombineNumPartitions(groupByCombineNumPartitions);
+      } else {
+        queryContext.setGroupByCombineNumPartitions(_groupByCombineNumPartitions);
+      }
     }
   }
 
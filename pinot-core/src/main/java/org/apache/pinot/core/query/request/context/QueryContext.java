@@ -119,6 +119,12 @@ public class QueryContext {
   private int _minServerGroupTrimSize = InstancePlanMakerImplV2.DEFAULT_MIN_SERVER_GROUP_TRIM_SIZE;
   // Trim threshold to use for server combine for SQL GROUP BY
   private int _groupTrimThreshold = InstancePlanMakerImplV2.DEFAULT_GROUPBY_TRIM_THRESHOLD;
+  // Number of partitions for the lock-free partitioned server combine for SQL GROUP BY, non-positive to disable
+  private int _groupByCombineNumPartitions = InstancePlanMakerImplV2.DEFAULT_GROUPBY_COMBINE_NUM_PARTITIONS;
+  // Maximum number of documents per block, non-positive to size the blocks based on the projected columns
+  private int _maxDocsPerBlock;
+  // Target size in bytes of the projected values within a block, non-positive to disable the adaptive block sizing
+  private int _targetBlockSizeBytes = InstancePlanMakerImplV2.DEFAULT_TARGET_BLOCK_SIZE_BYTES;
   // Whether null handling is enabled
   private boolean _nullHandlingEnabled;
   // Whether server returns the final result
@@ -386,6 +392,30 @@ public class QueryContext {
     _groupTrimThreshold = groupTrimThreshold;
   }
 
+  public int getGroupByCombineNumPartitions() {
+    return _groupByCombineNumPartitions;
+  }
+
+  public void setGroupByCombineNumPartitions(int groupByCombineNumPartitions) {
+    _groupByCombineNumPartitions = groupByCombineNumPartitions;
+  }
+
+  public int getMaxDocsPerBlock() {
+    return _maxDocsPerBlock;
+  }
+
+  public void setMaxDocsPerBlock(int maxDocsPerBlock) {
+    _maxDocsPerBlock = maxDocsPerBlock;
+  }
+
+  public int getTargetBlockSizeBytes() {
+    return _targetBlockSizeBytes;
+  }
+
+  public void setTargetBlockSizeBytes(int targetBlockSizeBytes) {
+    _targetBlockSizeBytes = targetBlockSizeBytes;
+  }
+
   public boolean isNullHandlingEnabled() {
     return _nullHandlingEnabled;
   }
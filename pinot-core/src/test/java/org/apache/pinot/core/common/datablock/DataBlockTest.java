@@ -23,9 +23,12 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import org.apache.pinot.common.datablock.ColumnEncodingUtils;
 import org.apache.pinot.common.datablock.ColumnarDataBlock;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.datablock.DataBlockUtils;
+import org.apache.pinot.common.datablock.EncodedColumnarDataBlock;
 import org.apache.pinot.common.datablock.RowDataBlock;
 import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.response.ProcessingException;
@@ -92,6 +95,121 @@ public class DataBlockTest {
     }
   }
 
+  @Test(dataProvider = "testTypeNullPercentile")
+  public void testByteBuffersSerDe(int nullPercentile)
+      throws Exception {
+    DataSchema.ColumnDataType[] allDataTypes = DataSchema.ColumnDataType.values();
+    List<DataSchema.ColumnDataType> columnDataTypes = new ArrayList<DataSchema.ColumnDataType>();
+    List<String> columnNames = new ArrayList<String>();
+    for (int i = 0; i < allDataTypes.length; i++) {
+      if (!EXCLUDE_DATA_TYPES.contains(allDataTypes[i])) {
+        columnNames.add(allDataTypes[i].name());
+        columnDataTypes.add(allDataTypes[i]);
+      }
+    }
+
+    DataSchema dataSchema = new DataSchema(columnNames.toArray(new String[]{}),
+        columnDataTypes.toArray(new DataSchema.ColumnDataType[]{}));
+    List<Object[]> rows = DataBlockTestUtils.getRandomRows(dataSchema, TEST_ROW_COUNT, nullPercentile);
+    RowDataBlock rowBlock = DataBlockBuilder.buildFromRows(rows, dataSchema);
+    byte[] bytes = rowBlock.toBytes();
+
+    // The concatenated buffers should be the same as the serialized bytes
+    ByteBuffer concatenated = ByteBuffer.allocate(bytes.length);
+    for (ByteBuffer byteBuffer : rowBlock.toByteBuffers()) {
+      concatenated.put(byteBuffer);
+    }
+    Assert.assertEquals(concatenated.array(), bytes);
+
+    // Heap buffers are deserialized without copying, direct buffers are copied, both should read the same values
+    DataBlock heapBlock = DataBlockUtils.getDataBlock(ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+    ByteBuffer directBuffer = ByteBuffer.allocateDirect(bytes.length);
+    directBuffer.put(bytes);
+    directBuffer.flip();
+    DataBlock directBlock = DataBlockUtils.getDataBlock(directBuffer);
+    for (int colId = 0; colId < dataSchema.getColumnNames().length; colId++) {
+      DataSchema.ColumnDataType columnDataType = dataSchema.getColumnDataType(colId);
+      for (int rowId = 0; rowId < TEST_ROW_COUNT; rowId++) {
+        Object rowVal = DataBlockTestUtils.getElement(rowBlock, rowId, colId, columnDataType);
+        Assert.assertEquals(DataBlockTestUtils.getElement(heapBlock, rowId, colId, columnDataType), rowVal);
+        Assert.assertEquals(DataBlockTestUtils.getElement(directBlock, rowId, colId, columnDataType), rowVal);
+      }
+    }
+
+    // A block deserialized without copying should serialize back to the same bytes
+    Assert.assertEquals(heapBlock.toBytes(), bytes);
+    Assert.assertEquals(directBlock.toBytes(), bytes);
+  }
+
+  @Test(dataProvider = "testTypeNullPercentile")
+  public void testEncodedColumnarBlock(int nullPercentile)
+      throws Exception {
+    DataSchema.ColumnDataType[] allDataTypes = DataSchema.ColumnDataType.values();
+    List<DataSchema.ColumnDataType> columnDataTypes = new ArrayList<DataSchema.ColumnDataType>();
+    List<String> columnNames = new ArrayList<String>();
+    for (int i = 0; i < allDataTypes.length; i++) {
+      if (!EXCLUDE_DATA_TYPES.contains(allDataTypes[i])) {
+        columnNames.add(allDataTypes[i].name());
+        columnDataTypes.add(allDataTypes[i]);
+      }
+    }
+
+    DataSchema dataSchema = new DataSchema(columnNames.toArray(new String[]{}),
+        columnDataTypes.toArray(new DataSchema.ColumnDataType[]{}));
+    List<Object[]> rows = DataBlockTestUtils.getRandomRows(dataSchema, TEST_ROW_COUNT, nullPercentile);
+    RowDataBlock rowBlock = DataBlockBuilder.buildFromRows(rows, dataSchema);
+    EncodedColumnarDataBlock encodedBlock = DataBlockBuilder.buildEncodedFromRows(rows, dataSchema);
+    DataBlock deserializedBlock = DataBlockUtils.getDataBlock(ByteBuffer.wrap(encodedBlock.toBytes()));
+    Assert.assertTrue(deserializedBlock instanceof EncodedColumnarDataBlock);
+
+    for (int colId = 0; colId < dataSchema.getColumnNames().length; colId++) {
+      DataSchema.ColumnDataType columnDataType = dataSchema.getColumnDataType(colId);
+      Assert.assertEquals(encodedBlock.getNullRowIds(colId), rowBlock.getNullRowIds(colId));
+      Assert.assertEquals(deserializedBlock.getNullRowIds(colId), rowBlock.getNullRowIds(colId));
+      for (int rowId = 0; rowId < TEST_ROW_COUNT; rowId++) {
+        Object rowVal = DataBlockTestUtils.getElement(rowBlock, rowId, colId, columnDataType);
+        Assert.assertEquals(DataBlockTestUtils.getElement(encodedBlock, rowId, colId, columnDataType), rowVal);
+        Assert.assertEquals(DataBlockTestUtils.getElement(deserializedBlock, rowId, colId, columnDataType), rowVal);
+      }
+    }
+  }
+
+  @Test
+  public void testColumnEncodings()
+      throws Exception {
+    DataSchema dataSchema = new DataSchema(new String[]{"sorted", "smallRange", "random", "string"},
+        new DataSchema.ColumnDataType[]{
+            DataSchema.ColumnDataType.INT, DataSchema.ColumnDataType.LONG, DataSchema.ColumnDataType.DOUBLE,
+            DataSchema.ColumnDataType.STRING
+        });
+    int numRows = 1000;
+    Random random = new Random();
+    List<Object[]> rows = new ArrayList<>(numRows);
+    for (int i = 0; i < numRows; i++) {
+      rows.add(new Object[]{i / 100, 1_000_000_000_000L + random.nextInt(1000), random.nextDouble(), "s" + (i % 3)});
+    }
+    EncodedColumnarDataBlock encodedBlock = DataBlockBuilder.buildEncodedFromRows(rows, dataSchema);
+    Assert.assertEquals(encodedBlock.getColumnEncoding(0), ColumnEncodingUtils.RUN_LENGTH);
+    Assert.assertEquals(encodedBlock.getColumnEncoding(1), ColumnEncodingUtils.BIT_PACKED);
+    Assert.assertEquals(encodedBlock.getColumnEncoding(2), ColumnEncodingUtils.PLAIN);
+    Assert.assertEquals(encodedBlock.getColumnEncoding(3), ColumnEncodingUtils.BIT_PACKED);
+
+    DataBlock deserializedBlock = DataBlockUtils.getDataBlock(ByteBuffer.wrap(encodedBlock.toBytes()));
+    for (int i = 0; i < numRows; i++) {
+      Object[] row = rows.get(i);
+      Assert.assertEquals(deserializedBlock.getInt(i, 0), row[0]);
+      Assert.assertEquals(deserializedBlock.getLong(i, 1), row[1]);
+      Assert.assertEquals(deserializedBlock.getDouble(i, 2), row[2]);
+      Assert.assertEquals(deserializedBlock.getString(i, 3), row[3]);
+    }
+    Assert.assertEquals(DataBlockUtils.extractLongValuesForColumn(deserializedBlock, 1),
+        ((EncodedColumnarDataBlock) deserializedBlock).getLongColumn(1));
+
+    // Only the random doubles are stored with the full width
+    Assert.assertTrue(encodedBlock.toBytes().length < DataBlockBuilder.buildFromRows(rows, dataSchema).toBytes().length
+        / 2);
+  }
+
   @DataProvider(name = "testTypeNullPercentile")
   public Object[][] provideTestTypeNullPercentile() {
     return new Object[][]{new Object[]{0}, new Object[]{10}, new Object[]{100}};
@@ -242,6 +242,105 @@ public class IndexedTableTest {
     return new Record(columns);
   }
 
+  @Test
+  public void testRadixPartitionedTable()
+      throws InterruptedException, TimeoutException, ExecutionException {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(
+        "SELECT SUM(m1), MAX(m2) FROM testTable GROUP BY d1, d2, d3 ORDER BY SUM(m1) DESC");
+    DataSchema dataSchema = new DataSchema(new String[]{"d1", "d2", "d3", "sum(m1)", "max(m2)"}, new ColumnDataType[]{
+        ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE
+    });
+    RadixPartitionedTable partitionedTable = new RadixPartitionedTable(dataSchema, queryContext, 3, TRIM_THRESHOLD, 3);
+    Assert.assertEquals(partitionedTable.getNumPartitions(), 4);
+
+    // 3 threads upsert into their own partitions
+    // a (100, 200, 300) and b (1000, 2000) are upserted by multiple threads
+    ExecutorService executorService = Executors.newFixedThreadPool(3);
+    try {
+      Callable<Void> c1 = () -> {
+        RadixPartitionedTable.Partitions partitions = partitionedTable.createPartitions();
+        partitions.upsert(getKey(new Object[]{"a", 1, 10d}), getRecord(new Object[]{"a", 1, 10d, 100d, 1d}));
+        partitions.upsert(getKey(new Object[]{"b", 2, 20d}), getRecord(new Object[]{"b", 2, 20d, 1000d, 2d}));
+        partitions.upsert(getKey(new Object[]{"c", 3, 30d}), getRecord(new Object[]{"c", 3, 30d, 10d, 3d}));
+        return null;
+      };
+      Callable<Void> c2 = () -> {
+        RadixPartitionedTable.Partitions partitions = partitionedTable.createPartitions();
+        partitions.upsert(getKey(new Object[]{"a", 1, 10d}), getRecord(new Object[]{"a", 1, 10d, 200d, 4d}));
+        partitions.upsert(getKey(new Object[]{"d", 4, 40d}), getRecord(new Object[]{"d", 4, 40d, 20d, 5d}));
+        partitions.upsert(getKey(new Object[]{"d", 4, 40d}), getRecord(new Object[]{"d", 4, 40d, 20d, 6d}));
+        return null;
+      };
+      Callable<Void> c3 = () -> {
+        RadixPartitionedTable.Partitions partitions = partitionedTable.createPartitions();
+        partitions.upsert(getKey(new Object[]{"a", 1, 10d}), getRecord(new Object[]{"a", 1, 10d, 300d, 7d}));
+        partitions.upsert(getKey(new Object[]{"b", 2, 20d}), getRecord(new Object[]{"b", 2, 20d, 2000d, 8d}));
+        partitions.upsert(getKey(new Object[]{"e", 5, 50d}), getRecord(new Object[]{"e", 5, 50d, 50d, 9d}));
+        return null;
+      };
+      for (Future future : executorService.invokeAll(Arrays.asList(c1, c2, c3))) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+
+      // Merge the partitions in parallel
+      List<Callable<Void>> mergeTasks = new ArrayList<>();
+      for (int i = 0; i < partitionedTable.getNumPartitions(); i++) {
+        int partitionId = i;
+        mergeTasks.add(() -> {
+          partitionedTable.mergePartition(partitionId);
+          return null;
+        });
+      }
+      for (Future future : executorService.invokeAll(mergeTasks)) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executorService.shutdown();
+    }
+
+    IndexedTable indexedTable = partitionedTable.toIndexedTable();
+    indexedTable.finish(true);
+    Assert.assertEquals(indexedTable.size(), 3);
+    Iterator<Record> iterator = indexedTable.iterator();
+    Assert.assertEquals(iterator.next().getValues(), new Object[]{"b", 2, 20d, 3000d, 8d});
+    Assert.assertEquals(iterator.next().getValues(), new Object[]{"a", 1, 10d, 600d, 7d});
+    Assert.assertEquals(iterator.next().getValues(), new Object[]{"e", 5, 50d, 50d, 9d});
+  }
+
+  @Test
+  public void testRadixPartitionedTableHighCardinalityWithoutOrderBy() {
+    QueryContext queryContext =
+        QueryContextConverterUtils.getQueryContext("SELECT SUM(m1), MAX(m2) FROM testTable GROUP BY d1, d2, d3");
+    DataSchema dataSchema = new DataSchema(new String[]{"d1", "d2", "d3", "sum(m1)", "max(m2)"}, new ColumnDataType[]{
+        ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE
+    });
+    RadixPartitionedTable partitionedTable = new RadixPartitionedTable(dataSchema, queryContext, 5, TRIM_THRESHOLD, 4);
+
+    // Upsert much more keys than the result size, where only the first 5 keys should be kept
+    RadixPartitionedTable.Partitions partitions = partitionedTable.createPartitions();
+    for (int i = 0; i < 10_000; i++) {
+      partitions.upsert(getKey(new Object[]{"k" + i, i, (double) i}),
+          getRecord(new Object[]{"k" + i, i, (double) i, 1d, (double) i}));
+    }
+    Assert.assertEquals(partitions.getNumKeys(), 5);
+
+    // Existing keys are still updated
+    partitions.upsert(getKey(new Object[]{"k0", 0, 0d}), getRecord(new Object[]{"k0", 0, 0d, 1d, 0d}));
+    Assert.assertEquals(partitions.getNumKeys(), 5);
+
+    for (int i = 0; i < partitionedTable.getNumPartitions(); i++) {
+      partitionedTable.mergePartition(i);
+    }
+    IndexedTable indexedTable = partitionedTable.toIndexedTable();
+    indexedTable.finish(false);
+    Assert.assertEquals(indexedTable.size(), 5);
+    Iterator<Record> iterator = indexedTable.iterator();
+    while (iterator.hasNext()) {
+      Object[] recordValues = iterator.next().getValues();
+      Assert.assertEquals(recordValues[3], recordValues[0].equals("k0") ? 2d : 1d);
+    }
+  }
+
   @Test
   public void testNoMoreNewRecords() {
     QueryContext queryContext =
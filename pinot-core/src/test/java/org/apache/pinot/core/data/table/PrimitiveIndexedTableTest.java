@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.table;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.apache.pinot.segment.local.customobject.AvgPair;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Tests the {@link PrimitiveIndexedTable} against the {@link SimpleIndexedTable}.
+ */
+public class PrimitiveIndexedTableTest {
+  private static final String QUERY =
+      "SELECT COUNT(*), SUM(m1), MIN(m1), MAX(m1), AVG(m1), SUMPRECISION(m1) FROM testTable GROUP BY d1, d2, d3, d4";
+  private static final int NUM_RECORDS = 10_000;
+  private static final double[] DOUBLE_KEYS = new double[]{0.0, -0.0, 1.5, Double.NaN};
+  private static final long RANDOM_SEED = System.currentTimeMillis();
+
+  @Test
+  public void testIsSupported() {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(QUERY);
+    assertTrue(PrimitiveIndexedTable.isSupported(getDataSchema(), queryContext));
+
+    DataSchema dataSchema = new DataSchema(new String[]{"d1", "count(*)"}, new ColumnDataType[]{
+        ColumnDataType.STRING, ColumnDataType.LONG
+    });
+    assertFalse(PrimitiveIndexedTable.isSupported(dataSchema,
+        QueryContextConverterUtils.getQueryContext("SELECT COUNT(*) FROM testTable GROUP BY d1")));
+
+    queryContext = QueryContextConverterUtils.getQueryContext(QUERY + " OPTION(enableNullHandling=true)");
+    assertFalse(PrimitiveIndexedTable.isSupported(getDataSchema(), queryContext));
+  }
+
+  @Test
+  public void testWithoutOrderBy() {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(QUERY);
+
+    // All the groups should be kept
+    IndexedTable expectedTable = new SimpleIndexedTable(getDataSchema(), queryContext, 1000, 1000, 1000);
+    IndexedTable actualTable = new PrimitiveIndexedTable(getDataSchema(), queryContext, 1000, 1000, 1000);
+    upsertRecords(expectedTable, actualTable);
+    assertEquals(actualTable.size(), expectedTable.size());
+    expectedTable.finish(false, true);
+    actualTable.finish(false, true);
+    assertEquals(getRecordSet(actualTable), getRecordSet(expectedTable));
+
+    // Only the first 5 groups should be kept
+    expectedTable = new SimpleIndexedTable(getDataSchema(), queryContext, 5, 5, 1000);
+    actualTable = new PrimitiveIndexedTable(getDataSchema(), queryContext, 5, 5, 1000);
+    upsertRecords(expectedTable, actualTable);
+    assertEquals(actualTable.size(), 5);
+    expectedTable.finish(false, true);
+    actualTable.finish(false, true);
+    assertEquals(getRecordSet(actualTable), getRecordSet(expectedTable));
+  }
+
+  @Test
+  public void testWithOrderBy() {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(QUERY + " ORDER BY d1 DESC, d2, d3, d4");
+
+    // Trim the table multiple times during the upsert
+    IndexedTable expectedTable = new SimpleIndexedTable(getDataSchema(), queryContext, 10, 20, 50);
+    IndexedTable actualTable = new PrimitiveIndexedTable(getDataSchema(), queryContext, 10, 20, 50);
+    upsertRecords(expectedTable, actualTable);
+    assertTrue(actualTable.getNumResizes() > 0);
+    assertEquals(actualTable.getNumResizes(), expectedTable.getNumResizes());
+    expectedTable.finish(true, true);
+    actualTable.finish(true, true);
+    assertEquals(actualTable.size(), 10);
+    Iterator<Record> expectedIterator = expectedTable.iterator();
+    Iterator<Record> actualIterator = actualTable.iterator();
+    while (expectedIterator.hasNext()) {
+      assertEquals(actualIterator.next(), expectedIterator.next());
+    }
+    assertFalse(actualIterator.hasNext());
+  }
+
+  @Test
+  public void testMerge() {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(QUERY);
+    IndexedTable expectedTable = new SimpleIndexedTable(getDataSchema(), queryContext, 1000, 1000, 1000);
+    IndexedTable actualTable = new PrimitiveIndexedTable(getDataSchema(), queryContext, 1000, 1000, 1000);
+    IndexedTable mergeTable = new PrimitiveIndexedTable(getDataSchema(), queryContext, 1000, 1000, 1000);
+    upsertRecords(expectedTable, mergeTable);
+    mergeTable.finish(false);
+    actualTable.merge(mergeTable);
+    expectedTable.finish(false, true);
+    actualTable.finish(false, true);
+    assertEquals(getRecordSet(actualTable), getRecordSet(expectedTable));
+  }
+
+  // NOTE: Create a new data schema for each table because finish() with storeFinalResult modifies the data schema.
+  private static DataSchema getDataSchema() {
+    return new DataSchema(new String[]{
+        "d1", "d2", "d3", "d4", "count(*)", "sum(m1)", "min(m1)", "max(m1)", "avg(m1)", "sumprecision(m1)"
+    }, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.FLOAT, ColumnDataType.DOUBLE, ColumnDataType.LONG,
+        ColumnDataType.DOUBLE, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE, ColumnDataType.OBJECT,
+        ColumnDataType.OBJECT
+    });
+  }
+
+  /**
+   * Upserts the same random records into both tables. Records are created separately for each table because the
+   * intermediate results can be modified in place during the merge.
+   */
+  private static void upsertRecords(IndexedTable table1, IndexedTable table2) {
+    Random random = new Random(RANDOM_SEED);
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      int d1 = random.nextInt(10);
+      long d2 = random.nextInt(3);
+      float d3 = random.nextBoolean() ? 0.5f : -2.0f;
+      double d4 = DOUBLE_KEYS[random.nextInt(DOUBLE_KEYS.length)];
+      double m1 = random.nextInt(1000) - 500;
+      table1.upsert(createRecord(d1, d2, d3, d4, m1));
+      table2.upsert(createRecord(d1, d2, d3, d4, m1));
+    }
+  }
+
+  private static Record createRecord(int d1, long d2, float d3, double d4, double m1) {
+    return new Record(
+        new Object[]{d1, d2, d3, d4, 1L, m1, m1, m1, new AvgPair(m1, 1L), BigDecimal.valueOf(m1)});
+  }
+
+  private static Set<Record> getRecordSet(Table table) {
+    List<Record> records = new ArrayList<>(table.size());
+    Iterator<Record> iterator = table.iterator();
+    while (iterator.hasNext()) {
+      records.add(iterator.next());
+    }
+    Set<Record> recordSet = new HashSet<>(records);
+    assertEquals(recordSet.size(), records.size());
+    return recordSet;
+  }
+}
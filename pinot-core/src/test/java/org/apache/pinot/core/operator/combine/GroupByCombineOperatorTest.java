@@ -0,0 +1,205 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.combine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.plan.CombinePlanNode;
+import org.apache.pinot.core.plan.PlanNode;
+import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import org.apache.pinot.core.plan.maker.PlanMaker;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.apache.pinot.core.util.QueryMultiThreadingUtils;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import org.apache.pinot.segment.local.segment.readers.GenericRowRecordReader;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.utils.CommonConstants.Server;
+import org.apache.pinot.spi.utils.ReadMode;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Test for {@link GroupByCombineOperator} with and without the partitioned combine.
+ */
+public class GroupByCombineOperatorTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "GroupByCombineOperatorTest");
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String SEGMENT_NAME_PREFIX = "testSegment_";
+
+  // Create (MAX_NUM_THREADS_PER_QUERY * 2) segments so that each thread needs to process 2 segments
+  private static final int NUM_SEGMENTS = QueryMultiThreadingUtils.MAX_NUM_THREADS_PER_QUERY * 2;
+  private static final int NUM_RECORDS_PER_SEGMENT = 100;
+
+  private static final String INT_COLUMN = "intColumn";
+  private static final TableConfig TABLE_CONFIG =
+      new TableConfigBuilder(TableType.OFFLINE).setTableName(RAW_TABLE_NAME).build();
+  private static final Schema SCHEMA =
+      new Schema.SchemaBuilder().addSingleValueDimension(INT_COLUMN, FieldSpec.DataType.INT).build();
+
+  private static final PlanMaker PLAN_MAKER = new InstancePlanMakerImplV2();
+  private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool();
+
+  private List<IndexSegment> _indexSegments;
+  // Expected count for each group, where each segment overlaps half of the values with the next segment
+  private Map<Integer, Long> _expectedCounts;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteDirectory(TEMP_DIR);
+    _indexSegments = new ArrayList<>(NUM_SEGMENTS);
+    _expectedCounts = new HashMap<>();
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      _indexSegments.add(createOfflineSegment(i));
+    }
+  }
+
+  private IndexSegment createOfflineSegment(int index)
+      throws Exception {
+    int baseValue = index * NUM_RECORDS_PER_SEGMENT / 2;
+    List<GenericRow> records = new ArrayList<>(NUM_RECORDS_PER_SEGMENT);
+    for (int i = 0; i < NUM_RECORDS_PER_SEGMENT; i++) {
+      GenericRow record = new GenericRow();
+      record.putValue(INT_COLUMN, baseValue + i);
+      records.add(record);
+      _expectedCounts.merge(baseValue + i, 1L, Long::sum);
+    }
+
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(TABLE_CONFIG, SCHEMA);
+    segmentGeneratorConfig.setTableName(RAW_TABLE_NAME);
+    String segmentName = SEGMENT_NAME_PREFIX + index;
+    segmentGeneratorConfig.setSegmentName(segmentName);
+    segmentGeneratorConfig.setOutDir(TEMP_DIR.getPath());
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig, new GenericRowRecordReader(records));
+    driver.build();
+
+    return ImmutableSegmentLoader.load(new File(TEMP_DIR, segmentName), ReadMode.mmap);
+  }
+
+  @DataProvider
+  public Object[][] numPartitions() {
+    return new Object[][]{{0}, {1}, {3}, {16}};
+  }
+
+  @Test(dataProvider = "numPartitions")
+  public void testGroupByAllGroups(int numPartitions) {
+    GroupByResultsBlock combineResult = getCombineResult(
+        "SELECT intColumn, COUNT(*), SUM(intColumn) FROM testTable GROUP BY intColumn LIMIT 100000", numPartitions);
+    Map<Integer, Long> counts = new HashMap<>();
+    Iterator<Record> iterator = combineResult.getTable().iterator();
+    while (iterator.hasNext()) {
+      Object[] values = iterator.next().getValues();
+      int value = (Integer) values[0];
+      long count = (Long) values[1];
+      assertEquals(values[2], (double) value * count);
+      counts.put(value, count);
+    }
+    assertEquals(counts, _expectedCounts);
+  }
+
+  @Test(dataProvider = "numPartitions")
+  public void testGroupByOrderBy(int numPartitions) {
+    GroupByResultsBlock combineResult = getCombineResult(
+        "SELECT intColumn, COUNT(*) FROM testTable GROUP BY intColumn ORDER BY COUNT(*) DESC, intColumn LIMIT 10",
+        numPartitions);
+    List<Object[]> rows = new ArrayList<>();
+    Iterator<Record> iterator = combineResult.getTable().iterator();
+    while (iterator.hasNext()) {
+      rows.add(iterator.next().getValues());
+    }
+    // Server combine keeps more groups than the limit, and does not sort them
+    rows.sort((o1, o2) -> {
+      int result = Long.compare((Long) o2[1], (Long) o1[1]);
+      return result != 0 ? result : Integer.compare((Integer) o1[0], (Integer) o2[0]);
+    });
+    assertTrue(rows.size() >= 10, "numGroups: " + rows.size());
+    // Groups shared by 2 segments starts from the first value of the second segment
+    for (int i = 0; i < 10; i++) {
+      Object[] row = rows.get(i);
+      assertEquals(row[0], NUM_RECORDS_PER_SEGMENT / 2 + i);
+      assertEquals(row[1], 2L);
+    }
+  }
+
+  @Test(dataProvider = "numPartitions")
+  public void testGroupByLimitWithoutOrderBy(int numPartitions) {
+    GroupByResultsBlock combineResult =
+        getCombineResult("SELECT intColumn, COUNT(*) FROM testTable GROUP BY intColumn LIMIT 10", numPartitions);
+    int numGroups = 0;
+    Iterator<Record> iterator = combineResult.getTable().iterator();
+    while (iterator.hasNext()) {
+      Object[] values = iterator.next().getValues();
+      // The kept groups should have the accurate count
+      assertEquals(values[1], _expectedCounts.get((Integer) values[0]));
+      numGroups++;
+    }
+    assertTrue(numGroups > 0 && numGroups <= 10, "numGroups: " + numGroups);
+  }
+
+  private GroupByResultsBlock getCombineResult(String query, int numPartitions) {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(query);
+    queryContext.setGroupByCombineNumPartitions(numPartitions);
+    List<PlanNode> planNodes = new ArrayList<>(NUM_SEGMENTS);
+    for (IndexSegment indexSegment : _indexSegments) {
+      planNodes.add(PLAN_MAKER.makeSegmentPlanNode(indexSegment, queryContext));
+    }
+    queryContext.setEndTimeMs(System.currentTimeMillis() + Server.DEFAULT_QUERY_EXECUTOR_TIMEOUT_MS);
+    CombinePlanNode combinePlanNode = new CombinePlanNode(planNodes, queryContext, EXECUTOR, null);
+    GroupByResultsBlock resultsBlock = (GroupByResultsBlock) combinePlanNode.run().nextBlock();
+    assertNotNull(resultsBlock.getTable());
+    return resultsBlock;
+  }
+
+  @AfterClass
+  public void tearDown()
+      throws IOException {
+    for (IndexSegment indexSegment : _indexSegments) {
+      indexSegment.destroy();
+    }
+    FileUtils.deleteDirectory(TEMP_DIR);
+  }
+}
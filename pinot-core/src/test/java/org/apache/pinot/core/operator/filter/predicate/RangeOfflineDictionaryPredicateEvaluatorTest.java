@@ -252,6 +252,36 @@ public class RangeOfflineDictionaryPredicateEvaluatorTest {
     }
   }
 
+  @Test
+  public void testBatchApplySV() {
+    int[][] ranges = new int[][]{{0, 5}, {2, 5}, {4, 9}, {0, 9}, {4, 5}};
+    for (int[] range : ranges) {
+      for (int inclusive = 0; inclusive < 4; inclusive++) {
+        boolean inclLower = (inclusive & 1) != 0;
+        boolean inclUpper = (inclusive & 2) != 0;
+        Dictionary dictionary = createDictionary(range[0], range[1]);
+        RangePredicate predicate = createPredicate(range[0], inclLower, range[1], inclUpper);
+        PredicateEvaluator evaluator =
+            RangePredicateEvaluatorFactory.newDictionaryBasedEvaluator(predicate, dictionary, DataType.INT);
+        int numDocs = 3 * DICT_LEN;
+        int[] docIds = new int[numDocs];
+        int[] dictIds = new int[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+          docIds[i] = 100 + i;
+          dictIds[i] = (i * 7) % DICT_LEN;
+        }
+        int numMatches = evaluator.applySV(numDocs, docIds, dictIds);
+        int expectedMatches = 0;
+        for (int i = 0; i < numDocs; i++) {
+          if (evaluator.applySV(dictIds[i])) {
+            Assert.assertEquals(docIds[expectedMatches++], 100 + i);
+          }
+        }
+        Assert.assertEquals(numMatches, expectedMatches);
+      }
+    }
+  }
+
   private Dictionary createDictionary(int rangeStart, int rangeEnd) {
     Dictionary dictionary = mock(Dictionary.class);
     when(dictionary.isSorted()).thenReturn(true);
@@ -87,6 +87,34 @@ public class CaseTransformFunctionTest extends BaseTransformFunctionTest {
     assertEquals(expectedIntResults, intValues);
   }
 
+  @Test
+  public void testCaseWithExpressionsInBranches() {
+    // Except for the first WHEN statement, the WHEN/THEN/ELSE statements are only evaluated on the selected documents
+    String statement = String.format("CASE WHEN %s > 1000000000 THEN %s WHEN %s > 0 AND %s > 0 THEN %s + %s "
+            + "WHEN %s < 0 OR %s < 0 THEN %s * 2 - %s ELSE %s - 1 END", FLOAT_SV_COLUMN, FLOAT_SV_COLUMN,
+        INT_SV_COLUMN, LONG_SV_COLUMN, INT_SV_COLUMN, LONG_SV_COLUMN, DOUBLE_SV_COLUMN, FLOAT_SV_COLUMN,
+        DOUBLE_SV_COLUMN, FLOAT_SV_COLUMN, LONG_SV_COLUMN);
+    ExpressionContext expression = RequestContextUtils.getExpression(statement);
+    TransformFunction transformFunction = TransformFunctionFactory.get(expression, _dataSourceMap);
+    assertEquals(transformFunction.getResultMetadata().getDataType(), DataType.DOUBLE);
+    double[] expectedValues = new double[NUM_ROWS];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      if (_floatSVValues[i] > 1000000000) {
+        expectedValues[i] = _floatSVValues[i];
+      } else if (_intSVValues[i] > 0 && _longSVValues[i] > 0) {
+        expectedValues[i] = (double) _intSVValues[i] + (double) _longSVValues[i];
+      } else if (_doubleSVValues[i] < 0 || _floatSVValues[i] < 0) {
+        expectedValues[i] = 2 * _doubleSVValues[i] - _floatSVValues[i];
+      } else {
+        expectedValues[i] = _longSVValues[i] - 1.0;
+      }
+    }
+    double[] doubleValues = transformFunction.transformToDoubleValuesSV(_projectionBlock);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      assertEquals(doubleValues[i], expectedValues[i]);
+    }
+  }
+
   @Test
   public void testCaseTransformFunctionWithIntResults() {
     int[] expectedIntResults = new int[NUM_ROWS];
@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.apache.pinot.segment.spi.datasource.DataSource;
+import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
+import org.apache.pinot.segment.spi.index.reader.Dictionary;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+
+public class DocIdSetPlanNodeTest {
+
+  @Test
+  public void testGetMaxDocPerCall() {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext("SELECT * FROM testTable");
+    queryContext.setTargetBlockSizeBytes(1024 * 1024);
+
+    // No projected column
+    assertEquals(DocIdSetPlanNode.getMaxDocPerCall(queryContext, Collections.emptyList()),
+        DocIdSetPlanNode.MAX_DOC_PER_CALL);
+
+    // Narrow projection: 8 + 4 bytes per doc
+    DataSource longColumn = mockDataSource(DataType.LONG, true, true, 1);
+    assertEquals(DocIdSetPlanNode.getMaxDocPerCall(queryContext, Collections.singletonList(longColumn)),
+        DocIdSetPlanNode.MAX_DOC_PER_CALL);
+
+    // Wide projection: 4 * 8 + 8 * (32 + 4) = 320 bytes per doc
+    DataSource rawDoubleColumn = mockDataSource(DataType.DOUBLE, true, false, 1);
+    DataSource stringColumn = mockDataSource(DataType.STRING, true, true, 1);
+    DataSource[] wideColumns = new DataSource[12];
+    Arrays.fill(wideColumns, 0, 4, rawDoubleColumn);
+    Arrays.fill(wideColumns, 4, 12, stringColumn);
+    assertEquals(DocIdSetPlanNode.getMaxDocPerCall(queryContext, Arrays.asList(wideColumns)), 1024 * 1024 / 320);
+
+    // Very wide projection is bounded by the minimum block size: 1000 * (4 + 4) bytes per doc
+    DataSource intMVColumn = mockDataSource(DataType.INT, false, true, 1000);
+    assertEquals(DocIdSetPlanNode.getMaxDocPerCall(queryContext, Collections.singletonList(intMVColumn)),
+        DocIdSetPlanNode.MIN_DOC_PER_CALL);
+
+    // Adaptive block sizing disabled
+    queryContext.setTargetBlockSizeBytes(0);
+    assertEquals(DocIdSetPlanNode.getMaxDocPerCall(queryContext, Arrays.asList(wideColumns)),
+        DocIdSetPlanNode.MAX_DOC_PER_CALL);
+
+    // Query option override
+    queryContext.setTargetBlockSizeBytes(1024 * 1024);
+    queryContext.setMaxDocsPerBlock(500);
+    assertEquals(DocIdSetPlanNode.getMaxDocPerCall(queryContext, Arrays.asList(wideColumns)), 500);
+    queryContext.setMaxDocsPerBlock(100_000);
+    assertEquals(DocIdSetPlanNode.getMaxDocPerCall(queryContext, Arrays.asList(wideColumns)),
+        DocIdSetPlanNode.MAX_DOC_PER_CALL);
+  }
+
+  private static DataSource mockDataSource(DataType dataType, boolean isSingleValue, boolean hasDictionary,
+      int maxNumValuesPerMVEntry) {
+    DataSourceMetadata dataSourceMetadata = mock(DataSourceMetadata.class);
+    when(dataSourceMetadata.getDataType()).thenReturn(dataType);
+    when(dataSourceMetadata.isSingleValue()).thenReturn(isSingleValue);
+    when(dataSourceMetadata.getMaxNumValuesPerMVEntry()).thenReturn(maxNumValuesPerMVEntry);
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getDataSourceMetadata()).thenReturn(dataSourceMetadata);
+    if (hasDictionary) {
+      when(dataSource.getDictionary()).thenReturn(mock(Dictionary.class));
+    }
+    return dataSource;
+  }
+}
@@ -19,6 +19,7 @@
 package org.apache.pinot.perf;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
@@ -34,6 +35,8 @@ import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.data.table.ConcurrentIndexedTable;
 import org.apache.pinot.core.data.table.IndexedTable;
+import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.RadixPartitionedTable;
 import org.apache.pinot.core.data.table.Record;
 import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
 import org.apache.pinot.core.query.request.context.QueryContext;
@@ -61,6 +64,7 @@ public class BenchmarkCombineGroupBy {
   private static final int NUM_RECORDS_PER_SEGMENT = 100_000;
   private static final int CARDINALITY_D1 = 500;
   private static final int CARDINALITY_D2 = 500;
+  private static final int NUM_PARTITIONS = 32;
   private static final Random RANDOM = new Random();
 
   private QueryContext _queryContext;
@@ -145,6 +149,52 @@ public class BenchmarkCombineGroupBy {
     concurrentIndexedTable.finish(false);
   }
 
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void radixPartitionedTableForCombineGroupBy()
+      throws InterruptedException, ExecutionException, TimeoutException {
+    int trimSize = GroupByUtils.getTableCapacity(_queryContext.getLimit());
+
+    // make 1 partitioned table, where each thread upserts into its own partitions
+    RadixPartitionedTable partitionedTable = new RadixPartitionedTable(_dataSchema, _queryContext, trimSize,
+        InstancePlanMakerImplV2.DEFAULT_GROUPBY_TRIM_THRESHOLD, NUM_PARTITIONS);
+
+    List<Callable<Void>> innerSegmentCallables = new ArrayList<>(NUM_SEGMENTS);
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      Callable<Void> callable = () -> {
+        RadixPartitionedTable.Partitions partitions = partitionedTable.createPartitions();
+        for (int r = 0; r < NUM_RECORDS_PER_SEGMENT; r++) {
+          Record record = getRecord();
+          partitions.upsert(new Key(Arrays.copyOf(record.getValues(), 2)), record);
+        }
+        return null;
+      };
+      innerSegmentCallables.add(callable);
+    }
+
+    List<Future<Void>> futures = _executorService.invokeAll(innerSegmentCallables);
+    for (Future<Void> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+
+    // merge the partitions in parallel
+    List<Callable<Void>> mergeCallables = new ArrayList<>(NUM_PARTITIONS);
+    for (int i = 0; i < partitionedTable.getNumPartitions(); i++) {
+      int partitionId = i;
+      mergeCallables.add(() -> {
+        partitionedTable.mergePartition(partitionId);
+        return null;
+      });
+    }
+    futures = _executorService.invokeAll(mergeCallables);
+    for (Future<Void> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+
+    partitionedTable.toIndexedTable().finish(false);
+  }
+
   public static void main(String[] args)
       throws Exception {
     ChainedOptionsBuilder opt =
@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datablock.DataBlockUtils;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.ObjectSerDeUtils;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Benchmarks the serialization and deserialization of the data blocks exchanged between the multi-stage query stages,
+ * comparing the row data block with the encoded columnar data block.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class BenchmarkDataBlockSerDe {
+  private static final DataSchema DATA_SCHEMA = new DataSchema(new String[]{"key", "ts", "val", "name"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.DOUBLE, ColumnDataType.STRING});
+
+  @Param({"1000", "10000"})
+  private int _numRows;
+
+  @Param("1000")
+  private int _numKeys;
+
+  @Param({"UNIFORM(0,1000)", "EXP(0.01)"})
+  private String _keyDistribution;
+
+  @Param("42")
+  private long _seed;
+
+  private List<Object[]> _rows;
+  private byte[] _rowBlockBytes;
+  private byte[] _encodedColumnarBlockBytes;
+
+  @Setup(Level.Trial)
+  public void setUp()
+      throws Exception {
+    LongSupplier keySupplier = Distribution.createLongSupplier(_seed, _keyDistribution);
+    _rows = new ArrayList<>(_numRows);
+    for (int i = 0; i < _numRows; i++) {
+      int key = (int) Math.floorMod(keySupplier.getAsLong(), (long) _numKeys);
+      _rows.add(new Object[]{key, 1_600_000_000_000L + i, (double) key, "name_" + key});
+    }
+    _rowBlockBytes = DataBlockBuilder.buildFromRows(_rows, DATA_SCHEMA).toBytes();
+    _encodedColumnarBlockBytes = DataBlockBuilder.buildEncodedFromRows(_rows, DATA_SCHEMA).toBytes();
+    System.out.printf("Row block: %d bytes, encoded columnar block: %d bytes%n", _rowBlockBytes.length,
+        _encodedColumnarBlockBytes.length);
+  }
+
+  @Benchmark
+  public byte[] serializeRowBlock()
+      throws Exception {
+    return DataBlockBuilder.buildFromRows(_rows, DATA_SCHEMA).toBytes();
+  }
+
+  @Benchmark
+  public byte[] serializeEncodedColumnarBlock()
+      throws Exception {
+    return DataBlockBuilder.buildEncodedFromRows(_rows, DATA_SCHEMA).toBytes();
+  }
+
+  @Benchmark
+  public List<Object[]> deserializeRowBlockToRows()
+      throws Exception {
+    return extractRows(_rowBlockBytes);
+  }
+
+  @Benchmark
+  public List<Object[]> deserializeEncodedColumnarBlockToRows()
+      throws Exception {
+    return extractRows(_encodedColumnarBlockBytes);
+  }
+
+  @Benchmark
+  public void deserializeRowBlockToColumns(Blackhole bh)
+      throws Exception {
+    extractColumns(_rowBlockBytes, bh);
+  }
+
+  @Benchmark
+  public void deserializeEncodedColumnarBlockToColumns(Blackhole bh)
+      throws Exception {
+    extractColumns(_encodedColumnarBlockBytes, bh);
+  }
+
+  private static List<Object[]> extractRows(byte[] bytes)
+      throws Exception {
+    return DataBlockUtils.extractRows(DataBlockUtils.getDataBlock(ByteBuffer.wrap(bytes)),
+        ObjectSerDeUtils::deserialize);
+  }
+
+  private static void extractColumns(byte[] bytes, Blackhole bh)
+      throws Exception {
+    DataBlock dataBlock = DataBlockUtils.getDataBlock(ByteBuffer.wrap(bytes));
+    bh.consume(DataBlockUtils.extractIntValuesForColumn(dataBlock, 0));
+    bh.consume(DataBlockUtils.extractLongValuesForColumn(dataBlock, 1));
+    bh.consume(DataBlockUtils.extractDoubleValuesForColumn(dataBlock, 2));
+    bh.consume(DataBlockUtils.extractStringValuesForColumn(dataBlock, 3));
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    new Runner(new OptionsBuilder().include(BenchmarkDataBlockSerDe.class.getSimpleName()).build()).run();
+  }
+}
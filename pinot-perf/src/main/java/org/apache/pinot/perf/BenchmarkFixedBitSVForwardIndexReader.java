@@ -60,6 +60,7 @@ public class BenchmarkFixedBitSVForwardIndexReader {
   private FixedBitSVForwardIndexReaderV2 _readerV2;
 
   private final int[] _sequentialDocIds = new int[NUM_DOC_IDS];
+  private final int[] _alignedDocIds = new int[NUM_DOC_IDS];
   private final int[] _denseDocIds = new int[NUM_DOC_IDS];
   private final int[] _sparseDocIds = new int[NUM_DOC_IDS];
   private final int[] _dictIdBuffer = new int[NUM_DOC_IDS];
@@ -89,8 +90,10 @@ public class BenchmarkFixedBitSVForwardIndexReader {
     int sequentialDocId = RANDOM.nextInt(32);
     int denseDocId = RANDOM.nextInt(32);
     int sparseDocId = RANDOM.nextInt(32);
+    int alignedDocId = RANDOM.nextInt(NUM_VALUES / NUM_DOC_IDS) * NUM_DOC_IDS;
     for (int i = 0; i < NUM_DOC_IDS; i++) {
       _sequentialDocIds[i] = sequentialDocId;
+      _alignedDocIds[i] = alignedDocId + i;
       _denseDocIds[i] = denseDocId;
       _sparseDocIds[i] = sparseDocId;
       sequentialDocId++;
@@ -130,6 +133,12 @@ public class BenchmarkFixedBitSVForwardIndexReader {
     return _dictIdBuffer[0];
   }
 
+  @Benchmark
+  public int readerV2Aligned() {
+    _readerV2.readDictIds(_alignedDocIds, NUM_DOC_IDS, _dictIdBuffer, null);
+    return _dictIdBuffer[0];
+  }
+
   @Benchmark
   public int readerV2Dense() {
     _readerV2.readDictIds(_denseDocIds, NUM_DOC_IDS, _dictIdBuffer, null);
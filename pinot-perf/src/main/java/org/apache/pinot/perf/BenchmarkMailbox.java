@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.mailbox.MailboxIdUtils;
+import org.apache.pinot.query.mailbox.MailboxService;
+import org.apache.pinot.query.mailbox.ReceivingMailbox;
+import org.apache.pinot.query.mailbox.SendingMailbox;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants.MultiStageQueryRunner;
+import org.apache.pinot.spi.utils.NetUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Benchmarks the throughput of sending rows from one stage to another through the in-memory mailbox (sender and
+ * receiver on the same server) and the gRPC mailbox (sender and receiver on different servers). Each invocation sends
+ * all the rows through a new mailbox from a sender thread and polls them on the benchmark thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-server", "-Xmx8G"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class BenchmarkMailbox {
+  private static final String HOSTNAME = "localhost";
+  private static final DataSchema DATA_SCHEMA = new DataSchema(new String[]{"key", "val", "name"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.DOUBLE, ColumnDataType.STRING});
+
+  @Param({"IN_MEMORY", "GRPC"})
+  private String _mailboxType;
+
+  @Param({"1000000"})
+  private int _numRows;
+
+  @Param({"10000"})
+  private int _rowsPerBlock;
+
+  @Param("1000")
+  private int _numKeys;
+
+  @Param({"UNIFORM(0,1000)", "EXP(0.01)"})
+  private String _keyDistribution;
+
+  @Param({"PASS_THROUGH", "LZ4"})
+  private String _compressionType;
+
+  @Param({"false", "true"})
+  private boolean _columnarEncodingEnabled;
+
+  @Param("42")
+  private long _seed;
+
+  private List<List<Object[]>> _blocks;
+  private MailboxService _senderMailboxService;
+  private MailboxService _receiverMailboxService;
+  private ExecutorService _executorService;
+  private long _requestId;
+
+  @Setup(Level.Trial)
+  public void setUp()
+      throws IOException {
+    LongSupplier keySupplier = Distribution.createLongSupplier(_seed, _keyDistribution);
+    _blocks = new ArrayList<>();
+    List<Object[]> rows = new ArrayList<>(_rowsPerBlock);
+    for (int i = 0; i < _numRows; i++) {
+      int key = (int) Math.floorMod(keySupplier.getAsLong(), (long) _numKeys);
+      rows.add(new Object[]{key, (double) i, "name_" + key});
+      if (rows.size() == _rowsPerBlock) {
+        _blocks.add(rows);
+        rows = new ArrayList<>(_rowsPerBlock);
+      }
+    }
+    if (!rows.isEmpty()) {
+      _blocks.add(rows);
+    }
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(MultiStageQueryRunner.KEY_OF_MAILBOX_COMPRESSION_TYPE, _compressionType);
+    properties.put(MultiStageQueryRunner.KEY_OF_MAILBOX_COLUMNAR_ENCODING_ENABLED, _columnarEncodingEnabled);
+    properties.put(MultiStageQueryRunner.KEY_OF_MAX_INBOUND_QUERY_DATA_BLOCK_SIZE_BYTES, 128 * 1024 * 1024);
+    PinotConfiguration config = new PinotConfiguration(properties);
+    _senderMailboxService = new MailboxService(HOSTNAME, NetUtils.findOpenPort(), config);
+    _senderMailboxService.start();
+    if (_mailboxType.equals("IN_MEMORY")) {
+      _receiverMailboxService = _senderMailboxService;
+    } else {
+      _receiverMailboxService = new MailboxService(HOSTNAME, NetUtils.findOpenPort(), config);
+      _receiverMailboxService.start();
+    }
+    _executorService = Executors.newSingleThreadExecutor();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    _executorService.shutdownNow();
+    _senderMailboxService.shutdown();
+    if (_receiverMailboxService != _senderMailboxService) {
+      _receiverMailboxService.shutdown();
+    }
+  }
+
+  @Benchmark
+  public void sendAndReceive(Blackhole bh)
+      throws Exception {
+    String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, 1, 0, 0, 0);
+    ReceivingMailbox receivingMailbox = _receiverMailboxService.getReceivingMailbox(mailboxId);
+    Semaphore readyToRead = new Semaphore(0);
+    receivingMailbox.registeredReader(readyToRead::release);
+
+    long deadlineMs = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+    Future<?> senderFuture = _executorService.submit(() -> {
+      SendingMailbox sendingMailbox = _senderMailboxService.getSendingMailbox(HOSTNAME,
+          _receiverMailboxService.getPort(), mailboxId, deadlineMs);
+      for (List<Object[]> rows : _blocks) {
+        // Create a new block for each send so that the serialized data block is not cached across invocations
+        sendingMailbox.send(new TransferableBlock(rows, DATA_SCHEMA, DataBlock.Type.ROW));
+      }
+      sendingMailbox.send(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+      sendingMailbox.complete();
+      return null;
+    });
+
+    int numRowsReceived = 0;
+    while (true) {
+      TransferableBlock block = receivingMailbox.poll();
+      if (block == null) {
+        if (!readyToRead.tryAcquire(deadlineMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS)) {
+          throw new IllegalStateException("Timed out receiving from mailbox: " + mailboxId);
+        }
+        continue;
+      }
+      if (block.isEndOfStreamBlock()) {
+        if (block.isErrorBlock()) {
+          throw new IllegalStateException("Got error block: " + block.getDataBlock().getExceptions());
+        }
+        break;
+      }
+      numRowsReceived += block.getContainer().size();
+    }
+    _receiverMailboxService.releaseReceivingMailbox(receivingMailbox);
+    senderFuture.get();
+    bh.consume(numRowsReceived);
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    new Runner(new OptionsBuilder().include(BenchmarkMailbox.class.getSimpleName()).build()).run();
+  }
+}
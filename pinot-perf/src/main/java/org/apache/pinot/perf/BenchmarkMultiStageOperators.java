@@ -0,0 +1,223 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.partitioning.FieldSelectionKeySelector;
+import org.apache.pinot.query.planner.plannode.AggregateNode.AggType;
+import org.apache.pinot.query.planner.plannode.JoinNode;
+import org.apache.pinot.query.planner.plannode.WindowNode;
+import org.apache.pinot.query.routing.VirtualServerAddress;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.AggregateOperator;
+import org.apache.pinot.query.runtime.operator.HashJoinOperator;
+import org.apache.pinot.query.runtime.operator.MultiStageOperator;
+import org.apache.pinot.query.runtime.operator.SortOperator;
+import org.apache.pinot.query.runtime.operator.WindowAggregateOperator;
+import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Benchmarks the intermediate stage operators of the multi-stage query engine over in-memory input blocks. The key
+ * distribution controls the skew of the join/group-by keys, e.g. {@code EXP(0.01)} puts most of the rows on a few
+ * hot keys while {@code UNIFORM(0,1000)} spreads them evenly. Keys are folded into {@code [0, numKeys)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-server", "-Xmx8G"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class BenchmarkMultiStageOperators {
+  private static final int ROWS_PER_BLOCK = 10_000;
+  private static final int SORT_LIMIT = 100;
+  private static final DataSchema FACT_SCHEMA =
+      new DataSchema(new String[]{"key", "val"}, new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.DOUBLE});
+  private static final DataSchema DIM_SCHEMA =
+      new DataSchema(new String[]{"key", "name"}, new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING});
+  private static final DataSchema JOIN_SCHEMA = new DataSchema(new String[]{"key", "val", "key0", "name"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.DOUBLE, ColumnDataType.INT, ColumnDataType.STRING});
+  private static final DataSchema AGG_SCHEMA =
+      new DataSchema(new String[]{"key", "sum"}, new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.DOUBLE});
+  private static final DataSchema WINDOW_SCHEMA = new DataSchema(new String[]{"key", "val", "sum"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE});
+
+  @Param({"100000", "1000000"})
+  private int _numRows;
+
+  @Param("1000")
+  private int _numKeys;
+
+  @Param({"UNIFORM(0,1000)", "EXP(0.01)"})
+  private String _keyDistribution;
+
+  @Param("42")
+  private long _seed;
+
+  private List<List<Object[]>> _factBlocks;
+  private List<List<Object[]>> _dimBlocks;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    LongSupplier keySupplier = Distribution.createLongSupplier(_seed, _keyDistribution);
+    List<Object[]> factRows = new ArrayList<>(_numRows);
+    for (int i = 0; i < _numRows; i++) {
+      factRows.add(new Object[]{(int) Math.floorMod(keySupplier.getAsLong(), (long) _numKeys), (double) i});
+    }
+    _factBlocks = toBlocks(factRows);
+    List<Object[]> dimRows = new ArrayList<>(_numKeys);
+    for (int i = 0; i < _numKeys; i++) {
+      dimRows.add(new Object[]{i, "name_" + i});
+    }
+    _dimBlocks = toBlocks(dimRows);
+  }
+
+  private static List<List<Object[]>> toBlocks(List<Object[]> rows) {
+    List<List<Object[]>> blocks = new ArrayList<>();
+    for (int i = 0; i < rows.size(); i += ROWS_PER_BLOCK) {
+      blocks.add(rows.subList(i, Math.min(i + ROWS_PER_BLOCK, rows.size())));
+    }
+    return blocks;
+  }
+
+  @Benchmark
+  public void hashJoin(Blackhole bh) {
+    OpChainExecutionContext context = getContext();
+    JoinNode joinNode = new JoinNode(0, JOIN_SCHEMA, FACT_SCHEMA, DIM_SCHEMA, JoinRelType.INNER,
+        new JoinNode.JoinKeys(new FieldSelectionKeySelector(0), new FieldSelectionKeySelector(0)),
+        Collections.emptyList(), Collections.emptyList());
+    drain(new HashJoinOperator(context, new BlockListOperator(context, _factBlocks, FACT_SCHEMA),
+        new BlockListOperator(context, _dimBlocks, DIM_SCHEMA), FACT_SCHEMA, joinNode), bh);
+  }
+
+  @Benchmark
+  public void sortWithLimit(Blackhole bh) {
+    OpChainExecutionContext context = getContext();
+    drain(new SortOperator(context, new BlockListOperator(context, _factBlocks, FACT_SCHEMA),
+        ImmutableList.of(new RexExpression.InputRef(1)), ImmutableList.of(RelFieldCollation.Direction.DESCENDING),
+        ImmutableList.of(RelFieldCollation.NullDirection.LAST), SORT_LIMIT, 0, FACT_SCHEMA, false), bh);
+  }
+
+  @Benchmark
+  public void groupByAggregate(Blackhole bh) {
+    OpChainExecutionContext context = getContext();
+    drain(new AggregateOperator(context, new BlockListOperator(context, _factBlocks, FACT_SCHEMA), AGG_SCHEMA,
+        FACT_SCHEMA, ImmutableList.of(getSum(1)), ImmutableList.of(new RexExpression.InputRef(0)), AggType.DIRECT,
+        null, null), bh);
+  }
+
+  @Benchmark
+  public void windowAggregate(Blackhole bh) {
+    OpChainExecutionContext context = getContext();
+    drain(new WindowAggregateOperator(context, new BlockListOperator(context, _factBlocks, FACT_SCHEMA),
+        ImmutableList.of(new RexExpression.InputRef(0)), Collections.emptyList(), Collections.emptyList(),
+        Collections.emptyList(), ImmutableList.of(getSum(1)), Integer.MIN_VALUE, Integer.MAX_VALUE,
+        WindowNode.WindowFrameType.RANGE, Collections.emptyList(), WINDOW_SCHEMA, FACT_SCHEMA), bh);
+  }
+
+  private static OpChainExecutionContext getContext() {
+    return new OpChainExecutionContext(null, 0, 0, new VirtualServerAddress("localhost", 0, 0), Long.MAX_VALUE, null,
+        null, false);
+  }
+
+  private static RexExpression.FunctionCall getSum(int inputRef) {
+    return new RexExpression.FunctionCall(SqlKind.SUM, FieldSpec.DataType.DOUBLE, "SUM",
+        ImmutableList.of(new RexExpression.InputRef(inputRef)));
+  }
+
+  private static void drain(MultiStageOperator operator, Blackhole bh) {
+    TransferableBlock block = operator.nextBlock();
+    while (!block.isEndOfStreamBlock()) {
+      bh.consume(block.getNumRows());
+      block = operator.nextBlock();
+    }
+    if (block.isErrorBlock()) {
+      throw new IllegalStateException("Got error block: " + block.getDataBlock().getExceptions());
+    }
+    operator.close();
+  }
+
+  /**
+   * Returns the pre-generated rows as fresh row blocks so that no serialized data block is cached across invocations,
+   * same as the blocks received from an in-memory mailbox.
+   */
+  private static class BlockListOperator extends MultiStageOperator {
+    private final List<List<Object[]>> _blocks;
+    private final DataSchema _dataSchema;
+    private int _nextBlockId;
+
+    BlockListOperator(OpChainExecutionContext context, List<List<Object[]>> blocks, DataSchema dataSchema) {
+      super(context);
+      _blocks = blocks;
+      _dataSchema = dataSchema;
+    }
+
+    @Override
+    public List<MultiStageOperator> getChildOperators() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public String toExplainString() {
+      return "BLOCK_LIST";
+    }
+
+    @Override
+    protected TransferableBlock getNextBlock() {
+      if (_nextBlockId < _blocks.size()) {
+        return new TransferableBlock(_blocks.get(_nextBlockId++), _dataSchema, DataBlock.Type.ROW);
+      }
+      return TransferableBlockUtils.getEndOfStreamTransferableBlock();
+    }
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    new Runner(new OptionsBuilder().include(BenchmarkMultiStageOperators.class.getSimpleName()).build()).run();
+  }
+}
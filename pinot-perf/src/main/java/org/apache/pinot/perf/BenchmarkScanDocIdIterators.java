@@ -29,6 +29,7 @@ import org.apache.pinot.core.operator.dociditerators.SVScanDocIdIterator;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.segment.local.io.writer.impl.FixedBitSVForwardIndexWriter;
 import org.apache.pinot.segment.local.segment.index.readers.forward.FixedBitSVForwardIndexReaderV2;
+import org.apache.pinot.segment.spi.Constants;
 import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -126,6 +127,16 @@ public class BenchmarkScanDocIdIterators {
     return new SVScanDocIdIterator(_predicateEvaluator, _readerV2, _numDocs).applyAnd(_bitmap);
   }
 
+  @Benchmark
+  public int benchmarkSVScan() {
+    SVScanDocIdIterator iterator = new SVScanDocIdIterator(_predicateEvaluator, _readerV2, _numDocs);
+    int numMatchingDocs = 0;
+    while (iterator.next() != Constants.EOF) {
+      numMatchingDocs++;
+    }
+    return numMatchingDocs;
+  }
+
   public static class DummyPredicateEvaluator implements PredicateEvaluator {
 
     private final int _threshold;
@@ -38,6 +38,12 @@ public class PinotHintOptions {
    */
   public static final String INTERNAL_AGG_OPTIONS = "aggOptionsInternal";
 
+  /**
+   * Hint to denote the join strategy applied by the planner to the join node, e.g. the sort-merge join strategy when
+   * both inputs are sorted on the join keys.
+   */
+  public static final String INTERNAL_JOIN_OPTIONS = "joinOptionsInternal";
+
   private PinotHintOptions() {
     // do not instantiate.
   }
@@ -58,6 +64,10 @@ public class PinotHintOptions {
     public static final String AGG_CALL_SIGNATURE = "agg_call_signature";
   }
 
+  public static class InternalJoinOptions {
+    public static final String JOIN_STRATEGY = "join_strategy";
+  }
+
   public static class AggregateOptions {
     public static final String IS_PARTITIONED_BY_GROUP_BY_KEYS = "is_partitioned_by_group_by_keys";
     public static final String SKIP_LEAF_STAGE_GROUP_BY_AGGREGATION = "is_skip_leaf_stage_group_by";
@@ -65,16 +75,32 @@ public class PinotHintOptions {
 
   public static class JoinHintOptions {
     public static final String JOIN_STRATEGY = "join_strategy";
+    /**
+     * Join strategy to sort both tables on the join keys and join them with a streaming sort-merge join instead of
+     * building a hash table for the right table.
+     */
+    public static final String SORT_MERGE_JOIN_STRATEGY = "sort_merge";
+    /**
+     * Join strategy to broadcast the distinct join keys of the right table to the left leaf stage as an IN filter,
+     * while keeping the original hash join. The filter is skipped when there are too many distinct join keys.
+     */
+    public static final String DYNAMIC_FILTER_JOIN_STRATEGY = "dynamic_filter";
     /**
      * Max rows allowed to build the right table hash collection.
      */
     public static final String MAX_ROWS_IN_JOIN = "max_rows_in_join";
     /**
-     * Mode when join overflow happens, supported values: THROW or BREAK.
+     * Mode when join overflow happens, supported values: THROW, BREAK or SPILL.
      *   THROW(default): Break right table build process, and throw exception, no JOIN with left table performed.
      *   BREAK: Break right table build process, continue to perform JOIN operation, results might be partial.
+     *   SPILL: Partition both tables to local disk and perform the JOIN one partition at a time.
      */
     public static final String JOIN_OVERFLOW_MODE = "join_overflow_mode";
+    /**
+     * Number of workers each hot join key of the left table is split to, with the matching rows of the right table
+     * replicated to all of them. Only applies to hash distributed INNER, LEFT, SEMI and ANTI joins.
+     */
+    public static final String SKEW_SPLIT_FACTOR = "skew_split_factor";
   }
 
   public static class TableHintOptions {
@@ -35,11 +35,16 @@ import org.apache.calcite.rel.core.Exchange;
  */
 public class PinotLogicalExchange extends Exchange {
   private final PinotRelExchangeType _exchangeType;
+  private final PinotRelSkewHandlingType _skewHandlingType;
+  private final int _skewSplitFactor;
 
   private PinotLogicalExchange(RelOptCluster cluster, RelTraitSet traitSet,
-      RelNode input, RelDistribution distribution, PinotRelExchangeType exchangeType) {
+      RelNode input, RelDistribution distribution, PinotRelExchangeType exchangeType,
+      PinotRelSkewHandlingType skewHandlingType, int skewSplitFactor) {
     super(cluster, traitSet, input, distribution);
     _exchangeType = exchangeType;
+    _skewHandlingType = skewHandlingType;
+    _skewSplitFactor = skewSplitFactor;
     assert traitSet.containsIfApplicable(Convention.NONE);
   }
 
@@ -58,11 +63,27 @@ public class PinotLogicalExchange extends Exchange {
    */
   public static PinotLogicalExchange create(RelNode input,
       RelDistribution distribution, PinotRelExchangeType exchangeType) {
+    return create(input, distribution, exchangeType, PinotRelSkewHandlingType.getDefaultSkewHandlingType(), 0);
+  }
+
+  /**
+   * Creates a LogicalExchange which handles skewed keys of a hash distribution.
+   *
+   * @param input     Input relational expression
+   * @param distribution Distribution specification
+   * @param exchangeType RelExchangeType specification
+   * @param skewHandlingType How the hot keys of the hash distribution are handled
+   * @param skewSplitFactor Number of workers a hot key is split to
+   */
+  public static PinotLogicalExchange create(RelNode input,
+      RelDistribution distribution, PinotRelExchangeType exchangeType, PinotRelSkewHandlingType skewHandlingType,
+      int skewSplitFactor) {
     RelOptCluster cluster = input.getCluster();
     distribution = RelDistributionTraitDef.INSTANCE.canonize(distribution);
     RelTraitSet traitSet =
         input.getTraitSet().replace(Convention.NONE).replace(distribution);
-    return new PinotLogicalExchange(cluster, traitSet, input, distribution, exchangeType);
+    return new PinotLogicalExchange(cluster, traitSet, input, distribution, exchangeType, skewHandlingType,
+        skewSplitFactor);
   }
 
   //~ Methods ----------------------------------------------------------------
@@ -71,7 +92,7 @@ public class PinotLogicalExchange extends Exchange {
   public Exchange copy(RelTraitSet traitSet, RelNode newInput,
       RelDistribution newDistribution) {
     return new PinotLogicalExchange(getCluster(), traitSet, newInput,
-        newDistribution, _exchangeType);
+        newDistribution, _exchangeType, _skewHandlingType, _skewSplitFactor);
   }
 
   @Override
@@ -85,10 +106,22 @@ public class PinotLogicalExchange extends Exchange {
     if (_exchangeType != PinotRelExchangeType.getDefaultExchangeType()) {
       relWriter.item("relExchangeType", _exchangeType);
     }
+    if (_skewHandlingType != PinotRelSkewHandlingType.getDefaultSkewHandlingType()) {
+      relWriter.item("skewHandlingType", _skewHandlingType);
+      relWriter.item("skewSplitFactor", _skewSplitFactor);
+    }
     return relWriter;
   }
 
   public PinotRelExchangeType getExchangeType() {
     return _exchangeType;
   }
+
+  public PinotRelSkewHandlingType getSkewHandlingType() {
+    return _skewHandlingType;
+  }
+
+  public int getSkewSplitFactor() {
+    return _skewSplitFactor;
+  }
 }
@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.calcite.rel.logical;
+
+/**
+ * How a hash exchange handles skewed (hot) keys, so that a single hot key does not overload a single worker.
+ *
+ * <p>Both sides of a JOIN use the same split factor: the side that splits the hot keys only requires the rows of the
+ * other side to be replicated to the same set of workers.
+ */
+public enum PinotRelSkewHandlingType {
+
+  /**
+   * Every row is sent to the worker selected by the hash of its key.
+   */
+  NONE,
+
+  /**
+   * Rows with a hot key (detected by sampling the keys on the sender) are spread across the split factor consecutive
+   * workers starting from the one selected by the hash of the key. Other rows are sent to the worker selected by the
+   * hash of the key.
+   */
+  SPLIT,
+
+  /**
+   * Rows with a hot key (received from the side splitting the hot keys) are sent to the split factor consecutive
+   * workers starting from the one selected by the hash of the key, so that each of them can join the rows with this key
+   * split by the other side. Other rows are sent to the worker selected by the hash of the key.
+   */
+  REPLICATE;
+
+  public static PinotRelSkewHandlingType getDefaultSkewHandlingType() {
+    return NONE;
+  }
+}
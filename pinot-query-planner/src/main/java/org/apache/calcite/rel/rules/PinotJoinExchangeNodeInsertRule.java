@@ -19,19 +19,40 @@
 package org.apache.calcite.rel.rules;
 
 import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelCollation;
+import org.apache.calcite.rel.RelCollations;
 import org.apache.calcite.rel.RelDistributions;
+import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.core.Join;
 import org.apache.calcite.rel.core.JoinInfo;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.hint.PinotHintOptions;
+import org.apache.calcite.rel.hint.PinotHintStrategyTable;
+import org.apache.calcite.rel.hint.RelHint;
 import org.apache.calcite.rel.logical.LogicalJoin;
 import org.apache.calcite.rel.logical.PinotLogicalExchange;
+import org.apache.calcite.rel.logical.PinotLogicalSortExchange;
+import org.apache.calcite.rel.logical.PinotRelExchangeType;
+import org.apache.calcite.rel.logical.PinotRelSkewHandlingType;
 import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.zookeeper.common.StringUtils;
 
 
 /**
  * Special rule for Pinot, this rule is fixed to always insert exchange after JOIN node.
+ *
+ * <p>When the sort-merge join strategy is hinted, the exchanges also sort both tables on the join keys on the sender
+ * side and merge the sorted streams on the receiver side, so that the JOIN can be executed as a streaming sort-merge
+ * join. The applied strategy is recorded on the new JOIN node as an internal join hint.
+ *
+ * <p>When a skew split factor is hinted, the left exchange spreads the hot join keys across multiple workers, and the
+ * right exchange replicates the rows of these hot keys to all the workers they can be split to.
  */
 public class PinotJoinExchangeNodeInsertRule extends RelOptRule {
   public static final PinotJoinExchangeNodeInsertRule INSTANCE =
@@ -61,12 +82,30 @@ public class PinotJoinExchangeNodeInsertRule extends RelOptRule {
 
     RelNode leftExchange;
     RelNode rightExchange;
+    List<RelHint> hints = join.getHints();
     JoinInfo joinInfo = join.analyzeCondition();
 
     if (joinInfo.leftKeys.isEmpty()) {
       // when there's no JOIN key, use broadcast.
       leftExchange = PinotLogicalExchange.create(leftInput, RelDistributions.RANDOM_DISTRIBUTED);
       rightExchange = PinotLogicalExchange.create(rightInput, RelDistributions.BROADCAST_DISTRIBUTED);
+    } else if (isSortMergeJoin(join)) {
+      // when sort-merge join is hinted, use hash distribution and sort both sides on the join keys in the same order.
+      // each sender sorts its rows, and the receiver merges the sorted streams from the senders.
+      leftExchange = PinotLogicalSortExchange.create(leftInput, RelDistributions.hash(joinInfo.leftKeys),
+          getCollation(joinInfo.leftKeys), true, true);
+      rightExchange = PinotLogicalSortExchange.create(rightInput, RelDistributions.hash(joinInfo.rightKeys),
+          getCollation(joinInfo.rightKeys), true, true);
+      hints = PinotHintStrategyTable.replaceHintOptions(hints, PinotHintOptions.INTERNAL_JOIN_OPTIONS,
+          PinotHintOptions.InternalJoinOptions.JOIN_STRATEGY,
+          PinotHintOptions.JoinHintOptions.SORT_MERGE_JOIN_STRATEGY);
+    } else if (getSkewSplitFactor(join) > 1) {
+      // when skew split factor is hinted, split the hot keys of the left table and replicate the right table rows.
+      int skewSplitFactor = getSkewSplitFactor(join);
+      leftExchange = PinotLogicalExchange.create(leftInput, RelDistributions.hash(joinInfo.leftKeys),
+          PinotRelExchangeType.getDefaultExchangeType(), PinotRelSkewHandlingType.SPLIT, skewSplitFactor);
+      rightExchange = PinotLogicalExchange.create(rightInput, RelDistributions.hash(joinInfo.rightKeys),
+          PinotRelExchangeType.getDefaultExchangeType(), PinotRelSkewHandlingType.REPLICATE, skewSplitFactor);
     } else {
       // when join key exists, use hash distribution.
       leftExchange = PinotLogicalExchange.create(leftInput, RelDistributions.hash(joinInfo.leftKeys));
@@ -74,9 +113,40 @@ public class PinotJoinExchangeNodeInsertRule extends RelOptRule {
     }
 
     RelNode newJoinNode =
-        new LogicalJoin(join.getCluster(), join.getTraitSet(), join.getHints(), leftExchange, rightExchange,
+        new LogicalJoin(join.getCluster(), join.getTraitSet(), hints, leftExchange, rightExchange,
             join.getCondition(), join.getVariablesSet(), join.getJoinType(), join.isSemiJoinDone(),
             ImmutableList.copyOf(join.getSystemFieldList()));
     call.transformTo(newJoinNode);
   }
+
+  private static boolean isSortMergeJoin(Join join) {
+    String joinStrategyString = PinotHintStrategyTable.getHintOption(join.getHints(),
+        PinotHintOptions.JOIN_HINT_OPTIONS, PinotHintOptions.JoinHintOptions.JOIN_STRATEGY);
+    List<String> joinStrategies = joinStrategyString != null ? StringUtils.split(joinStrategyString, ",")
+        : Collections.emptyList();
+    return joinStrategies.contains(PinotHintOptions.JoinHintOptions.SORT_MERGE_JOIN_STRATEGY);
+  }
+
+  /**
+   * Returns the hinted skew split factor, or 0 if it is not hinted or not applicable to the join type. The right rows
+   * are replicated to multiple workers, so it is not applicable when unmatched right rows are returned.
+   */
+  private static int getSkewSplitFactor(Join join) {
+    JoinRelType joinType = join.getJoinType();
+    if (joinType == JoinRelType.RIGHT || joinType == JoinRelType.FULL) {
+      return 0;
+    }
+    String skewSplitFactor = PinotHintStrategyTable.getHintOption(join.getHints(),
+        PinotHintOptions.JOIN_HINT_OPTIONS, PinotHintOptions.JoinHintOptions.SKEW_SPLIT_FACTOR);
+    return skewSplitFactor != null ? Integer.parseInt(skewSplitFactor) : 0;
+  }
+
+  private static RelCollation getCollation(List<Integer> keys) {
+    List<RelFieldCollation> fieldCollations = new ArrayList<>(keys.size());
+    for (int key : keys) {
+      fieldCollations.add(new RelFieldCollation(key, RelFieldCollation.Direction.ASCENDING,
+          RelFieldCollation.NullDirection.LAST));
+    }
+    return RelCollations.of(fieldCollations);
+  }
 }
@@ -19,10 +19,12 @@
 package org.apache.calcite.rel.rules;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import java.util.Collections;
 import java.util.List;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.plan.hep.HepRelVertex;
 import org.apache.calcite.rel.RelDistributions;
 import org.apache.calcite.rel.RelNode;
@@ -32,10 +34,14 @@ import org.apache.calcite.rel.core.JoinInfo;
 import org.apache.calcite.rel.core.JoinRelType;
 import org.apache.calcite.rel.hint.PinotHintOptions;
 import org.apache.calcite.rel.hint.PinotHintStrategyTable;
+import org.apache.calcite.rel.hint.RelHint;
 import org.apache.calcite.rel.logical.LogicalJoin;
 import org.apache.calcite.rel.logical.PinotLogicalExchange;
 import org.apache.calcite.rel.logical.PinotRelExchangeType;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.tools.RelBuilder;
 import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.calcite.util.ImmutableIntList;
 import org.apache.zookeeper.common.StringUtils;
 
 
@@ -109,6 +115,30 @@ import org.apache.zookeeper.common.StringUtils;
  *   </li>
  * </ul>
  *
+ * <p> With the {@code dynamic_filter} join strategy, INNER and RIGHT joins keep the original hash join, and only the
+ * join keys of the right side are broadcast to the left leaf stage as a SEMI-JOIN pre-filter. The runtime turns the
+ * distinct non-null keys into an IN filter, so the left leaf stage can prune segments and rows with its indexes before
+ * shipping them to the hash join. Since the hash join still applies the join condition, the filter is optional and is
+ * skipped when there are too many distinct keys. The right side is evaluated twice (once for the keys, once for the
+ * join), so similar to the dynamic broadcast it should only be used when the right side is relatively cheap and
+ * selective.
+ *
+ *                  ...                                     ...
+ *                   |                                       |
+ *             [ Inner Join ]                          [ Inner Join ]
+ *             /            \                          /            \
+ *        [xChange]      [xChange]                [xChange]      [xChange]
+ *           /                \                      /                \
+ *     [Proj/Filter]     [Proj/Filter]         [ Semi Join ]      [Proj/Filter]
+ *          |                  |                 /        \              |
+ *     [Table Scan ]     [Table Scan ]   [Proj/Filter] [Dyn. Broadcast] [Table Scan ]
+ *                                             |              |
+ *                                       [Table Scan ]  [Project keys]
+ *                                                            |
+ *                                                      [Proj/Filter]
+ *                                                            |
+ *                                                      [Table Scan ]
+ *
  * TODO #1: Only support SEMI-JOIN, once JOIN operator is supported by leaf-stage we should allow it to match
  *   @see <a href="https://github.com/apache/pinot/pull/10565/>
  * TODO #2: Only convert to dynamic broadcast from right-to-left, allow option to specify dynamic broadcast direction.
@@ -134,7 +164,9 @@ public class PinotJoinToDynamicBroadcastRule extends RelOptRule {
         PinotHintOptions.JOIN_HINT_OPTIONS, PinotHintOptions.JoinHintOptions.JOIN_STRATEGY);
     List<String> joinStrategies = joinStrategyString != null ? StringUtils.split(joinStrategyString, ",")
         : Collections.emptyList();
-    if (!joinStrategies.contains(DYNAMIC_BROADCAST_HINT_OPTION_VALUE)) {
+    boolean isDynamicBroadcast = joinStrategies.contains(DYNAMIC_BROADCAST_HINT_OPTION_VALUE);
+    boolean isDynamicFilter = joinStrategies.contains(PinotHintOptions.JoinHintOptions.DYNAMIC_FILTER_JOIN_STRATEGY);
+    if (!isDynamicBroadcast && !isDynamicFilter) {
       return false;
     }
     JoinInfo joinInfo = join.analyzeCondition();
@@ -142,9 +174,16 @@ public class PinotJoinToDynamicBroadcastRule extends RelOptRule {
         : join.getLeft();
     RelNode right = join.getRight() instanceof HepRelVertex ? ((HepRelVertex) join.getRight()).getCurrentRel()
         : join.getRight();
-    return left instanceof Exchange && right instanceof Exchange
-        && PinotRuleUtils.noExchangeInSubtree(left.getInput(0))
-        && (join.getJoinType() == JoinRelType.SEMI && joinInfo.nonEquiConditions.isEmpty());
+    if (!(left instanceof Exchange && right instanceof Exchange
+        && PinotRuleUtils.noExchangeInSubtree(left.getInput(0)))) {
+      return false;
+    }
+    if (join.getJoinType() == JoinRelType.SEMI) {
+      return isDynamicBroadcast && joinInfo.nonEquiConditions.isEmpty();
+    }
+    // Dropping the left rows without a matching right key is only safe when the unmatched left rows are not emitted
+    return isDynamicFilter && !joinInfo.leftKeys.isEmpty() && (join.getJoinType() == JoinRelType.INNER
+        || join.getJoinType() == JoinRelType.RIGHT);
   }
 
   @Override
@@ -154,6 +193,10 @@ public class PinotJoinToDynamicBroadcastRule extends RelOptRule {
         ? ((HepRelVertex) join.getLeft()).getCurrentRel() : join.getLeft());
     PinotLogicalExchange right = (PinotLogicalExchange) (join.getRight() instanceof HepRelVertex
         ? ((HepRelVertex) join.getRight()).getCurrentRel() : join.getRight());
+    if (join.getJoinType() != JoinRelType.SEMI) {
+      call.transformTo(createDynamicFilterJoin(call, join, left, right));
+      return;
+    }
 
     PinotLogicalExchange dynamicBroadcastExchange =
         PinotLogicalExchange.create(right.getInput(), RelDistributions.BROADCAST_DISTRIBUTED,
@@ -167,4 +210,30 @@ public class PinotJoinToDynamicBroadcastRule extends RelOptRule {
         PinotLogicalExchange.create(dynamicFilterJoin, RelDistributions.hash(join.analyzeCondition().leftKeys));
     call.transformTo(passThroughAfterJoinExchange);
   }
+
+  private static Join createDynamicFilterJoin(RelOptRuleCall call, Join join, PinotLogicalExchange left,
+      PinotLogicalExchange right) {
+    JoinInfo joinInfo = join.analyzeCondition();
+    // Only broadcast the join keys of the right side
+    RelBuilder relBuilder = call.builder();
+    RelNode rightKeys = relBuilder.push(right.getInput()).project(relBuilder.fields(joinInfo.rightKeys)).build();
+    PinotLogicalExchange dynamicBroadcastExchange =
+        PinotLogicalExchange.create(rightKeys, RelDistributions.BROADCAST_DISTRIBUTED,
+            PinotRelExchangeType.PIPELINE_BREAKER);
+    RexNode dynamicFilterCondition =
+        RelOptUtil.createEquiJoinCondition(left.getInput(), joinInfo.leftKeys, dynamicBroadcastExchange,
+            ImmutableIntList.range(0, joinInfo.rightKeys.size()), join.getCluster().getRexBuilder());
+    // Mark the SEMI-JOIN as a dynamic filter so that the leaf stage can skip the filter when there are too many keys
+    List<RelHint> hints = ImmutableList.of(RelHint.builder(PinotHintOptions.INTERNAL_JOIN_OPTIONS)
+        .hintOption(PinotHintOptions.InternalJoinOptions.JOIN_STRATEGY,
+            PinotHintOptions.JoinHintOptions.DYNAMIC_FILTER_JOIN_STRATEGY).build());
+    Join dynamicFilterJoin =
+        new LogicalJoin(join.getCluster(), join.getTraitSet(), hints, left.getInput(), dynamicBroadcastExchange,
+            dynamicFilterCondition, ImmutableSet.of(), JoinRelType.SEMI, false, ImmutableList.of());
+    // SEMI-JOIN keeps the left fields, so the left exchange distribution still applies
+    PinotLogicalExchange filteredLeft =
+        PinotLogicalExchange.create(dynamicFilterJoin, left.getDistribution(), left.getExchangeType());
+    return join.copy(join.getTraitSet(), join.getCondition(), filteredLeft, join.getRight(), join.getJoinType(),
+        join.isSemiJoinDone());
+  }
 }
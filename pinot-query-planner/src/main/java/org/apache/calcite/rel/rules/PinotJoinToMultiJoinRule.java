@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.calcite.rel.rules;
+
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.logical.LogicalJoin;
+import org.apache.pinot.query.catalog.PinotTable;
+
+
+/**
+ * Special rule for Pinot, this rule flattens the INNER JOINs into a {@link MultiJoin} so that they can be reordered by
+ * {@link LoptOptimizeJoinRule} based on the table row counts.
+ *
+ * <p>Unlike {@link JoinToMultiJoinRule}, the JOIN is only converted when the row counts of all the tables under it are
+ * known (otherwise the reordered plan would be based on Calcite's default estimations), and when it has no hints (the
+ * hints are dropped by the reordering and we want to respect the strategy explicitly picked by the user).
+ */
+public class PinotJoinToMultiJoinRule extends JoinToMultiJoinRule {
+  public static final PinotJoinToMultiJoinRule INSTANCE =
+      new PinotJoinToMultiJoinRule(JoinToMultiJoinRule.Config.DEFAULT);
+
+  protected PinotJoinToMultiJoinRule(Config config) {
+    super(config);
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    if (call.rels.length < 1 || !(call.rel(0) instanceof LogicalJoin)) {
+      return false;
+    }
+    Join join = call.rel(0);
+    return join.getJoinType() == JoinRelType.INNER && join.getHints().isEmpty() && super.matches(call)
+        && hasRowCount(join);
+  }
+
+  private static boolean hasRowCount(RelNode relNode) {
+    relNode = PinotRuleUtils.unboxRel(relNode);
+    if (relNode instanceof TableScan) {
+      PinotTable pinotTable = relNode.getTable().unwrap(PinotTable.class);
+      return pinotTable != null && pinotTable.getRowCount() != null;
+    }
+    if (relNode.getInputs().isEmpty()) {
+      // e.g. VALUES, the row count is known from the plan
+      return true;
+    }
+    for (RelNode input : relNode.getInputs()) {
+      if (!hasRowCount(input)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
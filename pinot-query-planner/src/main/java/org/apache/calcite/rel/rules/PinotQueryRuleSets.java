@@ -106,6 +106,13 @@ public class PinotQueryRuleSets {
       PruneEmptyRules.UNION_INSTANCE
   );
 
+  // The join reorder rules run bottom-up, so that the nested INNER JOINs are first flattened into a single MultiJoin,
+  // which is then converted back into a JOIN tree ordered based on the table row counts.
+  public static final Collection<RelOptRule> JOIN_REORDER_RULES = ImmutableList.of(
+      PinotJoinToMultiJoinRule.INSTANCE,
+      CoreRules.MULTI_JOIN_OPTIMIZE
+  );
+
   // Pinot specific rules that should be run BEFORE all other rules
   public static final Collection<RelOptRule> PINOT_PRE_RULES = ImmutableList.of(
       PinotAggregateLiteralAttachmentRule.INSTANCE
@@ -129,6 +136,8 @@ public class PinotQueryRuleSets {
       PinotAggregateExchangeNodeInsertRule.INSTANCE,
       PinotWindowExchangeNodeInsertRule.INSTANCE,
       PinotSetOpExchangeNodeInsertRule.INSTANCE,
+      // push ORDER BY group keys + LIMIT into the leaf aggregate, this must be done after the aggregate is split
+      PinotSortLeafAggregatePushdownRule.INSTANCE,
 
       // apply dynamic broadcast rule after exchange is inserted/
       PinotJoinToDynamicBroadcastRule.INSTANCE
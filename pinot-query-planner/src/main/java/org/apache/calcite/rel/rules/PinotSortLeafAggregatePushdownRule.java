@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.calcite.rel.rules;
+
+import java.util.Collections;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.Exchange;
+import org.apache.calcite.rel.core.Sort;
+import org.apache.calcite.rel.hint.PinotHintOptions;
+import org.apache.calcite.rel.hint.PinotHintStrategyTable;
+import org.apache.calcite.rel.logical.LogicalSort;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.pinot.query.planner.logical.RexExpressionUtils;
+import org.apache.pinot.query.planner.plannode.AggregateNode.AggType;
+
+
+/**
+ * Special rule for Pinot, this rule pushes the ORDER BY + LIMIT on top of a FINAL aggregate down to the LEAF aggregate,
+ * so that each leaf only returns the top groups instead of all the groups it has.
+ *
+ * <p>It only applies when the ORDER BY is on the group keys only: the top groups on the group keys of each leaf always
+ * contain its partial results for the global top groups, so the final result is exact. When ordering on the aggregated
+ * values, the partial results of the leaves cannot be trimmed without changing the result.
+ *
+ * <p>This rule should be applied after {@link PinotAggregateExchangeNodeInsertRule}, which splits the aggregate into
+ * LEAF + exchange + FINAL, and {@link PinotSortExchangeCopyRule}, which copies the sort on top of the FINAL aggregate.
+ */
+public class PinotSortLeafAggregatePushdownRule extends RelOptRule {
+  public static final PinotSortLeafAggregatePushdownRule INSTANCE =
+      new PinotSortLeafAggregatePushdownRule(PinotRuleUtils.PINOT_REL_FACTORY);
+
+  public PinotSortLeafAggregatePushdownRule(RelBuilderFactory factory) {
+    super(operand(LogicalSort.class, any()), factory, null);
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    if (call.rels.length < 1 || !(call.rel(0) instanceof Sort)) {
+      return false;
+    }
+    Sort sort = call.rel(0);
+    if (sort.fetch == null || sort.getCollation().getFieldCollations().isEmpty()) {
+      return false;
+    }
+    RelNode finalAgg = PinotRuleUtils.unboxRel(sort.getInput());
+    if (!isAggregate(finalAgg, AggType.FINAL)) {
+      return false;
+    }
+    int groupCount = ((Aggregate) finalAgg).getGroupCount();
+    for (RelFieldCollation fieldCollation : sort.getCollation().getFieldCollations()) {
+      if (fieldCollation.getFieldIndex() >= groupCount) {
+        return false;
+      }
+    }
+    RelNode exchange = PinotRuleUtils.unboxRel(finalAgg.getInput(0));
+    return exchange instanceof Exchange && isAggregate(PinotRuleUtils.unboxRel(exchange.getInput(0)), AggType.LEAF);
+  }
+
+  private static boolean isAggregate(RelNode relNode, AggType aggType) {
+    return relNode instanceof Aggregate && aggType.name().equals(
+        PinotHintStrategyTable.getHintOption(((Aggregate) relNode).getHints(), PinotHintOptions.INTERNAL_AGG_OPTIONS,
+            PinotHintOptions.InternalAggregateOptions.AGG_TYPE));
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    Sort sort = call.rel(0);
+    Aggregate finalAgg = (Aggregate) PinotRuleUtils.unboxRel(sort.getInput());
+    Exchange exchange = (Exchange) PinotRuleUtils.unboxRel(finalAgg.getInput());
+    RelNode leafAgg = PinotRuleUtils.unboxRel(exchange.getInput());
+
+    // The group keys are at the front of both the LEAF and the FINAL aggregate output, so the collation can be reused.
+    RexNode fetch = sort.fetch;
+    if (sort.offset != null) {
+      RexBuilder rexBuilder = sort.getCluster().getRexBuilder();
+      int total = RexExpressionUtils.getValueAsInt(sort.fetch) + RexExpressionUtils.getValueAsInt(sort.offset);
+      fetch = rexBuilder.makeLiteral(total, rexBuilder.getTypeFactory().createSqlType(SqlTypeName.INTEGER));
+    }
+    RelNode leafSort = LogicalSort.create(leafAgg, sort.getCollation(), null, fetch);
+    RelNode newExchange = exchange.copy(exchange.getTraitSet(), Collections.singletonList(leafSort));
+    RelNode newFinalAgg = finalAgg.copy(finalAgg.getTraitSet(), Collections.singletonList(newExchange));
+    call.transformTo(sort.copy(sort.getTraitSet(), Collections.singletonList(newFinalAgg)));
+  }
+}
@@ -176,9 +176,17 @@ public class PinotWindowExchangeNodeInsertRule extends RelOptRule {
   private void validateWindowFrames(Window.Group windowGroup) {
     // Has ROWS only aggregation call kind (e.g. ROW_NUMBER)?
     boolean isRowsOnlyTypeAggregateCall = isRowsOnlyAggregationCallType(windowGroup.aggCalls);
-    // For Phase 1 only the default frame is supported
-    Preconditions.checkState(!windowGroup.isRows || isRowsOnlyTypeAggregateCall,
-        "Default frame must be of type RANGE and not ROWS unless this is a ROWS only aggregation function");
+    if (windowGroup.isRows && !isRowsOnlyTypeAggregateCall) {
+      // Custom ROWS frames are supported for the aggregation functions, ranking functions only support RANGE
+      Preconditions.checkState(!isRangeOnlyAggregationCallType(windowGroup.aggCalls),
+          "RANK and DENSE_RANK only support frame of type RANGE");
+      Preconditions.checkState(!windowGroup.lowerBound.isUnbounded() || windowGroup.lowerBound.isPreceding(),
+          String.format("Lower bound cannot be UNBOUNDED FOLLOWING but it is: %s", windowGroup.lowerBound));
+      Preconditions.checkState(!windowGroup.upperBound.isUnbounded() || windowGroup.upperBound.isFollowing(),
+          String.format("Upper bound cannot be UNBOUNDED PRECEDING but it is: %s", windowGroup.upperBound));
+      return;
+    }
+    // RANGE frames only support the default frame
     Preconditions.checkState(windowGroup.lowerBound.isPreceding() && windowGroup.lowerBound.isUnbounded(),
         String.format("Lower bound must be UNBOUNDED PRECEDING but it is: %s", windowGroup.lowerBound));
     if (windowGroup.orderKeys.getKeys().isEmpty() && !isRowsOnlyTypeAggregateCall) {
@@ -194,6 +202,11 @@ public class PinotWindowExchangeNodeInsertRule extends RelOptRule {
     return aggCalls.stream().anyMatch(aggCall -> aggCall.getKind().equals(SqlKind.ROW_NUMBER));
   }
 
+  private boolean isRangeOnlyAggregationCallType(ImmutableList<Window.RexWinAggCall> aggCalls) {
+    return aggCalls.stream()
+        .anyMatch(aggCall -> aggCall.getKind() == SqlKind.RANK || aggCall.getKind() == SqlKind.DENSE_RANK);
+  }
+
   private boolean isPartitionByOnlyQuery(Window.Group windowGroup) {
     boolean isPartitionByOnly = false;
     if (windowGroup.orderKeys.getKeys().isEmpty()) {
@@ -19,11 +19,16 @@
 package org.apache.pinot.query;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import org.apache.calcite.config.CalciteConnectionConfigImpl;
 import org.apache.calcite.config.CalciteConnectionProperty;
@@ -60,6 +65,7 @@ import org.apache.calcite.tools.Frameworks;
 import org.apache.calcite.tools.RelBuilder;
 import org.apache.pinot.common.config.provider.TableCache;
 import org.apache.pinot.query.context.PlannerContext;
+import org.apache.pinot.query.parser.QueryParameterizer;
 import org.apache.pinot.query.planner.DispatchableSubPlan;
 import org.apache.pinot.query.planner.PhysicalExplainPlanVisitor;
 import org.apache.pinot.query.planner.PlannerUtils;
@@ -70,6 +76,7 @@ import org.apache.pinot.query.planner.logical.RelToPlanNodeConverter;
 import org.apache.pinot.query.planner.physical.PinotDispatchPlanner;
 import org.apache.pinot.query.routing.WorkerManager;
 import org.apache.pinot.query.type.TypeFactory;
+import org.apache.pinot.spi.utils.builder.TableNameBuilder;
 import org.apache.pinot.sql.parsers.CalciteSqlParser;
 import org.apache.pinot.sql.parsers.SqlNodeAndOptions;
 import org.apache.pinot.sql.parsers.parser.SqlPhysicalExplain;
@@ -95,12 +102,36 @@ public class QueryEnvironment {
   private final WorkerManager _workerManager;
   private final TableCache _tableCache;
 
+  // Cache of the optimized logical plans keyed by the catalog version and the normalized SQL, null when disabled. Only
+  // the compilation (validation, conversion and optimization) is cached, the worker assignment is always done per query
+  // so that it picks up the latest routing.
+  private final Cache<String, CachedPlan> _planCache;
+  // Bumped on every table config or schema change so that the plans compiled against the old catalog are not reused
+  private final AtomicLong _catalogVersion = new AtomicLong();
+  // Bumped on every table stats change so that the plans compiled during the change are not cached
+  private final AtomicLong _statsVersion = new AtomicLong();
+
   public QueryEnvironment(TypeFactory typeFactory, CalciteSchema rootSchema, WorkerManager workerManager,
       TableCache tableCache) {
+    this(typeFactory, rootSchema, workerManager, tableCache, 0);
+  }
+
+  /**
+   * @param planCacheSize max number of compiled query plans to cache, 0 to disable the plan cache.
+   */
+  public QueryEnvironment(TypeFactory typeFactory, CalciteSchema rootSchema, WorkerManager workerManager,
+      TableCache tableCache, int planCacheSize) {
     _typeFactory = typeFactory;
     _rootSchema = rootSchema;
     _workerManager = workerManager;
     _tableCache = tableCache;
+    if (planCacheSize > 0) {
+      _planCache = CacheBuilder.newBuilder().maximumSize(planCacheSize).build();
+      _tableCache.registerTableConfigChangeListener(tableConfigs -> invalidatePlanCache());
+      _tableCache.registerSchemaChangeListener(schemas -> invalidatePlanCache());
+    } else {
+      _planCache = null;
+    }
 
     // catalog
     Properties catalogReaderConfigProperties = new Properties();
@@ -147,6 +178,15 @@ public class QueryEnvironment {
     // TODO: We can consider using HepMatchOrder.TOP_DOWN if we find cases where it would help.
     hepProgramBuilder.addRuleCollection(PinotQueryRuleSets.PRUNE_RULES);
 
+    // ----
+    // Reorder the joins based on the table statistics, using 1 HepInstruction per rule. This is a no-op when the
+    // catalog doesn't provide the table row counts.
+    hepProgramBuilder.addMatchOrder(HepMatchOrder.BOTTOM_UP);
+    for (RelOptRule relOptRule : PinotQueryRuleSets.JOIN_REORDER_RULES) {
+      hepProgramBuilder.addRuleInstance(relOptRule);
+    }
+    hepProgramBuilder.addMatchOrder(HepMatchOrder.DEPTH_FIRST);
+
     // ----
     // Run pinot specific rules that should run after all other rules, using 1 HepInstruction per rule.
     for (RelOptRule relOptRule : PinotQueryRuleSets.PINOT_POST_RULES) {
@@ -170,7 +210,7 @@ public class QueryEnvironment {
   public QueryPlannerResult planQuery(String sqlQuery, SqlNodeAndOptions sqlNodeAndOptions, long requestId) {
     try (PlannerContext plannerContext = new PlannerContext(_config, _catalogReader, _typeFactory, _hepProgram)) {
       plannerContext.setOptions(sqlNodeAndOptions.getOptions());
-      RelRoot relRoot = compileQuery(sqlNodeAndOptions.getSqlNode(), plannerContext);
+      RelRoot relRoot = compileQueryWithCache(sqlNodeAndOptions.getSqlNode(), plannerContext);
       // TODO: current code only assume one SubPlan per query, but we should support multiple SubPlans per query.
       // Each SubPlan should be able to run independently from Broker then set the results into the dependent
       // SubPlan for further processing.
@@ -218,6 +258,35 @@ public class QueryEnvironment {
     }
   }
 
+  /**
+   * Invalidates all the cached query plans, e.g. when the tables or schemas are changed.
+   */
+  public void invalidatePlanCache() {
+    _catalogVersion.incrementAndGet();
+    if (_planCache != null) {
+      _planCache.invalidateAll();
+    }
+  }
+
+  /**
+   * Invalidates the cached query plans referencing the given table, e.g. when the stats of the table are changed. The
+   * plans not referencing the table are not affected by the change, so they are kept.
+   *
+   * @param tableName raw table name or table name with type
+   */
+  public void invalidatePlanCache(String tableName) {
+    _statsVersion.incrementAndGet();
+    if (_planCache != null) {
+      String rawTableName = TableNameBuilder.extractRawTableName(tableName);
+      _planCache.asMap().values().removeIf(cachedPlan -> cachedPlan.getRawTableNames().contains(rawTableName));
+    }
+  }
+
+  @VisibleForTesting
+  long getNumCachedPlans() {
+    return _planCache != null ? _planCache.size() : 0;
+  }
+
   @VisibleForTesting
   public DispatchableSubPlan planQuery(String sqlQuery) {
     return planQuery(sqlQuery, CalciteSqlParser.compileToSqlNodeAndOptions(sqlQuery), 0).getQueryPlan();
@@ -242,6 +311,35 @@ public class QueryEnvironment {
     }
   }
 
+  /**
+   * A compiled query plan, along with the raw names of the tables referenced by the plan.
+   */
+  private static class CachedPlan {
+    // Marks the queries that cannot be compiled with the dynamic parameters
+    static final CachedPlan NOT_PARAMETERIZABLE = new CachedPlan(null, Collections.emptySet());
+
+    private final RelRoot _relRoot;
+    private final Set<String> _rawTableNames;
+
+    CachedPlan(RelRoot relRoot) {
+      this(relRoot, RelToPlanNodeConverter.getTableNamesFromRelRoot(relRoot.rel).stream()
+          .map(TableNameBuilder::extractRawTableName).collect(Collectors.toSet()));
+    }
+
+    private CachedPlan(@Nullable RelRoot relRoot, Set<String> rawTableNames) {
+      _relRoot = relRoot;
+      _rawTableNames = rawTableNames;
+    }
+
+    RelRoot getRelRoot() {
+      return _relRoot;
+    }
+
+    Set<String> getRawTableNames() {
+      return _rawTableNames;
+    }
+  }
+
   /**
    * Results of planning a query
    */
@@ -275,6 +373,73 @@ public class QueryEnvironment {
   // steps
   // --------------------------------------------------------------------------
 
+  /**
+   * Compiles the query, or returns the cached plan if the same query was compiled against the current catalog. The
+   * cache key is the SQL unparsed from the parsed {@link SqlNode}, so that queries only differing in formatting (white
+   * spaces, keyword cases, quoting etc.) share the same plan. The literals compared against the columns are replaced
+   * with dynamic parameters (see {@link QueryParameterizer}) so that queries only differing in these literals also
+   * share the same plan, and the literals are bound back into the cached plan. The queries that cannot be compiled
+   * with the dynamic parameters are also cached, so that they are directly compiled with the literals next time.
+   */
+  private RelRoot compileQueryWithCache(SqlNode sqlNode, PlannerContext plannerContext)
+      throws Exception {
+    if (_planCache == null) {
+      return compileQuery(sqlNode, plannerContext);
+    }
+    // The versions are read before compiling so that a plan compiled during a catalog change is cached under the old
+    // version, and a plan compiled during a stats change is not cached.
+    long catalogVersion = _catalogVersion.get();
+    long statsVersion = _statsVersion.get();
+    // Compile the parameterized copy so that the original SqlNode is left untouched for the fallback below
+    QueryParameterizer parameterizer = new QueryParameterizer(sqlNode, _typeFactory);
+    String cacheKey = catalogVersion + ":" + parameterizer.getParameterizedSqlNode();
+    CachedPlan cachedPlan = _planCache.getIfPresent(cacheKey);
+    if (cachedPlan == null) {
+      try {
+        RelRoot relRoot = compileQuery(parameterizer.getParameterizedSqlNode(), plannerContext);
+        RelRoot boundRelRoot = parameterizer.bind(relRoot);
+        cachePlan(cacheKey, new CachedPlan(relRoot), statsVersion);
+        return boundRelRoot;
+      } catch (Exception e) {
+        if (!parameterizer.isParameterFailure(e)) {
+          throw e;
+        }
+        cachedPlan = CachedPlan.NOT_PARAMETERIZABLE;
+        _planCache.put(cacheKey, cachedPlan);
+      }
+    }
+    if (cachedPlan != CachedPlan.NOT_PARAMETERIZABLE) {
+      return parameterizer.bind(cachedPlan.getRelRoot());
+    }
+    return compileQueryWithLiteralsWithCache(catalogVersion, statsVersion, sqlNode, plannerContext);
+  }
+
+  /**
+   * Compiles the query with the literals kept in the cache key, for the queries that cannot be compiled with dynamic
+   * parameters (e.g. a parameter whose type cannot be inferred).
+   */
+  private RelRoot compileQueryWithLiteralsWithCache(long catalogVersion, long statsVersion, SqlNode sqlNode,
+      PlannerContext plannerContext)
+      throws Exception {
+    // Compute the key before compiling as the validation rewrites the SqlNode in place
+    String cacheKey = catalogVersion + ":" + sqlNode;
+    CachedPlan cachedPlan = _planCache.getIfPresent(cacheKey);
+    if (cachedPlan != null) {
+      return cachedPlan.getRelRoot();
+    }
+    RelRoot relRoot = compileQuery(sqlNode, plannerContext);
+    cachePlan(cacheKey, new CachedPlan(relRoot), statsVersion);
+    return relRoot;
+  }
+
+  private void cachePlan(String cacheKey, CachedPlan cachedPlan, long statsVersion) {
+    _planCache.put(cacheKey, cachedPlan);
+    // Drop the plan if the stats changed during the compilation, as the invalidation might have missed it
+    if (_statsVersion.get() != statsVersion) {
+      _planCache.invalidate(cacheKey);
+    }
+  }
+
   @VisibleForTesting
   protected RelRoot compileQuery(SqlNode sqlNode, PlannerContext plannerContext)
       throws Exception {
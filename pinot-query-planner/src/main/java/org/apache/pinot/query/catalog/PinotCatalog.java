@@ -45,13 +45,23 @@ import static java.util.Objects.requireNonNull;
 public class PinotCatalog implements Schema {
 
   private final TableCache _tableCache;
+  private final TableStatsProvider _tableStatsProvider;
 
   /**
    * PinotCatalog needs have access to the actual {@link TableCache} object because TableCache hosts the actual
    * table available for query and processes table/segment metadata updates when cluster status changes.
    */
   public PinotCatalog(TableCache tableCache) {
+    this(tableCache, null);
+  }
+
+  /**
+   * Same as {@link #PinotCatalog(TableCache)}, with an optional {@link TableStatsProvider} to expose the table
+   * statistics to the cost based optimizations of the planner.
+   */
+  public PinotCatalog(TableCache tableCache, @Nullable TableStatsProvider tableStatsProvider) {
     _tableCache = tableCache;
+    _tableStatsProvider = tableStatsProvider;
   }
 
   /**
@@ -66,7 +76,8 @@ public class PinotCatalog implements Schema {
     if (schema == null) {
       throw new IllegalArgumentException(String.format("Could not find schema for table: '%s'", tableName));
     }
-    return new PinotTable(schema);
+    Long rowCount = _tableStatsProvider != null ? _tableStatsProvider.getRowCount(name) : null;
+    return new PinotTable(schema, rowCount);
   }
 
   /**
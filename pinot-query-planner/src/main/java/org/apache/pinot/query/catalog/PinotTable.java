@@ -19,11 +19,14 @@
 package org.apache.pinot.query.catalog;
 
 import com.google.common.base.Preconditions;
+import javax.annotation.Nullable;
 import org.apache.calcite.DataContext;
 import org.apache.calcite.linq4j.Enumerable;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
 import org.apache.calcite.schema.ScannableTable;
+import org.apache.calcite.schema.Statistic;
+import org.apache.calcite.schema.Statistics;
 import org.apache.calcite.schema.impl.AbstractTable;
 import org.apache.pinot.query.type.TypeFactory;
 import org.apache.pinot.spi.data.Schema;
@@ -37,9 +40,28 @@ import org.apache.pinot.spi.data.Schema;
  */
 public class PinotTable extends AbstractTable implements ScannableTable {
   private Schema _schema;
+  private final Long _rowCount;
 
   public PinotTable(Schema schema) {
+    this(schema, null);
+  }
+
+  public PinotTable(Schema schema, @Nullable Long rowCount) {
     _schema = schema;
+    _rowCount = rowCount;
+  }
+
+  /**
+   * Returns the number of rows in the table, or {@code null} if the table statistics are not available.
+   */
+  @Nullable
+  public Long getRowCount() {
+    return _rowCount;
+  }
+
+  @Override
+  public Statistic getStatistic() {
+    return _rowCount != null ? Statistics.of(_rowCount, null) : Statistics.UNKNOWN;
   }
 
   @Override
@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.catalog;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.pinot.common.metadata.ZKMetadataProvider;
+import org.apache.pinot.common.metadata.segment.SegmentZKMetadata;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.utils.builder.TableNameBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * {@link TableStatsProvider} backed by the segment ZK metadata. The row count of a table is the sum of the total docs
+ * of all its segments, where the consuming segments (without total docs) are ignored.
+ *
+ * <p>Reading the segment ZK metadata is expensive for tables with a lot of segments, so the stats are cached and
+ * reloaded in the background after the refresh interval, while the planning keeps using the cached stats. The stats of
+ * a table are also loaded in the background on the first access, and are unknown until loaded, so that the planning
+ * never blocks on ZK. The registered listeners are notified when the loaded stats of a table change significantly, so
+ * that the plans compiled with the previous stats of the table can be invalidated. Small changes (e.g. the row count of
+ * a realtime table growing between 2 refreshes) are not notified as they are unlikely to change the plans.
+ */
+public class SegmentZKMetadataTableStatsProvider implements TableStatsProvider, AutoCloseable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentZKMetadataTableStatsProvider.class);
+  // Loaded for the tables without any segment, as the cache cannot hold null values
+  private static final long UNKNOWN_ROW_COUNT = -1;
+  // Min relative change of the row count (compared to the last notified one) to notify the listeners
+  private static final double MIN_ROW_COUNT_CHANGE_RATIO = 0.1;
+
+  private final ZkHelixPropertyStore<ZNRecord> _propertyStore;
+  private final ExecutorService _loaderExecutor;
+  // Keyed by table name with type
+  private final LoadingCache<String, Long> _rowCountCache;
+  // Row counts the listeners were last notified with, keyed by table name with type
+  private final Map<String, Long> _notifiedRowCounts = new ConcurrentHashMap<>();
+  private final List<Consumer<String>> _statsChangeListeners = new CopyOnWriteArrayList<>();
+
+  public SegmentZKMetadataTableStatsProvider(ZkHelixPropertyStore<ZNRecord> propertyStore, long refreshIntervalMs) {
+    _propertyStore = propertyStore;
+    _loaderExecutor = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setNameFormat("table-stats-loader-%d").setDaemon(true).build());
+    _rowCountCache = CacheBuilder.newBuilder().refreshAfterWrite(refreshIntervalMs, TimeUnit.MILLISECONDS)
+        .build(CacheLoader.asyncReloading(new CacheLoader<String, Long>() {
+          @Override
+          public Long load(String tableNameWithType) {
+            long rowCount = loadRowCount(tableNameWithType);
+            notifyIfStatsChanged(tableNameWithType, rowCount);
+            return rowCount;
+          }
+
+          @Override
+          public ListenableFuture<Long> reload(String tableNameWithType, Long oldRowCount) {
+            long rowCount = loadRowCount(tableNameWithType);
+            notifyIfStatsChanged(tableNameWithType, rowCount);
+            return Futures.immediateFuture(rowCount);
+          }
+        }, _loaderExecutor));
+  }
+
+  /**
+   * Registers a listener to be invoked (on the loader thread) with the table name with type after the stats of the
+   * table are changed.
+   */
+  public void registerStatsChangeListener(Consumer<String> statsChangeListener) {
+    _statsChangeListeners.add(statsChangeListener);
+  }
+
+  @Nullable
+  @Override
+  public Long getRowCount(String tableName) {
+    TableType tableType = TableNameBuilder.getTableTypeFromTableName(tableName);
+    if (tableType != null) {
+      long rowCount = getRowCountForTableWithType(tableName);
+      return rowCount != UNKNOWN_ROW_COUNT ? rowCount : null;
+    }
+    long offlineRowCount = getRowCountForTableWithType(TableNameBuilder.OFFLINE.tableNameWithType(tableName));
+    long realtimeRowCount = getRowCountForTableWithType(TableNameBuilder.REALTIME.tableNameWithType(tableName));
+    if (offlineRowCount == UNKNOWN_ROW_COUNT && realtimeRowCount == UNKNOWN_ROW_COUNT) {
+      return null;
+    }
+    return Math.max(offlineRowCount, 0) + Math.max(realtimeRowCount, 0);
+  }
+
+  private long getRowCountForTableWithType(String tableNameWithType) {
+    // NOTE: getIfPresent() also triggers the background reload when the cached row count is older than the interval.
+    Long rowCount = _rowCountCache.getIfPresent(tableNameWithType);
+    if (rowCount != null) {
+      return rowCount;
+    }
+    _loaderExecutor.execute(() -> {
+      try {
+        _rowCountCache.getUnchecked(tableNameWithType);
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while loading the row count for table: {}", tableNameWithType, e);
+      }
+    });
+    return UNKNOWN_ROW_COUNT;
+  }
+
+  @Override
+  public void close() {
+    _loaderExecutor.shutdownNow();
+  }
+
+  private void notifyIfStatsChanged(String tableNameWithType, long rowCount) {
+    long notifiedRowCount = _notifiedRowCounts.getOrDefault(tableNameWithType, UNKNOWN_ROW_COUNT);
+    if (!isSignificantChange(notifiedRowCount, rowCount)) {
+      return;
+    }
+    _notifiedRowCounts.put(tableNameWithType, rowCount);
+    if (_statsChangeListeners.isEmpty()) {
+      return;
+    }
+    // NOTE: The loading is always performed on the single loader thread, and the loaded value is put into the cache
+    //       at the end of the loading task, so notify in the next task to ensure the listeners see the new stats.
+    _loaderExecutor.execute(() -> {
+      for (Consumer<String> statsChangeListener : _statsChangeListeners) {
+        try {
+          statsChangeListener.accept(tableNameWithType);
+        } catch (Exception e) {
+          LOGGER.warn("Caught exception while notifying the stats change listener for table: {}", tableNameWithType,
+              e);
+        }
+      }
+    });
+  }
+
+  private static boolean isSignificantChange(long oldRowCount, long newRowCount) {
+    if (oldRowCount == UNKNOWN_ROW_COUNT || newRowCount == UNKNOWN_ROW_COUNT) {
+      return oldRowCount != newRowCount;
+    }
+    return Math.abs(newRowCount - oldRowCount) > oldRowCount * MIN_ROW_COUNT_CHANGE_RATIO;
+  }
+
+  private long loadRowCount(String tableNameWithType) {
+    List<SegmentZKMetadata> segmentsZKMetadata =
+        ZKMetadataProvider.getSegmentsZKMetadata(_propertyStore, tableNameWithType);
+    if (segmentsZKMetadata.isEmpty()) {
+      return UNKNOWN_ROW_COUNT;
+    }
+    long rowCount = 0;
+    for (SegmentZKMetadata segmentZKMetadata : segmentsZKMetadata) {
+      rowCount += Math.max(segmentZKMetadata.getTotalDocs(), 0);
+    }
+    return rowCount;
+  }
+}
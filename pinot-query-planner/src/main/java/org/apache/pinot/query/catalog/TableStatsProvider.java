@@ -0,0 +1,35 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.catalog;
+
+import javax.annotation.Nullable;
+
+
+/**
+ * Provides the table statistics used by the cost based optimizations of the multi-stage query planner.
+ */
+public interface TableStatsProvider {
+
+  /**
+   * Returns the number of rows in the table, or {@code null} if unknown.
+   * @param tableName name of the table, either the raw table name (all the table types) or with the type suffix.
+   */
+  @Nullable
+  Long getRowCount(String tableName);
+}
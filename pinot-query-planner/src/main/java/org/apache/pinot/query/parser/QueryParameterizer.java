@@ -0,0 +1,272 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.parser;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.calcite.plan.RelOptPredicateList;
+import org.apache.calcite.rel.RelHomogeneousShuttle;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelRoot;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexDynamicParam;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexShuttle;
+import org.apache.calcite.rex.RexSimplify;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.runtime.CalciteContextException;
+import org.apache.calcite.sql.SqlBasicCall;
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlCharStringLiteral;
+import org.apache.calcite.sql.SqlDynamicParam;
+import org.apache.calcite.sql.SqlHint;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.SqlNumericLiteral;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.sql.type.SqlTypeUtil;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.sql.util.SqlShuttle;
+
+
+/**
+ * Replaces the literals of a parsed query with dynamic parameters, so that the queries only differing in these literals
+ * share the same compiled plan, and binds the literals back into the compiled plan.
+ *
+ * <p>Each literal is replaced with {@code CAST(? AS <literal type>)}, so that the query is validated and optimized with
+ * the same types as with the literal. Only the numeric and character literals directly compared (comparison, IN and
+ * BETWEEN) against a non-literal expression are parameterized. The other literals (e.g. function arguments, LIMIT) can
+ * change the plan or have to be literals, so they are kept in the query.
+ *
+ * <p>The parameterized query is a deep copy, so the original query is left untouched by the validation of the
+ * parameterized query.
+ */
+public class QueryParameterizer {
+  private final RelDataTypeFactory _typeFactory;
+  private final List<SqlLiteral> _literals = new ArrayList<>();
+  private final SqlNode _parameterizedSqlNode;
+
+  public QueryParameterizer(SqlNode sqlNode, RelDataTypeFactory typeFactory) {
+    _typeFactory = typeFactory;
+    _parameterizedSqlNode = sqlNode.accept(new ParameterizingShuttle());
+  }
+
+  public SqlNode getParameterizedSqlNode() {
+    return _parameterizedSqlNode;
+  }
+
+  public int getNumParameters() {
+    return _literals.size();
+  }
+
+  /**
+   * Returns whether the compilation (or the binding) of the parameterized query failed because of one of the dynamic
+   * parameters, e.g. when the type of a parameter cannot be inferred, in which case the query can still be compiled
+   * with the literals. The other failures (e.g. unknown table or column) are not related to the parameterization.
+   */
+  public boolean isParameterFailure(Exception e) {
+    if (e instanceof UnsupportedParameterException) {
+      return true;
+    }
+    if (!(e instanceof CalciteContextException)) {
+      return false;
+    }
+    // The dynamic parameters (and the casts on top of them) are created at the position of the replaced literals
+    CalciteContextException contextException = (CalciteContextException) e;
+    for (SqlLiteral literal : _literals) {
+      SqlParserPos pos = literal.getParserPosition();
+      if (contextException.getPosLine() == pos.getLineNum()
+          && contextException.getPosColumn() == pos.getColumnNum()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns a copy of the plan compiled from the parameterized query, where the dynamic parameters are replaced with
+   * the literals of this query.
+   */
+  public RelRoot bind(RelRoot relRoot) {
+    if (_literals.isEmpty()) {
+      return relRoot;
+    }
+    RexBuilder rexBuilder = relRoot.rel.getCluster().getRexBuilder();
+    RexSimplify rexSimplify = new RexSimplify(rexBuilder, RelOptPredicateList.EMPTY, RexUtil.EXECUTOR);
+    RexShuttle rexShuttle = new RexShuttle() {
+      @Override
+      public RexNode visitCall(RexCall call) {
+        if (call.getKind() == SqlKind.CAST && call.getOperands().get(0) instanceof RexDynamicParam) {
+          return makeLiteral(rexBuilder, ((RexDynamicParam) call.getOperands().get(0)).getIndex(), call.getType());
+        }
+        RexNode node = super.visitCall(call);
+        // Fold the casts added by the type coercion on top of the bound literals, same as the optimizer does for the
+        // literals in the query
+        if (node.getKind() == SqlKind.CAST && ((RexCall) node).getOperands().get(0) instanceof RexLiteral) {
+          return rexSimplify.simplify(node);
+        }
+        return node;
+      }
+
+      @Override
+      public RexNode visitDynamicParam(RexDynamicParam dynamicParam) {
+        return makeLiteral(rexBuilder, dynamicParam.getIndex(), dynamicParam.getType());
+      }
+    };
+    RelNode rel = relRoot.rel.accept(new RelHomogeneousShuttle() {
+      @Override
+      public RelNode visit(RelNode other) {
+        return super.visit(other).accept(rexShuttle);
+      }
+    });
+    return relRoot.withRel(rel);
+  }
+
+  private RexNode makeLiteral(RexBuilder rexBuilder, int index, RelDataType type) {
+    SqlLiteral literal = _literals.get(index);
+    Object value;
+    if (SqlTypeUtil.isCharacter(type)) {
+      value = literal.getValueAs(String.class);
+    } else if (SqlTypeUtil.isNumeric(type)) {
+      value = literal.getValueAs(BigDecimal.class);
+    } else {
+      throw new UnsupportedParameterException("Unsupported type: " + type + " for parameter: " + index);
+    }
+    return rexBuilder.makeLiteral(value, type, false);
+  }
+
+  private SqlNode toParameter(SqlLiteral literal) {
+    RelDataType type = literal.createSqlType(_typeFactory);
+    if (SqlTypeUtil.isCharacter(type)) {
+      // NOTE: Use VARCHAR instead of CHAR(<length>) so that string literals of different lengths share the same plan.
+      type = _typeFactory.createTypeWithCharsetAndCollation(_typeFactory.createSqlType(SqlTypeName.VARCHAR),
+          type.getCharset(), type.getCollation());
+    }
+    SqlDynamicParam dynamicParam = new SqlDynamicParam(_literals.size(), literal.getParserPosition());
+    _literals.add(literal);
+    return SqlStdOperatorTable.CAST.createCall(literal.getParserPosition(), dynamicParam,
+        SqlTypeUtil.convertTypeToSpec(type));
+  }
+
+  private static boolean isParameterizable(SqlNode node) {
+    return node instanceof SqlNumericLiteral || node instanceof SqlCharStringLiteral;
+  }
+
+  private static boolean isLiteral(SqlNode node) {
+    return node instanceof SqlLiteral;
+  }
+
+  /**
+   * Thrown when a dynamic parameter is inferred to a type that cannot be bound back from the literal.
+   */
+  public static class UnsupportedParameterException extends IllegalStateException {
+    public UnsupportedParameterException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Deep copies the query, and replaces the parameterizable literals in the copy.
+   */
+  private class ParameterizingShuttle extends SqlShuttle {
+
+    @Override
+    public SqlNode visit(SqlCall call) {
+      if (call instanceof SqlHint) {
+        // Hints cannot be re-created from the operands, and their options are never parameterized
+        return call;
+      }
+      CallCopyingArgHandler argHandler = new CallCopyingArgHandler(call, true);
+      call.getOperator().acceptCall(this, call, false, argHandler);
+      SqlNode copy = argHandler.result();
+      if (copy instanceof SqlBasicCall) {
+        parameterizeOperands((SqlBasicCall) copy);
+      }
+      return copy;
+    }
+
+    @Override
+    public SqlNode visit(SqlNodeList nodeList) {
+      SqlNodeList copy = new SqlNodeList(nodeList.getParserPosition());
+      for (SqlNode node : nodeList) {
+        copy.add(node != null ? node.accept(this) : null);
+      }
+      return copy;
+    }
+
+    @Override
+    public SqlNode visit(SqlIdentifier id) {
+      return id.clone(id.getParserPosition());
+    }
+
+    private void parameterizeOperands(SqlBasicCall call) {
+      switch (call.getKind()) {
+        case EQUALS:
+        case NOT_EQUALS:
+        case LESS_THAN:
+        case LESS_THAN_OR_EQUAL:
+        case GREATER_THAN:
+        case GREATER_THAN_OR_EQUAL: {
+          SqlNode left = call.operand(0);
+          SqlNode right = call.operand(1);
+          if (isParameterizable(left) && !isLiteral(right)) {
+            call.setOperand(0, toParameter((SqlLiteral) left));
+          } else if (isParameterizable(right) && !isLiteral(left)) {
+            call.setOperand(1, toParameter((SqlLiteral) right));
+          }
+          break;
+        }
+        case IN:
+        case NOT_IN: {
+          SqlNode right = call.operand(1);
+          if (!isLiteral(call.operand(0)) && right instanceof SqlNodeList) {
+            SqlNodeList values = (SqlNodeList) right;
+            for (int i = 0; i < values.size(); i++) {
+              if (isParameterizable(values.get(i))) {
+                values.set(i, toParameter((SqlLiteral) values.get(i)));
+              }
+            }
+          }
+          break;
+        }
+        case BETWEEN: {
+          if (!isLiteral(call.operand(0))) {
+            for (int i = 1; i < call.operandCount(); i++) {
+              if (isParameterizable(call.operand(i))) {
+                call.setOperand(i, toParameter((SqlLiteral) call.operand(i)));
+              }
+            }
+          }
+          break;
+        }
+        default:
+          break;
+      }
+    }
+  }
+}
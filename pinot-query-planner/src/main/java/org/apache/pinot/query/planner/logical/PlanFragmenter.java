@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import org.apache.calcite.rel.RelDistribution;
 import org.apache.calcite.rel.logical.PinotRelExchangeType;
+import org.apache.calcite.rel.logical.PinotRelSkewHandlingType;
 import org.apache.pinot.query.planner.PlanFragment;
 import org.apache.pinot.query.planner.PlanFragmentMetadata;
 import org.apache.pinot.query.planner.partitioning.FieldSelectionKeySelector;
@@ -80,7 +81,9 @@ public class PlanFragmenter implements PlanNodeVisitor<PlanNode, PlanFragmenter.
 
   @Override
   public PlanNode visitJoin(JoinNode node, Context context) {
-    return process(node, context);
+    process(node, context);
+    linkSkewHandlingSenders(node);
+    return node;
   }
 
   @Override
@@ -145,7 +148,7 @@ public class PlanFragmenter implements PlanNodeVisitor<PlanNode, PlanFragmenter.
     PlanNode mailboxSender =
         new MailboxSendNode(nextPlanFragmentId, nextPlanFragmentRoot.getDataSchema(),
             currentPlanFragmentId, distributionType, exchangeType, keySelector, node.getCollations(),
-            node.isSortOnSender());
+            node.isSortOnSender(), node.getSkewHandlingType(), node.getSkewSplitFactor());
     PlanNode mailboxReceiver = new MailboxReceiveNode(currentPlanFragmentId, nextPlanFragmentRoot.getDataSchema(),
         nextPlanFragmentId, distributionType, exchangeType, keySelector,
         node.getCollations(), node.isSortOnSender(), node.isSortOnReceiver(), mailboxSender);
@@ -161,6 +164,25 @@ public class PlanFragmenter implements PlanNodeVisitor<PlanNode, PlanFragmenter.
     return mailboxReceiver;
   }
 
+  /**
+   * Links the sender splitting the hot keys of the left table with the sender replicating the rows of the right table,
+   * so that the hot keys detected on the left side can be sent to the right side, which then only replicates the rows
+   * of these keys.
+   */
+  private static void linkSkewHandlingSenders(JoinNode node) {
+    List<PlanNode> inputs = node.getInputs();
+    if (!(inputs.get(0) instanceof MailboxReceiveNode) || !(inputs.get(1) instanceof MailboxReceiveNode)) {
+      return;
+    }
+    MailboxSendNode leftSender = (MailboxSendNode) ((MailboxReceiveNode) inputs.get(0)).getSender();
+    MailboxSendNode rightSender = (MailboxSendNode) ((MailboxReceiveNode) inputs.get(1)).getSender();
+    if (leftSender.getSkewHandlingType() == PinotRelSkewHandlingType.SPLIT
+        && rightSender.getSkewHandlingType() == PinotRelSkewHandlingType.REPLICATE) {
+      leftSender.setHotKeyStageId(rightSender.getPlanFragmentId());
+      rightSender.setHotKeyStageId(leftSender.getPlanFragmentId());
+    }
+  }
+
   private boolean isPlanFragmentSplitter(PlanNode node) {
     return ((ExchangeNode) node).getExchangeType() != PinotRelExchangeType.SUB_PLAN;
   }
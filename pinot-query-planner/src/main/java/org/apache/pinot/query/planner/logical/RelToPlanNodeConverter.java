@@ -42,6 +42,7 @@ import org.apache.calcite.rel.logical.LogicalWindow;
 import org.apache.calcite.rel.logical.PinotLogicalExchange;
 import org.apache.calcite.rel.logical.PinotLogicalSortExchange;
 import org.apache.calcite.rel.logical.PinotRelExchangeType;
+import org.apache.calcite.rel.logical.PinotRelSkewHandlingType;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeField;
 import org.apache.calcite.rel.type.RelRecordType;
@@ -114,6 +115,8 @@ public final class RelToPlanNodeConverter {
     boolean isSortOnSender = false;
     boolean isSortOnReceiver = false;
     PinotRelExchangeType exchangeType = PinotRelExchangeType.getDefaultExchangeType();
+    PinotRelSkewHandlingType skewHandlingType = PinotRelSkewHandlingType.getDefaultSkewHandlingType();
+    int skewSplitFactor = 0;
     if (node instanceof SortExchange) {
       collation = ((SortExchange) node).getCollation();
       if (node instanceof PinotLogicalSortExchange) {
@@ -125,6 +128,8 @@ public final class RelToPlanNodeConverter {
     } else {
       if (node instanceof PinotLogicalExchange) {
         exchangeType = ((PinotLogicalExchange) node).getExchangeType();
+        skewHandlingType = ((PinotLogicalExchange) node).getSkewHandlingType();
+        skewSplitFactor = ((PinotLogicalExchange) node).getSkewSplitFactor();
       }
     }
     List<RelFieldCollation> fieldCollations = (collation == null) ? null : collation.getFieldCollations();
@@ -133,7 +138,7 @@ public final class RelToPlanNodeConverter {
     Set<String> tableNames = getTableNamesFromRelRoot(node);
 
     return new ExchangeNode(currentStageId, toDataSchema(node.getRowType()), exchangeType, tableNames,
-        node.getDistribution(), fieldCollations, isSortOnSender, isSortOnReceiver);
+        node.getDistribution(), fieldCollations, isSortOnSender, isSortOnReceiver, skewHandlingType, skewSplitFactor);
   }
 
   private static PlanNode convertLogicalSetOp(SetOp node, int currentStageId) {
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.calcite.rel.RelDistribution;
+import org.apache.calcite.rel.logical.PinotRelSkewHandlingType;
 import org.apache.pinot.query.planner.plannode.DefaultPostOrderTraversalVisitor;
 import org.apache.pinot.query.planner.plannode.MailboxSendNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
@@ -114,7 +115,46 @@ public class MailboxAssignmentVisitor extends DefaultPostOrderTraversalVisitor<V
           }
         }
       }
+      if (sendNode.getSkewHandlingType() == PinotRelSkewHandlingType.SPLIT && sendNode.getHotKeyStageId() >= 0) {
+        assignHotKeyMailboxes(senderMetadata, metadataMap.get(sendNode.getHotKeyStageId()), senderFragmentId,
+            sendNode.getHotKeyStageId());
+      }
     }
     return null;
   }
+
+  /**
+   * Assigns the mailboxes from every worker of the fragment splitting the hot keys of a JOIN to every worker of the
+   * fragment replicating the rows of the other side, through which the detected hot keys are sent.
+   */
+  private static void assignHotKeyMailboxes(DispatchablePlanMetadata senderMetadata,
+      DispatchablePlanMetadata receiverMetadata, int senderFragmentId, int receiverFragmentId) {
+    Map<Integer, QueryServerInstance> senderServerMap = senderMetadata.getWorkerIdToServerInstanceMap();
+    Map<Integer, QueryServerInstance> receiverServerMap = receiverMetadata.getWorkerIdToServerInstanceMap();
+    Map<Integer, Map<Integer, MailboxMetadata>> senderMailboxesMap = senderMetadata.getWorkerIdToMailboxesMap();
+    Map<Integer, Map<Integer, MailboxMetadata>> receiverMailboxesMap = receiverMetadata.getWorkerIdToMailboxesMap();
+    int numSenders = senderServerMap.size();
+    int numReceivers = receiverServerMap.size();
+    for (int senderWorkerId = 0; senderWorkerId < numSenders; senderWorkerId++) {
+      VirtualServerAddress senderAddress =
+          new VirtualServerAddress(senderServerMap.get(senderWorkerId), senderWorkerId);
+      MailboxMetadata senderMailboxMetadata = new MailboxMetadata();
+      senderMailboxesMap.computeIfAbsent(senderWorkerId, k -> new HashMap<>())
+          .put(receiverFragmentId, senderMailboxMetadata);
+      for (int receiverWorkerId = 0; receiverWorkerId < numReceivers; receiverWorkerId++) {
+        VirtualServerAddress receiverAddress =
+            new VirtualServerAddress(receiverServerMap.get(receiverWorkerId), receiverWorkerId);
+        String mailboxId =
+            MailboxIdUtils.toPlanMailboxId(senderFragmentId, senderWorkerId, receiverFragmentId, receiverWorkerId);
+        senderMailboxMetadata.getMailBoxIdList().add(mailboxId);
+        senderMailboxMetadata.getVirtualAddressList().add(receiverAddress);
+
+        MailboxMetadata receiverMailboxMetadata =
+            receiverMailboxesMap.computeIfAbsent(receiverWorkerId, k -> new HashMap<>())
+                .computeIfAbsent(senderFragmentId, k -> new MailboxMetadata());
+        receiverMailboxMetadata.getMailBoxIdList().add(mailboxId);
+        receiverMailboxMetadata.getVirtualAddressList().add(senderAddress);
+      }
+    }
+  }
 }
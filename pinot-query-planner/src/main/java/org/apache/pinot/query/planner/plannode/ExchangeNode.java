@@ -23,6 +23,7 @@ import java.util.Set;
 import org.apache.calcite.rel.RelDistribution;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.rel.logical.PinotRelExchangeType;
+import org.apache.calcite.rel.logical.PinotRelSkewHandlingType;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.planner.serde.ProtoProperties;
 
@@ -51,6 +52,12 @@ public class ExchangeNode extends AbstractPlanNode {
   @ProtoProperties
   private List<RelFieldCollation> _collations;
 
+  @ProtoProperties
+  private PinotRelSkewHandlingType _skewHandlingType = PinotRelSkewHandlingType.getDefaultSkewHandlingType();
+
+  @ProtoProperties
+  private int _skewSplitFactor;
+
   /**
    * The set of tables that are scanned in this planFragment.
    */
@@ -63,7 +70,7 @@ public class ExchangeNode extends AbstractPlanNode {
 
   public ExchangeNode(int currentStageId, DataSchema dataSchema, PinotRelExchangeType exchangeType,
       Set<String> tableNames, RelDistribution distribution, List<RelFieldCollation> collations, boolean isSortOnSender,
-      boolean isSortOnReceiver) {
+      boolean isSortOnReceiver, PinotRelSkewHandlingType skewHandlingType, int skewSplitFactor) {
     super(currentStageId, dataSchema);
     _exchangeType = exchangeType;
     _keys = distribution.getKeys();
@@ -72,6 +79,8 @@ public class ExchangeNode extends AbstractPlanNode {
     _isSortOnReceiver = isSortOnReceiver;
     _collations = collations;
     _tableNames = tableNames;
+    _skewHandlingType = skewHandlingType;
+    _skewSplitFactor = skewSplitFactor;
   }
 
   @Override
@@ -108,6 +117,14 @@ public class ExchangeNode extends AbstractPlanNode {
     return _collations;
   }
 
+  public PinotRelSkewHandlingType getSkewHandlingType() {
+    return _skewHandlingType;
+  }
+
+  public int getSkewSplitFactor() {
+    return _skewSplitFactor;
+  }
+
   public Set<String> getTableNames() {
     return _tableNames;
   }
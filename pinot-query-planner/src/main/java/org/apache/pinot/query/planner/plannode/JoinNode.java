@@ -21,6 +21,8 @@ package org.apache.pinot.query.planner.plannode;
 import java.util.Arrays;
 import java.util.List;
 import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.hint.PinotHintOptions;
+import org.apache.calcite.rel.hint.PinotHintStrategyTable;
 import org.apache.calcite.rel.hint.RelHint;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.planner.logical.RexExpression;
@@ -42,6 +44,8 @@ public class JoinNode extends AbstractPlanNode {
   private List<String> _leftColumnNames;
   @ProtoProperties
   private List<String> _rightColumnNames;
+  @ProtoProperties
+  private JoinStrategy _joinStrategy = JoinStrategy.HASH;
 
   public JoinNode(int planFragmentId) {
     super(planFragmentId);
@@ -56,6 +60,13 @@ public class JoinNode extends AbstractPlanNode {
     _joinKeys = joinKeys;
     _joinClause = joinClause;
     _joinHints = new NodeHint(joinHints);
+    String joinStrategy = PinotHintStrategyTable.getHintOption(joinHints, PinotHintOptions.INTERNAL_JOIN_OPTIONS,
+        PinotHintOptions.InternalJoinOptions.JOIN_STRATEGY);
+    if (PinotHintOptions.JoinHintOptions.SORT_MERGE_JOIN_STRATEGY.equals(joinStrategy)) {
+      _joinStrategy = JoinStrategy.SORT_MERGE;
+    } else if (PinotHintOptions.JoinHintOptions.DYNAMIC_FILTER_JOIN_STRATEGY.equals(joinStrategy)) {
+      _joinStrategy = JoinStrategy.DYNAMIC_FILTER;
+    }
   }
 
   public JoinRelType getJoinRelType() {
@@ -82,6 +93,10 @@ public class JoinNode extends AbstractPlanNode {
     return _rightColumnNames;
   }
 
+  public JoinStrategy getJoinStrategy() {
+    return _joinStrategy;
+  }
+
   @Override
   public String explain() {
     return "JOIN";
@@ -92,6 +107,19 @@ public class JoinNode extends AbstractPlanNode {
     return visitor.visitJoin(this, context);
   }
 
+  /**
+   * The join strategy applied by the planner, which decides the join operator used at runtime.
+   */
+  public enum JoinStrategy {
+    // Build a hash table for the right table
+    HASH,
+    // Both inputs are sorted on the join keys, and are joined with a streaming merge
+    SORT_MERGE,
+    // SEMI-JOIN on the leaf stage pre-filtering the left table with the keys of the right table of a hash join, where
+    // the filter can be skipped without affecting the result
+    DYNAMIC_FILTER
+  }
+
   public static class JoinKeys {
     @ProtoProperties
     private KeySelector<Object[], Object[]> _leftJoinKeySelector;
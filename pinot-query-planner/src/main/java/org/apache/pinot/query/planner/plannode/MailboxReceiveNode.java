@@ -96,7 +96,6 @@ public class MailboxReceiveNode extends AbstractPlanNode {
       _collationNullDirections = Collections.emptyList();
     }
     _isSortOnSender = isSortOnSender;
-    Preconditions.checkState(!isSortOnSender, "Input shouldn't be sorted as ordering on send is not yet implemented!");
     _isSortOnReceiver = isSortOnReceiver;
     _sender = sender;
   }
@@ -26,6 +26,7 @@ import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelDistribution;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.rel.logical.PinotRelExchangeType;
+import org.apache.calcite.rel.logical.PinotRelSkewHandlingType;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.planner.logical.RexExpression;
@@ -47,7 +48,17 @@ public class MailboxSendNode extends AbstractPlanNode {
   @ProtoProperties
   private List<RelFieldCollation.Direction> _collationDirections;
   @ProtoProperties
+  private List<RelFieldCollation.NullDirection> _collationNullDirections;
+  @ProtoProperties
   private boolean _isSortOnSender;
+  @ProtoProperties
+  private PinotRelSkewHandlingType _skewHandlingType = PinotRelSkewHandlingType.getDefaultSkewHandlingType();
+  @ProtoProperties
+  private int _skewSplitFactor;
+  // For the SPLIT skew handling, the stage the hot keys are published to; for the REPLICATE skew handling, the stage
+  // the hot keys are received from. -1 when the hot keys are not shared.
+  @ProtoProperties
+  private int _hotKeyStageId = -1;
 
   public MailboxSendNode(int planFragmentId) {
     super(planFragmentId);
@@ -57,25 +68,48 @@ public class MailboxSendNode extends AbstractPlanNode {
       RelDistribution.Type distributionType, PinotRelExchangeType exchangeType,
       @Nullable KeySelector<Object[], Object[]> partitionKeySelector,
       @Nullable List<RelFieldCollation> fieldCollations, boolean isSortOnSender) {
+    this(planFragmentId, dataSchema, receiverStageId, distributionType, exchangeType, partitionKeySelector,
+        fieldCollations, isSortOnSender, PinotRelSkewHandlingType.getDefaultSkewHandlingType(), 0);
+  }
+
+  public MailboxSendNode(int planFragmentId, DataSchema dataSchema, int receiverStageId,
+      RelDistribution.Type distributionType, PinotRelExchangeType exchangeType,
+      @Nullable KeySelector<Object[], Object[]> partitionKeySelector,
+      @Nullable List<RelFieldCollation> fieldCollations, boolean isSortOnSender,
+      PinotRelSkewHandlingType skewHandlingType, int skewSplitFactor) {
     super(planFragmentId, dataSchema);
     _receiverStageId = receiverStageId;
     _distributionType = distributionType;
     _exchangeType = exchangeType;
     _partitionKeySelector = partitionKeySelector;
-    // TODO: Support ordering here if the 'fieldCollations' aren't empty and 'sortOnSender' is true
-    Preconditions.checkState(!isSortOnSender, "Ordering is not yet supported on Mailbox Send");
+    // The collation is only kept when the rows are sorted on the sender, so that the receiver can merge the sorted
+    // streams from the senders
     if (!CollectionUtils.isEmpty(fieldCollations) && isSortOnSender) {
       _collationKeys = new ArrayList<>(fieldCollations.size());
       _collationDirections = new ArrayList<>(fieldCollations.size());
+      _collationNullDirections = new ArrayList<>(fieldCollations.size());
       for (RelFieldCollation fieldCollation : fieldCollations) {
-        _collationDirections.add(fieldCollation.getDirection());
+        RelFieldCollation.Direction direction = fieldCollation.getDirection();
+        Preconditions.checkArgument(
+            direction == RelFieldCollation.Direction.ASCENDING || direction == RelFieldCollation.Direction.DESCENDING,
+            "Unsupported ORDER-BY direction: %s", direction);
+        _collationDirections.add(direction);
+        RelFieldCollation.NullDirection nullDirection = fieldCollation.nullDirection;
+        if (nullDirection == RelFieldCollation.NullDirection.UNSPECIFIED) {
+          nullDirection = direction == RelFieldCollation.Direction.ASCENDING ? RelFieldCollation.NullDirection.LAST
+              : RelFieldCollation.NullDirection.FIRST;
+        }
+        _collationNullDirections.add(nullDirection);
         _collationKeys.add(new RexExpression.InputRef(fieldCollation.getFieldIndex()));
       }
     } else {
       _collationKeys = Collections.emptyList();
       _collationDirections = Collections.emptyList();
+      _collationNullDirections = Collections.emptyList();
     }
     _isSortOnSender = isSortOnSender;
+    _skewHandlingType = skewHandlingType;
+    _skewSplitFactor = skewSplitFactor;
   }
 
   public int getReceiverStageId() {
@@ -114,10 +148,30 @@ public class MailboxSendNode extends AbstractPlanNode {
     return _collationDirections;
   }
 
+  public List<RelFieldCollation.NullDirection> getCollationNullDirections() {
+    return _collationNullDirections;
+  }
+
   public boolean isSortOnSender() {
     return _isSortOnSender;
   }
 
+  public PinotRelSkewHandlingType getSkewHandlingType() {
+    return _skewHandlingType;
+  }
+
+  public int getSkewSplitFactor() {
+    return _skewSplitFactor;
+  }
+
+  public int getHotKeyStageId() {
+    return _hotKeyStageId;
+  }
+
+  public void setHotKeyStageId(int hotKeyStageId) {
+    _hotKeyStageId = hotKeyStageId;
+  }
+
   @Override
   public String explain() {
     return "MAIL_SEND(" + _distributionType + ")";
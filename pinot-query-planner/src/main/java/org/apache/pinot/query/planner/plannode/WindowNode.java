@@ -25,7 +25,10 @@ import java.util.List;
 import java.util.stream.Collectors;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.rel.core.Window;
+import org.apache.calcite.rex.RexInputRef;
 import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexWindowBound;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.serde.ProtoProperties;
@@ -86,25 +89,38 @@ public class WindowNode extends AbstractPlanNode {
     }
     _aggCalls = windowGroup.aggCalls.stream().map(RexExpression::toRexExpression).collect(Collectors.toList());
 
-    // TODO: For now only the default frame is supported. Add support for custom frames including rows support.
-    //       Frame literals come in the constants from the LogicalWindow and the bound.getOffset() stores the
-    //       InputRef to the constants array offset by the input array length. These need to be extracted here and
-    //       set to the bounds.
-
-    // Lower bound can only be unbounded preceding for now, set to Integer.MIN_VALUE
-    _lowerBound = Integer.MIN_VALUE;
-    // Upper bound can only be unbounded following or current row for now
-    _upperBound = windowGroup.upperBound.isUnbounded() ? Integer.MAX_VALUE : 0;
+    // Frame literals come in the constants from the LogicalWindow and the bound.getOffset() stores the InputRef to the
+    // constants array offset by the input array length.
+    int numInputFields = dataSchema.size() - windowGroup.aggCalls.size();
+    _lowerBound = toBound(windowGroup.lowerBound, constants, numInputFields);
+    _upperBound = toBound(windowGroup.upperBound, constants, numInputFields);
     _windowFrameType = windowGroup.isRows ? WindowFrameType.ROWS : WindowFrameType.RANGE;
 
-    // TODO: Constants are used to store constants needed such as the frame literals. For now just save this, need to
-    //       extract the constant values into bounds as a part of frame support.
+    // Constants are used to store constants needed such as the frame literals
     _constants = new ArrayList<>();
     for (RexLiteral constant : constants) {
       _constants.add(RexExpression.toRexExpression(constant));
     }
   }
 
+  /**
+   * Converts the window bound into the offset from the current row: Integer.MIN_VALUE for UNBOUNDED PRECEDING, negative
+   * for PRECEDING, 0 for CURRENT ROW, positive for FOLLOWING and Integer.MAX_VALUE for UNBOUNDED FOLLOWING.
+   */
+  private static int toBound(RexWindowBound bound, List<RexLiteral> constants, int numInputFields) {
+    if (bound.isUnbounded()) {
+      return bound.isPreceding() ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+    }
+    if (bound.isCurrentRow()) {
+      return 0;
+    }
+    RexNode offset = bound.getOffset();
+    RexLiteral literal = offset instanceof RexInputRef
+        ? constants.get(((RexInputRef) offset).getIndex() - numInputFields) : (RexLiteral) offset;
+    int value = RexLiteral.intValue(literal);
+    return bound.isPreceding() ? -value : value;
+  }
+
   @Override
   public String explain() {
     return "WINDOW";
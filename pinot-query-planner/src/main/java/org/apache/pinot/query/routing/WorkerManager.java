@@ -22,6 +22,7 @@ import com.google.common.base.Preconditions;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -37,6 +38,8 @@ import org.apache.pinot.core.routing.TablePartitionInfo;
 import org.apache.pinot.core.routing.TablePartitionInfo.PartitionInfo;
 import org.apache.pinot.core.routing.TimeBoundaryInfo;
 import org.apache.pinot.core.transport.ServerInstance;
+import org.apache.pinot.core.transport.server.routing.stats.ServerRoutingStatsManager;
+import org.apache.pinot.query.catalog.TableStatsProvider;
 import org.apache.pinot.query.planner.PlanFragment;
 import org.apache.pinot.query.planner.physical.DispatchablePlanContext;
 import org.apache.pinot.query.planner.physical.DispatchablePlanMetadata;
@@ -54,6 +57,12 @@ import org.slf4j.LoggerFactory;
  *
  * <p>It contains the logic to assign worker to a particular stages. If it is a leaf stage the logic fallback to
  * how Pinot server assigned server and server-segment mapping.
+ *
+ * <p>When a {@link TableStatsProvider} is configured and the stage parallelism is not set in the query options, the
+ * number of workers of an intermediate stage is chosen from the estimated number of input rows (the row count of all
+ * the tables scanned under the stage), so that small queries run on a single worker and large ones on up to
+ * {@code maxStageParallelism} workers per server. The workers are assigned to the least loaded servers first, based on
+ * the number of in-flight requests tracked by the {@link ServerRoutingStatsManager}.
  */
 public class WorkerManager {
   private static final Logger LOGGER = LoggerFactory.getLogger(WorkerManager.class);
@@ -62,11 +71,35 @@ public class WorkerManager {
   private final String _hostName;
   private final int _port;
   private final RoutingManager _routingManager;
+  private final TableStatsProvider _tableStatsProvider;
+  private final ServerRoutingStatsManager _serverRoutingStatsManager;
+  private final long _numRowsPerWorker;
+  private final int _maxStageParallelism;
 
   public WorkerManager(String hostName, int port, RoutingManager routingManager) {
+    this(hostName, port, routingManager, null, null, 0, 0);
+  }
+
+  /**
+   * @param tableStatsProvider used to estimate the number of input rows of the intermediate stages, can be null when
+   *                           the adaptive stage parallelism is disabled.
+   * @param serverRoutingStatsManager used to pick the least loaded servers for the intermediate stages, can be null.
+   * @param numRowsPerWorker number of estimated input rows per worker of an intermediate stage.
+   * @param maxStageParallelism max number of workers per server of an intermediate stage.
+   */
+  public WorkerManager(String hostName, int port, RoutingManager routingManager,
+      @Nullable TableStatsProvider tableStatsProvider, @Nullable ServerRoutingStatsManager serverRoutingStatsManager,
+      long numRowsPerWorker, int maxStageParallelism) {
+    Preconditions.checkArgument(tableStatsProvider == null || (numRowsPerWorker > 0 && maxStageParallelism > 0),
+        "Number of rows per worker and max stage parallelism must be positive, got: %s, %s", numRowsPerWorker,
+        maxStageParallelism);
     _hostName = hostName;
     _port = port;
     _routingManager = routingManager;
+    _tableStatsProvider = tableStatsProvider;
+    _serverRoutingStatsManager = serverRoutingStatsManager;
+    _numRowsPerWorker = numRowsPerWorker;
+    _maxStageParallelism = maxStageParallelism;
   }
 
   public void assignWorkers(PlanFragment rootFragment, DispatchablePlanContext context) {
@@ -309,11 +342,16 @@ public class WorkerManager {
           "No server instance found for intermediate stage for tables: " + Arrays.toString(tableNames.toArray()));
     }
     Map<String, String> options = context.getPlannerContext().getOptions();
-    int stageParallelism = Integer.parseInt(options.getOrDefault(QueryOptionKey.STAGE_PARALLELISM, "1"));
+    String stageParallelismOption = options.get(QueryOptionKey.STAGE_PARALLELISM);
+    int stageParallelism = stageParallelismOption != null ? Integer.parseInt(stageParallelismOption) : 1;
     if (metadata.isRequiresSingletonInstance()) {
       // require singleton should return a single global worker ID with 0;
       metadata.setWorkerIdToServerInstanceMap(Collections.singletonMap(0,
           new QueryServerInstance(serverInstances.get(RANDOM.nextInt(serverInstances.size())))));
+    } else if (stageParallelismOption == null && _tableStatsProvider != null
+        && assignAdaptiveWorkersToIntermediateFragment(fragment, metadata, metadataMap, serverInstances)) {
+      LOGGER.debug("[RequestId: {}] Assigned {} workers to stage: {}", context.getRequestId(),
+          metadata.getWorkerIdToServerInstanceMap().size(), fragment.getFragmentId());
     } else {
       Map<Integer, QueryServerInstance> workerIdToServerInstanceMap = new HashMap<>();
       int workerId = 0;
@@ -327,6 +365,70 @@ public class WorkerManager {
     }
   }
 
+  /**
+   * Assigns the number of workers estimated from the input rows of the fragment, round-robin across the servers
+   * sorted by load. Returns {@code false} when the input rows cannot be estimated.
+   */
+  private boolean assignAdaptiveWorkersToIntermediateFragment(PlanFragment fragment,
+      DispatchablePlanMetadata metadata, Map<Integer, DispatchablePlanMetadata> metadataMap,
+      List<ServerInstance> serverInstances) {
+    long numInputRows = getEstimatedNumInputRows(fragment, metadataMap);
+    if (numInputRows < 0) {
+      return false;
+    }
+    long maxNumWorkers = (long) serverInstances.size() * _maxStageParallelism;
+    int numWorkers = (int) Math.max(Math.min((numInputRows + _numRowsPerWorker - 1) / _numRowsPerWorker,
+        maxNumWorkers), 1);
+
+    // Shuffle before sorting so that the servers with the same load are picked randomly
+    List<ServerInstance> sortedServerInstances = new ArrayList<>(serverInstances);
+    Collections.shuffle(sortedServerInstances, RANDOM);
+    if (_serverRoutingStatsManager != null && _serverRoutingStatsManager.isEnabled()) {
+      Map<ServerInstance, Integer> serverLoads = new HashMap<>();
+      for (ServerInstance serverInstance : sortedServerInstances) {
+        Integer numInFlightRequests =
+            _serverRoutingStatsManager.fetchNumInFlightRequestsForServer(serverInstance.getInstanceId());
+        serverLoads.put(serverInstance, numInFlightRequests != null ? numInFlightRequests : 0);
+      }
+      sortedServerInstances.sort(Comparator.comparing(serverLoads::get));
+    }
+
+    int numServers = Math.min(numWorkers, sortedServerInstances.size());
+    List<QueryServerInstance> queryServerInstances = new ArrayList<>(numServers);
+    for (int i = 0; i < numServers; i++) {
+      queryServerInstances.add(new QueryServerInstance(sortedServerInstances.get(i)));
+    }
+    Map<Integer, QueryServerInstance> workerIdToServerInstanceMap = new HashMap<>();
+    for (int workerId = 0; workerId < numWorkers; workerId++) {
+      workerIdToServerInstanceMap.put(workerId, queryServerInstances.get(workerId % numServers));
+    }
+    metadata.setWorkerIdToServerInstanceMap(workerIdToServerInstanceMap);
+    return true;
+  }
+
+  /**
+   * Returns the estimated number of input rows of the fragment, which is the row count of all the tables scanned
+   * under the fragment, or -1 if the row count of any of the tables is unknown.
+   */
+  private long getEstimatedNumInputRows(PlanFragment fragment, Map<Integer, DispatchablePlanMetadata> metadataMap) {
+    long numInputRows = 0;
+    for (PlanFragment child : fragment.getChildren()) {
+      for (String tableName : metadataMap.get(child.getFragmentId()).getScannedTables()) {
+        Long rowCount = _tableStatsProvider.getRowCount(tableName);
+        if (rowCount == null) {
+          return -1;
+        }
+        numInputRows += rowCount;
+      }
+      long numChildInputRows = getEstimatedNumInputRows(child, metadataMap);
+      if (numChildInputRows < 0) {
+        return -1;
+      }
+      numInputRows += numChildInputRows;
+    }
+    return numInputRows;
+  }
+
   private ColocatedTableInfo getColocatedTableInfo(String tableName, String partitionKey, int numPartitions) {
     TableType tableType = TableNameBuilder.getTableTypeFromTableName(tableName);
     if (tableType == null) {
@@ -19,6 +19,7 @@
 package org.apache.pinot.query;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -29,17 +30,22 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import org.apache.calcite.rel.RelDistribution;
+import org.apache.calcite.rel.logical.PinotRelSkewHandlingType;
 import org.apache.pinot.query.planner.DispatchablePlanFragment;
 import org.apache.pinot.query.planner.DispatchableSubPlan;
 import org.apache.pinot.query.planner.PhysicalExplainPlanVisitor;
 import org.apache.pinot.query.planner.PlannerUtils;
+import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.plannode.AbstractPlanNode;
 import org.apache.pinot.query.planner.plannode.AggregateNode;
 import org.apache.pinot.query.planner.plannode.FilterNode;
 import org.apache.pinot.query.planner.plannode.JoinNode;
 import org.apache.pinot.query.planner.plannode.MailboxReceiveNode;
+import org.apache.pinot.query.planner.plannode.MailboxSendNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.planner.plannode.ProjectNode;
+import org.apache.pinot.query.routing.WorkerMetadata;
+import org.apache.pinot.spi.utils.CommonConstants;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -243,6 +249,156 @@ public class QueryCompilationTest extends QueryEnvironmentTestBase {
     }
   }
 
+  @Test
+  public void testPlanCache() {
+    QueryEnvironment queryEnvironment =
+        getQueryEnvironment(3, 1, 2, TABLE_SCHEMAS, SERVER1_SEGMENTS, SERVER2_SEGMENTS, null, 10);
+    String query = "SELECT a.col1, SUM(b.col3) FROM a JOIN b ON a.col1 = b.col2 WHERE a.col3 >= 0 GROUP BY a.col1";
+    DispatchableSubPlan dispatchableSubPlan = queryEnvironment.planQuery(query);
+    String explain = PhysicalExplainPlanVisitor.explain(dispatchableSubPlan);
+    Assert.assertEquals(queryEnvironment.getNumCachedPlans(), 1);
+
+    // Queries only differing in formatting share the same plan, and the workers are still assigned per query
+    String formattedQuery = "select a.col1,   SUM(b.col3) from a join b on a.col1 = b.col2\nwhere a.col3 >= 0 group by "
+        + "a.col1";
+    Assert.assertEquals(PhysicalExplainPlanVisitor.explain(queryEnvironment.planQuery(formattedQuery)), explain);
+    Assert.assertEquals(PhysicalExplainPlanVisitor.explain(queryEnvironment.planQuery(query)), explain);
+    Assert.assertEquals(queryEnvironment.getNumCachedPlans(), 1);
+
+    // Queries only differing in the compared literals share the same plan, where the literals are bound per query
+    String otherLiteralQuery = query.replace(">= 0", ">= 1");
+    DispatchableSubPlan otherLiteralSubPlan = queryEnvironment.planQuery(otherLiteralQuery);
+    Assert.assertEquals(queryEnvironment.getNumCachedPlans(), 1);
+    DispatchableSubPlan expectedSubPlan =
+        getQueryEnvironment(3, 1, 2, TABLE_SCHEMAS, SERVER1_SEGMENTS, SERVER2_SEGMENTS, null, 0).planQuery(
+            otherLiteralQuery);
+    Assert.assertEquals(PhysicalExplainPlanVisitor.explain(otherLiteralSubPlan),
+        PhysicalExplainPlanVisitor.explain(expectedSubPlan));
+    Assert.assertEquals(getFilterLiterals(otherLiteralSubPlan), getFilterLiterals(expectedSubPlan));
+    Assert.assertNotEquals(getFilterLiterals(otherLiteralSubPlan), getFilterLiterals(dispatchableSubPlan));
+
+    // Literals of a different type result in a different plan
+    queryEnvironment.planQuery(query.replace(">= 0", ">= 1.5"));
+    Assert.assertEquals(queryEnvironment.getNumCachedPlans(), 2);
+
+    // Invalid queries are not cached
+    Assert.assertThrows(RuntimeException.class,
+        () -> queryEnvironment.planQuery("SELECT unknownCol FROM a WHERE a.col3 >= 0"));
+    Assert.assertEquals(queryEnvironment.getNumCachedPlans(), 2);
+
+    // Changing the stats of a table only invalidates the plans referencing the table
+    queryEnvironment.planQuery("SELECT * FROM c WHERE c.col3 >= 0");
+    Assert.assertEquals(queryEnvironment.getNumCachedPlans(), 3);
+    queryEnvironment.invalidatePlanCache("c_OFFLINE");
+    Assert.assertEquals(queryEnvironment.getNumCachedPlans(), 2);
+
+    queryEnvironment.invalidatePlanCache();
+    Assert.assertEquals(queryEnvironment.getNumCachedPlans(), 0);
+    Assert.assertEquals(PhysicalExplainPlanVisitor.explain(queryEnvironment.planQuery(query)), explain);
+    Assert.assertEquals(queryEnvironment.getNumCachedPlans(), 1);
+  }
+
+  @Test
+  public void testSkewHandlingSendersShareHotKeys() {
+    String query = "SELECT /*+ joinOptions(skew_split_factor='2') */ * FROM a JOIN b ON a.col1 = b.col2";
+    DispatchableSubPlan dispatchableSubPlan = _queryEnvironment.planQuery(query);
+    Map<PinotRelSkewHandlingType, DispatchablePlanFragment> skewHandlingFragments = new HashMap<>();
+    for (DispatchablePlanFragment dispatchablePlanFragment : dispatchableSubPlan.getQueryStageList()) {
+      PlanNode root = dispatchablePlanFragment.getPlanFragment().getFragmentRoot();
+      if (root instanceof MailboxSendNode) {
+        skewHandlingFragments.put(((MailboxSendNode) root).getSkewHandlingType(), dispatchablePlanFragment);
+      }
+    }
+    DispatchablePlanFragment splitFragment = skewHandlingFragments.get(PinotRelSkewHandlingType.SPLIT);
+    DispatchablePlanFragment replicateFragment = skewHandlingFragments.get(PinotRelSkewHandlingType.REPLICATE);
+    MailboxSendNode splitSender = (MailboxSendNode) splitFragment.getPlanFragment().getFragmentRoot();
+    MailboxSendNode replicateSender = (MailboxSendNode) replicateFragment.getPlanFragment().getFragmentRoot();
+    Assert.assertEquals(splitSender.getHotKeyStageId(), replicateSender.getPlanFragmentId());
+    Assert.assertEquals(replicateSender.getHotKeyStageId(), splitSender.getPlanFragmentId());
+
+    // Every splitting worker sends the hot keys to every replicating worker
+    int numSplitWorkers = splitFragment.getWorkerMetadataList().size();
+    int numReplicateWorkers = replicateFragment.getWorkerMetadataList().size();
+    for (WorkerMetadata workerMetadata : splitFragment.getWorkerMetadataList()) {
+      Assert.assertEquals(workerMetadata.getMailBoxInfosMap().get(replicateSender.getPlanFragmentId())
+          .getMailBoxIdList().size(), numReplicateWorkers);
+    }
+    for (WorkerMetadata workerMetadata : replicateFragment.getWorkerMetadataList()) {
+      Assert.assertEquals(workerMetadata.getMailBoxInfosMap().get(splitSender.getPlanFragmentId())
+          .getMailBoxIdList().size(), numSplitWorkers);
+    }
+  }
+
+  @Test
+  public void testJoinReorderWithTableStats() {
+    Map<String, Long> rowCounts = ImmutableMap.of("a", 10L, "b", 1_000_000L, "c", 100L);
+    QueryEnvironment queryEnvironment =
+        getQueryEnvironment(3, 1, 2, TABLE_SCHEMAS, SERVER1_SEGMENTS, SERVER2_SEGMENTS, null, 0, rowCounts::get);
+    String query = "EXPLAIN PLAN FOR SELECT * FROM a JOIN b ON a.col1 = b.col1 JOIN c ON b.col2 = c.col2";
+
+    // Without stats, the joins are planned in the query order
+    String explainedPlan = _queryEnvironment.explainQuery(query, RANDOM_REQUEST_ID_GEN.nextLong());
+    Assert.assertTrue(getFirstTableScan(explainedPlan).contains("[[a]]"), explainedPlan);
+
+    // With stats, the largest table is moved to the left (probe side) and the smaller tables are hash joined into it
+    String reorderedPlan = queryEnvironment.explainQuery(query, RANDOM_REQUEST_ID_GEN.nextLong());
+    Assert.assertNotEquals(reorderedPlan, explainedPlan);
+    Assert.assertTrue(getFirstTableScan(reorderedPlan).contains("[[b]]"), reorderedPlan);
+
+    // Hinted joins are not reordered
+    String hintedQuery = "EXPLAIN PLAN FOR SELECT /*+ joinOptions(join_strategy='dynamic_broadcast') */ * FROM a "
+        + "JOIN b ON a.col1 = b.col1 JOIN c ON b.col2 = c.col2";
+    Assert.assertEquals(queryEnvironment.explainQuery(hintedQuery, RANDOM_REQUEST_ID_GEN.nextLong()),
+        _queryEnvironment.explainQuery(hintedQuery, RANDOM_REQUEST_ID_GEN.nextLong()));
+  }
+
+  @Test
+  public void testAdaptiveStageParallelism() {
+    String query = "SELECT col1, COUNT(*) FROM a GROUP BY col1";
+
+    // Small table runs the intermediate stage on a single worker
+    QueryEnvironment queryEnvironment = getQueryEnvironment(3, 1, 2, TABLE_SCHEMAS, SERVER1_SEGMENTS,
+        SERVER2_SEGMENTS, null, 0, tableName -> 10L, true);
+    Assert.assertEquals(getNumIntermediateStageWorkers(queryEnvironment.planQuery(query)), 1);
+
+    // Large table runs the intermediate stage on all the servers with the max stage parallelism
+    queryEnvironment = getQueryEnvironment(3, 1, 2, TABLE_SCHEMAS, SERVER1_SEGMENTS, SERVER2_SEGMENTS, null, 0,
+        tableName -> Long.MAX_VALUE / 2, true);
+    Assert.assertEquals(getNumIntermediateStageWorkers(queryEnvironment.planQuery(query)),
+        2 * CommonConstants.Broker.DEFAULT_MULTI_STAGE_MAX_STAGE_PARALLELISM);
+
+    // Stage parallelism in the query options overrides the adaptive parallelism
+    Assert.assertEquals(getNumIntermediateStageWorkers(
+        queryEnvironment.planQuery("SET stageParallelism = 1; " + query)), 2);
+
+    // Unknown row count falls back to the default parallelism
+    queryEnvironment = getQueryEnvironment(3, 1, 2, TABLE_SCHEMAS, SERVER1_SEGMENTS, SERVER2_SEGMENTS, null, 0,
+        tableName -> null, true);
+    Assert.assertEquals(getNumIntermediateStageWorkers(queryEnvironment.planQuery(query)), 2);
+  }
+
+  private static int getNumIntermediateStageWorkers(DispatchableSubPlan dispatchableSubPlan) {
+    int numWorkers = 0;
+    for (int stageId = 0; stageId < dispatchableSubPlan.getQueryStageList().size(); stageId++) {
+      DispatchablePlanFragment dispatchablePlanFragment = dispatchableSubPlan.getQueryStageList().get(stageId);
+      if (dispatchablePlanFragment.getTableName() == null && !PlannerUtils.isRootPlanFragment(stageId)) {
+        for (List<Integer> workerIds : dispatchablePlanFragment.getServerInstanceToWorkerIdMap().values()) {
+          numWorkers += workerIds.size();
+        }
+      }
+    }
+    return numWorkers;
+  }
+
+  private static String getFirstTableScan(String explainedPlan) {
+    for (String line : explainedPlan.split("\n")) {
+      if (line.contains("LogicalTableScan")) {
+        return line;
+      }
+    }
+    throw new AssertionError("No table scan in plan: " + explainedPlan);
+  }
+
   @Test
   public void testQueryWithHint()
       throws Exception {
@@ -387,6 +543,33 @@ public class QueryCompilationTest extends QueryEnvironmentTestBase {
     }
   }
 
+  private static List<Object> getFilterLiterals(DispatchableSubPlan dispatchableSubPlan) {
+    List<Object> literals = new ArrayList<>();
+    for (DispatchablePlanFragment dispatchablePlanFragment : dispatchableSubPlan.getQueryStageList()) {
+      collectFilterLiterals(dispatchablePlanFragment.getPlanFragment().getFragmentRoot(), literals);
+    }
+    return literals;
+  }
+
+  private static void collectFilterLiterals(PlanNode node, List<Object> literals) {
+    if (node instanceof FilterNode) {
+      collectLiterals(((FilterNode) node).getCondition(), literals);
+    }
+    for (PlanNode child : node.getInputs()) {
+      collectFilterLiterals(child, literals);
+    }
+  }
+
+  private static void collectLiterals(RexExpression rexExpression, List<Object> literals) {
+    if (rexExpression instanceof RexExpression.Literal) {
+      literals.add(((RexExpression.Literal) rexExpression).getValue());
+    } else if (rexExpression instanceof RexExpression.FunctionCall) {
+      for (RexExpression operand : ((RexExpression.FunctionCall) rexExpression).getFunctionOperands()) {
+        collectLiterals(operand, literals);
+      }
+    }
+  }
+
   private static boolean isOneOf(List<Class<? extends AbstractPlanNode>> allowedNodeTypes, PlanNode node) {
     for (Class<? extends AbstractPlanNode> allowedNodeType : allowedNodeTypes) {
       if (node.getClass() == allowedNodeType) {
@@ -22,20 +22,31 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.UnsafeByteOperations;
 import io.grpc.stub.StreamObserver;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.proto.Mailbox.MailboxContent;
 import org.apache.pinot.common.proto.PinotMailboxGrpc;
 import org.apache.pinot.query.mailbox.channel.ChannelManager;
+import org.apache.pinot.query.mailbox.channel.ChannelUtils;
+import org.apache.pinot.query.mailbox.channel.MailboxPayloadCodec;
 import org.apache.pinot.query.mailbox.channel.MailboxStatusObserver;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.OpChainStats;
+import org.apache.pinot.segment.spi.compression.ChunkCompressor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 /**
  * gRPC implementation of the {@link SendingMailbox}. The gRPC stream is created on the first call to {@link #send}.
+ *
+ * <p>When a compressor is configured, the serialized blocks not smaller than the compression min bytes are compressed
+ * before being sent, see {@link MailboxPayloadCodec}.
  */
 public class GrpcSendingMailbox implements SendingMailbox {
   private static final Logger LOGGER = LoggerFactory.getLogger(GrpcSendingMailbox.class);
@@ -45,21 +56,36 @@ public class GrpcSendingMailbox implements SendingMailbox {
   private final String _hostname;
   private final int _port;
   private final long _deadlineMs;
-  private final MailboxStatusObserver _statusObserver = new MailboxStatusObserver();
+  private final MailboxStatusObserver _statusObserver;
+  private final ChunkCompressor _compressor;
+  private final int _compressionMinBytes;
+  private final boolean _columnarEncodingEnabled;
+  private final OpChainStats _opChainStats;
 
   private StreamObserver<MailboxContent> _contentObserver;
 
   public GrpcSendingMailbox(String id, ChannelManager channelManager, String hostname, int port, long deadlineMs) {
+    this(id, channelManager, hostname, port, deadlineMs, Integer.MAX_VALUE, Long.MAX_VALUE, null, 0, false, null);
+  }
+
+  public GrpcSendingMailbox(String id, ChannelManager channelManager, String hostname, int port, long deadlineMs,
+      int maxInFlightBlocks, long maxInFlightBytes, @Nullable ChunkCompressor compressor, int compressionMinBytes,
+      boolean columnarEncodingEnabled, @Nullable OpChainStats opChainStats) {
     _id = id;
     _channelManager = channelManager;
     _hostname = hostname;
     _port = port;
     _deadlineMs = deadlineMs;
+    _statusObserver = new MailboxStatusObserver(maxInFlightBlocks, maxInFlightBytes);
+    _compressor = compressor;
+    _compressionMinBytes = compressionMinBytes;
+    _columnarEncodingEnabled = columnarEncodingEnabled;
+    _opChainStats = opChainStats;
   }
 
   @Override
   public void send(TransferableBlock block)
-      throws IOException {
+      throws IOException, TimeoutException {
     if (isTerminated()) {
       return;
     }
@@ -69,7 +95,22 @@ public class GrpcSendingMailbox implements SendingMailbox {
     if (_contentObserver == null) {
       _contentObserver = getContentObserver();
     }
-    _contentObserver.onNext(toMailboxContent(block));
+    MailboxContent mailboxContent = toMailboxContent(block);
+    // Wait for the receiver to consume the in-flight blocks instead of buffering unbounded data in the gRPC stream
+    try {
+      if (!_statusObserver.acquireCredit(mailboxContent.getPayload().size(), _deadlineMs)) {
+        throw new TimeoutException(
+            String.format("Timed out waiting for receiver to consume data from mailbox: %s, in-flight blocks: %d", _id,
+                _statusObserver.getNumInFlightBlocks()));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for receiver to consume data from mailbox: " + _id, e);
+    }
+    if (isTerminated()) {
+      return;
+    }
+    _contentObserver.onNext(mailboxContent);
   }
 
   @Override
@@ -114,9 +155,32 @@ public class GrpcSendingMailbox implements SendingMailbox {
 
   private MailboxContent toMailboxContent(TransferableBlock block)
       throws IOException {
-    DataBlock dataBlock = block.getDataBlock();
-    byte[] bytes = dataBlock.toBytes();
-    ByteString byteString = UnsafeByteOperations.unsafeWrap(bytes);
-    return MailboxContent.newBuilder().setMailboxId(_id).setPayload(byteString).build();
+    DataBlock dataBlock = _columnarEncodingEnabled ? block.getEncodedColumnarDataBlock() : block.getDataBlock();
+    List<ByteBuffer> byteBuffers = dataBlock.toByteBuffers();
+    int numBytes = 0;
+    for (ByteBuffer byteBuffer : byteBuffers) {
+      numBytes += byteBuffer.remaining();
+    }
+    MailboxContent.Builder builder = MailboxContent.newBuilder().setMailboxId(_id);
+    ByteString byteString;
+    if (_compressor != null && numBytes >= _compressionMinBytes) {
+      long startTimeNs = System.nanoTime();
+      byteString = MailboxPayloadCodec.compress(_compressor, byteBuffers, numBytes);
+      if (_opChainStats != null) {
+        _opChainStats.recordMailboxCompressionTimeNs(System.nanoTime() - startTimeNs);
+      }
+      builder.putMetadata(ChannelUtils.MAILBOX_METADATA_COMPRESSION_TYPE_KEY, _compressor.compressionType().name());
+    } else {
+      // Wrap the serialized sections without copying them into a single array, gRPC writes them straight into the
+      // outbound buffers
+      byteString = ByteString.EMPTY;
+      for (ByteBuffer byteBuffer : byteBuffers) {
+        byteString = byteString.concat(UnsafeByteOperations.unsafeWrap(byteBuffer));
+      }
+    }
+    if (_opChainStats != null) {
+      _opChainStats.recordMailboxBytesSent(byteString.size());
+    }
+    return builder.setPayload(byteString).build();
   }
 }
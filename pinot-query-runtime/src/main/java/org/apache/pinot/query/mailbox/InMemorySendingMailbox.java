@@ -44,7 +44,7 @@ public class InMemorySendingMailbox implements SendingMailbox {
   @Override
   public void send(TransferableBlock block)
       throws TimeoutException {
-    if (_isTerminated) {
+    if (isTerminated()) {
       return;
     }
     if (_receivingMailbox == null) {
@@ -87,6 +87,9 @@ public class InMemorySendingMailbox implements SendingMailbox {
 
   @Override
   public boolean isTerminated() {
+    if (!_isTerminated && _receivingMailbox != null && _receivingMailbox.isCancelled()) {
+      _isTerminated = true;
+    }
     return _isTerminated;
   }
 }
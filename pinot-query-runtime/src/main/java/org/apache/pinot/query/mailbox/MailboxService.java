@@ -23,9 +23,14 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.apache.pinot.query.mailbox.channel.ChannelManager;
 import org.apache.pinot.query.mailbox.channel.GrpcMailboxServer;
+import org.apache.pinot.query.mailbox.channel.MailboxPayloadCodec;
+import org.apache.pinot.query.runtime.operator.OpChainStats;
+import org.apache.pinot.segment.spi.compression.ChunkCompressor;
 import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +64,11 @@ public class MailboxService {
   private final int _port;
   private final PinotConfiguration _config;
   private final ChannelManager _channelManager = new ChannelManager();
+  private final ChunkCompressor _compressor;
+  private final int _compressionMinBytes;
+  private final int _maxInFlightBlocks;
+  private final long _maxInFlightBytes;
+  private final boolean _columnarEncodingEnabled;
 
   private GrpcMailboxServer _grpcMailboxServer;
 
@@ -66,7 +76,21 @@ public class MailboxService {
     _hostname = hostname;
     _port = port;
     _config = config;
-    LOGGER.info("Initialized MailboxService with hostname: {}, port: {}", hostname, port);
+    String compressionType = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_COMPRESSION_TYPE,
+        CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_COMPRESSION_TYPE);
+    _compressor = MailboxPayloadCodec.getCompressor(compressionType);
+    _compressionMinBytes =
+        config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_COMPRESSION_MIN_BYTES,
+            CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_COMPRESSION_MIN_BYTES);
+    _maxInFlightBlocks = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_MAX_IN_FLIGHT_BLOCKS,
+        CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_MAX_IN_FLIGHT_BLOCKS);
+    _maxInFlightBytes = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_MAX_IN_FLIGHT_BYTES,
+        CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_MAX_IN_FLIGHT_BYTES);
+    _columnarEncodingEnabled =
+        config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_COLUMNAR_ENCODING_ENABLED,
+            CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_COLUMNAR_ENCODING_ENABLED);
+    LOGGER.info("Initialized MailboxService with hostname: {}, port: {}, compression type: {}", hostname, port,
+        compressionType);
   }
 
   /**
@@ -100,10 +124,20 @@ public class MailboxService {
    * data is sent for the first time.
    */
   public SendingMailbox getSendingMailbox(String hostname, int port, String mailboxId, long deadlineMs) {
+    return getSendingMailbox(hostname, port, mailboxId, deadlineMs, null);
+  }
+
+  /**
+   * Same as {@link #getSendingMailbox(String, int, String, long)}, and records the bytes sent and the compression time
+   * of the gRPC mailbox into the given stats.
+   */
+  public SendingMailbox getSendingMailbox(String hostname, int port, String mailboxId, long deadlineMs,
+      @Nullable OpChainStats opChainStats) {
     if (_hostname.equals(hostname) && _port == port) {
       return new InMemorySendingMailbox(mailboxId, this, deadlineMs);
     } else {
-      return new GrpcSendingMailbox(mailboxId, _channelManager, hostname, port, deadlineMs);
+      return new GrpcSendingMailbox(mailboxId, _channelManager, hostname, port, deadlineMs, _maxInFlightBlocks,
+          _maxInFlightBytes, _compressor, _compressionMinBytes, _columnarEncodingEnabled, opChainStats);
     }
   }
 
@@ -23,6 +23,7 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nullable;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
@@ -49,8 +50,12 @@ public class ReceivingMailbox {
   // TODO: Revisit if this is the correct way to apply back pressure
   private final BlockingQueue<TransferableBlock> _blocks = new ArrayBlockingQueue<>(DEFAULT_MAX_PENDING_BLOCKS);
   private final AtomicReference<TransferableBlock> _errorBlock = new AtomicReference<>();
+  private final AtomicLong _numBytesReceived = new AtomicLong();
+  private final AtomicLong _decompressionTimeNs = new AtomicLong();
   @Nullable
   private volatile Reader _reader;
+  @Nullable
+  private volatile Sender _sender;
 
   public ReceivingMailbox(String id) {
     _id = id;
@@ -66,6 +71,14 @@ public class ReceivingMailbox {
     _reader = reader;
   }
 
+  /**
+   * Registers the remote sender to be notified when a block is consumed from the mailbox, so that it can grant credit
+   * for the next block.
+   */
+  public void registeredSender(Sender sender) {
+    _sender = sender;
+  }
+
   public String getId() {
     return _id;
   }
@@ -133,7 +146,17 @@ public class ReceivingMailbox {
   public TransferableBlock poll() {
     Preconditions.checkState(_reader != null, "A reader must be registered");
     TransferableBlock errorBlock = _errorBlock.get();
-    return errorBlock != null ? errorBlock : _blocks.poll();
+    if (errorBlock != null) {
+      return errorBlock;
+    }
+    TransferableBlock block = _blocks.poll();
+    if (block != null) {
+      Sender sender = _sender;
+      if (sender != null) {
+        sender.blockConsumed();
+      }
+    }
+    return block;
   }
 
   /**
@@ -144,13 +167,42 @@ public class ReceivingMailbox {
     LOGGER.debug("Cancelling mailbox: {}", _id);
     if (_errorBlock.compareAndSet(null, CANCELLED_ERROR_BLOCK)) {
       _blocks.clear();
+      // Notify the sender right away so that it can stop producing blocks instead of waiting for the next offer
+      Sender sender = _sender;
+      if (sender != null) {
+        sender.receiverCancelled();
+      }
     }
   }
 
+  /**
+   * Returns {@code true} if the mailbox is cancelled by the receiver (e.g. the downstream operator has collected enough
+   * rows), in which case the sender can early terminate.
+   */
+  public boolean isCancelled() {
+    return _errorBlock.get() == CANCELLED_ERROR_BLOCK;
+  }
+
   public int getNumPendingBlocks() {
     return _blocks.size();
   }
 
+  /**
+   * Records the size of a block received over the wire and the time spent decompressing it.
+   */
+  public void recordReceivedBytes(long numBytes, long decompressionTimeNs) {
+    _numBytesReceived.addAndGet(numBytes);
+    _decompressionTimeNs.addAndGet(decompressionTimeNs);
+  }
+
+  public long getNumBytesReceived() {
+    return _numBytesReceived.get();
+  }
+
+  public long getDecompressionTimeNs() {
+    return _decompressionTimeNs.get();
+  }
+
   private void notifyReader() {
     Reader reader = _reader;
     if (reader != null) {
@@ -165,6 +217,16 @@ public class ReceivingMailbox {
     void blockReadyToRead();
   }
 
+  public interface Sender {
+    void blockConsumed();
+
+    /**
+     * Invoked when the receiving mailbox is cancelled, so that no more blocks should be sent.
+     */
+    default void receiverCancelled() {
+    }
+  }
+
   public enum ReceivingMailboxStatus {
     SUCCESS, ERROR, TIMEOUT, EARLY_TERMINATED
   }
@@ -24,4 +24,6 @@ public class ChannelUtils {
 
   public static final String MAILBOX_METADATA_BUFFER_SIZE_KEY = "buffer.size";
   public static final String MAILBOX_METADATA_BEGIN_OF_STREAM_KEY = "begin.of.stream";
+  public static final String MAILBOX_METADATA_COMPRESSION_TYPE_KEY = "compression.type";
+  public static final String MAILBOX_METADATA_CREDIT_KEY = "credit";
 }
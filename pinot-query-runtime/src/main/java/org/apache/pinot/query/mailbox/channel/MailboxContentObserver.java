@@ -40,7 +40,8 @@ import org.slf4j.LoggerFactory;
  *
  * <p>When the observer onNext() is called (e.g. when data packet has arrived at the receiving end), it puts the
  * mailbox content to the receiving mailbox buffer; response with the remaining buffer size of the receiving mailbox
- * to the sender side.
+ * to the sender side. Each time a block is consumed from the receiving mailbox, one credit is granted to the sender so
+ * that it can send the next block.
  */
 public class MailboxContentObserver implements StreamObserver<MailboxContent> {
   private static final Logger LOGGER = LoggerFactory.getLogger(MailboxContentObserver.class);
@@ -49,6 +50,8 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
   private final StreamObserver<MailboxStatus> _responseObserver;
 
   private transient ReceivingMailbox _mailbox;
+  // Guarded by _responseObserver, which is also used by the reader thread to grant credits
+  private boolean _responseCompleted;
 
   public MailboxContentObserver(MailboxService mailboxService, StreamObserver<MailboxStatus> responseObserver) {
     _mailboxService = mailboxService;
@@ -60,10 +63,33 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
     String mailboxId = mailboxContent.getMailboxId();
     if (_mailbox == null) {
       _mailbox = _mailboxService.getReceivingMailbox(mailboxId);
+      _mailbox.registeredSender(new ReceivingMailbox.Sender() {
+        @Override
+        public void blockConsumed() {
+          grantCredit();
+        }
+
+        @Override
+        public void receiverCancelled() {
+          // Complete the stream so that the sender early terminates without waiting for the next block to be offered
+          cancelStream();
+        }
+      });
     }
     try {
       TransferableBlock block;
-      DataBlock dataBlock = DataBlockUtils.getDataBlock(mailboxContent.getPayload().asReadOnlyByteBuffer());
+      DataBlock dataBlock;
+      String compressionType = mailboxContent.getMetadataMap().get(ChannelUtils.MAILBOX_METADATA_COMPRESSION_TYPE_KEY);
+      if (compressionType != null) {
+        long startTimeNs = System.nanoTime();
+        dataBlock = MailboxPayloadCodec.decompress(MailboxPayloadCodec.getDecompressor(compressionType),
+            mailboxContent.getPayload());
+        _mailbox.recordReceivedBytes(mailboxContent.getPayload().size(), System.nanoTime() - startTimeNs);
+      } else {
+        _mailbox.recordReceivedBytes(mailboxContent.getPayload().size(), 0);
+        // The data block wraps the received payload without copying the data sections
+        dataBlock = DataBlockUtils.getDataBlock(mailboxContent.getPayload().asReadOnlyByteBuffer());
+      }
       if (dataBlock instanceof MetadataBlock) {
         Map<Integer, String> exceptions = dataBlock.getExceptions();
         if (exceptions.isEmpty()) {
@@ -80,9 +106,11 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
       ReceivingMailbox.ReceivingMailboxStatus status = _mailbox.offer(block, timeoutMs);
       switch (status) {
         case SUCCESS:
-          _responseObserver.onNext(MailboxStatus.newBuilder().setMailboxId(mailboxId)
+          // NOTE: Credit is granted when the block is consumed, the zero credit here signals that credits are supported
+          sendStatus(MailboxStatus.newBuilder().setMailboxId(mailboxId)
               .putMetadata(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY,
-                  Integer.toString(_mailbox.getNumPendingBlocks())).build());
+                  Integer.toString(_mailbox.getNumPendingBlocks()))
+              .putMetadata(ChannelUtils.MAILBOX_METADATA_CREDIT_KEY, "0").build());
           break;
         case ERROR:
           LOGGER.warn("Mailbox: {} already errored out (received error block before)", mailboxId);
@@ -107,10 +135,37 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
     }
   }
 
+  private void grantCredit() {
+    try {
+      sendStatus(MailboxStatus.newBuilder().setMailboxId(_mailbox.getId())
+          .putMetadata(ChannelUtils.MAILBOX_METADATA_CREDIT_KEY, "1").build());
+    } catch (Exception e) {
+      // Exception can be thrown if the stream is already cancelled, so we simply ignore it
+      LOGGER.debug("Caught exception granting credit for mailbox: {}", _mailbox.getId(), e);
+    }
+  }
+
+  private void sendStatus(MailboxStatus mailboxStatus) {
+    synchronized (_responseObserver) {
+      if (!_responseCompleted) {
+        _responseObserver.onNext(mailboxStatus);
+      }
+    }
+  }
+
+  private void completeResponse() {
+    synchronized (_responseObserver) {
+      if (!_responseCompleted) {
+        _responseCompleted = true;
+        _responseObserver.onCompleted();
+      }
+    }
+  }
+
   private void cancelStream() {
     try {
       // NOTE: DO NOT use onError() because it will terminate the stream, and sender might not get the callback
-      _responseObserver.onCompleted();
+      completeResponse();
     } catch (Exception e) {
       // Exception can be thrown if the stream is already closed, so we simply ignore it
       LOGGER.debug("Caught exception cancelling mailbox: {}", _mailbox != null ? _mailbox.getId() : "unknown", e);
@@ -131,7 +186,7 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
   @Override
   public void onCompleted() {
     try {
-      _responseObserver.onCompleted();
+      completeResponse();
     } catch (Exception e) {
       // Exception can be thrown if the stream is already closed, so we simply ignore it
       LOGGER.debug("Caught exception sending complete to mailbox: {}", _mailbox != null ? _mailbox.getId() : "unknown",
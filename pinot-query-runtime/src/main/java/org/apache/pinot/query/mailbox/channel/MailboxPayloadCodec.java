@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.mailbox.channel;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datablock.DataBlockUtils;
+import org.apache.pinot.segment.local.io.compression.ChunkCompressorFactory;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.compression.ChunkCompressor;
+import org.apache.pinot.segment.spi.compression.ChunkDecompressor;
+import org.apache.pinot.segment.spi.memory.CleanerUtil;
+
+
+/**
+ * {@code MailboxPayloadCodec} compresses and decompresses the serialized blocks sent through the gRPC mailboxes with
+ * the chunk codecs used by the forward indexes. The compression type of each block is carried in the metadata of the
+ * mailbox content under {@link ChannelUtils#MAILBOX_METADATA_COMPRESSION_TYPE_KEY}, so that the receiver decompresses
+ * each block with the codec picked by the sender, and blocks without it are read as is.
+ *
+ * <p>The codecs work on direct buffers. They are borrowed from a pool shared by all the mailboxes for the duration of a
+ * single compression or decompression, so that the direct memory is bounded by the concurrent (de)compressions instead
+ * of the number of open mailboxes. The pool keeps power of 2 sized buffers up to {@link #MAX_POOLED_BUFFER_SIZE}, and
+ * at most {@link #MAX_POOLED_BYTES} in total. The buffers not kept in the pool are freed right away instead of waiting
+ * for the GC to release the direct memory.
+ */
+public class MailboxPayloadCodec {
+  private MailboxPayloadCodec() {
+  }
+
+  private static final int MIN_POOLED_BUFFER_SIZE_SHIFT = 16;
+  // Blocks are split around 4MB before being sent, so the buffers of regular blocks are pooled
+  private static final int MAX_POOLED_BUFFER_SIZE_SHIFT = 23;
+  static final int MAX_POOLED_BUFFER_SIZE = 1 << MAX_POOLED_BUFFER_SIZE_SHIFT;
+  static final long MAX_POOLED_BYTES = 64L * 1024 * 1024;
+
+  // Indexed by the size shift minus MIN_POOLED_BUFFER_SIZE_SHIFT
+  private static final Queue<ByteBuffer>[] POOLED_BUFFERS;
+  private static final AtomicLong NUM_POOLED_BYTES = new AtomicLong();
+
+  static {
+    POOLED_BUFFERS = new Queue[MAX_POOLED_BUFFER_SIZE_SHIFT - MIN_POOLED_BUFFER_SIZE_SHIFT + 1];
+    for (int i = 0; i < POOLED_BUFFERS.length; i++) {
+      POOLED_BUFFERS[i] = new ConcurrentLinkedQueue<>();
+    }
+  }
+
+  /**
+   * Returns the compressor for the configured compression type, or {@code null} if the blocks should be sent raw.
+   */
+  @Nullable
+  public static ChunkCompressor getCompressor(String compressionType) {
+    ChunkCompressionType chunkCompressionType = ChunkCompressionType.valueOf(compressionType.toUpperCase());
+    if (chunkCompressionType == ChunkCompressionType.PASS_THROUGH) {
+      return null;
+    }
+    // LZ4 needs the length prefix for the receiver to size the decompressed buffer
+    return ChunkCompressorFactory.getCompressor(chunkCompressionType, true);
+  }
+
+  public static ChunkDecompressor getDecompressor(String compressionType) {
+    return ChunkCompressorFactory.getDecompressor(ChunkCompressionType.valueOf(compressionType));
+  }
+
+  /**
+   * Compresses the concatenation of the given buffers, which hold {@code numBytes} bytes in total.
+   */
+  public static ByteString compress(ChunkCompressor compressor, List<ByteBuffer> byteBuffers, int numBytes)
+      throws IOException {
+    ByteBuffer uncompressedBuffer = acquireBuffer(numBytes);
+    ByteBuffer compressedBuffer = null;
+    try {
+      for (ByteBuffer byteBuffer : byteBuffers) {
+        uncompressedBuffer.put(byteBuffer.duplicate());
+      }
+      uncompressedBuffer.flip();
+      compressedBuffer = acquireBuffer(compressor.maxCompressedSize(numBytes));
+      compressor.compress(uncompressedBuffer, compressedBuffer);
+      return ByteString.copyFrom(compressedBuffer);
+    } finally {
+      releaseBuffer(uncompressedBuffer);
+      if (compressedBuffer != null) {
+        releaseBuffer(compressedBuffer);
+      }
+    }
+  }
+
+  /**
+   * Decompresses the payload into a data block.
+   */
+  public static DataBlock decompress(ChunkDecompressor decompressor, ByteString payload)
+      throws IOException {
+    ByteBuffer compressedBuffer = acquireBuffer(payload.size());
+    ByteBuffer uncompressedBuffer = null;
+    try {
+      payload.copyTo(compressedBuffer);
+      compressedBuffer.flip();
+      uncompressedBuffer = acquireBuffer(decompressor.decompressedLength(compressedBuffer));
+      decompressor.decompress(compressedBuffer, uncompressedBuffer);
+      // The data block copies the data sections out of the buffer, so that the buffer can be released
+      return DataBlockUtils.getDataBlock(uncompressedBuffer);
+    } finally {
+      releaseBuffer(compressedBuffer);
+      if (uncompressedBuffer != null) {
+        releaseBuffer(uncompressedBuffer);
+      }
+    }
+  }
+
+  /**
+   * Returns a direct buffer with at least the given capacity, and the limit set to the capacity.
+   */
+  @VisibleForTesting
+  static ByteBuffer acquireBuffer(int capacity) {
+    int sizeShift = getSizeShift(capacity);
+    ByteBuffer buffer;
+    if (sizeShift <= MAX_POOLED_BUFFER_SIZE_SHIFT) {
+      buffer = POOLED_BUFFERS[sizeShift - MIN_POOLED_BUFFER_SIZE_SHIFT].poll();
+      if (buffer != null) {
+        NUM_POOLED_BYTES.addAndGet(-buffer.capacity());
+        buffer.clear().order(ByteOrder.BIG_ENDIAN);
+      } else {
+        buffer = ByteBuffer.allocateDirect(1 << sizeShift);
+      }
+    } else {
+      buffer = ByteBuffer.allocateDirect(capacity);
+    }
+    buffer.limit(capacity);
+    return buffer;
+  }
+
+  /**
+   * Returns the buffer to the pool, or frees it if the pool is full or the buffer is too large to be pooled.
+   */
+  @VisibleForTesting
+  static void releaseBuffer(ByteBuffer buffer) {
+    int capacity = buffer.capacity();
+    if (capacity <= MAX_POOLED_BUFFER_SIZE) {
+      if (NUM_POOLED_BYTES.addAndGet(capacity) <= MAX_POOLED_BYTES) {
+        POOLED_BUFFERS[getSizeShift(capacity) - MIN_POOLED_BUFFER_SIZE_SHIFT].offer(buffer);
+        return;
+      }
+      NUM_POOLED_BYTES.addAndGet(-capacity);
+    }
+    if (CleanerUtil.UNMAP_SUPPORTED) {
+      CleanerUtil.getCleaner().freeBuffer(buffer);
+    }
+  }
+
+  @VisibleForTesting
+  static long getNumPooledBytes() {
+    return NUM_POOLED_BYTES.get();
+  }
+
+  private static int getSizeShift(int capacity) {
+    if (capacity <= 1 << MIN_POOLED_BUFFER_SIZE_SHIFT) {
+      return MIN_POOLED_BUFFER_SIZE_SHIFT;
+    }
+    return Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1);
+  }
+}
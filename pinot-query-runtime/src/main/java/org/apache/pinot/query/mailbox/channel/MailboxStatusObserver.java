@@ -19,8 +19,13 @@
 package org.apache.pinot.query.mailbox.channel;
 
 import io.grpc.stub.StreamObserver;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import org.apache.pinot.common.proto.Mailbox.MailboxStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +33,12 @@ import org.slf4j.LoggerFactory;
 
 /**
  * {@code MailboxStatusStreamObserver} is the status streaming observer used to track the status by the sender.
+ *
+ * <p>It also tracks the credits granted by the receiver: every block consumed from the receiving mailbox returns one
+ * credit to the sender, and the sender waits in {@link #acquireCredit(int, long)} when the max in-flight blocks or
+ * bytes are reached. Receivers that don't grant credits (identified by the first status without credit) are not
+ * throttled. The credits are guarded by a {@link ReentrantLock} instead of the object monitor so that a sender waiting
+ * on a virtual thread doesn't pin its carrier thread.
  */
 public class MailboxStatusObserver implements StreamObserver<MailboxStatus> {
   private static final Logger LOGGER = LoggerFactory.getLogger(MailboxStatusObserver.class);
@@ -35,33 +46,122 @@ public class MailboxStatusObserver implements StreamObserver<MailboxStatus> {
 
   private final AtomicInteger _bufferSize = new AtomicInteger(DEFAULT_MAILBOX_QUEUE_CAPACITY);
   private final AtomicBoolean _finished = new AtomicBoolean();
+  private final int _maxInFlightBlocks;
+  private final long _maxInFlightBytes;
+
+  private final ReentrantLock _lock = new ReentrantLock();
+  private final Condition _creditAvailable = _lock.newCondition();
+
+  // Sizes of the blocks sent but not yet consumed by the receiver, in the sending order
+  private final ArrayDeque<Integer> _inFlightBlockSizes = new ArrayDeque<>();
+  private long _inFlightBytes;
+  private boolean _statusReceived;
+  private boolean _creditSupported;
+
+  public MailboxStatusObserver() {
+    this(Integer.MAX_VALUE, Long.MAX_VALUE);
+  }
+
+  public MailboxStatusObserver(int maxInFlightBlocks, long maxInFlightBytes) {
+    _maxInFlightBlocks = maxInFlightBlocks;
+    _maxInFlightBytes = maxInFlightBytes;
+  }
 
   @Override
   public void onNext(MailboxStatus mailboxStatus) {
+    Map<String, String> metadata = mailboxStatus.getMetadataMap();
     // when received a mailbox status from the receiving end, sending end update the known buffer size available
-    // so we can make better throughput send judgement. here is a simple example.
-    // TODO: this feedback info is not used to throttle the send speed. it is currently being discarded.
-    if (mailboxStatus.getMetadataMap().containsKey(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY)) {
-      _bufferSize.set(
-          Integer.parseInt(mailboxStatus.getMetadataMap().get(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY)));
+    if (metadata.containsKey(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY)) {
+      _bufferSize.set(Integer.parseInt(metadata.get(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY)));
     } else {
       _bufferSize.set(DEFAULT_MAILBOX_QUEUE_CAPACITY); // DEFAULT_AVAILABILITY;
     }
+    String credit = metadata.get(ChannelUtils.MAILBOX_METADATA_CREDIT_KEY);
+    _lock.lock();
+    try {
+      if (credit != null) {
+        _creditSupported = true;
+        int numCredits = Integer.parseInt(credit);
+        for (int i = 0; i < numCredits && !_inFlightBlockSizes.isEmpty(); i++) {
+          _inFlightBytes -= _inFlightBlockSizes.poll();
+        }
+      } else if (!_statusReceived) {
+        // Receiver doesn't grant credits, stop tracking the in-flight blocks
+        _inFlightBlockSizes.clear();
+        _inFlightBytes = 0;
+      }
+      _statusReceived = true;
+      _creditAvailable.signalAll();
+    } finally {
+      _lock.unlock();
+    }
   }
 
   public int getBufferSize() {
     return _bufferSize.get();
   }
 
+  /**
+   * Waits until a block of the given size can be sent without exceeding the max in-flight blocks or bytes, then
+   * records it as in-flight. At least one block is always allowed in flight regardless of its size. Returns
+   * {@code false} if no credit is granted before the deadline.
+   */
+  public boolean acquireCredit(int numBytes, long deadlineMs)
+      throws InterruptedException {
+    _lock.lockInterruptibly();
+    try {
+      while (!hasCredit()) {
+        long waitMs = deadlineMs - System.currentTimeMillis();
+        if (waitMs <= 0) {
+          return false;
+        }
+        _creditAvailable.await(waitMs, TimeUnit.MILLISECONDS);
+      }
+      if (!_statusReceived || _creditSupported) {
+        _inFlightBlockSizes.add(numBytes);
+        _inFlightBytes += numBytes;
+      }
+      return true;
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  private boolean hasCredit() {
+    if (_finished.get() || _inFlightBlockSizes.isEmpty() || (_statusReceived && !_creditSupported)) {
+      return true;
+    }
+    return _inFlightBlockSizes.size() < _maxInFlightBlocks && _inFlightBytes < _maxInFlightBytes;
+  }
+
+  public int getNumInFlightBlocks() {
+    _lock.lock();
+    try {
+      return _inFlightBlockSizes.size();
+    } finally {
+      _lock.unlock();
+    }
+  }
+
   @Override
   public void onError(Throwable t) {
     LOGGER.warn("Error on sender side", t);
-    _finished.set(true);
+    finish();
   }
 
   @Override
   public void onCompleted() {
+    finish();
+  }
+
+  private void finish() {
     _finished.set(true);
+    _lock.lock();
+    try {
+      _creditAvailable.signalAll();
+    } finally {
+      _lock.unlock();
+    }
   }
 
   public boolean isFinished() {
@@ -48,6 +48,8 @@ import org.apache.pinot.query.runtime.operator.LeafStageTransferableBlockOperato
 import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
 import org.apache.pinot.query.runtime.operator.MultiStageOperator;
 import org.apache.pinot.query.runtime.operator.OpChain;
+import org.apache.pinot.query.runtime.operator.SortOperator;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
 import org.apache.pinot.query.runtime.plan.DistributedStagePlan;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.apache.pinot.query.runtime.plan.PhysicalPlanContext;
@@ -87,6 +89,12 @@ public class QueryRunner {
   private Integer _maxRowsInJoin;
   @Nullable
   private String _joinOverflowMode;
+  // Spilling configs
+  @Nullable
+  private Integer _maxRowsInSort;
+  @Nullable
+  private Integer _maxGroupsInAggregate;
+  private String _spillDir;
 
   /**
    * Initializes the query executor.
@@ -105,9 +113,19 @@ public class QueryRunner {
     _maxRowsInJoin =
         config.containsKey(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_ROWS_IN_JOIN) ? Integer.parseInt(
             config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_ROWS_IN_JOIN)) : null;
+    // Set spilling configs
+    _maxRowsInSort =
+        config.containsKey(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_ROWS_IN_SORT) ? Integer.parseInt(
+            config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_ROWS_IN_SORT)) : null;
+    _maxGroupsInAggregate =
+        config.containsKey(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_GROUPS_IN_AGGREGATE) ? Integer.parseInt(
+            config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_GROUPS_IN_AGGREGATE)) : null;
+    _spillDir = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_SPILL_DIR,
+        SpillFile.DEFAULT_SPILL_DIR.getAbsolutePath());
 
     try {
-      //TODO: make this configurable
+      // OpChains block on the mailboxes while waiting for data, run them on virtual threads when configured so that the
+      // waiting OpChains don't hold a platform thread
       _opChainExecutor = ExecutorServiceUtils.create(config, "pinot.query.runner.opchain",
           "op_chain_worker_on_" + _port + "_port");
       _scheduler = new OpChainSchedulerService(getOpChainExecutorService());
@@ -177,6 +195,8 @@ public class QueryRunner {
 
     // Set Join Overflow configs to StageMetadata from request
     setJoinOverflowConfigs(distributedStagePlan, requestMetadataMap);
+    // Set spilling configs to StageMetadata from request
+    setSpillConfigs(distributedStagePlan, requestMetadataMap);
 
     // run OpChain
     OpChain opChain;
@@ -211,6 +231,32 @@ public class QueryRunner {
     }
   }
 
+  private void setSpillConfigs(DistributedStagePlan distributedStagePlan, Map<String, String> requestMetadataMap) {
+    Integer maxRowsInSort = QueryOptionsUtils.getMaxRowsInSort(requestMetadataMap);
+    if (maxRowsInSort != null) {
+      distributedStagePlan.getStageMetadata().getCustomProperties()
+          .put(CommonConstants.Broker.Request.QueryOptionKey.MAX_ROWS_IN_SORT, String.valueOf(maxRowsInSort));
+    } else if (_maxRowsInSort != null) {
+      distributedStagePlan.getStageMetadata().getCustomProperties()
+          .put(CommonConstants.Broker.Request.QueryOptionKey.MAX_ROWS_IN_SORT, String.valueOf(_maxRowsInSort));
+    }
+
+    Integer maxGroupsInAggregate = QueryOptionsUtils.getMaxGroupsInAggregate(requestMetadataMap);
+    if (maxGroupsInAggregate != null) {
+      distributedStagePlan.getStageMetadata().getCustomProperties()
+          .put(CommonConstants.Broker.Request.QueryOptionKey.MAX_GROUPS_IN_AGGREGATE,
+              String.valueOf(maxGroupsInAggregate));
+    } else if (_maxGroupsInAggregate != null) {
+      distributedStagePlan.getStageMetadata().getCustomProperties()
+          .put(CommonConstants.Broker.Request.QueryOptionKey.MAX_GROUPS_IN_AGGREGATE,
+              String.valueOf(_maxGroupsInAggregate));
+    }
+
+    // NOTE: Always override the spill directory so that it can only be set through the server config
+    distributedStagePlan.getStageMetadata().getCustomProperties()
+        .put(CommonConstants.MultiStageQueryRunner.KEY_OF_SPILL_DIR, _spillDir);
+  }
+
   public void cancel(long requestId) {
     _scheduler.cancel(requestId);
   }
@@ -250,10 +296,16 @@ public class QueryRunner {
     MultiStageOperator leafStageOperator =
         new LeafStageTransferableBlockOperator(opChainExecutionContext, this::processServerQueryRequest,
             serverQueryRequests, sendNode.getDataSchema());
+    if (sendNode.isSortOnSender()) {
+      leafStageOperator = SortOperator.createFullSort(opChainExecutionContext, leafStageOperator,
+          sendNode.getCollationKeys(), sendNode.getCollationDirections(), sendNode.getCollationNullDirections(),
+          sendNode.getDataSchema());
+    }
     MailboxSendOperator mailboxSendOperator =
         new MailboxSendOperator(opChainExecutionContext, leafStageOperator, sendNode.getDistributionType(),
             sendNode.getPartitionKeySelector(), sendNode.getCollationKeys(), sendNode.getCollationDirections(),
-            sendNode.isSortOnSender(), sendNode.getReceiverStageId());
+            sendNode.isSortOnSender(), sendNode.getReceiverStageId(), sendNode.getSkewHandlingType(),
+            sendNode.getSkewSplitFactor(), sendNode.getHotKeyStageId());
     return new OpChain(opChainExecutionContext, mailboxSendOperator, Collections.emptyList());
   }
 
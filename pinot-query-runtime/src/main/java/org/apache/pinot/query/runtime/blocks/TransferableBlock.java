@@ -24,6 +24,7 @@ import java.util.Map;
 import org.apache.pinot.common.datablock.ColumnarDataBlock;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.datablock.DataBlockUtils;
+import org.apache.pinot.common.datablock.EncodedColumnarDataBlock;
 import org.apache.pinot.common.datablock.MetadataBlock;
 import org.apache.pinot.common.datablock.RowDataBlock;
 import org.apache.pinot.common.utils.DataSchema;
@@ -55,7 +56,8 @@ public class TransferableBlock implements Block {
   public TransferableBlock(DataBlock dataBlock) {
     _dataBlock = dataBlock;
     _dataSchema = dataBlock.getDataSchema();
-    _type = dataBlock instanceof ColumnarDataBlock ? DataBlock.Type.COLUMNAR
+    _type = dataBlock instanceof ColumnarDataBlock || dataBlock instanceof EncodedColumnarDataBlock
+        ? DataBlock.Type.COLUMNAR
         : dataBlock instanceof RowDataBlock ? DataBlock.Type.ROW : DataBlock.Type.METADATA;
     _numRows = _dataBlock.getNumberOfRows();
   }
@@ -89,6 +91,12 @@ public class TransferableBlock implements Block {
           _container = DataBlockUtils.extractRows(_dataBlock, ObjectSerDeUtils::deserialize);
           break;
         case COLUMNAR:
+          // Columnar blocks are only received from the mailbox, where the data block is always available
+          if (_dataBlock != null) {
+            _container = DataBlockUtils.extractRows(_dataBlock, ObjectSerDeUtils::deserialize);
+            break;
+          }
+          throw new UnsupportedOperationException("Unable to extract from container with type: " + _type);
         case METADATA:
         default:
           throw new UnsupportedOperationException("Unable to extract from container with type: " + _type);
@@ -126,6 +134,24 @@ public class TransferableBlock implements Block {
     return _dataBlock;
   }
 
+  /**
+   * Retrieve the data block in the {@link EncodedColumnarDataBlock} format, which is more compact than the row format
+   * for transferring over the wire. The already constructed data block (e.g. received from the mailbox, or with
+   * exceptions attached) is returned as is.
+   *
+   * @return data block.
+   */
+  public DataBlock getEncodedColumnarDataBlock() {
+    if (_dataBlock != null || _type != DataBlock.Type.ROW) {
+      return getDataBlock();
+    }
+    try {
+      return DataBlockBuilder.buildEncodedFromRows(_container, _dataSchema);
+    } catch (Exception e) {
+      throw new RuntimeException("Unable to create DataBlock", e);
+    }
+  }
+
   /**
    * Return the type of block (one of ROW, COLUMNAR, or METADATA).
    *
@@ -60,7 +60,7 @@ public final class TransferableBlockUtils {
    *  Split a block into multiple block so that each block size is within maxBlockSize. Currently,
    *  <ul>
    *    <li>For row data block, we split for row type dataBlock.</li>
-   *    <li>For columnar data block, exceptions are thrown.</li>
+   *    <li>For columnar data block (received from the mailbox), we split the extracted rows into row type blocks.</li>
    *    <li>For metadata block, split is not supported.</li>
    *  </ul>
    *
@@ -71,7 +71,7 @@ public final class TransferableBlockUtils {
    */
   public static Iterator<TransferableBlock> splitBlock(TransferableBlock block, DataBlock.Type type, int maxBlockSize) {
     List<TransferableBlock> blockChunks = new ArrayList<>();
-    if (type == DataBlock.Type.ROW) {
+    if (type == DataBlock.Type.ROW || type == DataBlock.Type.COLUMNAR) {
       // Use estimated row size, this estimate is not accurate and is used to estimate numRowsPerChunk only.
       int estimatedRowSizeInBytes = block.getDataSchema().getColumnNames().length * MEDIAN_COLUMN_SIZE_BYTES;
       int numRowsPerChunk = maxBlockSize / estimatedRowSizeInBytes;
@@ -83,7 +83,7 @@ public final class TransferableBlockUtils {
       while (currentRow < totalNumRows) {
         List<Object[]> chunk = allRows.subList(currentRow, Math.min(currentRow + numRowsPerChunk, allRows.size()));
         currentRow += numRowsPerChunk;
-        blockChunks.add(new TransferableBlock(chunk, block.getDataSchema(), block.getType()));
+        blockChunks.add(new TransferableBlock(chunk, block.getDataSchema(), DataBlock.Type.ROW));
       }
       return blockChunks.iterator();
     } else if (type == DataBlock.Type.METADATA) {
@@ -21,7 +21,9 @@ package org.apache.pinot.query.runtime.executor;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.NamedThreadFactory;
 import org.apache.pinot.spi.env.PinotConfiguration;
 import org.slf4j.Logger;
@@ -32,6 +34,18 @@ public class ExecutorServiceUtils {
   private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorServiceUtils.class);
   private static final long DEFAULT_TERMINATION_MILLIS = 30_000;
 
+  /**
+   * Suffix of the config (after the config prefix) for the type of the executor:
+   * <ul>
+   *   <li>{@code cached} (default): cached thread pool of platform threads.</li>
+   *   <li>{@code virtual}: one virtual thread per task, so that the tasks blocked waiting for data don't hold a
+   *   platform thread. Virtual threads require JDK 21+, fall back to {@code cached} on older JDKs.</li>
+   * </ul>
+   */
+  public static final String EXECUTOR_TYPE_CONFIG_SUFFIX = ".executor.type";
+  public static final String EXECUTOR_TYPE_CACHED = "cached";
+  public static final String EXECUTOR_TYPE_VIRTUAL = "virtual";
+
   private ExecutorServiceUtils() {
   }
 
@@ -40,8 +54,40 @@ public class ExecutorServiceUtils {
   }
 
   public static ExecutorService create(PinotConfiguration conf, String confPrefix, String baseName) {
-    //TODO: make this configurable
-    return Executors.newCachedThreadPool(new NamedThreadFactory(baseName));
+    String executorType = conf.getProperty(confPrefix + EXECUTOR_TYPE_CONFIG_SUFFIX, EXECUTOR_TYPE_CACHED);
+    switch (executorType.toLowerCase()) {
+      case EXECUTOR_TYPE_CACHED:
+        return createDefault(baseName);
+      case EXECUTOR_TYPE_VIRTUAL:
+        ExecutorService executorService = createVirtualThreadPerTaskExecutor(baseName);
+        if (executorService != null) {
+          LOGGER.info("Using virtual threads for executor: {}", baseName);
+          return executorService;
+        }
+        LOGGER.warn("Virtual threads are not supported by the JVM, using cached thread pool for executor: {}",
+            baseName);
+        return createDefault(baseName);
+      default:
+        throw new IllegalArgumentException("Unsupported executor type: " + executorType + " for executor: " + baseName);
+    }
+  }
+
+  /**
+   * Creates an executor that starts a new virtual thread for each task, or returns {@code null} if virtual threads are
+   * not available. The JDK 21 APIs are accessed reflectively so that this compiles against older JDKs.
+   */
+  @Nullable
+  private static ExecutorService createVirtualThreadPerTaskExecutor(String baseName) {
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, baseName + "-", 0L);
+      ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+          .invoke(null, threadFactory);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
   }
 
   /**
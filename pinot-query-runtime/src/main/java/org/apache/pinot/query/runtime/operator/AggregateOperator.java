@@ -21,6 +21,7 @@ package org.apache.pinot.query.runtime.operator;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,9 +31,11 @@ import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.apache.calcite.rel.hint.PinotHintOptions;
 import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datatable.DataTable;
 import org.apache.pinot.common.request.Literal;
 import org.apache.pinot.common.request.context.ExpressionContext;
 import org.apache.pinot.common.request.context.FunctionContext;
+import org.apache.pinot.common.response.ProcessingException;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.common.BlockValSet;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
@@ -45,8 +48,11 @@ import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
 import org.apache.pinot.query.runtime.operator.block.DataBlockValSet;
 import org.apache.pinot.query.runtime.operator.block.FilteredDataBlockValSet;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.query.runtime.plan.StageMetadata;
 import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.utils.CommonConstants;
 
 
 /**
@@ -69,6 +75,9 @@ import org.apache.pinot.spi.data.FieldSpec;
  * If the list of aggregation calls is not empty, the input of aggregation has to be a number.
  * Note: This class performs aggregation over the double value of input.
  * If the input is single value, the output type will be input type. Otherwise, the output type will be double.
+ *
+ * When max groups in aggregate is configured, the group by intermediate results are spilled to disk once the number of
+ * groups in memory reaches it, and the result is returned one spilled partition per block.
  */
 // TODO(Sonam): Rename to AggregateOperator when merging Planner support.
 public class AggregateOperator extends MultiStageOperator {
@@ -84,6 +93,7 @@ public class AggregateOperator extends MultiStageOperator {
   private final Map<String, Integer> _colNameToIndexMap;
   private final Map<Integer, Map<Integer, Literal>> _aggCallSignatureMap;
 
+  private boolean _hasConsumedInput;
   private boolean _hasReturnedAggregateBlock;
 
   private final boolean _isGroupByAggregation;
@@ -134,7 +144,8 @@ public class AggregateOperator extends MultiStageOperator {
       _isGroupByAggregation = true;
       _groupByExecutor =
           new MultistageGroupByExecutor(groupByExpr, aggFunctions, filterArgIndexArray, aggType, _colNameToIndexMap,
-              _resultSchema);
+              _resultSchema, getMaxGroupsInAggregate(context.getStageMetadata()),
+              SpillFile.getSpillDir(context.getStageMetadata()));
     } else {
       _isGroupByAggregation = false;
       _aggregationExecutor =
@@ -143,11 +154,36 @@ public class AggregateOperator extends MultiStageOperator {
     }
   }
 
+  private static int getMaxGroupsInAggregate(@Nullable StageMetadata stageMetadata) {
+    if (stageMetadata != null && stageMetadata.getCustomProperties() != null && stageMetadata.getCustomProperties()
+        .containsKey(CommonConstants.Broker.Request.QueryOptionKey.MAX_GROUPS_IN_AGGREGATE)) {
+      return Integer.parseInt(stageMetadata.getCustomProperties()
+          .get(CommonConstants.Broker.Request.QueryOptionKey.MAX_GROUPS_IN_AGGREGATE));
+    }
+    return -1;
+  }
+
   @Override
   public List<MultiStageOperator> getChildOperators() {
     return ImmutableList.of(_inputOperator);
   }
 
+  @Override
+  public void cancel(Throwable e) {
+    super.cancel(e);
+    if (_isGroupByAggregation) {
+      _groupByExecutor.close();
+    }
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    if (_isGroupByAggregation) {
+      _groupByExecutor.close();
+    }
+  }
+
   @Nullable
   @Override
   public String toExplainString() {
@@ -157,18 +193,24 @@ public class AggregateOperator extends MultiStageOperator {
   @Override
   protected TransferableBlock getNextBlock() {
     try {
-      TransferableBlock finalBlock;
-      if (_isGroupByAggregation) {
-        finalBlock = consumeGroupBy();
-      } else {
-        finalBlock = consumeAggregation();
-      }
+      if (!_hasConsumedInput) {
+        TransferableBlock finalBlock;
+        if (_isGroupByAggregation) {
+          finalBlock = consumeGroupBy();
+        } else {
+          finalBlock = consumeAggregation();
+        }
 
-      // setting upstream error block
-      if (finalBlock.isErrorBlock()) {
-        return finalBlock;
+        // setting upstream error block
+        if (finalBlock.isErrorBlock()) {
+          return finalBlock;
+        }
+        _hasConsumedInput = true;
       }
 
+      if (_isGroupByAggregation && _groupByExecutor.isSpilled()) {
+        return produceSpilledBlock();
+      }
       if (!_hasReturnedAggregateBlock) {
         return produceAggregatedBlock();
       } else {
@@ -196,11 +238,36 @@ public class AggregateOperator extends MultiStageOperator {
     }
   }
 
+  /**
+   * Returns the result of the next non-empty spilled partition, or the end of the stream once all the partitions are
+   * returned.
+   */
+  private TransferableBlock produceSpilledBlock()
+      throws IOException, ProcessingException {
+    List<Object[]> rows;
+    while (!_hasReturnedAggregateBlock && (rows = _groupByExecutor.getNextSpilledPartitionResult()) != null) {
+      if (!rows.isEmpty()) {
+        return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+      }
+    }
+    if (!_hasReturnedAggregateBlock) {
+      _hasReturnedAggregateBlock = true;
+      long spilledBytes = _groupByExecutor.getSpilledBytes();
+      _opChainStats.recordSpilledBytes(spilledBytes);
+      if (shouldCollectStats()) {
+        _opChainStats.getOperatorStats(_context, _operatorId)
+            .recordSingleStat(DataTable.MetadataKey.SPILLED_BYTES.getName(), String.valueOf(spilledBytes));
+      }
+    }
+    return TransferableBlockUtils.getEndOfStreamTransferableBlock();
+  }
+
   /**
    * Consumes the input blocks as a group by
    * @return the last block, which must always be either an error or the end of the stream
    */
-  private TransferableBlock consumeGroupBy() {
+  private TransferableBlock consumeGroupBy()
+      throws IOException {
     TransferableBlock block = _inputOperator.nextBlock();
     while (block.isDataBlock()) {
       _groupByExecutor.processBlock(block, _inputSchema);
@@ -336,7 +403,7 @@ public class AggregateOperator extends MultiStageOperator {
           expression.getIdentifier())) {
         int index = colNameToIndexMap.get(expression.getIdentifier());
         DataSchema.ColumnDataType dataType = inputDataSchema.getColumnDataType(index);
-        Preconditions.checkState(block.getType().equals(DataBlock.Type.ROW), "Datablock type is not ROW");
+        Preconditions.checkState(block.isDataBlock(), "Datablock type is not ROW or COLUMNAR");
         if (filterArgIdx == -1) {
           blockValSetMap.put(expression, new DataBlockValSet(dataType, block.getDataBlock(), index));
         } else {
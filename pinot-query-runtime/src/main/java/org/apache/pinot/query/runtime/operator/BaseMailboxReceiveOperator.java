@@ -81,6 +81,13 @@ public abstract class BaseMailboxReceiveOperator extends MultiStageOperator {
     return _mailboxIds;
   }
 
+  /**
+   * Returns whether the EOS is received from all the mailboxes, i.e. the upstream stages are all done.
+   */
+  public boolean isFinished() {
+    return _multiConsumer.isFinished();
+  }
+
   @Override
   public List<MultiStageOperator> getChildOperators() {
     return Collections.emptyList();
@@ -119,6 +126,8 @@ public abstract class BaseMailboxReceiveOperator extends MultiStageOperator {
       if (block != null && block.isSuccessfulEndOfStreamBlock()) {
         _operator._mailboxService.releaseReceivingMailbox(_mailbox);
         _operator._opChainStats.getOperatorStatsMap().putAll(block.getResultMetadata());
+        _operator._opChainStats.recordMailboxBytesReceived(_mailbox.getNumBytesReceived());
+        _operator._opChainStats.recordMailboxCompressionTimeNs(_mailbox.getDecompressionTimeNs());
       }
       return block;
     }
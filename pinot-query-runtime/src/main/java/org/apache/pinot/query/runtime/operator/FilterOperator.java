@@ -27,6 +27,7 @@ import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.operands.FilterOperand;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
 import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
@@ -46,6 +47,7 @@ import org.slf4j.LoggerFactory;
     2) Binary Operand: equals, notEquals, greaterThan, greaterThanOrEqual, lessThan, lessThanOrEqual
     3) All boolean scalar functions we have that take tranformOperand.
     Note: Scalar functions are the ones we have in v1 engine and only do function name and arg # matching.
+   The filter is evaluated on the whole block at once with a selection vector of row ids, see FilterOperand#filter.
  */
 public class FilterOperator extends MultiStageOperator {
   private static final String EXPLAIN_NAME = "FILTER";
@@ -97,13 +99,29 @@ public class FilterOperator extends MultiStageOperator {
       return block;
     }
 
-    List<Object[]> resultRows = new ArrayList<>();
     List<Object[]> container = block.getContainer();
-    for (Object[] row : container) {
-      if ((Boolean) TypeUtils.convert(_filterOperand.apply(row), DataSchema.ColumnDataType.BOOLEAN)) {
-        resultRows.add(row);
+    int numRows = container.size();
+    int[] rowIds = new int[numRows];
+    for (int i = 0; i < numRows; i++) {
+      rowIds[i] = i;
+    }
+    int numMatchingRows;
+    if (_filterOperand instanceof FilterOperand) {
+      numMatchingRows = ((FilterOperand) _filterOperand).filter(container, rowIds, numRows);
+    } else {
+      Object[] results = new Object[numRows];
+      _filterOperand.apply(container, rowIds, numRows, results);
+      numMatchingRows = 0;
+      for (int i = 0; i < numRows; i++) {
+        if ((Boolean) TypeUtils.convert(results[i], DataSchema.ColumnDataType.BOOLEAN)) {
+          rowIds[numMatchingRows++] = i;
+        }
       }
     }
+    List<Object[]> resultRows = new ArrayList<>(numMatchingRows);
+    for (int i = 0; i < numMatchingRows; i++) {
+      resultRows.add(container.get(rowIds[i]));
+    }
     return new TransferableBlock(resultRows, _dataSchema, DataBlock.Type.ROW);
   }
 }
@@ -21,66 +21,88 @@ package org.apache.pinot.query.runtime.operator;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import it.unimi.dsi.fastutil.HashCommon;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.apache.calcite.rel.core.JoinRelType;
 import org.apache.calcite.rel.hint.PinotHintOptions;
 import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datatable.DataTable;
 import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.response.ProcessingException;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.data.table.Key;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.partitioning.FieldSelectionKeySelector;
 import org.apache.pinot.query.planner.partitioning.KeySelector;
 import org.apache.pinot.query.planner.plannode.AbstractPlanNode;
 import org.apache.pinot.query.planner.plannode.JoinNode;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.join.LookupTable;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
 import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.apache.pinot.query.runtime.plan.StageMetadata;
 import org.apache.pinot.spi.utils.CommonConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
  * This basic {@code BroadcastJoinOperator} implement a basic broadcast join algorithm.
- * This algorithm assumes that the broadcast table has to fit in memory since we are not supporting any spilling.
+ * By default, this algorithm assumes that the broadcast table has to fit in memory.
  *
  * For left join, inner join, right join and full join,
  * <p>It takes the right table as the broadcast side and materialize a hash table. Then for each of the left table row,
- * it looks up for the corresponding row(s) from the hash table and create a joint row.
+ * it looks up for the corresponding row(s) from the hash table and create a joint row. The hash table is a
+ * {@link LookupTable} specialized by the join key type, so that single INT/LONG/DOUBLE keys are not boxed.
  *
  * <p>For each of the data block received from the left table, it will generate a joint data block.
  * We currently support left join, inner join, right join and full join.
  * The output is in the format of [left_row, right_row]
+ *
+ * <p>When the join overflow mode is {@link JoinOverFlowMode#SPILL} and the right table exceeds the max rows allowed in
+ * the hash table, it falls back to a grace hash join: both tables are hash partitioned into local {@link SpillFile}s
+ * and each partition pair is joined in memory one at a time. A partition whose right rows still exceed the max rows is
+ * recursively re-partitioned with a different hash seed, up to {@link #MAX_SPILL_LEVEL} times, after which the join
+ * fails with the rows limit error (e.g. when a single join key has more rows than the limit).
  */
 // TODO: Move inequi out of hashjoin. (https://github.com/apache/pinot/issues/9728)
 // TODO: Support memory size based resource limit.
 public class HashJoinOperator extends MultiStageOperator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(HashJoinOperator.class);
   private static final String EXPLAIN_NAME = "HASH_JOIN";
-  private static final int INITIAL_HEURISTIC_SIZE = 16;
   private static final int DEFAULT_MAX_ROWS_IN_JOIN = 1024 * 1024; // 2^20, around 1MM rows
   private static final JoinOverFlowMode DEFAULT_JOIN_OVERFLOW_MODE = JoinOverFlowMode.THROW;
+  private static final int NUM_SPILL_PARTITIONS = 16;
+  private static final int MAX_ROWS_PER_SPILL_BLOCK = 10_000;
+  // Max number of times a spilled partition is re-partitioned, i.e. up to 16^4 partitions in total.
+  private static final int MAX_SPILL_LEVEL = 3;
+  private static final int SPILL_HASH_SEED = 0x9E3779B9;
 
   private static final Set<JoinRelType> SUPPORTED_JOIN_TYPES = ImmutableSet.of(
       JoinRelType.INNER, JoinRelType.LEFT, JoinRelType.RIGHT, JoinRelType.FULL, JoinRelType.SEMI, JoinRelType.ANTI);
 
-  private final HashMap<Key, ArrayList<Object[]>> _broadcastRightTable;
+  private final LookupTable _rightTable;
 
-  // Used to track matched right rows.
+  // Used to track matched right rows by row id in the right table.
   // Only used for right join and full join to output non-matched right rows.
-  // TODO: Replace hashset with rolling bit map.
-  private final HashMap<Key, HashSet<Integer>> _matchedRightRows;
+  private final BitSet _matchedRightRows;
 
   private final MultiStageOperator _leftTableOperator;
   private final MultiStageOperator _rightTableOperator;
   private final JoinRelType _joinType;
+  private final DataSchema _leftSchema;
   private final DataSchema _resultSchema;
   private final int _leftColumnSize;
   private final int _resultColumnSize;
@@ -94,6 +116,9 @@ public class HashJoinOperator extends MultiStageOperator {
   private TransferableBlock _upstreamErrorBlock;
   private final KeySelector<Object[], Object[]> _leftKeySelector;
   private final KeySelector<Object[], Object[]> _rightKeySelector;
+  // Column index of the single join key, or -1 for composite keys which are wrapped into Key.
+  private final int _leftKeyColumnId;
+  private final int _rightKeyColumnId;
 
   // Below are specific parameters to protect the hash table from growing too large.
   // Once the hash table reaches the limit, we will throw exception or break the right table build process.
@@ -111,6 +136,15 @@ public class HashJoinOperator extends MultiStageOperator {
   private int _currentRowsInHashTable = 0;
   private ProcessingException _resourceLimitExceededException = null;
 
+  // Below are only used when the right table overflows in SPILL mode, one spill file per hash partition.
+  private SpillFile[] _rightSpillFiles;
+  // Partitions to be joined, where the re-partitioned sub-partitions are pushed to the front.
+  private ArrayDeque<SpillPartition> _spillPartitions;
+  private SpillPartition _currentSpillPartition;
+  private Iterator<List<Object[]>> _spilledLeftBlocks;
+  private final List<SpillFile> _spillFiles = new ArrayList<>();
+  private long _spilledBytes = 0;
+
   public HashJoinOperator(OpChainExecutionContext context, MultiStageOperator leftTableOperator,
       MultiStageOperator rightTableOperator, DataSchema leftSchema, JoinNode node) {
     super(context);
@@ -123,6 +157,7 @@ public class HashJoinOperator extends MultiStageOperator {
     _rightKeySelector = node.getJoinKeys().getRightJoinKeySelector();
     Preconditions.checkState(_leftKeySelector != null, "LeftKeySelector for join cannot be null");
     Preconditions.checkState(_rightKeySelector != null, "RightKeySelector for join cannot be null");
+    _leftSchema = leftSchema;
     _leftColumnSize = leftSchema.size();
     Preconditions.checkState(_leftColumnSize > 0, "leftColumnSize has to be greater than zero:" + _leftColumnSize);
     _resultSchema = node.getDataSchema();
@@ -136,16 +171,33 @@ public class HashJoinOperator extends MultiStageOperator {
     for (RexExpression joinClause : node.getJoinClauses()) {
       _joinClauseEvaluators.add(TransformOperand.toTransformOperand(joinClause, _resultSchema));
     }
+    _leftKeyColumnId = getSingleKeyColumnId(_leftKeySelector);
+    _rightKeyColumnId = getSingleKeyColumnId(_rightKeySelector);
     _isHashTableBuilt = false;
-    _broadcastRightTable = new HashMap<>();
+    _rightTable = LookupTable.create(_leftKeyColumnId >= 0 && _rightKeyColumnId >= 0
+        ? leftSchema.getColumnDataType(_leftKeyColumnId).getStoredType() : null);
     if (needUnmatchedRightRows()) {
-      _matchedRightRows = new HashMap<>();
+      _matchedRightRows = new BitSet();
     } else {
       _matchedRightRows = null;
     }
     _upstreamErrorBlock = null;
   }
 
+  private static int getSingleKeyColumnId(KeySelector<Object[], Object[]> keySelector) {
+    if (keySelector instanceof FieldSelectionKeySelector) {
+      List<Integer> columnIndices = ((FieldSelectionKeySelector) keySelector).getColumnIndices();
+      if (columnIndices.size() == 1) {
+        return columnIndices.get(0);
+      }
+    }
+    return -1;
+  }
+
+  private static Object getKey(Object[] row, KeySelector<Object[], Object[]> keySelector, int keyColumnId) {
+    return keyColumnId >= 0 ? row[keyColumnId] : new Key(keySelector.getKey(row));
+  }
+
   private JoinOverFlowMode getJoinOverflowMode(StageMetadata stageMetadata, AbstractPlanNode.NodeHint joinHints) {
     if (joinHints != null && joinHints._hintOptions != null && joinHints._hintOptions
         .containsKey(PinotHintOptions.JOIN_HINT_OPTIONS) && joinHints._hintOptions.get(
@@ -203,6 +255,9 @@ public class HashJoinOperator extends MultiStageOperator {
       if (_upstreamErrorBlock != null) {
         return _upstreamErrorBlock;
       }
+      if (_rightSpillFiles != null) {
+        return buildJoinedDataBlockFromSpill();
+      }
       TransferableBlock leftBlock = _leftTableOperator.nextBlock();
       // JOIN each left block with the right block.
       return setPartialResultExceptionToBlock(buildJoinedDataBlock(leftBlock));
@@ -212,12 +267,27 @@ public class HashJoinOperator extends MultiStageOperator {
   }
 
   private void buildBroadcastHashTable()
-      throws ProcessingException {
+      throws ProcessingException, IOException {
     TransferableBlock rightBlock = _rightTableOperator.nextBlock();
     while (!TransferableBlockUtils.isEndOfStream(rightBlock)) {
       List<Object[]> container = rightBlock.getContainer();
+      if (_rightSpillFiles != null) {
+        spillRows(_rightSpillFiles, container, _rightKeySelector, _rightKeyColumnId, 0);
+        rightBlock = _rightTableOperator.nextBlock();
+        continue;
+      }
       // Row based overflow check.
       if (container.size() + _currentRowsInHashTable > _maxRowsInHashTable) {
+        if (_joinOverflowMode == JoinOverFlowMode.SPILL) {
+          // Move the rows already in the hash table to disk, and partition all the remaining right rows from now on.
+          _rightSpillFiles = createSpillFiles("join_right_", rightBlock.getDataSchema());
+          spillRows(_rightSpillFiles, _rightTable.getRows(), _rightKeySelector, _rightKeyColumnId, 0);
+          _rightTable.clear();
+          _currentRowsInHashTable = 0;
+          spillRows(_rightSpillFiles, container, _rightKeySelector, _rightKeyColumnId, 0);
+          rightBlock = _rightTableOperator.nextBlock();
+          continue;
+        }
         _resourceLimitExceededException =
             new ProcessingException(QueryException.SERVER_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE);
         _resourceLimitExceededException.setMessage(
@@ -231,18 +301,9 @@ public class HashJoinOperator extends MultiStageOperator {
           container = container.subList(0, remainingRows);
         }
       }
-      // put all the rows into corresponding hash collections keyed by the key selector function.
-      for (Object[] row : container) {
-        ArrayList<Object[]> hashCollection = _broadcastRightTable.computeIfAbsent(
-            new Key(_rightKeySelector.getKey(row)), k -> new ArrayList<>(INITIAL_HEURISTIC_SIZE));
-        int size = hashCollection.size();
-        if ((size & size - 1) == 0 && size < _maxRowsInHashTable && size < Integer.MAX_VALUE / 2) { // is power of 2
-          hashCollection.ensureCapacity(Math.min(size << 1, _maxRowsInHashTable));
-        }
-        hashCollection.add(row);
-      }
+      addToHashTable(container);
       _currentRowsInHashTable += container.size();
-      if (_currentRowsInHashTable == _maxRowsInHashTable) {
+      if (_currentRowsInHashTable == _maxRowsInHashTable && _joinOverflowMode != JoinOverFlowMode.SPILL) {
         // Early terminate right table operator.
         _rightTableOperator.close();
         break;
@@ -256,6 +317,13 @@ public class HashJoinOperator extends MultiStageOperator {
     }
   }
 
+  private void addToHashTable(List<Object[]> rows) {
+    // put all the rows into the lookup table keyed by the key selector function.
+    for (Object[] row : rows) {
+      _rightTable.addRow(getKey(row, _rightKeySelector, _rightKeyColumnId), row);
+    }
+  }
+
   private TransferableBlock buildJoinedDataBlock(TransferableBlock leftBlock) {
     if (leftBlock.isErrorBlock()) {
       _upstreamErrorBlock = leftBlock;
@@ -267,45 +335,185 @@ public class HashJoinOperator extends MultiStageOperator {
       }
       return leftBlock;
     }
-    // TODO: Moved to a different function.
     if (leftBlock.isSuccessfulEndOfStreamBlock() && needUnmatchedRightRows()) {
       // Return remaining non-matched rows for non-inner join.
-      List<Object[]> returnRows = new ArrayList<>();
-      for (Map.Entry<Key, ArrayList<Object[]>> entry : _broadcastRightTable.entrySet()) {
-        Set<Integer> matchedIdx = _matchedRightRows.getOrDefault(entry.getKey(), new HashSet<>());
-        List<Object[]> rightRows = entry.getValue();
-        if (rightRows.size() == matchedIdx.size()) {
-          continue;
-        }
-        for (int i = 0; i < rightRows.size(); i++) {
-          if (!matchedIdx.contains(i)) {
-            returnRows.add(joinRow(null, rightRows.get(i)));
-          }
-        }
-      }
       _isTerminated = true;
-      return new TransferableBlock(returnRows, _resultSchema, DataBlock.Type.ROW);
+      return new TransferableBlock(buildNonMatchRightRows(), _resultSchema, DataBlock.Type.ROW);
     }
     List<Object[]> rows;
     if (leftBlock.isEndOfStreamBlock()) {
       rows = new ArrayList<>();
     } else {
-      switch (_joinType) {
-        case SEMI: {
-          rows = buildJoinedDataBlockSemi(leftBlock);
-          break;
+      rows = buildJoinedRows(leftBlock.getContainer());
+    }
+    return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+  }
+
+  private List<Object[]> buildJoinedRows(List<Object[]> leftRows) {
+    switch (_joinType) {
+      case SEMI:
+        return buildJoinedDataBlockSemi(leftRows);
+      case ANTI:
+        return buildJoinedDataBlockAnti(leftRows);
+      default: // INNER, LEFT, RIGHT, FULL
+        return buildJoinedDataBlockDefault(leftRows);
+    }
+  }
+
+  private List<Object[]> buildNonMatchRightRows() {
+    List<Object[]> returnRows = new ArrayList<>();
+    int numRightRows = _rightTable.size();
+    for (int rowId = _matchedRightRows.nextClearBit(0); rowId < numRightRows;
+        rowId = _matchedRightRows.nextClearBit(rowId + 1)) {
+      returnRows.add(joinRow(null, _rightTable.getRow(rowId)));
+    }
+    return returnRows;
+  }
+
+  /**
+   * Joins the spilled partitions one at a time. The whole left table is partitioned to disk on the first call, then
+   * for each partition the right rows are loaded into the hash table and the left rows are streamed against it.
+   */
+  private TransferableBlock buildJoinedDataBlockFromSpill()
+      throws IOException, ProcessingException {
+    if (_spillPartitions == null) {
+      SpillFile[] leftSpillFiles = createSpillFiles("join_left_", _leftSchema);
+      TransferableBlock leftBlock = _leftTableOperator.nextBlock();
+      while (!TransferableBlockUtils.isEndOfStream(leftBlock)) {
+        spillRows(leftSpillFiles, leftBlock.getContainer(), _leftKeySelector, _leftKeyColumnId, 0);
+        leftBlock = _leftTableOperator.nextBlock();
+      }
+      if (leftBlock.isErrorBlock()) {
+        _upstreamErrorBlock = leftBlock;
+        return _upstreamErrorBlock;
+      }
+      _spillPartitions = new ArrayDeque<>(NUM_SPILL_PARTITIONS);
+      for (int i = 0; i < NUM_SPILL_PARTITIONS; i++) {
+        _spillPartitions.addLast(new SpillPartition(leftSpillFiles[i], _rightSpillFiles[i], 0));
+      }
+    }
+    while (true) {
+      if (_spilledLeftBlocks != null && _spilledLeftBlocks.hasNext()) {
+        return new TransferableBlock(buildJoinedRows(_spilledLeftBlocks.next()), _resultSchema, DataBlock.Type.ROW);
+      }
+      List<Object[]> rows = Collections.emptyList();
+      if (_currentSpillPartition != null) {
+        // Current partition is fully probed, return the non-matched right rows of the partition for non-inner join.
+        if (needUnmatchedRightRows()) {
+          rows = buildNonMatchRightRows();
         }
-        case ANTI: {
-          rows = buildJoinedDataBlockAnti(leftBlock);
-          break;
+        _currentSpillPartition.close();
+        _currentSpillPartition = null;
+        _spilledLeftBlocks = null;
+      }
+      SpillPartition partition = _spillPartitions.pollFirst();
+      if (partition == null) {
+        _isTerminated = true;
+        if (shouldCollectStats()) {
+          _opChainStats.getOperatorStats(_context, _operatorId)
+              .recordSingleStat(DataTable.MetadataKey.SPILLED_BYTES.getName(), String.valueOf(_spilledBytes));
         }
-        default: { // INNER, LEFT, RIGHT, FULL
-          rows = buildJoinedDataBlockDefault(leftBlock);
-          break;
+        return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+      }
+      _rightTable.clear();
+      if (_matchedRightRows != null) {
+        _matchedRightRows.clear();
+      }
+      if (partition._rightSpillFile.getNumRows() > _maxRowsInHashTable) {
+        repartition(partition);
+      } else {
+        for (List<Object[]> rightRows : partition._rightSpillFile) {
+          addToHashTable(rightRows);
         }
+        _currentSpillPartition = partition;
+        _spilledLeftBlocks = partition._leftSpillFile.iterator();
+      }
+      if (!rows.isEmpty()) {
+        return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
       }
     }
-    return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+  }
+
+  /**
+   * Re-partitions a spilled partition whose right rows do not fit in the hash table with the hash seed of the next
+   * level, and pushes the sub-partitions to the front so that they are joined before the other partitions.
+   */
+  private void repartition(SpillPartition partition)
+      throws IOException, ProcessingException {
+    int level = partition._level + 1;
+    if (level > MAX_SPILL_LEVEL) {
+      partition.close();
+      ProcessingException resourceLimitExceededException =
+          new ProcessingException(QueryException.SERVER_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE);
+      resourceLimitExceededException.setMessage(
+          "Cannot build in memory hash table for join operator, reach number of rows limit: " + _maxRowsInHashTable
+              + " after re-partitioning spilled partition " + MAX_SPILL_LEVEL + " times");
+      throw resourceLimitExceededException;
+    }
+    SpillFile[] leftSpillFiles = createSpillFiles("join_left_" + level + "_", _leftSchema);
+    for (List<Object[]> leftRows : partition._leftSpillFile) {
+      spillRows(leftSpillFiles, leftRows, _leftKeySelector, _leftKeyColumnId, level);
+    }
+    SpillFile[] rightSpillFiles =
+        createSpillFiles("join_right_" + level + "_", partition._rightSpillFile.getDataSchema());
+    for (List<Object[]> rightRows : partition._rightSpillFile) {
+      spillRows(rightSpillFiles, rightRows, _rightKeySelector, _rightKeyColumnId, level);
+    }
+    partition.close();
+    LOGGER.debug("Re-partitioned spilled partition of {} right rows at level {} - operatorId={}, opChainId={}",
+        partition._rightSpillFile.getNumRows(), level, _operatorId, _context.getId());
+    for (int i = NUM_SPILL_PARTITIONS - 1; i >= 0; i--) {
+      _spillPartitions.addFirst(new SpillPartition(leftSpillFiles[i], rightSpillFiles[i], level));
+    }
+  }
+
+  private SpillFile[] createSpillFiles(String prefix, DataSchema dataSchema)
+      throws IOException {
+    SpillFile[] spillFiles = new SpillFile[NUM_SPILL_PARTITIONS];
+    for (int i = 0; i < NUM_SPILL_PARTITIONS; i++) {
+      spillFiles[i] = new SpillFile(SpillFile.getSpillDir(_context.getStageMetadata()), prefix + i + "_", dataSchema);
+      _spillFiles.add(spillFiles[i]);
+    }
+    return spillFiles;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void spillRows(SpillFile[] spillFiles, List<Object[]> rows, KeySelector<Object[], Object[]> keySelector,
+      int keyColumnId, int level)
+      throws IOException {
+    List<Object[]>[] partitionedRows = new List[NUM_SPILL_PARTITIONS];
+    for (Object[] row : rows) {
+      int partitionId = getSpillPartitionId(getKey(row, keySelector, keyColumnId), level);
+      List<Object[]> partition = partitionedRows[partitionId];
+      if (partition == null) {
+        partition = new ArrayList<>();
+        partitionedRows[partitionId] = partition;
+      }
+      partition.add(row);
+      if (partition.size() == MAX_ROWS_PER_SPILL_BLOCK) {
+        recordSpilledBytes(spillFiles[partitionId].append(partition));
+        partitionedRows[partitionId] = null;
+      }
+    }
+    for (int i = 0; i < NUM_SPILL_PARTITIONS; i++) {
+      if (partitionedRows[i] != null) {
+        recordSpilledBytes(spillFiles[i].append(partitionedRows[i]));
+      }
+    }
+  }
+
+  /**
+   * NOTE: Hash the key with a different seed per level, otherwise the partitions correlate with the hash exchange that
+   * routed rows here, and a re-partitioned partition would put all its rows into the same sub-partition.
+   */
+  private static int getSpillPartitionId(Object key, int level) {
+    int hash = HashCommon.murmurHash3(Objects.hashCode(key) + level * SPILL_HASH_SEED);
+    return (hash & Integer.MAX_VALUE) % NUM_SPILL_PARTITIONS;
+  }
+
+  private void recordSpilledBytes(long numBytes) {
+    _spilledBytes += numBytes;
+    _opChainStats.recordSpilledBytes(numBytes);
   }
 
   private TransferableBlock setPartialResultExceptionToBlock(TransferableBlock block) {
@@ -315,14 +523,13 @@ public class HashJoinOperator extends MultiStageOperator {
     return block;
   }
 
-  private List<Object[]> buildJoinedDataBlockSemi(TransferableBlock leftBlock) {
-    List<Object[]> container = leftBlock.getContainer();
+  private List<Object[]> buildJoinedDataBlockSemi(List<Object[]> container) {
     List<Object[]> rows = new ArrayList<>(container.size());
 
     for (Object[] leftRow : container) {
-      Key key = new Key(_leftKeySelector.getKey(leftRow));
+      Object key = getKey(leftRow, _leftKeySelector, _leftKeyColumnId);
       // SEMI-JOIN only checks existence of the key
-      if (_broadcastRightTable.containsKey(key)) {
+      if (_rightTable.containsKey(key)) {
         rows.add(joinRow(leftRow, null));
       }
     }
@@ -330,24 +537,22 @@ public class HashJoinOperator extends MultiStageOperator {
     return rows;
   }
 
-  private List<Object[]> buildJoinedDataBlockDefault(TransferableBlock leftBlock) {
-    List<Object[]> container = leftBlock.getContainer();
+  private List<Object[]> buildJoinedDataBlockDefault(List<Object[]> container) {
     ArrayList<Object[]> rows = new ArrayList<>(container.size());
 
     for (Object[] leftRow : container) {
-      Key key = new Key(_leftKeySelector.getKey(leftRow));
+      Object key = getKey(leftRow, _leftKeySelector, _leftKeyColumnId);
       // NOTE: Empty key selector will always give same hash code.
-      List<Object[]> matchedRightRows = _broadcastRightTable.getOrDefault(key, null);
-      if (matchedRightRows == null) {
+      int rightRowId = _rightTable.getFirstRowId(key);
+      if (rightRowId < 0) {
         if (needUnmatchedLeftRows()) {
           rows.add(joinRow(leftRow, null));
         }
         continue;
       }
       boolean hasMatchForLeftRow = false;
-      rows.ensureCapacity(rows.size() + matchedRightRows.size());
-      for (int i = 0; i < matchedRightRows.size(); i++) {
-        Object[] rightRow = matchedRightRows.get(i);
+      for (; rightRowId >= 0; rightRowId = _rightTable.getNextRowId(rightRowId)) {
+        Object[] rightRow = _rightTable.getRow(rightRowId);
         // TODO: Optimize this to avoid unnecessary object copy.
         Object[] resultRow = joinRow(leftRow, rightRow);
         if (_joinClauseEvaluators.isEmpty() || _joinClauseEvaluators.stream().allMatch(
@@ -356,8 +561,7 @@ public class HashJoinOperator extends MultiStageOperator {
           rows.add(resultRow);
           hasMatchForLeftRow = true;
           if (_matchedRightRows != null) {
-            HashSet<Integer> matchedRows = _matchedRightRows.computeIfAbsent(key, k -> new HashSet<>());
-            matchedRows.add(i);
+            _matchedRightRows.set(rightRowId);
           }
         }
       }
@@ -369,14 +573,13 @@ public class HashJoinOperator extends MultiStageOperator {
     return rows;
   }
 
-  private List<Object[]> buildJoinedDataBlockAnti(TransferableBlock leftBlock) {
-    List<Object[]> container = leftBlock.getContainer();
+  private List<Object[]> buildJoinedDataBlockAnti(List<Object[]> container) {
     List<Object[]> rows = new ArrayList<>(container.size());
 
     for (Object[] leftRow : container) {
-      Key key = new Key(_leftKeySelector.getKey(leftRow));
+      Object key = getKey(leftRow, _leftKeySelector, _leftKeyColumnId);
       // ANTI-JOIN only checks non-existence of the key
-      if (!_broadcastRightTable.containsKey(key)) {
+      if (!_rightTable.containsKey(key)) {
         rows.add(joinRow(leftRow, null));
       }
     }
@@ -401,6 +604,28 @@ public class HashJoinOperator extends MultiStageOperator {
     return resultRow;
   }
 
+  @Override
+  public void close() {
+    super.close();
+    closeSpillFiles();
+  }
+
+  @Override
+  public void cancel(Throwable e) {
+    super.cancel(e);
+    closeSpillFiles();
+  }
+
+  private void closeSpillFiles() {
+    for (SpillFile spillFile : _spillFiles) {
+      try {
+        spillFile.close();
+      } catch (Exception e) {
+        LOGGER.warn("Failed to close spill file for operator: {}", _operatorId, e);
+      }
+    }
+  }
+
   private boolean needUnmatchedRightRows() {
     return _joinType == JoinRelType.RIGHT || _joinType == JoinRelType.FULL;
   }
@@ -410,6 +635,27 @@ public class HashJoinOperator extends MultiStageOperator {
   }
 
   enum JoinOverFlowMode {
-    THROW, BREAK
+    THROW, BREAK, SPILL
+  }
+
+  /**
+   * Pair of left and right spill files holding the rows of the same hash partition.
+   */
+  private static class SpillPartition {
+    final SpillFile _leftSpillFile;
+    final SpillFile _rightSpillFile;
+    final int _level;
+
+    SpillPartition(SpillFile leftSpillFile, SpillFile rightSpillFile, int level) {
+      _leftSpillFile = leftSpillFile;
+      _rightSpillFile = rightSpillFile;
+      _level = level;
+    }
+
+    void close()
+        throws IOException {
+      _leftSpillFile.close();
+      _rightSpillFile.close();
+    }
   }
 }
@@ -24,11 +24,13 @@ import com.google.common.collect.ImmutableSet;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeoutException;
 import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelDistribution;
 import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.logical.PinotRelSkewHandlingType;
 import org.apache.pinot.query.mailbox.MailboxIdUtils;
 import org.apache.pinot.query.mailbox.MailboxService;
 import org.apache.pinot.query.mailbox.SendingMailbox;
@@ -38,6 +40,8 @@ import org.apache.pinot.query.routing.MailboxMetadata;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
 import org.apache.pinot.query.runtime.operator.exchange.BlockExchange;
+import org.apache.pinot.query.runtime.operator.exchange.HotKeyPublisher;
+import org.apache.pinot.query.runtime.operator.exchange.HotKeySubscriber;
 import org.apache.pinot.query.runtime.operator.utils.OperatorUtils;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.apache.pinot.spi.exception.EarlyTerminationException;
@@ -68,8 +72,18 @@ public class MailboxSendOperator extends MultiStageOperator {
       RelDistribution.Type exchangeType, KeySelector<Object[], Object[]> keySelector,
       @Nullable List<RexExpression> collationKeys, @Nullable List<RelFieldCollation.Direction> collationDirections,
       boolean isSortOnSender, int receiverStageId) {
-    this(context, sourceOperator, getBlockExchange(context, exchangeType, keySelector, receiverStageId), collationKeys,
-        collationDirections, isSortOnSender);
+    this(context, sourceOperator, exchangeType, keySelector, collationKeys, collationDirections, isSortOnSender,
+        receiverStageId, PinotRelSkewHandlingType.getDefaultSkewHandlingType(), 0, -1);
+  }
+
+  public MailboxSendOperator(OpChainExecutionContext context, MultiStageOperator sourceOperator,
+      RelDistribution.Type exchangeType, KeySelector<Object[], Object[]> keySelector,
+      @Nullable List<RexExpression> collationKeys, @Nullable List<RelFieldCollation.Direction> collationDirections,
+      boolean isSortOnSender, int receiverStageId, PinotRelSkewHandlingType skewHandlingType, int skewSplitFactor,
+      int hotKeyStageId) {
+    this(context, sourceOperator,
+        getBlockExchange(context, exchangeType, keySelector, receiverStageId, skewHandlingType, skewSplitFactor,
+            hotKeyStageId), collationKeys, collationDirections, isSortOnSender);
   }
 
   @VisibleForTesting
@@ -85,23 +99,45 @@ public class MailboxSendOperator extends MultiStageOperator {
   }
 
   private static BlockExchange getBlockExchange(OpChainExecutionContext context, RelDistribution.Type exchangeType,
-      KeySelector<Object[], Object[]> keySelector, int receiverStageId) {
+      KeySelector<Object[], Object[]> keySelector, int receiverStageId, PinotRelSkewHandlingType skewHandlingType,
+      int skewSplitFactor, int hotKeyStageId) {
     Preconditions.checkState(SUPPORTED_EXCHANGE_TYPES.contains(exchangeType), "Unsupported exchange type: %s",
         exchangeType);
-    MailboxService mailboxService = context.getMailboxService();
-    long requestId = context.getRequestId();
-    long deadlineMs = context.getDeadlineMs();
-
     int workerId = context.getServer().workerId();
-    MailboxMetadata mailboxMetadata =
-        context.getStageMetadata().getWorkerMetadataList().get(workerId).getMailBoxInfosMap().get(receiverStageId);
-    List<String> sendingMailboxIds = MailboxIdUtils.toMailboxIds(requestId, mailboxMetadata);
+    Map<Integer, MailboxMetadata> mailboxInfosMap =
+        context.getStageMetadata().getWorkerMetadataList().get(workerId).getMailBoxInfosMap();
+    List<SendingMailbox> sendingMailboxes = getSendingMailboxes(context, mailboxInfosMap.get(receiverStageId));
+
+    // The hot keys are shared with the other side of the JOIN through the mailboxes to/from the hot key stage
+    HotKeyPublisher hotKeyPublisher = null;
+    HotKeySubscriber hotKeySubscriber = null;
+    if (exchangeType == RelDistribution.Type.HASH_DISTRIBUTED && hotKeyStageId >= 0) {
+      MailboxMetadata hotKeyMailboxMetadata = mailboxInfosMap.get(hotKeyStageId);
+      Preconditions.checkState(hotKeyMailboxMetadata != null, "Failed to find the hot key mailboxes for stage: %s",
+          hotKeyStageId);
+      if (skewHandlingType == PinotRelSkewHandlingType.SPLIT) {
+        hotKeyPublisher = new HotKeyPublisher(getSendingMailboxes(context, hotKeyMailboxMetadata));
+      } else if (skewHandlingType == PinotRelSkewHandlingType.REPLICATE) {
+        hotKeySubscriber = new HotKeySubscriber(context.getMailboxService(),
+            MailboxIdUtils.toMailboxIds(context.getRequestId(), hotKeyMailboxMetadata), context.getId(),
+            context.getDeadlineMs());
+      }
+    }
+    return BlockExchange.getExchange(sendingMailboxes, exchangeType, keySelector, TransferableBlockUtils::splitBlock,
+        skewHandlingType, skewSplitFactor, hotKeyPublisher, hotKeySubscriber);
+  }
+
+  private static List<SendingMailbox> getSendingMailboxes(OpChainExecutionContext context,
+      MailboxMetadata mailboxMetadata) {
+    MailboxService mailboxService = context.getMailboxService();
+    List<String> sendingMailboxIds = MailboxIdUtils.toMailboxIds(context.getRequestId(), mailboxMetadata);
     List<SendingMailbox> sendingMailboxes = new ArrayList<>(sendingMailboxIds.size());
     for (int i = 0; i < sendingMailboxIds.size(); i++) {
       sendingMailboxes.add(mailboxService.getSendingMailbox(mailboxMetadata.getVirtualAddress(i).hostname(),
-          mailboxMetadata.getVirtualAddress(i).port(), sendingMailboxIds.get(i), deadlineMs));
+          mailboxMetadata.getVirtualAddress(i).port(), sendingMailboxIds.get(i), context.getDeadlineMs(),
+          context.getStats()));
     }
-    return BlockExchange.getExchange(sendingMailboxes, exchangeType, keySelector, TransferableBlockUtils::splitBlock);
+    return sendingMailboxes;
   }
 
   @Override
@@ -118,6 +154,11 @@ public class MailboxSendOperator extends MultiStageOperator {
   @Override
   protected TransferableBlock getNextBlock() {
     try {
+      // Stop pulling from the upstream once all the receivers are terminated, so that the whole opChain (and in turn
+      // its upstream opChains via the cancelled receiving mailboxes) stops early
+      if (_exchange.isEarlyTerminated()) {
+        throw new EarlyTerminationException();
+      }
       TransferableBlock block = _sourceOperator.nextBlock();
       if (block.isSuccessfulEndOfStreamBlock()) {
         // Stats need to be populated here because the block is being sent to the mailbox
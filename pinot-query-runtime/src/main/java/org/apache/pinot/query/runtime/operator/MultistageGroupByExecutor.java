@@ -18,13 +18,20 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import it.unimi.dsi.fastutil.HashCommon;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
+import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.request.context.ExpressionContext;
+import org.apache.pinot.common.response.ProcessingException;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.common.BlockValSet;
 import org.apache.pinot.core.data.table.Key;
@@ -33,14 +40,31 @@ import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
 import org.apache.pinot.core.query.aggregation.groupby.GroupByResultHolder;
 import org.apache.pinot.query.planner.plannode.AggregateNode.AggType;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
 import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 
 /**
  * Class that executes the group by aggregations for the multistage AggregateOperator.
+ *
+ * <p>When the max groups in memory is configured and the number of groups reaches it after processing a block, the
+ * intermediate results of all the groups are hash partitioned by group key into {@link SpillFile}s and the in-memory
+ * groups are reset. Once spilled, the results are returned one partition at a time through
+ * {@link #getNextSpilledPartitionResult()}, where the intermediate results of each partition are merged in memory.
+ * A partition with more groups than the max groups in memory is recursively re-partitioned with a different hash seed,
+ * up to {@link #MAX_SPILL_LEVEL} times, after which the query fails.
  */
 public class MultistageGroupByExecutor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MultistageGroupByExecutor.class);
+  private static final int NUM_SPILL_PARTITIONS = 16;
+  private static final int MAX_ROWS_PER_SPILL_BLOCK = 10_000;
+  // Max number of times a spilled partition can be re-partitioned before failing the query
+  private static final int MAX_SPILL_LEVEL = 3;
+  private static final int SPILL_HASH_SEED = 0x9E3779B9;
+
   private final AggType _aggType;
   // The identifier operands for the aggregation function only store the column name. This map contains mapping
   // between column name to their index which is used in v2 engine.
@@ -59,9 +83,25 @@ public class MultistageGroupByExecutor {
   // because they use the zero based integer indexes to store results.
   private final Map<Key, Integer> _groupKeyToIdMap;
 
+  // Max number of groups to hold in memory before spilling, or -1 if spilling is disabled.
+  private final int _maxNumGroupsInMemory;
+  private final File _spillDir;
+  // Spill files of the in-memory groups
+  private SpillFile[] _spillFiles;
+  private final List<SpillFile> _allSpillFiles = new ArrayList<>();
+  private ArrayDeque<SpillPartition> _spillPartitions;
+  private long _spilledBytes = 0;
+
   public MultistageGroupByExecutor(List<ExpressionContext> groupByExpr, AggregationFunction[] aggFunctions,
       @Nullable int[] filterArgIndices, AggType aggType, Map<String, Integer> colNameToIndexMap,
       DataSchema resultSchema) {
+    this(groupByExpr, aggFunctions, filterArgIndices, aggType, colNameToIndexMap, resultSchema, -1,
+        SpillFile.DEFAULT_SPILL_DIR);
+  }
+
+  public MultistageGroupByExecutor(List<ExpressionContext> groupByExpr, AggregationFunction[] aggFunctions,
+      @Nullable int[] filterArgIndices, AggType aggType, Map<String, Integer> colNameToIndexMap,
+      DataSchema resultSchema, int maxNumGroupsInMemory, File spillDir) {
     _aggType = aggType;
     _colNameToIndexMap = colNameToIndexMap;
     _groupSet = groupByExpr;
@@ -73,7 +113,13 @@ public class MultistageGroupByExecutor {
     _mergeResultHolder = new HashMap<>();
 
     _groupKeyToIdMap = new HashMap<>();
+    _maxNumGroupsInMemory = maxNumGroupsInMemory;
+    _spillDir = spillDir;
 
+    createResultHolders();
+  }
+
+  private void createResultHolders() {
     for (int i = 0; i < _aggFunctions.length; i++) {
       _aggregateResultHolders[i] = _aggFunctions[i].createGroupByResultHolder(
           InstancePlanMakerImplV2.DEFAULT_MAX_INITIAL_RESULT_HOLDER_CAPACITY,
@@ -84,12 +130,252 @@ public class MultistageGroupByExecutor {
   /**
    * Performs group-by aggregation for the data in the block.
    */
-  public void processBlock(TransferableBlock block, DataSchema inputDataSchema) {
+  public void processBlock(TransferableBlock block, DataSchema inputDataSchema)
+      throws IOException {
     if (!_aggType.isInputIntermediateFormat()) {
       processAggregate(block, inputDataSchema);
     } else {
       processMerge(block);
     }
+    if (_maxNumGroupsInMemory > 0 && _groupKeyToIdMap.size() >= _maxNumGroupsInMemory) {
+      spillGroups();
+    }
+  }
+
+  /**
+   * Returns whether the groups have been spilled, in which case the results should be fetched with
+   * {@link #getNextSpilledPartitionResult()} instead of {@link #getResult()}.
+   */
+  public boolean isSpilled() {
+    return _spillFiles != null;
+  }
+
+  public long getSpilledBytes() {
+    return _spilledBytes;
+  }
+
+  /**
+   * Fetches the result of the next spilled partition, or returns {@code null} when all the partitions are fetched.
+   */
+  @Nullable
+  public List<Object[]> getNextSpilledPartitionResult()
+      throws IOException, ProcessingException {
+    if (_spillPartitions == null) {
+      // Spill the groups remaining in memory so that each partition holds all the intermediate results of its groups
+      spillGroups();
+      _spillPartitions = new ArrayDeque<>(NUM_SPILL_PARTITIONS);
+      for (SpillFile spillFile : _spillFiles) {
+        _spillPartitions.addLast(new SpillPartition(spillFile, 0));
+      }
+    }
+    Map<Key, Object[]> mergedRows = null;
+    while (mergedRows == null) {
+      SpillPartition partition = _spillPartitions.pollFirst();
+      if (partition == null) {
+        close();
+        return null;
+      }
+      mergedRows = mergeSpilledPartition(partition);
+    }
+    int numKeys = _groupSet.size();
+    int numFunctions = _aggFunctions.length;
+    List<Object[]> rows = new ArrayList<>(mergedRows.size());
+    for (Object[] row : mergedRows.values()) {
+      if (_aggType == AggType.FINAL || _aggType == AggType.DIRECT) {
+        for (int i = 0; i < numFunctions; i++) {
+          row[numKeys + i] = _aggFunctions[i].extractFinalResult(row[numKeys + i]);
+        }
+      }
+      rows.add(TypeUtils.canonicalizeRow(row, _resultSchema));
+    }
+    return rows;
+  }
+
+  /**
+   * Merges the intermediate results of a spilled partition in memory. Returns {@code null} if the partition has more
+   * groups than the max groups in memory, in which case it is re-partitioned instead.
+   */
+  @Nullable
+  private Map<Key, Object[]> mergeSpilledPartition(SpillPartition partition)
+      throws IOException, ProcessingException {
+    int numKeys = _groupSet.size();
+    int numFunctions = _aggFunctions.length;
+    Map<Key, Object[]> mergedRows = new HashMap<>();
+    Iterator<List<Object[]>> spilledBlocks = partition._spillFile.iterator();
+    while (spilledBlocks.hasNext()) {
+      List<Object[]> rows = spilledBlocks.next();
+      int numRows = rows.size();
+      for (int rowId = 0; rowId < numRows; rowId++) {
+        Object[] row = rows.get(rowId);
+        Object[] mergedRow = mergedRows.putIfAbsent(new Key(Arrays.copyOf(row, numKeys)), row);
+        if (mergedRow == null) {
+          if (mergedRows.size() > _maxNumGroupsInMemory) {
+            repartition(partition, mergedRows, rows.subList(rowId + 1, numRows), spilledBlocks);
+            return null;
+          }
+          continue;
+        }
+        for (int i = 0; i < numFunctions; i++) {
+          int index = numKeys + i;
+          // Not all V1 aggregation functions have null-handling. So handle null values and call merge only if
+          // necessary.
+          if (row[index] == null) {
+            continue;
+          }
+          mergedRow[index] =
+              mergedRow[index] == null ? row[index] : _aggFunctions[i].merge(mergedRow[index], row[index]);
+        }
+      }
+    }
+    partition._spillFile.close();
+    return mergedRows;
+  }
+
+  /**
+   * Re-partitions a spilled partition that has more groups than the max groups in memory with the hash seed of the
+   * next level, and pushes the sub-partitions to the front so that they are merged before the other partitions. The
+   * groups already merged in memory are spilled along with the remaining spilled rows of the partition.
+   */
+  @SuppressWarnings("unchecked")
+  private void repartition(SpillPartition partition, Map<Key, Object[]> mergedRows, List<Object[]> remainingRows,
+      Iterator<List<Object[]>> remainingBlocks)
+      throws IOException, ProcessingException {
+    int level = partition._level + 1;
+    if (level > MAX_SPILL_LEVEL) {
+      partition._spillFile.close();
+      ProcessingException resourceLimitExceededException =
+          new ProcessingException(QueryException.SERVER_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE);
+      resourceLimitExceededException.setMessage(
+          "Cannot merge spilled groups in memory for aggregate operator, reach number of groups limit: "
+              + _maxNumGroupsInMemory + " after re-partitioning spilled partition " + MAX_SPILL_LEVEL + " times");
+      throw resourceLimitExceededException;
+    }
+    SpillFile[] spillFiles = createSpillFiles("group_by_" + level + "_");
+    List<Object[]>[] partitionedRows = new List[NUM_SPILL_PARTITIONS];
+    for (Map.Entry<Key, Object[]> entry : mergedRows.entrySet()) {
+      spillRow(spillFiles, partitionedRows, entry.getKey(), entry.getValue(), level);
+    }
+    mergedRows.clear();
+    int numKeys = _groupSet.size();
+    for (Object[] row : remainingRows) {
+      spillRow(spillFiles, partitionedRows, new Key(Arrays.copyOf(row, numKeys)), row, level);
+    }
+    while (remainingBlocks.hasNext()) {
+      for (Object[] row : remainingBlocks.next()) {
+        spillRow(spillFiles, partitionedRows, new Key(Arrays.copyOf(row, numKeys)), row, level);
+      }
+    }
+    flushSpilledRows(spillFiles, partitionedRows);
+    partition._spillFile.close();
+    LOGGER.debug("Re-partitioned spilled group by partition of {} rows at level {}",
+        partition._spillFile.getNumRows(), level);
+    for (int i = NUM_SPILL_PARTITIONS - 1; i >= 0; i--) {
+      _spillPartitions.addFirst(new SpillPartition(spillFiles[i], level));
+    }
+  }
+
+  /**
+   * Deletes the spilled files if any.
+   */
+  public void close() {
+    for (SpillFile spillFile : _allSpillFiles) {
+      try {
+        spillFile.close();
+      } catch (Exception e) {
+        LOGGER.warn("Failed to close group by spill file", e);
+      }
+    }
+  }
+
+  /**
+   * Writes the intermediate results of all the in-memory groups to the spill files partitioned by group key, then
+   * resets the in-memory groups.
+   */
+  @SuppressWarnings("unchecked")
+  private void spillGroups()
+      throws IOException {
+    if (_spillFiles == null) {
+      _spillFiles = createSpillFiles("group_by_");
+    }
+    int numKeys = _groupSet.size();
+    int numFunctions = _aggFunctions.length;
+    List<Object[]>[] partitionedRows = new List[NUM_SPILL_PARTITIONS];
+    for (Map.Entry<Key, Integer> entry : _groupKeyToIdMap.entrySet()) {
+      Object[] row = new Object[numKeys + numFunctions];
+      System.arraycopy(entry.getKey().getValues(), 0, row, 0, numKeys);
+      int groupId = entry.getValue();
+      for (int i = 0; i < numFunctions; i++) {
+        row[numKeys + i] = _aggType.isInputIntermediateFormat() ? _mergeResultHolder.get(groupId)[i]
+            : _aggFunctions[i].extractGroupByResult(_aggregateResultHolders[i], groupId);
+      }
+      spillRow(_spillFiles, partitionedRows, entry.getKey(), row, 0);
+    }
+    flushSpilledRows(_spillFiles, partitionedRows);
+    _groupKeyToIdMap.clear();
+    _mergeResultHolder.clear();
+    createResultHolders();
+  }
+
+  private SpillFile[] createSpillFiles(String prefix)
+      throws IOException {
+    DataSchema spillSchema = getIntermediateResultSchema();
+    SpillFile[] spillFiles = new SpillFile[NUM_SPILL_PARTITIONS];
+    for (int i = 0; i < NUM_SPILL_PARTITIONS; i++) {
+      spillFiles[i] = new SpillFile(_spillDir, prefix + i + "_", spillSchema);
+      _allSpillFiles.add(spillFiles[i]);
+    }
+    return spillFiles;
+  }
+
+  /**
+   * Buffers the row into its partition, and appends the buffered rows to the spill file once there are enough rows.
+   */
+  private void spillRow(SpillFile[] spillFiles, List<Object[]>[] partitionedRows, Key key, Object[] row, int level)
+      throws IOException {
+    int partitionId = getSpillPartitionId(key, level);
+    List<Object[]> partition = partitionedRows[partitionId];
+    if (partition == null) {
+      partition = new ArrayList<>();
+      partitionedRows[partitionId] = partition;
+    }
+    partition.add(row);
+    if (partition.size() == MAX_ROWS_PER_SPILL_BLOCK) {
+      _spilledBytes += spillFiles[partitionId].append(partition);
+      partitionedRows[partitionId] = null;
+    }
+  }
+
+  private void flushSpilledRows(SpillFile[] spillFiles, List<Object[]>[] partitionedRows)
+      throws IOException {
+    for (int i = 0; i < NUM_SPILL_PARTITIONS; i++) {
+      if (partitionedRows[i] != null) {
+        _spilledBytes += spillFiles[i].append(partitionedRows[i]);
+      }
+    }
+  }
+
+  /**
+   * NOTE: Hash the key with a different seed per level, otherwise the groups of a re-partitioned partition all fall
+   *       into the same sub-partition.
+   */
+  private static int getSpillPartitionId(Key key, int level) {
+    return (HashCommon.mix(key.hashCode() + level * SPILL_HASH_SEED) & Integer.MAX_VALUE) % NUM_SPILL_PARTITIONS;
+  }
+
+  private DataSchema getIntermediateResultSchema() {
+    int numKeys = _groupSet.size();
+    int numFunctions = _aggFunctions.length;
+    String[] columnNames = new String[numKeys + numFunctions];
+    DataSchema.ColumnDataType[] columnDataTypes = new DataSchema.ColumnDataType[numKeys + numFunctions];
+    for (int i = 0; i < numKeys; i++) {
+      columnNames[i] = _resultSchema.getColumnName(i);
+      columnDataTypes[i] = _resultSchema.getColumnDataType(i);
+    }
+    for (int i = 0; i < numFunctions; i++) {
+      columnNames[numKeys + i] = _resultSchema.getColumnName(numKeys + i);
+      columnDataTypes[numKeys + i] = _aggFunctions[i].getIntermediateResultColumnType();
+    }
+    return new DataSchema(columnNames, columnDataTypes);
   }
 
   /**
@@ -248,4 +534,17 @@ public class MultistageGroupByExecutor {
       return Arrays.copyOfRange(rowIntKeys, 0, outRowId);
     }
   }
+
+  /**
+   * Spill file holding the intermediate results of the groups of the same hash partition.
+   */
+  private static class SpillPartition {
+    final SpillFile _spillFile;
+    final int _level;
+
+    SpillPartition(SpillFile spillFile, int level) {
+      _spillFile = spillFile;
+      _level = level;
+    }
+  }
 }
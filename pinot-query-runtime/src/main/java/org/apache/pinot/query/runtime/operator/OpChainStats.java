@@ -49,6 +49,10 @@ public class OpChainStats {
   private final Stopwatch _executeStopwatch = Stopwatch.createUnstarted();
   private final Stopwatch _queuedStopwatch = Stopwatch.createUnstarted();
   private final AtomicLong _queuedCount = new AtomicLong();
+  private final AtomicLong _spilledBytes = new AtomicLong();
+  private final AtomicLong _mailboxBytesSent = new AtomicLong();
+  private final AtomicLong _mailboxBytesReceived = new AtomicLong();
+  private final AtomicLong _mailboxCompressionTimeNs = new AtomicLong();
 
   private final String _id;
   private final ConcurrentHashMap<String, OperatorStats> _operatorStatsMap = new ConcurrentHashMap<>();
@@ -88,6 +92,41 @@ public class OpChainStats {
       });
   }
 
+  public void recordSpilledBytes(long numBytes) {
+    _spilledBytes.addAndGet(numBytes);
+  }
+
+  public long getSpilledBytes() {
+    return _spilledBytes.get();
+  }
+
+  public void recordMailboxBytesSent(long numBytes) {
+    _mailboxBytesSent.addAndGet(numBytes);
+  }
+
+  public long getMailboxBytesSent() {
+    return _mailboxBytesSent.get();
+  }
+
+  public void recordMailboxBytesReceived(long numBytes) {
+    _mailboxBytesReceived.addAndGet(numBytes);
+  }
+
+  public long getMailboxBytesReceived() {
+    return _mailboxBytesReceived.get();
+  }
+
+  /**
+   * Records the time spent compressing blocks sent through, or decompressing blocks received from the mailboxes.
+   */
+  public void recordMailboxCompressionTimeNs(long timeNs) {
+    _mailboxCompressionTimeNs.addAndGet(timeNs);
+  }
+
+  public long getMailboxCompressionTimeNs() {
+    return _mailboxCompressionTimeNs.get();
+  }
+
   private void startExecutionTimer() {
     _exTimerStarted = true;
     _exTimer.get();
@@ -102,8 +141,10 @@ public class OpChainStats {
 
   @Override
   public String toString() {
-    return String.format("(%s) Queued Count: %s, Executing Time: %sms, Queued Time: %sms", _id, _queuedCount.get(),
-        _exTimerStarted ? _executeStopwatch.elapsed(TimeUnit.MILLISECONDS) : 0,
-        _queuedStopwatch.elapsed(TimeUnit.MILLISECONDS));
+    return String.format("(%s) Queued Count: %s, Executing Time: %sms, Queued Time: %sms, Spilled Bytes: %s, "
+            + "Mailbox Bytes Sent: %s, Mailbox Bytes Received: %s, Mailbox Compression Time: %sms", _id,
+        _queuedCount.get(), _exTimerStarted ? _executeStopwatch.elapsed(TimeUnit.MILLISECONDS) : 0,
+        _queuedStopwatch.elapsed(TimeUnit.MILLISECONDS), _spilledBytes.get(), _mailboxBytesSent.get(),
+        _mailboxBytesReceived.get(), TimeUnit.NANOSECONDS.toMillis(_mailboxCompressionTimeNs.get()));
   }
 }
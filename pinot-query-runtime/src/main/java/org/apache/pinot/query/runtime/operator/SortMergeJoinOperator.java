@@ -0,0 +1,478 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.partitioning.FieldSelectionKeySelector;
+import org.apache.pinot.query.planner.partitioning.KeySelector;
+import org.apache.pinot.query.planner.plannode.JoinNode;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
+import org.apache.pinot.query.runtime.operator.utils.SpillableBlockQueue;
+import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
+import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This {@code SortMergeJoinOperator} implements a streaming sort-merge join algorithm.
+ *
+ * <p>Both the left and the right table are expected to be sorted on the join keys in ascending order with nulls last
+ * (e.g. received through {@link SortedMailboxReceiveOperator}), with the join keys listed in the same order on both
+ * sides. The right table is fully consumed into a {@link SpillableBlockQueue} (spilled to disk beyond the max rows in
+ * memory) before reading the left table, then the operator walks both tables in lockstep. Reading both inputs in
+ * lockstep directly from the mailboxes could deadlock across workers, as the senders of the input not being read block
+ * once their receiving mailboxes are full.
+ *
+ * <p>Same as {@link HashJoinOperator}, rows with null join keys never match, the non-equi join clauses are evaluated on
+ * the joint rows, and the output is in the format of [left_row, right_row]. We currently support left join, inner
+ * join, right join, full join, semi join and anti join.
+ */
+public class SortMergeJoinOperator extends MultiStageOperator {
+  private static final String EXPLAIN_NAME = "SORT_MERGE_JOIN";
+  private static final Logger LOGGER = LoggerFactory.getLogger(SortMergeJoinOperator.class);
+  private static final int MAX_ROWS_PER_BLOCK = 10_000;
+
+  private static final Set<JoinRelType> SUPPORTED_JOIN_TYPES = ImmutableSet.of(
+      JoinRelType.INNER, JoinRelType.LEFT, JoinRelType.RIGHT, JoinRelType.FULL, JoinRelType.SEMI, JoinRelType.ANTI);
+
+  private final MultiStageOperator _leftTableOperator;
+  private final MultiStageOperator _rightTableOperator;
+  private final JoinRelType _joinType;
+  private final DataSchema _resultSchema;
+  private final int _leftColumnSize;
+  private final int _resultColumnSize;
+  private final List<TransformOperand> _joinClauseEvaluators;
+  private final int[] _leftKeyColumnIds;
+  private final int[] _rightKeyColumnIds;
+  private final boolean[] _isNumericKey;
+
+  private final SortedInput _leftInput;
+  private final SortedInput _rightInput;
+  private final SpillableBlockQueue _rightBlocks;
+  // Right rows sharing the same join key, and the ones matched by at least one left row.
+  private final List<Object[]> _rightGroup = new ArrayList<>();
+  private final BitSet _matchedRightGroupRows = new BitSet();
+
+  private boolean _isTerminated;
+  private TransferableBlock _upstreamErrorBlock;
+
+  public SortMergeJoinOperator(OpChainExecutionContext context, MultiStageOperator leftTableOperator,
+      MultiStageOperator rightTableOperator, DataSchema leftSchema, JoinNode node) {
+    super(context);
+    Preconditions.checkState(SUPPORTED_JOIN_TYPES.contains(node.getJoinRelType()),
+        "Join type: " + node.getJoinRelType() + " is not supported!");
+    _joinType = node.getJoinRelType();
+    _leftKeyColumnIds = getKeyColumnIds(node.getJoinKeys().getLeftJoinKeySelector());
+    _rightKeyColumnIds = getKeyColumnIds(node.getJoinKeys().getRightJoinKeySelector());
+    Preconditions.checkState(_leftKeyColumnIds.length > 0 && _leftKeyColumnIds.length == _rightKeyColumnIds.length,
+        "Sort merge join requires the same non-empty list of join keys on both sides");
+    _leftColumnSize = leftSchema.size();
+    Preconditions.checkState(_leftColumnSize > 0, "leftColumnSize has to be greater than zero:" + _leftColumnSize);
+    _resultSchema = node.getDataSchema();
+    _resultColumnSize = _resultSchema.size();
+    Preconditions.checkState(_resultColumnSize >= _leftColumnSize,
+        "Result column size" + _leftColumnSize + " has to be greater than or equal to left column size:"
+            + _leftColumnSize);
+    _isNumericKey = new boolean[_leftKeyColumnIds.length];
+    for (int i = 0; i < _leftKeyColumnIds.length; i++) {
+      _isNumericKey[i] = leftSchema.getColumnDataType(_leftKeyColumnIds[i]).isNumber();
+    }
+    _leftTableOperator = leftTableOperator;
+    _rightTableOperator = rightTableOperator;
+    _joinClauseEvaluators = new ArrayList<>(node.getJoinClauses().size());
+    for (RexExpression joinClause : node.getJoinClauses()) {
+      _joinClauseEvaluators.add(TransformOperand.toTransformOperand(joinClause, _resultSchema));
+    }
+    _rightBlocks = new SpillableBlockQueue(SpillFile.getSpillDir(context.getStageMetadata()), "sort_merge_join_right_",
+        SortOperator.getMaxRowsInMemory(context.getStageMetadata()));
+    _leftInput = new SortedInput(leftTableOperator, null);
+    _rightInput = new SortedInput(rightTableOperator, _rightBlocks);
+  }
+
+  private static int[] getKeyColumnIds(KeySelector<Object[], Object[]> keySelector) {
+    Preconditions.checkState(keySelector instanceof FieldSelectionKeySelector,
+        "Sort merge join only supports field selection join keys, got: " + keySelector);
+    List<Integer> columnIndices = ((FieldSelectionKeySelector) keySelector).getColumnIndices();
+    int[] keyColumnIds = new int[columnIndices.size()];
+    for (int i = 0; i < keyColumnIds.length; i++) {
+      keyColumnIds[i] = columnIndices.get(i);
+    }
+    return keyColumnIds;
+  }
+
+  @Override
+  public List<MultiStageOperator> getChildOperators() {
+    return ImmutableList.of(_leftTableOperator, _rightTableOperator);
+  }
+
+  @Nullable
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+
+  @Override
+  protected TransferableBlock getNextBlock() {
+    try {
+      if (_upstreamErrorBlock != null) {
+        return _upstreamErrorBlock;
+      }
+      if (_isTerminated) {
+        return TransferableBlockUtils.getEndOfStreamTransferableBlock();
+      }
+      // Consume the whole right table before reading the left table
+      _rightInput.bufferInput();
+      if (_upstreamErrorBlock != null) {
+        return _upstreamErrorBlock;
+      }
+      List<Object[]> rows = new ArrayList<>();
+      while (rows.size() < MAX_ROWS_PER_BLOCK) {
+        Object[] leftRow = _leftInput.peek();
+        if (_upstreamErrorBlock != null) {
+          return _upstreamErrorBlock;
+        }
+        if (leftRow == null) {
+          // All the left rows are joined, only the non-matched right rows are left for right join and full join.
+          if (!needUnmatchedRightRows()) {
+            _isTerminated = true;
+            break;
+          }
+          addNonMatchedRightRows(rows);
+          if (!loadNextRightGroup()) {
+            if (_upstreamErrorBlock != null) {
+              return _upstreamErrorBlock;
+            }
+            _isTerminated = true;
+            break;
+          }
+          continue;
+        }
+        boolean isKeyMatched = seekRightGroup(leftRow, rows);
+        if (_upstreamErrorBlock != null) {
+          return _upstreamErrorBlock;
+        }
+        joinLeftRow(leftRow, isKeyMatched, rows);
+        _leftInput.advance();
+      }
+      if (_isTerminated) {
+        closeRightBlocks();
+        if (rows.isEmpty()) {
+          return TransferableBlockUtils.getEndOfStreamTransferableBlock();
+        }
+      }
+      return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+    } catch (Exception e) {
+      return TransferableBlockUtils.getErrorTransferableBlock(e);
+    }
+  }
+
+  /**
+   * Skips the right groups with smaller join keys than the given left row, and returns whether the current right group
+   * matches the join keys of the left row.
+   */
+  private boolean seekRightGroup(Object[] leftRow, List<Object[]> rows)
+      throws IOException {
+    while (true) {
+      if (_rightGroup.isEmpty() && !loadNextRightGroup()) {
+        return false;
+      }
+      int result = compareKeys(leftRow, _leftKeyColumnIds, _rightGroup.get(0), _rightKeyColumnIds);
+      if (result < 0) {
+        return false;
+      }
+      if (result == 0) {
+        // NOTE: Null join keys are ordered but never matched.
+        return !hasNullKey(leftRow, _leftKeyColumnIds);
+      }
+      addNonMatchedRightRows(rows);
+    }
+  }
+
+  /**
+   * Loads all the consecutive right rows with the same join keys into the right group. Returns {@code false} when the
+   * right table is exhausted or an error block is received.
+   */
+  private boolean loadNextRightGroup()
+      throws IOException {
+    Object[] firstRow = _rightInput.peek();
+    if (firstRow == null) {
+      return false;
+    }
+    _rightGroup.add(firstRow);
+    _rightInput.advance();
+    Object[] row;
+    while ((row = _rightInput.peek()) != null
+        && compareKeys(firstRow, _rightKeyColumnIds, row, _rightKeyColumnIds) == 0) {
+      _rightGroup.add(row);
+      _rightInput.advance();
+    }
+    return _upstreamErrorBlock == null;
+  }
+
+  private void joinLeftRow(Object[] leftRow, boolean isKeyMatched, List<Object[]> rows) {
+    switch (_joinType) {
+      case SEMI:
+        // SEMI-JOIN only checks existence of the key
+        if (isKeyMatched) {
+          rows.add(joinRow(leftRow, null));
+        }
+        return;
+      case ANTI:
+        // ANTI-JOIN only checks non-existence of the key
+        if (!isKeyMatched) {
+          rows.add(joinRow(leftRow, null));
+        }
+        return;
+      default: // INNER, LEFT, RIGHT, FULL
+        boolean hasMatchForLeftRow = false;
+        if (isKeyMatched) {
+          int numRightRows = _rightGroup.size();
+          for (int rightRowId = 0; rightRowId < numRightRows; rightRowId++) {
+            Object[] resultRow = joinRow(leftRow, _rightGroup.get(rightRowId));
+            if (_joinClauseEvaluators.isEmpty() || _joinClauseEvaluators.stream().allMatch(
+                evaluator -> (Boolean) TypeUtils.convert(evaluator.apply(resultRow),
+                    DataSchema.ColumnDataType.BOOLEAN))) {
+              rows.add(resultRow);
+              hasMatchForLeftRow = true;
+              _matchedRightGroupRows.set(rightRowId);
+            }
+          }
+        }
+        if (!hasMatchForLeftRow && needUnmatchedLeftRows()) {
+          rows.add(joinRow(leftRow, null));
+        }
+    }
+  }
+
+  /**
+   * Releases the current right group, returning its non-matched rows for right join and full join.
+   */
+  private void addNonMatchedRightRows(List<Object[]> rows) {
+    if (needUnmatchedRightRows()) {
+      int numRightRows = _rightGroup.size();
+      for (int rowId = _matchedRightGroupRows.nextClearBit(0); rowId < numRightRows;
+          rowId = _matchedRightGroupRows.nextClearBit(rowId + 1)) {
+        rows.add(joinRow(null, _rightGroup.get(rowId)));
+      }
+    }
+    _rightGroup.clear();
+    _matchedRightGroupRows.clear();
+  }
+
+  /**
+   * Compares the join keys of 2 rows, following the same order as the sort on the receiver (ascending, nulls last).
+   */
+  private int compareKeys(Object[] row1, int[] keyColumnIds1, Object[] row2, int[] keyColumnIds2) {
+    for (int i = 0; i < keyColumnIds1.length; i++) {
+      Object v1 = row1[keyColumnIds1[i]];
+      Object v2 = row2[keyColumnIds2[i]];
+      if (v1 == null) {
+        if (v2 == null) {
+          continue;
+        }
+        return 1;
+      }
+      if (v2 == null) {
+        return -1;
+      }
+      int result;
+      if (_isNumericKey[i]) {
+        result = compareNumbers((Number) v1, (Number) v2);
+      } else {
+        //noinspection unchecked
+        result = ((Comparable) v1).compareTo(v2);
+      }
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Compares 2 numeric keys, which can be of different types when the left and right keys are of different types.
+   * Integral keys are compared exactly as long, and only floating point keys are compared as double, so that LONG keys
+   * larger than 2^53 are not collapsed to the same double.
+   */
+  private static int compareNumbers(Number v1, Number v2) {
+    if (isIntegral(v1) && isIntegral(v2)) {
+      return Long.compare(v1.longValue(), v2.longValue());
+    }
+    if (v1 instanceof BigDecimal && v2 instanceof BigDecimal) {
+      return ((BigDecimal) v1).compareTo((BigDecimal) v2);
+    }
+    return Double.compare(v1.doubleValue(), v2.doubleValue());
+  }
+
+  private static boolean isIntegral(Number value) {
+    return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+  }
+
+  private static boolean hasNullKey(Object[] row, int[] keyColumnIds) {
+    for (int keyColumnId : keyColumnIds) {
+      if (row[keyColumnId] == null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Object[] joinRow(@Nullable Object[] leftRow, @Nullable Object[] rightRow) {
+    Object[] resultRow = new Object[_resultColumnSize];
+    if (leftRow != null) {
+      System.arraycopy(leftRow, 0, resultRow, 0, leftRow.length);
+    }
+    if (rightRow != null) {
+      System.arraycopy(rightRow, 0, resultRow, _leftColumnSize, rightRow.length);
+    }
+    return resultRow;
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    closeRightBlocks();
+  }
+
+  @Override
+  public void cancel(Throwable t) {
+    super.cancel(t);
+    closeRightBlocks();
+  }
+
+  private void closeRightBlocks() {
+    try {
+      _rightBlocks.close();
+    } catch (Exception e) {
+      LOGGER.warn("Failed to close the buffered right blocks for operator: {}", _operatorId, e);
+    }
+  }
+
+  private boolean needUnmatchedRightRows() {
+    return _joinType == JoinRelType.RIGHT || _joinType == JoinRelType.FULL;
+  }
+
+  private boolean needUnmatchedLeftRows() {
+    return _joinType == JoinRelType.LEFT || _joinType == JoinRelType.FULL;
+  }
+
+  /**
+   * Row cursor over the blocks of a sorted input operator, where the blocks are either read directly from the operator,
+   * or buffered from the operator first.
+   */
+  private class SortedInput {
+    private final MultiStageOperator _operator;
+    @Nullable
+    private final SpillableBlockQueue _bufferedBlocks;
+    private List<Object[]> _rows = Collections.emptyList();
+    private int _rowId;
+    private boolean _isBuffered;
+    private boolean _isFinished;
+
+    SortedInput(MultiStageOperator operator, @Nullable SpillableBlockQueue bufferedBlocks) {
+      _operator = operator;
+      _bufferedBlocks = bufferedBlocks;
+    }
+
+    /**
+     * Consumes all the blocks of the operator into the buffer, no-op if the input is not buffered. On error block, the
+     * error block is kept as the upstream error block.
+     */
+    void bufferInput()
+        throws IOException {
+      if (_bufferedBlocks == null || _isBuffered) {
+        return;
+      }
+      _isBuffered = true;
+      TransferableBlock block;
+      while ((block = readBlock()) != null) {
+        long spilledBytes = _bufferedBlocks.add(block);
+        if (spilledBytes > 0) {
+          _opChainStats.recordSpilledBytes(spilledBytes);
+        }
+      }
+    }
+
+    /**
+     * Returns the current row without consuming it, or {@code null} when the input is exhausted or an error block is
+     * received (in which case the error block is kept as the upstream error block).
+     */
+    @Nullable
+    Object[] peek()
+        throws IOException {
+      while (_rowId == _rows.size()) {
+        if (_isFinished) {
+          return null;
+        }
+        List<Object[]> rows;
+        if (_bufferedBlocks != null) {
+          rows = _bufferedBlocks.poll();
+        } else {
+          TransferableBlock block = readBlock();
+          rows = block != null ? block.getContainer() : null;
+        }
+        if (rows == null) {
+          _isFinished = true;
+          return null;
+        }
+        _rows = rows;
+        _rowId = 0;
+      }
+      return _rows.get(_rowId);
+    }
+
+    /**
+     * Returns the next data block of the operator, or {@code null} when the input is exhausted or an error block is
+     * received (in which case the error block is kept as the upstream error block).
+     */
+    @Nullable
+    private TransferableBlock readBlock() {
+      TransferableBlock block = _operator.nextBlock();
+      if (TransferableBlockUtils.isEndOfStream(block)) {
+        if (block.isErrorBlock()) {
+          _upstreamErrorBlock = block;
+        }
+        return null;
+      }
+      return block;
+    }
+
+    void advance() {
+      _rowId++;
+    }
+  }
+}
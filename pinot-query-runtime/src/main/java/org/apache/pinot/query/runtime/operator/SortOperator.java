@@ -20,28 +20,47 @@ package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.PriorityQueue;
 import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datatable.DataTable;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.query.selection.SelectionOperatorUtils;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
 import org.apache.pinot.query.runtime.operator.utils.SortUtils;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.query.runtime.plan.StageMetadata;
 import org.apache.pinot.spi.utils.CommonConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+/**
+ * The {@code SortOperator} sorts the input rows and applies the limit and offset.
+ *
+ * <p>When the max rows in sort is configured (through query option or server config) and the number of rows to keep
+ * exceeds it, the operator switches to external merge sort once the priority queue holds that many rows: the queued
+ * rows are sorted and written to a {@link SpillFile} as a sorted run, and the runs are k-way merged when producing the
+ * output. The full sort without limit (see {@link #createFullSort}) always spills, after
+ * {@link #DEFAULT_MAX_ROWS_IN_FULL_SORT} rows when the max rows in sort is not configured.
+ */
 public class SortOperator extends MultiStageOperator {
   private static final String EXPLAIN_NAME = "SORT";
   private static final Logger LOGGER = LoggerFactory.getLogger(SortOperator.class);
+  private static final int MAX_ROWS_PER_BLOCK = 10_000;
+  // Max rows to hold in memory for the operators buffering their whole input when the max rows in sort is not set
+  static final int DEFAULT_MAX_ROWS_IN_FULL_SORT = 1_000_000;
 
   private final MultiStageOperator _upstreamOperator;
   private final int _fetch;
@@ -50,10 +69,20 @@ public class SortOperator extends MultiStageOperator {
   private final PriorityQueue<Object[]> _priorityQueue;
   private final ArrayList<Object[]> _rows;
   private final int _numRowsToKeep;
+  // Max rows to hold in the priority queue before spilling a sorted run to disk, or -1 if spilling is disabled.
+  private final int _maxRowsInSort;
+  private final Comparator<Object[]> _comparator;
 
   private boolean _isSortedBlockConstructed;
   private TransferableBlock _upstreamErrorBlock;
 
+  // Below are only used when the sorted runs are spilled.
+  private final List<SpillFile> _spilledRuns = new ArrayList<>();
+  private PriorityQueue<SortedRun> _mergeQueue;
+  private int _numRowsToSkip;
+  private int _numRowsToReturn;
+  private long _spilledBytes = 0;
+
   public SortOperator(OpChainExecutionContext context, MultiStageOperator upstreamOperator,
       List<RexExpression> collationKeys, List<RelFieldCollation.Direction> collationDirections,
       List<RelFieldCollation.NullDirection> collationNullDirections, int fetch, int offset, DataSchema dataSchema,
@@ -68,6 +97,14 @@ public class SortOperator extends MultiStageOperator {
       List<RelFieldCollation.Direction> collationDirections,
       List<RelFieldCollation.NullDirection> collationNullDirections, int fetch, int offset, DataSchema dataSchema,
       boolean isInputSorted, int defaultHolderCapacity, int defaultResponseLimit) {
+    this(context, upstreamOperator, collationKeys, collationDirections, collationNullDirections, fetch, offset,
+        dataSchema, isInputSorted, defaultHolderCapacity, defaultResponseLimit, -1);
+  }
+
+  private SortOperator(OpChainExecutionContext context, MultiStageOperator upstreamOperator,
+      List<RexExpression> collationKeys, List<RelFieldCollation.Direction> collationDirections,
+      List<RelFieldCollation.NullDirection> collationNullDirections, int fetch, int offset, DataSchema dataSchema,
+      boolean isInputSorted, int defaultHolderCapacity, int defaultResponseLimit, int defaultMaxRowsInSort) {
     super(context);
     _upstreamOperator = upstreamOperator;
     _fetch = fetch;
@@ -84,13 +121,53 @@ public class SortOperator extends MultiStageOperator {
     if (collationKeys.isEmpty() || isInputSorted) {
       _priorityQueue = null;
       _rows = new ArrayList<>(Math.min(defaultHolderCapacity, _numRowsToKeep));
+      _maxRowsInSort = -1;
+      _comparator = null;
     } else {
       // Use the opposite direction as specified by the collation directions since we need the PriorityQueue to decide
       // which elements to keep and which to remove based on the limits.
       _priorityQueue = new PriorityQueue<>(Math.min(defaultHolderCapacity, _numRowsToKeep),
           new SortUtils.SortComparator(collationKeys, collationDirections, collationNullDirections, dataSchema, true));
       _rows = null;
+      int maxRowsInSort = getMaxRowsInSort(context.getStageMetadata());
+      if (maxRowsInSort <= 0) {
+        maxRowsInSort = defaultMaxRowsInSort;
+      }
+      _maxRowsInSort = maxRowsInSort > 0 && maxRowsInSort < _numRowsToKeep ? maxRowsInSort : -1;
+      _comparator =
+          new SortUtils.SortComparator(collationKeys, collationDirections, collationNullDirections, dataSchema, false);
+    }
+  }
+
+  /**
+   * Creates a sort operator that sorts all the rows of the upstream operator without limit, e.g. to sort the rows on
+   * the sender side of a sorted exchange. Sorted runs are spilled to disk after the max rows in sort, or
+   * {@link #DEFAULT_MAX_ROWS_IN_FULL_SORT} rows if not configured, so that the memory usage is always bounded.
+   */
+  public static SortOperator createFullSort(OpChainExecutionContext context, MultiStageOperator upstreamOperator,
+      List<RexExpression> collationKeys, List<RelFieldCollation.Direction> collationDirections,
+      List<RelFieldCollation.NullDirection> collationNullDirections, DataSchema dataSchema) {
+    return new SortOperator(context, upstreamOperator, collationKeys, collationDirections, collationNullDirections, -1,
+        0, dataSchema, false, SelectionOperatorUtils.MAX_ROW_HOLDER_INITIAL_CAPACITY, Integer.MAX_VALUE,
+        DEFAULT_MAX_ROWS_IN_FULL_SORT);
+  }
+
+  /**
+   * Returns the max rows to hold in memory for the operators buffering their whole input (e.g. the full sort), which is
+   * the max rows in sort if configured, or {@link #DEFAULT_MAX_ROWS_IN_FULL_SORT} otherwise.
+   */
+  static int getMaxRowsInMemory(@Nullable StageMetadata stageMetadata) {
+    int maxRowsInSort = getMaxRowsInSort(stageMetadata);
+    return maxRowsInSort > 0 ? maxRowsInSort : DEFAULT_MAX_ROWS_IN_FULL_SORT;
+  }
+
+  private static int getMaxRowsInSort(@Nullable StageMetadata stageMetadata) {
+    if (stageMetadata != null && stageMetadata.getCustomProperties() != null && stageMetadata.getCustomProperties()
+        .containsKey(CommonConstants.Broker.Request.QueryOptionKey.MAX_ROWS_IN_SORT)) {
+      return Integer.parseInt(
+          stageMetadata.getCustomProperties().get(CommonConstants.Broker.Request.QueryOptionKey.MAX_ROWS_IN_SORT));
     }
+    return -1;
   }
 
   @Override
@@ -100,6 +177,13 @@ public class SortOperator extends MultiStageOperator {
 
   @Override
   public void cancel(Throwable e) {
+    closeSpilledRuns();
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    closeSpilledRuns();
   }
 
   @Nullable
@@ -118,11 +202,15 @@ public class SortOperator extends MultiStageOperator {
     }
   }
 
-  private TransferableBlock produceSortedBlock() {
+  private TransferableBlock produceSortedBlock()
+      throws IOException {
     if (_upstreamErrorBlock != null) {
       return _upstreamErrorBlock;
     }
 
+    if (!_spilledRuns.isEmpty()) {
+      return produceMergedBlock();
+    }
     if (!_isSortedBlockConstructed) {
       _isSortedBlockConstructed = true;
       if (_priorityQueue == null) {
@@ -149,7 +237,86 @@ public class SortOperator extends MultiStageOperator {
     }
   }
 
-  private void consumeInputBlocks() {
+  /**
+   * Merges the spilled runs and the rows remaining in the priority queue, returns at most {@link #MAX_ROWS_PER_BLOCK}
+   * rows per block.
+   */
+  private TransferableBlock produceMergedBlock()
+      throws IOException {
+    if (_mergeQueue == null) {
+      _mergeQueue = new PriorityQueue<>(_spilledRuns.size() + 1, (r1, r2) -> _comparator.compare(r1._row, r2._row));
+      for (SpillFile spilledRun : _spilledRuns) {
+        addToMergeQueue(new SortedRun(spilledRun.iterator()));
+      }
+      addToMergeQueue(new SortedRun(drainPriorityQueue()));
+      _numRowsToSkip = _offset;
+      _numRowsToReturn = _numRowsToKeep - _offset;
+      if (shouldCollectStats()) {
+        _opChainStats.getOperatorStats(_context, _operatorId)
+            .recordSingleStat(DataTable.MetadataKey.SPILLED_BYTES.getName(), String.valueOf(_spilledBytes));
+      }
+    }
+    List<Object[]> rows = new ArrayList<>(Math.min(MAX_ROWS_PER_BLOCK, Math.max(_numRowsToReturn, 0)));
+    while (rows.size() < MAX_ROWS_PER_BLOCK && _numRowsToReturn > 0 && !_mergeQueue.isEmpty()) {
+      SortedRun run = _mergeQueue.poll();
+      if (_numRowsToSkip > 0) {
+        _numRowsToSkip--;
+      } else {
+        rows.add(run._row);
+        _numRowsToReturn--;
+      }
+      addToMergeQueue(run);
+    }
+    if (rows.isEmpty()) {
+      closeSpilledRuns();
+      return TransferableBlockUtils.getEndOfStreamTransferableBlock();
+    }
+    return new TransferableBlock(rows, _dataSchema, DataBlock.Type.ROW);
+  }
+
+  private void addToMergeQueue(SortedRun run) {
+    if (run.advance()) {
+      _mergeQueue.add(run);
+    }
+  }
+
+  /**
+   * Returns the rows in the priority queue sorted in the requested order, and empties the priority queue.
+   */
+  private List<Object[]> drainPriorityQueue() {
+    List<Object[]> rows = new ArrayList<>(_priorityQueue);
+    _priorityQueue.clear();
+    rows.sort(_comparator);
+    return rows;
+  }
+
+  private void spillPriorityQueue()
+      throws IOException {
+    List<Object[]> rows = drainPriorityQueue();
+    SpillFile spilledRun = new SpillFile(SpillFile.getSpillDir(_context.getStageMetadata()),
+        "sort_run_" + _spilledRuns.size() + "_", _dataSchema);
+    _spilledRuns.add(spilledRun);
+    for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_BLOCK) {
+      long numBytes = spilledRun.append(rows.subList(from, Math.min(from + MAX_ROWS_PER_BLOCK, rows.size())));
+      _spilledBytes += numBytes;
+      _opChainStats.recordSpilledBytes(numBytes);
+    }
+    LOGGER.debug("Spilled sorted run of {} rows at SortOperator - operatorId={}, opChainId={}", rows.size(),
+        _operatorId, _context.getId());
+  }
+
+  private void closeSpilledRuns() {
+    for (SpillFile spilledRun : _spilledRuns) {
+      try {
+        spilledRun.close();
+      } catch (Exception e) {
+        LOGGER.warn("Failed to close spill file for operator: {}", _operatorId, e);
+      }
+    }
+  }
+
+  private void consumeInputBlocks()
+      throws IOException {
     if (!_isSortedBlockConstructed) {
       TransferableBlock block = _upstreamOperator.nextBlock();
       while (!block.isSuccessfulEndOfStreamBlock()) {
@@ -164,11 +331,17 @@ public class SortOperator extends MultiStageOperator {
               _rows.addAll(container.subList(0, _numRowsToKeep - numRows));
               LOGGER.debug("Early terminate at SortOperator - operatorId={}, opChainId={}", _operatorId,
                   _context.getId());
+              // Close the upstream right away so that the receiving mailboxes are cancelled and the upstream opChains
+              // stop producing rows that are no longer needed
+              _upstreamOperator.close();
               break;
             }
           }
         } else {
           for (Object[] row : container) {
+            if (_maxRowsInSort > 0 && _priorityQueue.size() == _maxRowsInSort) {
+              spillPriorityQueue();
+            }
             SelectionOperatorUtils.addToPriorityQueue(row, _priorityQueue, _numRowsToKeep);
           }
         }
@@ -177,6 +350,36 @@ public class SortOperator extends MultiStageOperator {
       if (block.isErrorBlock()) {
         _upstreamErrorBlock = block;
       }
+      _isSortedBlockConstructed = !_spilledRuns.isEmpty();
+    }
+  }
+
+  /**
+   * Cursor over a sorted run, where each block is a list of rows in the requested order.
+   */
+  private static class SortedRun {
+    final Iterator<List<Object[]>> _blocks;
+    Iterator<Object[]> _rows;
+    Object[] _row;
+
+    SortedRun(Iterator<List<Object[]>> blocks) {
+      _blocks = blocks;
+    }
+
+    SortedRun(List<Object[]> rows) {
+      this(Collections.singletonList(rows).iterator());
+    }
+
+    boolean advance() {
+      while (_rows == null || !_rows.hasNext()) {
+        if (!_blocks.hasNext()) {
+          _row = null;
+          return false;
+        }
+        _rows = _blocks.next().iterator();
+      }
+      _row = _rows.next();
+      return true;
     }
   }
 }
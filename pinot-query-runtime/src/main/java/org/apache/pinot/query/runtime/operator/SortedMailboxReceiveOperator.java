@@ -19,8 +19,10 @@
 package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.base.Preconditions;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.PriorityQueue;
 import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelDistribution;
 import org.apache.calcite.rel.RelFieldCollation.Direction;
@@ -31,19 +33,30 @@ import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.mailbox.ReceivingMailbox;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.utils.BlockingMultiStreamConsumer;
 import org.apache.pinot.query.runtime.operator.utils.SortUtils;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
+import org.apache.pinot.query.runtime.operator.utils.SpillableBlockQueue;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
  * This {@code SortedMailboxReceiveOperator} receives data from a {@link ReceivingMailbox} and serve it out from the
  * {@link MultiStageOperator#getNextBlock()}()} API in a sorted manner.
  *
- *  TODO: Once sorting on the {@code MailboxSendOperator} is available, modify this to use a k-way merge instead of
- *        resorting via the PriorityQueue.
+ * When the rows are sorted on the sender, each mailbox delivers a sorted stream, and the streams are merged with a
+ * k-way merge so that the rows are emitted without buffering the whole input. While waiting for the next block of the
+ * mailbox being merged, the other mailboxes are still consumed into {@link SpillableBlockQueue}s, so that their senders
+ * are never blocked by this receiver (which could deadlock across workers). Otherwise all the rows are buffered and
+ * sorted after all the mailboxes reach end of stream.
  */
 public class SortedMailboxReceiveOperator extends BaseMailboxReceiveOperator {
   private static final String EXPLAIN_NAME = "SORTED_MAILBOX_RECEIVE";
+  private static final Logger LOGGER = LoggerFactory.getLogger(SortedMailboxReceiveOperator.class);
+  private static final int MAX_ROWS_PER_BLOCK = 10_000;
 
   private final DataSchema _dataSchema;
   private final List<RexExpression> _collationKeys;
@@ -54,6 +67,13 @@ public class SortedMailboxReceiveOperator extends BaseMailboxReceiveOperator {
 
   private boolean _isSortedBlockConstructed;
 
+  // Below are only used for the k-way merge when the rows are sorted on the sender.
+  private List<Object[]>[] _mailboxRows;
+  private int[] _mailboxRowIds;
+  private PriorityQueue<Integer> _mergeQueue;
+  private SpillableBlockQueue[] _mailboxBuffers;
+  private boolean[] _isMailboxFinished;
+
   public SortedMailboxReceiveOperator(OpChainExecutionContext context, RelDistribution.Type exchangeType,
       DataSchema dataSchema, List<RexExpression> collationKeys, List<Direction> collationDirections,
       List<NullDirection> collationNullDirections, boolean isSortOnSender, int senderStageId) {
@@ -74,6 +94,13 @@ public class SortedMailboxReceiveOperator extends BaseMailboxReceiveOperator {
 
   @Override
   protected TransferableBlock getNextBlock() {
+    if (_isSortOnSender) {
+      try {
+        return getNextMergedBlock();
+      } catch (Exception e) {
+        return TransferableBlockUtils.getErrorTransferableBlock(e);
+      }
+    }
     while (true) { // loop in order to keep asking if we receive data blocks
       TransferableBlock block = getMultiConsumer().readBlockBlocking();
       if (block.isDataBlock()) {
@@ -96,15 +123,143 @@ public class SortedMailboxReceiveOperator extends BaseMailboxReceiveOperator {
     }
   }
 
+  /**
+   * Merges the sorted streams from the mailboxes, returns at most {@link #MAX_ROWS_PER_BLOCK} rows per block.
+   */
+  @SuppressWarnings("unchecked")
+  private TransferableBlock getNextMergedBlock()
+      throws IOException {
+    BlockingMultiStreamConsumer.OfTransferableBlock multiConsumer = getMultiConsumer();
+    if (_mergeQueue == null) {
+      int numMailboxes = multiConsumer.getNumMailboxes();
+      _mailboxRows = new List[numMailboxes];
+      _mailboxRowIds = new int[numMailboxes];
+      _mailboxBuffers = new SpillableBlockQueue[numMailboxes];
+      _isMailboxFinished = new boolean[numMailboxes];
+      int maxRowsInMemoryPerMailbox = Math.max(SortOperator.getMaxRowsInMemory(_context.getStageMetadata())
+          / Math.max(numMailboxes, 1), 1);
+      for (int i = 0; i < numMailboxes; i++) {
+        _mailboxBuffers[i] = new SpillableBlockQueue(SpillFile.getSpillDir(_context.getStageMetadata()),
+            "sorted_receive_" + i + "_", maxRowsInMemoryPerMailbox);
+      }
+      SortUtils.SortComparator comparator =
+          new SortUtils.SortComparator(_collationKeys, _collationDirections, _collationNullDirections, _dataSchema,
+              false);
+      _mergeQueue = new PriorityQueue<>(Math.max(numMailboxes, 1),
+          (i1, i2) -> comparator.compare(_mailboxRows[i1].get(_mailboxRowIds[i1]),
+              _mailboxRows[i2].get(_mailboxRowIds[i2])));
+      for (int i = 0; i < numMailboxes; i++) {
+        TransferableBlock errorBlock = fetchNextRows(multiConsumer, i);
+        if (errorBlock != null) {
+          return errorBlock;
+        }
+      }
+    }
+    List<Object[]> rows = new ArrayList<>();
+    while (rows.size() < MAX_ROWS_PER_BLOCK && !_mergeQueue.isEmpty()) {
+      int mailboxIndex = _mergeQueue.poll();
+      rows.add(_mailboxRows[mailboxIndex].get(_mailboxRowIds[mailboxIndex]++));
+      if (_mailboxRowIds[mailboxIndex] < _mailboxRows[mailboxIndex].size()) {
+        _mergeQueue.add(mailboxIndex);
+      } else {
+        TransferableBlock errorBlock = fetchNextRows(multiConsumer, mailboxIndex);
+        if (errorBlock != null) {
+          return errorBlock;
+        }
+      }
+    }
+    if (rows.isEmpty()) {
+      return TransferableBlockUtils.getEndOfStreamTransferableBlock();
+    }
+    return new TransferableBlock(rows, _dataSchema, DataBlock.Type.ROW);
+  }
+
+  /**
+   * Reads the next block of the given mailbox and adds the mailbox to the merge queue, or leaves it out of the merge
+   * queue when it reaches end of stream. While the mailbox is not ready, all the mailboxes are consumed into their
+   * buffers. Returns the error block if any.
+   */
+  @Nullable
+  private TransferableBlock fetchNextRows(BlockingMultiStreamConsumer.OfTransferableBlock multiConsumer,
+      int mailboxIndex)
+      throws IOException {
+    _mailboxRows[mailboxIndex] = null;
+    SpillableBlockQueue mailboxBuffer = _mailboxBuffers[mailboxIndex];
+    while (true) {
+      List<Object[]> rows = mailboxBuffer.poll();
+      if (rows != null) {
+        _mailboxRows[mailboxIndex] = rows;
+        _mailboxRowIds[mailboxIndex] = 0;
+        _mergeQueue.add(mailboxIndex);
+        return null;
+      }
+      if (_isMailboxFinished[mailboxIndex]) {
+        return null;
+      }
+      TransferableBlock errorBlock = consumeMailboxes(multiConsumer);
+      if (errorBlock != null) {
+        return errorBlock;
+      }
+      if (mailboxBuffer.isEmpty() && !_isMailboxFinished[mailboxIndex]) {
+        errorBlock = multiConsumer.awaitNewData();
+        if (errorBlock != null) {
+          return errorBlock;
+        }
+      }
+    }
+  }
+
+  /**
+   * Moves all the ready blocks from the mailboxes into their buffers, returns the error block if any.
+   */
+  @Nullable
+  private TransferableBlock consumeMailboxes(BlockingMultiStreamConsumer.OfTransferableBlock multiConsumer)
+      throws IOException {
+    for (int i = 0; i < _mailboxBuffers.length; i++) {
+      if (_isMailboxFinished[i]) {
+        continue;
+      }
+      TransferableBlock block;
+      while ((block = multiConsumer.pollBlock(i)) != null) {
+        if (block.isErrorBlock()) {
+          return block;
+        }
+        if (block.isSuccessfulEndOfStreamBlock()) {
+          _isMailboxFinished[i] = true;
+          break;
+        }
+        long spilledBytes = _mailboxBuffers[i].add(block);
+        if (spilledBytes > 0) {
+          _opChainStats.recordSpilledBytes(spilledBytes);
+        }
+      }
+    }
+    return null;
+  }
+
+  private void closeMailboxBuffers() {
+    if (_mailboxBuffers != null) {
+      for (SpillableBlockQueue mailboxBuffer : _mailboxBuffers) {
+        try {
+          mailboxBuffer.close();
+        } catch (Exception e) {
+          LOGGER.warn("Failed to close mailbox buffer for operator: {}", _operatorId, e);
+        }
+      }
+    }
+  }
+
   @Override
   public void close() {
     super.close();
     _rows.clear();
+    closeMailboxBuffers();
   }
 
   @Override
   public void cancel(Throwable t) {
     super.cancel(t);
     _rows.clear();
+    closeMailboxBuffers();
   }
 }
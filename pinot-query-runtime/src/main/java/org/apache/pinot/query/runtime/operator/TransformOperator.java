@@ -21,6 +21,7 @@ package org.apache.pinot.query.runtime.operator;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.datablock.DataBlock;
@@ -44,6 +45,7 @@ import org.slf4j.LoggerFactory;
  * - Function transform, which runs a function on function operands. Function operands and be any of 3 the transform.
  * Note: Function transform only runs functions from v1 engine scalar function factory, which only does argument count
  * and canonicalized function name matching (lower case).
+ * Each transform is evaluated on the whole block at once as a column, then the columns are assembled into rows.
  */
 public class TransformOperator extends MultiStageOperator {
   private static final String EXPLAIN_NAME = "TRANSFORM";
@@ -106,14 +108,20 @@ public class TransformOperator extends MultiStageOperator {
     }
 
     List<Object[]> container = block.getContainer();
-    List<Object[]> resultRows = new ArrayList<>(container.size());
-    for (Object[] row : container) {
-      Object[] resultRow = new Object[_resultColumnSize];
-      for (int i = 0; i < _resultColumnSize; i++) {
-        resultRow[i] = TypeUtils.convert(_transformOperandsList.get(i).apply(row), _resultSchema.getColumnDataType(i));
+    int numRows = container.size();
+    int[] rowIds = new int[numRows];
+    for (int i = 0; i < numRows; i++) {
+      rowIds[i] = i;
+    }
+    Object[][] resultRows = new Object[numRows][_resultColumnSize];
+    Object[] results = new Object[numRows];
+    for (int i = 0; i < _resultColumnSize; i++) {
+      _transformOperandsList.get(i).apply(container, rowIds, numRows, results);
+      DataSchema.ColumnDataType columnDataType = _resultSchema.getColumnDataType(i);
+      for (int j = 0; j < numRows; j++) {
+        resultRows[j][i] = TypeUtils.convert(results[j], columnDataType);
       }
-      resultRows.add(resultRow);
     }
-    return new TransferableBlock(resultRows, _resultSchema, DataBlock.Type.ROW);
+    return new TransferableBlock(Arrays.asList(resultRows), _resultSchema, DataBlock.Type.ROW);
   }
 }
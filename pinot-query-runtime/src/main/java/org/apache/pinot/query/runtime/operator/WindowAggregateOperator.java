@@ -23,6 +23,8 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayFIFOQueue;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -30,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelFieldCollation;
@@ -54,7 +57,8 @@ import org.slf4j.LoggerFactory;
  * [input columns, aggregate result1, ... aggregate resultN]
  *
  * The window functions supported today are:
- * Aggregation: SUM/COUNT/MIN/MAX/AVG/BOOL_OR/BOOL_AND aggregations [RANGE window type only]
+ * Aggregation: SUM/COUNT/MIN/MAX/AVG/BOOL_OR/BOOL_AND aggregations [RANGE default frame, or ROWS frame with any
+ *              bounds]
  * Ranking: ROW_NUMBER [ROWS window type only], RANK, DENSE_RANK [RANGE window type only] ranking functions
  * Value: [none]
  *
@@ -69,10 +73,14 @@ import org.slf4j.LoggerFactory;
  * Note: This class performs aggregation over the double value of input.
  * If the input is single value, the output type will be input type. Otherwise, the output type will be double.
  *
+ * For ROWS frames, the aggregations are maintained incrementally while the frame slides over the partition: each row
+ * is added to and removed from the frame once, with running sums/counts for SUM/COUNT/BOOL_AND/BOOL_OR and a monotonic
+ * queue for MIN/MAX. Thus the cost is linear to the partition size regardless of the frame size.
+ *
  * TODO:
  *     1. Add support for additional rank window functions
  *     2. Add support for value window functions
- *     3. Add support for custom frames (including ROWS support)
+ *     3. Add support for custom RANGE frames
  *     4. Add support for null direction handling (even for PARTITION BY only queries with custom null direction)
  *     5. Add support for multiple window groups (each WindowAggregateOperator should still work on a single group)
  */
@@ -123,10 +131,12 @@ public class WindowAggregateOperator extends MultiStageOperator {
     _orderSetInfo = new OrderSetInfo(orderSet, orderSetDirection, orderSetNullDirection, _isPartitionByOnly);
     _windowFrame = new WindowFrame(lowerBound, upperBound, windowFrameType);
 
-    Preconditions.checkState(_windowFrame.isUnboundedPreceding(),
-        "Only default frame is supported, lowerBound must be UNBOUNDED PRECEDING");
-    Preconditions.checkState(_windowFrame.isUnboundedFollowing() || _windowFrame.isUpperBoundCurrentRow(),
-        "Only default frame is supported, upperBound must be UNBOUNDED FOLLOWING or CURRENT ROW");
+    if (_windowFrame.getWindowFrameType() == WindowNode.WindowFrameType.RANGE) {
+      Preconditions.checkState(_windowFrame.isUnboundedPreceding(),
+          "Only default frame is supported, lowerBound must be UNBOUNDED PRECEDING");
+      Preconditions.checkState(_windowFrame.isUnboundedFollowing() || _windowFrame.isUpperBoundCurrentRow(),
+          "Only default frame is supported, upperBound must be UNBOUNDED FOLLOWING or CURRENT ROW");
+    }
 
     // we expect all agg calls to be aggregate function calls
     _aggCalls = aggCalls.stream().map(RexExpression.FunctionCall.class::cast).collect(Collectors.toList());
@@ -189,9 +199,11 @@ public class WindowAggregateOperator extends MultiStageOperator {
       Preconditions.checkState(_windowFrame.getWindowFrameType() == WindowNode.WindowFrameType.ROWS
               && _windowFrame.isUpperBoundCurrentRow(),
           String.format("%s must be of ROW frame type and have CURRENT ROW as the upper bound", functionName));
-    } else {
-      Preconditions.checkState(_windowFrame.getWindowFrameType() == WindowNode.WindowFrameType.RANGE,
+    } else if (_windowFrame.getWindowFrameType() == WindowNode.WindowFrameType.ROWS) {
+      Preconditions.checkState(!RANKING_FUNCTION_NAMES.contains(functionName),
           String.format("Only RANGE type frames are supported at present for function: %s", functionName));
+      Preconditions.checkState(getSlidingWindowFunctionFactory(functionName) != null,
+          String.format("ROWS type frames are not supported for function: %s", functionName));
     }
   }
 
@@ -219,8 +231,8 @@ public class WindowAggregateOperator extends MultiStageOperator {
     Key emptyOrderKey = AggregationUtils.extractEmptyKey();
     List<Object[]> rows = new ArrayList<>(_numRows);
     if (_windowFrame.getWindowFrameType() == WindowNode.WindowFrameType.RANGE) {
-      // All aggregation window functions only support RANGE type today (SUM/AVG/MIN/MAX/COUNT/BOOL_AND/BOOL_OR)
-      // RANK and DENSE_RANK ranking window functions also only support RANGE type today
+      // Only the default RANGE frame is supported, which is a running aggregation over the ORDER BY keys
+      // RANK and DENSE_RANK ranking window functions only support RANGE type today
       for (Map.Entry<Key, List<Object[]>> e : _partitionRows.entrySet()) {
         Key partitionKey = e.getKey();
         List<Object[]> rowList = e.getValue();
@@ -236,27 +248,22 @@ public class WindowAggregateOperator extends MultiStageOperator {
         }
       }
     } else {
-      // Only ROW_NUMBER() window function is supported as ROWS type today
-      Key previousPartitionKey = null;
-      Object[] previousRowValues = new Object[_windowAccumulators.length];
-      for (int i = 0; i < _windowAccumulators.length; i++) {
-        previousRowValues[i] = null;
-      }
-
+      // ROWS type frames depend on the position of the rows within the partition, compute them one partition at a time
       for (Map.Entry<Key, List<Object[]>> e : _partitionRows.entrySet()) {
         Key partitionKey = e.getKey();
         List<Object[]> rowList = e.getValue();
+        int partitionStart = rows.size();
+        int numInputColumns = rowList.get(0).length;
         for (Object[] existingRow : rowList) {
-          Object[] row = new Object[existingRow.length + _aggCalls.size()];
-          System.arraycopy(existingRow, 0, row, 0, existingRow.length);
-          for (int i = 0; i < _windowAccumulators.length; i++) {
-            row[i + existingRow.length] = _windowAccumulators[i].computeRowResultForCurrentRow(partitionKey,
-                previousPartitionKey, row, previousRowValues[i]);
-            previousRowValues[i] = row[i + existingRow.length];
-          }
-          previousPartitionKey = partitionKey;
+          Object[] row = new Object[numInputColumns + _aggCalls.size()];
+          System.arraycopy(existingRow, 0, row, 0, numInputColumns);
           rows.add(row);
         }
+        List<Object[]> partitionRows = rows.subList(partitionStart, rows.size());
+        for (int i = 0; i < _windowAccumulators.length; i++) {
+          _windowAccumulators[i].computeRowsFrameResults(partitionKey, partitionRows, numInputColumns + i,
+              _windowFrame.getLowerBound(), _windowFrame.getUpperBound());
+        }
       }
     }
     _hasReturnedWindowAggregateBlock = true;
@@ -428,6 +435,195 @@ public class WindowAggregateOperator extends MultiStageOperator {
     }
   }
 
+  /**
+   * Returns the factory of the {@link SlidingWindowFunction} for the given aggregation function, or {@code null} if the
+   * function cannot be computed over a sliding frame.
+   */
+  @Nullable
+  private static Supplier<SlidingWindowFunction> getSlidingWindowFunctionFactory(String functionName) {
+    switch (functionName) {
+      case "SUM":
+      case "$SUM":
+        return () -> new SlidingSum(false);
+      case "$SUM0":
+        return () -> new SlidingSum(true);
+      case "MIN":
+      case "$MIN":
+      case "$MIN0":
+        return () -> new SlidingMinMax(true);
+      case "MAX":
+      case "$MAX":
+      case "$MAX0":
+        return () -> new SlidingMinMax(false);
+      case "COUNT":
+        return SlidingCount::new;
+      case "BOOL_AND":
+      case "$BOOL_AND":
+      case "$BOOL_AND0":
+        return () -> new SlidingBoolean(true);
+      case "BOOL_OR":
+      case "$BOOL_OR":
+      case "$BOOL_OR0":
+        return () -> new SlidingBoolean(false);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Aggregation over a sliding ROWS frame. Rows are added to the frame in order and removed from the frame in the same
+   * order, and null values are ignored the same way as the mergers do.
+   */
+  private interface SlidingWindowFunction {
+    void add(int rowId, @Nullable Object value);
+
+    void remove(int rowId, @Nullable Object value);
+
+    @Nullable
+    Object getResult();
+  }
+
+  private static class SlidingSum implements SlidingWindowFunction {
+    private final boolean _isSum0;
+    private double _sum;
+    private int _numValues;
+
+    SlidingSum(boolean isSum0) {
+      _isSum0 = isSum0;
+    }
+
+    @Override
+    public void add(int rowId, @Nullable Object value) {
+      if (value != null) {
+        _sum += ((Number) value).doubleValue();
+        _numValues++;
+      }
+    }
+
+    @Override
+    public void remove(int rowId, @Nullable Object value) {
+      if (value != null) {
+        _numValues--;
+        // Reset the sum when the frame is empty so that the floating point errors don't carry over
+        _sum = _numValues == 0 ? 0 : _sum - ((Number) value).doubleValue();
+      }
+    }
+
+    @Nullable
+    @Override
+    public Object getResult() {
+      return _numValues > 0 || _isSum0 ? _sum : null;
+    }
+  }
+
+  private static class SlidingCount implements SlidingWindowFunction {
+    private long _count;
+
+    @Override
+    public void add(int rowId, @Nullable Object value) {
+      if (value != null) {
+        _count++;
+      }
+    }
+
+    @Override
+    public void remove(int rowId, @Nullable Object value) {
+      if (value != null) {
+        _count--;
+      }
+    }
+
+    @Override
+    public Object getResult() {
+      return _count;
+    }
+  }
+
+  /**
+   * Keeps the candidates for the MIN/MAX of the frame in a monotonic queue: a value is dropped once a later row has a
+   * smaller (for MIN) or larger (for MAX) value because it can no longer be the result, so the head of the queue is
+   * always the result of the current frame.
+   */
+  private static class SlidingMinMax implements SlidingWindowFunction {
+    private final boolean _isMin;
+    private final IntArrayFIFOQueue _rowIds = new IntArrayFIFOQueue();
+    private final DoubleArrayFIFOQueue _values = new DoubleArrayFIFOQueue();
+
+    SlidingMinMax(boolean isMin) {
+      _isMin = isMin;
+    }
+
+    @Override
+    public void add(int rowId, @Nullable Object value) {
+      if (value == null) {
+        return;
+      }
+      double doubleValue = ((Number) value).doubleValue();
+      while (!_values.isEmpty() && (_isMin ? _values.lastDouble() >= doubleValue
+          : _values.lastDouble() <= doubleValue)) {
+        _rowIds.dequeueLastInt();
+        _values.dequeueLastDouble();
+      }
+      _rowIds.enqueue(rowId);
+      _values.enqueue(doubleValue);
+    }
+
+    @Override
+    public void remove(int rowId, @Nullable Object value) {
+      if (!_rowIds.isEmpty() && _rowIds.firstInt() == rowId) {
+        _rowIds.dequeueInt();
+        _values.dequeueDouble();
+      }
+    }
+
+    @Nullable
+    @Override
+    public Object getResult() {
+      return _values.isEmpty() ? null : _values.firstDouble();
+    }
+  }
+
+  private static class SlidingBoolean implements SlidingWindowFunction {
+    private final boolean _isAnd;
+    private int _numTrue;
+    private int _numFalse;
+
+    SlidingBoolean(boolean isAnd) {
+      _isAnd = isAnd;
+    }
+
+    @Override
+    public void add(int rowId, @Nullable Object value) {
+      if (value != null) {
+        if ((Boolean) value) {
+          _numTrue++;
+        } else {
+          _numFalse++;
+        }
+      }
+    }
+
+    @Override
+    public void remove(int rowId, @Nullable Object value) {
+      if (value != null) {
+        if ((Boolean) value) {
+          _numTrue--;
+        } else {
+          _numFalse--;
+        }
+      }
+    }
+
+    @Nullable
+    @Override
+    public Object getResult() {
+      if (_numTrue + _numFalse == 0) {
+        return null;
+      }
+      return _isAnd ? _numFalse == 0 : _numTrue > 0;
+    }
+  }
+
   private static class WindowAggregateAccumulator extends AggregationUtils.Accumulator {
     private static final Map<String, Function<DataSchema.ColumnDataType, AggregationUtils.Merger>> WIN_AGG_MERGERS =
         ImmutableMap.<String, Function<DataSchema.ColumnDataType, AggregationUtils.Merger>>builder()
@@ -439,6 +635,8 @@ public class WindowAggregateOperator extends MultiStageOperator {
 
     private final boolean _isPartitionByOnly;
     private final boolean _isRankingWindowFunction;
+    // Only set for aggregation functions which can be computed over ROWS frames
+    private final Supplier<SlidingWindowFunction> _slidingWindowFunctionFactory;
 
     // Fields needed only for RANGE frame type queries (ORDER BY)
     private final Map<Key, OrderKeyResult> _orderByResults = new HashMap<>();
@@ -449,6 +647,57 @@ public class WindowAggregateOperator extends MultiStageOperator {
       super(aggCall, merger, functionName, inputSchema);
       _isPartitionByOnly = CollectionUtils.isEmpty(orderSetInfo.getOrderSet()) || orderSetInfo.isPartitionByOnly();
       _isRankingWindowFunction = RANKING_FUNCTION_NAMES.contains(functionName);
+      _slidingWindowFunctionFactory = getSlidingWindowFunctionFactory(functionName);
+    }
+
+    /**
+     * For ROWS type queries, computes the results of all the rows within a partition (in the order they are received)
+     * and sets them into the given result column. The frame of each row covers the rows from {@code lowerBound} to
+     * {@code upperBound} relative to the current row, and slides forward along with the current row.
+     */
+    public void computeRowsFrameResults(Key partitionKey, List<Object[]> rows, int resultColumn, int lowerBound,
+        int upperBound) {
+      int numRows = rows.size();
+      if (_slidingWindowFunctionFactory == null) {
+        // ROW_NUMBER only depends on the position of the row within the partition
+        Object previousRowOutputValue = null;
+        for (int i = 0; i < numRows; i++) {
+          Object[] row = rows.get(i);
+          previousRowOutputValue =
+              computeRowResultForCurrentRow(partitionKey, i == 0 ? null : partitionKey, row, previousRowOutputValue);
+          row[resultColumn] = previousRowOutputValue;
+        }
+        return;
+      }
+
+      SlidingWindowFunction slidingWindowFunction = _slidingWindowFunctionFactory.get();
+      // Rows within [frameStart, frameEnd) are added to the sliding window function. Both ends only move forward, so
+      // each row is added and removed at most once.
+      int frameStart = 0;
+      int frameEnd = 0;
+      for (int i = 0; i < numRows; i++) {
+        int start = lowerBound == Integer.MIN_VALUE ? 0 : clip((long) i + lowerBound, numRows);
+        int end = upperBound == Integer.MAX_VALUE ? numRows : clip((long) i + upperBound + 1, numRows);
+        for (; frameStart < start; frameStart++) {
+          if (frameStart < frameEnd) {
+            slidingWindowFunction.remove(frameStart, getValue(rows.get(frameStart)));
+          }
+        }
+        frameEnd = Math.max(frameEnd, frameStart);
+        for (; frameEnd < end; frameEnd++) {
+          slidingWindowFunction.add(frameEnd, getValue(rows.get(frameEnd)));
+        }
+        rows.get(i)[resultColumn] = slidingWindowFunction.getResult();
+      }
+    }
+
+    private static int clip(long rowId, int numRows) {
+      return (int) Math.max(0, Math.min(rowId, numRows));
+    }
+
+    @Nullable
+    private Object getValue(Object[] row) {
+      return _inputRef == -1 ? _literal : row[_inputRef];
     }
 
     /**
@@ -20,7 +20,9 @@ package org.apache.pinot.query.runtime.operator.exchange;
 
 import java.util.Iterator;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelDistribution;
+import org.apache.calcite.rel.logical.PinotRelSkewHandlingType;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.query.mailbox.SendingMailbox;
 import org.apache.pinot.query.planner.partitioning.KeySelector;
@@ -42,11 +44,32 @@ public abstract class BlockExchange {
 
   public static BlockExchange getExchange(List<SendingMailbox> sendingMailboxes, RelDistribution.Type exchangeType,
       KeySelector<Object[], Object[]> selector, BlockSplitter splitter) {
+    return getExchange(sendingMailboxes, exchangeType, selector, splitter,
+        PinotRelSkewHandlingType.getDefaultSkewHandlingType(), 0);
+  }
+
+  public static BlockExchange getExchange(List<SendingMailbox> sendingMailboxes, RelDistribution.Type exchangeType,
+      KeySelector<Object[], Object[]> selector, BlockSplitter splitter, PinotRelSkewHandlingType skewHandlingType,
+      int skewSplitFactor) {
+    return getExchange(sendingMailboxes, exchangeType, selector, splitter, skewHandlingType, skewSplitFactor, null,
+        null);
+  }
+
+  /**
+   * Returns the exchange for the given exchange type. For a hash exchange handling the skewed keys of a JOIN, the hot
+   * keys are published to the other side of the JOIN with the {@code hotKeyPublisher} (SPLIT), or received from the
+   * other side with the {@code hotKeySubscriber} (REPLICATE).
+   */
+  public static BlockExchange getExchange(List<SendingMailbox> sendingMailboxes, RelDistribution.Type exchangeType,
+      KeySelector<Object[], Object[]> selector, BlockSplitter splitter, PinotRelSkewHandlingType skewHandlingType,
+      int skewSplitFactor, @Nullable HotKeyPublisher hotKeyPublisher, @Nullable HotKeySubscriber hotKeySubscriber) {
     switch (exchangeType) {
       case SINGLETON:
         return new SingletonExchange(sendingMailboxes, splitter);
       case HASH_DISTRIBUTED:
-        return new HashExchange(sendingMailboxes, selector, splitter);
+        return new HashExchange(sendingMailboxes, selector, splitter, skewHandlingType, skewSplitFactor,
+            new HotKeyDetector(1.0 / Math.max(sendingMailboxes.size(), 1)), hotKeyPublisher, hotKeySubscriber,
+            HashExchange.DEFAULT_NUM_HOT_KEY_SAMPLE_ROWS);
       case RANDOM_DISTRIBUTED:
         return new RandomExchange(sendingMailboxes, splitter);
       case BROADCAST_DISTRIBUTED:
@@ -64,16 +87,22 @@ public abstract class BlockExchange {
     _splitter = splitter;
   }
 
-  public void send(TransferableBlock block)
-      throws Exception {
-    boolean isEarlyTerminated = true;
+  /**
+   * Returns {@code true} if all the receivers have terminated (e.g. the downstream LIMIT is already satisfied), in
+   * which case no more blocks need to be produced for this exchange.
+   */
+  public boolean isEarlyTerminated() {
     for (SendingMailbox sendingMailbox : _sendingMailboxes) {
       if (!sendingMailbox.isTerminated()) {
-        isEarlyTerminated = false;
-        break;
+        return false;
       }
     }
-    if (isEarlyTerminated) {
+    return true;
+  }
+
+  public void send(TransferableBlock block)
+      throws Exception {
+    if (isEarlyTerminated()) {
       throw new EarlyTerminationException();
     }
     if (block.isEndOfStreamBlock()) {
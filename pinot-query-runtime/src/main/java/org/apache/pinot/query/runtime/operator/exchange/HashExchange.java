@@ -18,8 +18,11 @@
  */
 package org.apache.pinot.query.runtime.operator.exchange;
 
+import it.unimi.dsi.fastutil.ints.IntSet;
 import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.calcite.rel.logical.PinotRelSkewHandlingType;
 import org.apache.pinot.query.mailbox.SendingMailbox;
 import org.apache.pinot.query.planner.partitioning.KeySelector;
 import org.apache.pinot.query.runtime.blocks.BlockSplitter;
@@ -30,16 +33,92 @@ import org.apache.pinot.query.runtime.blocks.TransferableBlock;
  * Distributes blocks based on the hash of a key, selected by the specified
  * {@code keySelector}. This will redistribute rows from input blocks (breaking
  * them up if necessary).
+ *
+ * <p>To avoid overloading a single worker with a hot key, the exchange can be configured with a
+ * {@link PinotRelSkewHandlingType}: with {@code SPLIT}, the rows with a hot key (detected by a sampled heavy-hitter
+ * sketch) are sent round-robin to the {@code skewSplitFactor} consecutive workers starting from the one selected by the
+ * hash; with {@code REPLICATE}, the rows with a hot key are sent to all of these workers, so that they can all join the
+ * split rows.
+ *
+ * <p>The two sides of a JOIN share the hot keys through a {@link HotKeyPublisher} and a {@link HotKeySubscriber}: the
+ * splitting side samples the keys of its first rows upfront and publishes the detected hot keys before sending any row,
+ * then only splits these keys; the replicating side waits for the hot keys of all the splitting senders before sending
+ * any row, then only replicates the rows of these keys. Without them, the splitting side detects the hot keys as the
+ * rows are sent, and the replicating side replicates every row.
  */
 class HashExchange extends BlockExchange {
+  static final int DEFAULT_NUM_HOT_KEY_SAMPLE_ROWS = 10_000;
 
   // TODO: ensure that server instance list is sorted using same function in sender.
   private final KeySelector<Object[], Object[]> _keySelector;
+  private final PinotRelSkewHandlingType _skewHandlingType;
+  private final int _skewSplitFactor;
+  private final HotKeyDetector _hotKeyDetector;
+  private final HotKeyPublisher _hotKeyPublisher;
+  private final HotKeySubscriber _hotKeySubscriber;
+  private final int _numHotKeySampleRows;
+
+  private int _nextSplitOffset;
+  // Blocks buffered while sampling the hot keys upfront, before they are published
+  private List<TransferableBlock> _sampledBlocks = new ArrayList<>();
+  private int _numSampledRows;
+  // Hot keys published to (SPLIT) or received from (REPLICATE) the other side of the JOIN
+  private IntSet _hotHashes;
 
   HashExchange(List<SendingMailbox> sendingMailboxes, KeySelector<Object[], Object[]> selector,
       BlockSplitter splitter) {
+    this(sendingMailboxes, selector, splitter, PinotRelSkewHandlingType.getDefaultSkewHandlingType(), 0);
+  }
+
+  HashExchange(List<SendingMailbox> sendingMailboxes, KeySelector<Object[], Object[]> selector,
+      BlockSplitter splitter, PinotRelSkewHandlingType skewHandlingType, int skewSplitFactor) {
+    this(sendingMailboxes, selector, splitter, skewHandlingType, skewSplitFactor,
+        new HotKeyDetector(1.0 / Math.max(sendingMailboxes.size(), 1)));
+  }
+
+  HashExchange(List<SendingMailbox> sendingMailboxes, KeySelector<Object[], Object[]> selector,
+      BlockSplitter splitter, PinotRelSkewHandlingType skewHandlingType, int skewSplitFactor,
+      HotKeyDetector hotKeyDetector) {
+    this(sendingMailboxes, selector, splitter, skewHandlingType, skewSplitFactor, hotKeyDetector, null, null,
+        DEFAULT_NUM_HOT_KEY_SAMPLE_ROWS);
+  }
+
+  HashExchange(List<SendingMailbox> sendingMailboxes, KeySelector<Object[], Object[]> selector,
+      BlockSplitter splitter, PinotRelSkewHandlingType skewHandlingType, int skewSplitFactor,
+      HotKeyDetector hotKeyDetector, @Nullable HotKeyPublisher hotKeyPublisher,
+      @Nullable HotKeySubscriber hotKeySubscriber, int numHotKeySampleRows) {
     super(sendingMailboxes, splitter);
     _keySelector = selector;
+    _skewHandlingType = skewHandlingType;
+    _skewSplitFactor = skewSplitFactor;
+    _hotKeyDetector = hotKeyDetector;
+    _hotKeyPublisher = hotKeyPublisher;
+    _hotKeySubscriber = hotKeySubscriber;
+    _numHotKeySampleRows = numHotKeySampleRows;
+  }
+
+  @Override
+  public void send(TransferableBlock block)
+      throws Exception {
+    if (_hotKeyPublisher != null && !_hotKeyPublisher.isPublished()) {
+      if (!block.isEndOfStreamBlock()) {
+        _sampledBlocks.add(block);
+        for (Object[] row : block.getContainer()) {
+          _hotKeyDetector.offer(_keySelector.computeHash(row));
+        }
+        _numSampledRows += block.getNumRows();
+        if (_numSampledRows < _numHotKeySampleRows) {
+          return;
+        }
+      }
+      _hotHashes = _hotKeyDetector.getHotHashes();
+      _hotKeyPublisher.publish(_hotHashes);
+      for (TransferableBlock sampledBlock : _sampledBlocks) {
+        super.send(sampledBlock);
+      }
+      _sampledBlocks = null;
+    }
+    super.send(block);
   }
 
   @Override
@@ -51,16 +130,40 @@ class HashExchange extends BlockExchange {
       return;
     }
 
+    int splitFactor = Math.min(_skewSplitFactor, numMailboxes);
+    if (_hotKeySubscriber != null && _hotHashes == null && splitFactor > 1) {
+      _hotHashes = _hotKeySubscriber.receive();
+    }
     List<Object[]>[] destIdxToRows = new List[numMailboxes];
     List<Object[]> container = block.getContainer();
     for (Object[] row : container) {
-      int index = _keySelector.computeHash(row) % numMailboxes;
-      List<Object[]> rows = destIdxToRows[index];
-      if (rows == null) {
-        rows = new ArrayList<>();
-        destIdxToRows[index] = rows;
+      int hash = _keySelector.computeHash(row);
+      int index = hash % numMailboxes;
+      if (splitFactor <= 1) {
+        addRow(destIdxToRows, index, row);
+        continue;
+      }
+      switch (_skewHandlingType) {
+        case SPLIT:
+          if (_hotHashes != null ? _hotHashes.contains(hash) : _hotKeyDetector.offer(hash)) {
+            index = (index + _nextSplitOffset) % numMailboxes;
+            _nextSplitOffset = (_nextSplitOffset + 1) % splitFactor;
+          }
+          addRow(destIdxToRows, index, row);
+          break;
+        case REPLICATE:
+          if (_hotHashes == null || _hotHashes.contains(hash)) {
+            for (int i = 0; i < splitFactor; i++) {
+              addRow(destIdxToRows, (index + i) % numMailboxes, row);
+            }
+          } else {
+            addRow(destIdxToRows, index, row);
+          }
+          break;
+        default:
+          addRow(destIdxToRows, index, row);
+          break;
       }
-      rows.add(row);
     }
     for (int i = 0; i < numMailboxes; i++) {
       if (destIdxToRows[i] != null) {
@@ -68,4 +171,41 @@ class HashExchange extends BlockExchange {
       }
     }
   }
+
+  @Override
+  public void close() {
+    super.close();
+    if (_hotKeyPublisher != null && !_hotKeyPublisher.isPublished()) {
+      // Terminated before publishing the hot keys (e.g. early terminated), publish the ones detected so far so that the
+      // replicating side does not wait for them
+      try {
+        _hotKeyPublisher.publish(_hotKeyDetector.getHotHashes());
+      } catch (Exception e) {
+        _hotKeyPublisher.cancel(e);
+      }
+    }
+    if (_hotKeySubscriber != null) {
+      _hotKeySubscriber.close();
+    }
+  }
+
+  @Override
+  public void cancel(Throwable t) {
+    super.cancel(t);
+    if (_hotKeyPublisher != null) {
+      _hotKeyPublisher.cancel(t);
+    }
+    if (_hotKeySubscriber != null) {
+      _hotKeySubscriber.close();
+    }
+  }
+
+  private static void addRow(List<Object[]>[] destIdxToRows, int index, Object[] row) {
+    List<Object[]> rows = destIdxToRows[index];
+    if (rows == null) {
+      rows = new ArrayList<>();
+      destIdxToRows[index] = rows;
+    }
+    rows.add(row);
+  }
 }
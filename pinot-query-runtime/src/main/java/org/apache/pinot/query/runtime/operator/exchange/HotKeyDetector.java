@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.exchange;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+
+/**
+ * Detects the hot (heavy-hitter) key hashes of a hash exchange by sampling the rows sent through it.
+ *
+ * <p>The sampled hashes are counted with the Misra-Gries algorithm, which keeps at most {@code capacity} counters and
+ * underestimates the count of a hash by at most {@code numSamples / (capacity + 1)}. A hash is hot when its share of
+ * the samples is at least the given ratio.
+ */
+class HotKeyDetector {
+  static final int DEFAULT_SAMPLE_INTERVAL = 8;
+  static final int DEFAULT_MIN_SAMPLES = 64;
+  static final int DEFAULT_CAPACITY = 64;
+
+  private final int _sampleInterval;
+  private final int _minSamples;
+  private final int _capacity;
+  private final double _hotKeyRatio;
+  private final Int2IntOpenHashMap _counters;
+
+  private long _numRows;
+  private long _numSamples;
+
+  HotKeyDetector(double hotKeyRatio) {
+    this(DEFAULT_SAMPLE_INTERVAL, DEFAULT_MIN_SAMPLES, DEFAULT_CAPACITY, hotKeyRatio);
+  }
+
+  HotKeyDetector(int sampleInterval, int minSamples, int capacity, double hotKeyRatio) {
+    _sampleInterval = sampleInterval;
+    _minSamples = minSamples;
+    _capacity = capacity;
+    _hotKeyRatio = hotKeyRatio;
+    _counters = new Int2IntOpenHashMap(capacity);
+  }
+
+  /**
+   * Records the hash of a row (one out of every {@code sampleInterval} rows is sampled), and returns whether the hash
+   * is hot.
+   */
+  boolean offer(int hash) {
+    if (_numRows++ % _sampleInterval == 0) {
+      sample(hash);
+    }
+    return isHot(hash);
+  }
+
+  boolean isHot(int hash) {
+    return _numSamples >= _minSamples && _counters.get(hash) >= _numSamples * _hotKeyRatio;
+  }
+
+  /**
+   * Returns the hashes that are currently hot.
+   */
+  IntSet getHotHashes() {
+    IntSet hotHashes = new IntOpenHashSet();
+    IntIterator iterator = _counters.keySet().iterator();
+    while (iterator.hasNext()) {
+      int hash = iterator.nextInt();
+      if (isHot(hash)) {
+        hotHashes.add(hash);
+      }
+    }
+    return hotHashes;
+  }
+
+  private void sample(int hash) {
+    _numSamples++;
+    if (_counters.containsKey(hash)) {
+      _counters.addTo(hash, 1);
+    } else if (_counters.size() < _capacity) {
+      _counters.put(hash, 1);
+    } else {
+      // Decrement all the counters, and drop the ones reaching 0
+      ObjectIterator<Int2IntMap.Entry> iterator = _counters.int2IntEntrySet().fastIterator();
+      while (iterator.hasNext()) {
+        Int2IntMap.Entry entry = iterator.next();
+        int count = entry.getIntValue() - 1;
+        if (count == 0) {
+          iterator.remove();
+        } else {
+          entry.setValue(count);
+        }
+      }
+    }
+  }
+}
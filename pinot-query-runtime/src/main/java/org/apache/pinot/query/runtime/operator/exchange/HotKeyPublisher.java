@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.exchange;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.mailbox.SendingMailbox;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+
+
+/**
+ * Publishes the hot keys (hashes) detected by a sender splitting the hot keys of a JOIN to all the senders replicating
+ * the rows of the other side of the JOIN (see {@link HotKeySubscriber}), so that only the rows of the split keys are
+ * replicated.
+ */
+public class HotKeyPublisher {
+  static final DataSchema HOT_KEY_DATA_SCHEMA =
+      new DataSchema(new String[]{"hash"}, new ColumnDataType[]{ColumnDataType.INT});
+
+  private final List<SendingMailbox> _sendingMailboxes;
+
+  private boolean _published;
+
+  public HotKeyPublisher(List<SendingMailbox> sendingMailboxes) {
+    _sendingMailboxes = sendingMailboxes;
+  }
+
+  public boolean isPublished() {
+    return _published;
+  }
+
+  /**
+   * Sends the hot hashes followed by an EOS to all the subscribers. Can only be called once.
+   */
+  public void publish(IntSet hotHashes)
+      throws Exception {
+    _published = true;
+    List<Object[]> rows = new ArrayList<>(hotHashes.size());
+    IntIterator iterator = hotHashes.iterator();
+    while (iterator.hasNext()) {
+      rows.add(new Object[]{iterator.nextInt()});
+    }
+    TransferableBlock hotKeyBlock = new TransferableBlock(rows, HOT_KEY_DATA_SCHEMA, DataBlock.Type.ROW);
+    TransferableBlock eosBlock = TransferableBlockUtils.getEndOfStreamTransferableBlock();
+    for (SendingMailbox sendingMailbox : _sendingMailboxes) {
+      if (!rows.isEmpty()) {
+        sendingMailbox.send(hotKeyBlock);
+      }
+      sendingMailbox.send(eosBlock);
+      sendingMailbox.complete();
+    }
+  }
+
+  public void cancel(Throwable t) {
+    _published = true;
+    for (SendingMailbox sendingMailbox : _sendingMailboxes) {
+      sendingMailbox.cancel(t);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.exchange;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.pinot.query.mailbox.MailboxService;
+import org.apache.pinot.query.mailbox.ReceivingMailbox;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.operator.utils.AsyncStream;
+import org.apache.pinot.query.runtime.operator.utils.BlockingMultiStreamConsumer;
+
+
+/**
+ * Receives the hot keys (hashes) published by all the senders splitting the hot keys of a JOIN (see
+ * {@link HotKeyPublisher}).
+ */
+public class HotKeySubscriber implements AutoCloseable {
+  private final BlockingMultiStreamConsumer.OfTransferableBlock _consumer;
+
+  public HotKeySubscriber(MailboxService mailboxService, List<String> mailboxIds, Object id, long deadlineMs) {
+    List<HotKeyMailboxStream> asyncStreams = new ArrayList<>(mailboxIds.size());
+    for (String mailboxId : mailboxIds) {
+      asyncStreams.add(new HotKeyMailboxStream(mailboxService, mailboxService.getReceivingMailbox(mailboxId)));
+    }
+    _consumer = new BlockingMultiStreamConsumer.OfTransferableBlock(id, deadlineMs, asyncStreams);
+  }
+
+  /**
+   * Blocks until the hot keys are received from all the publishers, and returns the union of them.
+   */
+  public IntSet receive() {
+    IntSet hotHashes = new IntOpenHashSet();
+    while (true) {
+      TransferableBlock block = _consumer.readBlockBlocking();
+      if (block.isErrorBlock()) {
+        throw new RuntimeException(
+            "Caught error while receiving the hot keys: " + block.getDataBlock().getExceptions());
+      }
+      if (block.isSuccessfulEndOfStreamBlock()) {
+        return hotHashes;
+      }
+      for (Object[] row : block.getContainer()) {
+        hotHashes.add((int) row[0]);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    _consumer.close();
+  }
+
+  private static class HotKeyMailboxStream implements AsyncStream<TransferableBlock> {
+    private final MailboxService _mailboxService;
+    private final ReceivingMailbox _mailbox;
+
+    HotKeyMailboxStream(MailboxService mailboxService, ReceivingMailbox mailbox) {
+      _mailboxService = mailboxService;
+      _mailbox = mailbox;
+    }
+
+    @Override
+    public Object getId() {
+      return _mailbox.getId();
+    }
+
+    @Nullable
+    @Override
+    public TransferableBlock poll() {
+      TransferableBlock block = _mailbox.poll();
+      if (block != null && block.isSuccessfulEndOfStreamBlock()) {
+        _mailboxService.releaseReceivingMailbox(_mailbox);
+      }
+      return block;
+    }
+
+    @Override
+    public void addOnNewDataListener(OnNewData onNewData) {
+      _mailbox.registeredReader(onNewData::newDataAvailable);
+    }
+
+    @Override
+    public void cancel() {
+      _mailbox.cancel();
+    }
+  }
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import it.unimi.dsi.fastutil.doubles.Double2IntOpenHashMap;
+import javax.annotation.Nullable;
+
+
+/**
+ * {@link LookupTable} specialized for DOUBLE keys, which stores the keys as primitive double in an open addressing hash
+ * table.
+ */
+public class DoubleLookupTable extends ObjectLookupTable {
+  private final Double2IntOpenHashMap _doubleKeyToChainIdMap = new Double2IntOpenHashMap();
+
+  public DoubleLookupTable() {
+    _doubleKeyToChainIdMap.defaultReturnValue(-1);
+  }
+
+  @Override
+  protected int getOrCreateChainId(@Nullable Object key, int newChainId) {
+    if (key instanceof Double) {
+      int chainId = _doubleKeyToChainIdMap.putIfAbsent(((Double) key).doubleValue(), newChainId);
+      return chainId >= 0 ? chainId : newChainId;
+    }
+    return super.getOrCreateChainId(key, newChainId);
+  }
+
+  @Override
+  protected int getChainId(@Nullable Object key) {
+    if (key instanceof Double) {
+      return _doubleKeyToChainIdMap.get(((Double) key).doubleValue());
+    }
+    return super.getChainId(key);
+  }
+
+  @Override
+  protected void clearKeys() {
+    _doubleKeyToChainIdMap.clear();
+    super.clearKeys();
+  }
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import javax.annotation.Nullable;
+
+
+/**
+ * {@link LookupTable} specialized for INT keys, which stores the keys as primitive int in an open addressing hash
+ * table.
+ */
+public class IntLookupTable extends ObjectLookupTable {
+  private final Int2IntOpenHashMap _intKeyToChainIdMap = new Int2IntOpenHashMap();
+
+  public IntLookupTable() {
+    _intKeyToChainIdMap.defaultReturnValue(-1);
+  }
+
+  @Override
+  protected int getOrCreateChainId(@Nullable Object key, int newChainId) {
+    if (key instanceof Integer) {
+      int chainId = _intKeyToChainIdMap.putIfAbsent(((Integer) key).intValue(), newChainId);
+      return chainId >= 0 ? chainId : newChainId;
+    }
+    return super.getOrCreateChainId(key, newChainId);
+  }
+
+  @Override
+  protected int getChainId(@Nullable Object key) {
+    if (key instanceof Integer) {
+      return _intKeyToChainIdMap.get(((Integer) key).intValue());
+    }
+    return super.getChainId(key);
+  }
+
+  @Override
+  protected void clearKeys() {
+    _intKeyToChainIdMap.clear();
+    super.clearKeys();
+  }
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import javax.annotation.Nullable;
+
+
+/**
+ * {@link LookupTable} specialized for LONG keys, which stores the keys as primitive long in an open addressing hash
+ * table.
+ */
+public class LongLookupTable extends ObjectLookupTable {
+  private final Long2IntOpenHashMap _longKeyToChainIdMap = new Long2IntOpenHashMap();
+
+  public LongLookupTable() {
+    _longKeyToChainIdMap.defaultReturnValue(-1);
+  }
+
+  @Override
+  protected int getOrCreateChainId(@Nullable Object key, int newChainId) {
+    if (key instanceof Long) {
+      int chainId = _longKeyToChainIdMap.putIfAbsent(((Long) key).longValue(), newChainId);
+      return chainId >= 0 ? chainId : newChainId;
+    }
+    return super.getOrCreateChainId(key, newChainId);
+  }
+
+  @Override
+  protected int getChainId(@Nullable Object key) {
+    if (key instanceof Long) {
+      return _longKeyToChainIdMap.get(((Long) key).longValue());
+    }
+    return super.getChainId(key);
+  }
+
+  @Override
+  protected void clearKeys() {
+    _longKeyToChainIdMap.clear();
+    super.clearKeys();
+  }
+}
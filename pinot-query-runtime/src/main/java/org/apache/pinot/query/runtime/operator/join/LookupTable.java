@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+
+
+/**
+ * {@code LookupTable} is the build side hash table of the hash join. It maps each join key to the rows with that key
+ * without boxing keys into {@link org.apache.pinot.core.data.table.Key} or allocating a collection per key.
+ *
+ * <p>Each distinct key is assigned a dense chain id by the type specialized sub-class. Rows are stored in insertion
+ * order and identified by row id, and the rows of the same key are linked through primitive arrays: the chain heads and
+ * tails are indexed by chain id and the next row ids are indexed by row id. Row ids can be used by the caller to track
+ * matched rows with a bitmap.
+ */
+public abstract class LookupTable {
+  protected final List<Object[]> _rows = new ArrayList<>();
+  protected final IntArrayList _nextRowIds = new IntArrayList();
+  protected final IntArrayList _chainHeads = new IntArrayList();
+  protected final IntArrayList _chainTails = new IntArrayList();
+
+  /**
+   * Returns a lookup table specialized for the given key type, {@code null} key type means composite key.
+   */
+  public static LookupTable create(@Nullable ColumnDataType keyType) {
+    if (keyType == null) {
+      return new ObjectLookupTable();
+    }
+    switch (keyType) {
+      case INT:
+        return new IntLookupTable();
+      case LONG:
+        return new LongLookupTable();
+      case DOUBLE:
+        return new DoubleLookupTable();
+      default:
+        return new ObjectLookupTable();
+    }
+  }
+
+  /**
+   * Adds a row with the given key to the table.
+   */
+  public void addRow(@Nullable Object key, Object[] row) {
+    int rowId = _rows.size();
+    _rows.add(row);
+    _nextRowIds.add(-1);
+    int chainId = getOrCreateChainId(key, _chainHeads.size());
+    if (chainId == _chainHeads.size()) {
+      _chainHeads.add(rowId);
+      _chainTails.add(rowId);
+    } else {
+      _nextRowIds.set(_chainTails.getInt(chainId), rowId);
+      _chainTails.set(chainId, rowId);
+    }
+  }
+
+  /**
+   * Returns the id of the first row with the given key, or -1 if the key does not exist.
+   */
+  public int getFirstRowId(@Nullable Object key) {
+    int chainId = getChainId(key);
+    return chainId >= 0 ? _chainHeads.getInt(chainId) : -1;
+  }
+
+  /**
+   * Returns the id of the next row with the same key as the given row, or -1 if it is the last one.
+   */
+  public int getNextRowId(int rowId) {
+    return _nextRowIds.getInt(rowId);
+  }
+
+  public boolean containsKey(@Nullable Object key) {
+    return getChainId(key) >= 0;
+  }
+
+  public Object[] getRow(int rowId) {
+    return _rows.get(rowId);
+  }
+
+  /**
+   * Returns all the rows in insertion order, indexed by row id.
+   */
+  public List<Object[]> getRows() {
+    return _rows;
+  }
+
+  public int size() {
+    return _rows.size();
+  }
+
+  public void clear() {
+    _rows.clear();
+    _nextRowIds.clear();
+    _chainHeads.clear();
+    _chainTails.clear();
+    clearKeys();
+  }
+
+  /**
+   * Returns the chain id of the given key, or assigns the new chain id to the key and returns it if absent.
+   */
+  protected abstract int getOrCreateChainId(@Nullable Object key, int newChainId);
+
+  /**
+   * Returns the chain id of the given key, or -1 if absent.
+   */
+  protected abstract int getChainId(@Nullable Object key);
+
+  protected abstract void clearKeys();
+}
@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import javax.annotation.Nullable;
+
+
+/**
+ * {@link LookupTable} for keys compared with {@link Object#equals(Object)}, e.g. STRING keys and composite keys. It is
+ * also used by the primitive specialized tables for keys not of the expected primitive wrapper type.
+ */
+public class ObjectLookupTable extends LookupTable {
+  private final Object2IntOpenHashMap<Object> _keyToChainIdMap = new Object2IntOpenHashMap<>();
+
+  public ObjectLookupTable() {
+    _keyToChainIdMap.defaultReturnValue(-1);
+  }
+
+  @Override
+  protected int getOrCreateChainId(@Nullable Object key, int newChainId) {
+    int chainId = _keyToChainIdMap.putIfAbsent(key, newChainId);
+    return chainId >= 0 ? chainId : newChainId;
+  }
+
+  @Override
+  protected int getChainId(@Nullable Object key) {
+    return _keyToChainIdMap.getInt(key);
+  }
+
+  @Override
+  protected void clearKeys() {
+    _keyToChainIdMap.clear();
+  }
+}
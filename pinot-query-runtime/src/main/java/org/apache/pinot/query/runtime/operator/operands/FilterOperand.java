@@ -20,6 +20,7 @@ package org.apache.pinot.query.runtime.operator.operands;
 
 import com.google.common.base.Preconditions;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.IntPredicate;
 import org.apache.pinot.common.utils.DataSchema;
@@ -28,13 +29,52 @@ import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
 import org.apache.pinot.spi.utils.BooleanUtils;
 
 
+/**
+ * {@code FilterOperand} evaluates a boolean expression. Besides the row at a time {@link #apply(Object[])}, it can
+ * narrow down a selection vector of row ids through {@link #filter(List, int[], int)}, so that the children of AND are
+ * only evaluated on the rows that are still selected, and the children of OR only on the rows not yet matched.
+ */
 public abstract class FilterOperand extends TransformOperand {
 
   @Override
   public abstract Boolean apply(Object[] row);
 
+  /**
+   * Keeps the rows within the first {@code numRows} entries of {@code rowIds} that match the filter, compacting them
+   * to the front of {@code rowIds} in their original order, and returns the number of matching rows.
+   */
+  public int filter(List<Object[]> rows, int[] rowIds, int numRows) {
+    int numMatchingRows = 0;
+    for (int i = 0; i < numRows; i++) {
+      int rowId = rowIds[i];
+      if (apply(rows.get(rowId))) {
+        rowIds[numMatchingRows++] = rowId;
+      }
+    }
+    return numMatchingRows;
+  }
+
+  /**
+   * Filters the selected rows with the given operand, where non-filter operands match the rows evaluated to true.
+   */
+  private static int filter(TransformOperand operand, List<Object[]> rows, int[] rowIds, int numRows,
+      Object[] resultsBuffer) {
+    if (operand instanceof FilterOperand) {
+      return ((FilterOperand) operand).filter(rows, rowIds, numRows);
+    }
+    operand.apply(rows, rowIds, numRows, resultsBuffer);
+    int numMatchingRows = 0;
+    for (int i = 0; i < numRows; i++) {
+      if (BooleanUtils.toBoolean(resultsBuffer[i])) {
+        rowIds[numMatchingRows++] = rowIds[i];
+      }
+    }
+    return numMatchingRows;
+  }
+
   public static class And extends FilterOperand {
     List<TransformOperand> _childOperands;
+    private Object[] _resultsBuffer;
 
     public And(List<RexExpression> childExprs, DataSchema inputDataSchema) {
       _childOperands = new ArrayList<>(childExprs.size());
@@ -52,10 +92,23 @@ public abstract class FilterOperand extends TransformOperand {
       }
       return true;
     }
+
+    @Override
+    public int filter(List<Object[]> rows, int[] rowIds, int numRows) {
+      _resultsBuffer = ensureCapacity(_resultsBuffer, numRows);
+      for (TransformOperand child : _childOperands) {
+        if (numRows == 0) {
+          break;
+        }
+        numRows = FilterOperand.filter(child, rows, rowIds, numRows, _resultsBuffer);
+      }
+      return numRows;
+    }
   }
 
   public static class Or extends FilterOperand {
     List<TransformOperand> _childOperands;
+    private Object[] _resultsBuffer;
 
     public Or(List<RexExpression> childExprs, DataSchema inputDataSchema) {
       _childOperands = new ArrayList<>(childExprs.size());
@@ -73,10 +126,54 @@ public abstract class FilterOperand extends TransformOperand {
       }
       return false;
     }
+
+    @Override
+    public int filter(List<Object[]> rows, int[] rowIds, int numRows) {
+      _resultsBuffer = ensureCapacity(_resultsBuffer, numRows);
+      // Each child is only evaluated on the rows not matched by the previous children. Track the remaining rows by
+      // their positions within rowIds so that the matching rows can be marked without searching.
+      int[] remainingPositions = new int[numRows];
+      for (int i = 0; i < numRows; i++) {
+        remainingPositions[i] = i;
+      }
+      int numRemainingRows = numRows;
+      int[] childRowIds = new int[numRows];
+      boolean[] matched = new boolean[numRows];
+      for (TransformOperand child : _childOperands) {
+        if (numRemainingRows == 0) {
+          break;
+        }
+        for (int i = 0; i < numRemainingRows; i++) {
+          childRowIds[i] = rowIds[remainingPositions[i]];
+        }
+        int numChildMatchingRows = FilterOperand.filter(child, rows, childRowIds, numRemainingRows, _resultsBuffer);
+        // The matching rows keep their relative order, so they can be found with a single pass
+        int matchingIndex = 0;
+        int numStillRemainingRows = 0;
+        for (int i = 0; i < numRemainingRows; i++) {
+          int position = remainingPositions[i];
+          if (matchingIndex < numChildMatchingRows && rowIds[position] == childRowIds[matchingIndex]) {
+            matched[position] = true;
+            matchingIndex++;
+          } else {
+            remainingPositions[numStillRemainingRows++] = position;
+          }
+        }
+        numRemainingRows = numStillRemainingRows;
+      }
+      int numMatchingRows = 0;
+      for (int i = 0; i < numRows; i++) {
+        if (matched[i]) {
+          rowIds[numMatchingRows++] = rowIds[i];
+        }
+      }
+      return numMatchingRows;
+    }
   }
 
   public static class Not extends FilterOperand {
     TransformOperand _childOperand;
+    private Object[] _resultsBuffer;
 
     public Not(RexExpression childExpr, DataSchema inputDataSchema) {
       _childOperand = toTransformOperand(childExpr, inputDataSchema);
@@ -86,10 +183,30 @@ public abstract class FilterOperand extends TransformOperand {
     public Boolean apply(Object[] row) {
       return !BooleanUtils.toBoolean(_childOperand.apply(row));
     }
+
+    @Override
+    public int filter(List<Object[]> rows, int[] rowIds, int numRows) {
+      _resultsBuffer = ensureCapacity(_resultsBuffer, numRows);
+      int[] childRowIds = Arrays.copyOf(rowIds, numRows);
+      int numChildMatchingRows = FilterOperand.filter(_childOperand, rows, childRowIds, numRows, _resultsBuffer);
+      // Keep the rows not matched by the child, the matched rows keep their relative order
+      int matchingIndex = 0;
+      int numMatchingRows = 0;
+      for (int i = 0; i < numRows; i++) {
+        int rowId = rowIds[i];
+        if (matchingIndex < numChildMatchingRows && rowId == childRowIds[matchingIndex]) {
+          matchingIndex++;
+        } else {
+          rowIds[numMatchingRows++] = rowId;
+        }
+      }
+      return numMatchingRows;
+    }
   }
 
   public static class True extends FilterOperand {
     TransformOperand _childOperand;
+    private Object[] _resultsBuffer;
 
     public True(RexExpression childExpr, DataSchema inputDataSchema) {
       _childOperand = toTransformOperand(childExpr, inputDataSchema);
@@ -99,6 +216,12 @@ public abstract class FilterOperand extends TransformOperand {
     public Boolean apply(Object[] row) {
       return BooleanUtils.toBoolean(_childOperand.apply(row));
     }
+
+    @Override
+    public int filter(List<Object[]> rows, int[] rowIds, int numRows) {
+      _resultsBuffer = ensureCapacity(_resultsBuffer, numRows);
+      return FilterOperand.filter(_childOperand, rows, rowIds, numRows, _resultsBuffer);
+    }
   }
 
   public static class Predicate extends FilterOperand {
@@ -107,6 +230,8 @@ public abstract class FilterOperand extends TransformOperand {
     private final IntPredicate _comparisonResultPredicate;
     private final boolean _requireCasting;
     private final DataSchema.ColumnDataType _commonCastType;
+    private Object[] _lhsValues;
+    private Object[] _rhsValues;
 
     /**
      * Predicate constructor also resolve data type,
@@ -166,5 +291,59 @@ public abstract class FilterOperand extends TransformOperand {
       }
       return _comparisonResultPredicate.test(v1.compareTo(v2));
     }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Override
+    public int filter(List<Object[]> rows, int[] rowIds, int numRows) {
+      _lhsValues = ensureCapacity(_lhsValues, numRows);
+      _rhsValues = ensureCapacity(_rhsValues, numRows);
+      _lhs.apply(rows, rowIds, numRows, _lhsValues);
+      // Same as apply(), only evaluate the rhs on the rows with non-null lhs
+      int numNonNullRows = 0;
+      for (int i = 0; i < numRows; i++) {
+        Object v1 = _lhsValues[i];
+        if (v1 != null) {
+          rowIds[numNonNullRows] = rowIds[i];
+          _lhsValues[numNonNullRows++] = v1;
+        }
+      }
+      _rhs.apply(rows, rowIds, numNonNullRows, _rhsValues);
+      int numMatchingRows = 0;
+      for (int i = 0; i < numNonNullRows; i++) {
+        Object v1 = _lhsValues[i];
+        Object v2 = _rhsValues[i];
+        if (v2 == null) {
+          continue;
+        }
+        int comparisonResult;
+        if (_requireCasting) {
+          // Compare numbers on their primitive values to avoid boxing the converted values
+          switch (_commonCastType) {
+            case INT:
+              comparisonResult = Integer.compare(((Number) v1).intValue(), ((Number) v2).intValue());
+              break;
+            case LONG:
+              comparisonResult = Long.compare(((Number) v1).longValue(), ((Number) v2).longValue());
+              break;
+            case FLOAT:
+              comparisonResult = Float.compare(((Number) v1).floatValue(), ((Number) v2).floatValue());
+              break;
+            case DOUBLE:
+              comparisonResult = Double.compare(((Number) v1).doubleValue(), ((Number) v2).doubleValue());
+              break;
+            default:
+              comparisonResult = ((Comparable) TypeUtils.convert(v1, _commonCastType)).compareTo(
+                  TypeUtils.convert(v2, _commonCastType));
+              break;
+          }
+        } else {
+          comparisonResult = ((Comparable) v1).compareTo(v2);
+        }
+        if (_comparisonResultPredicate.test(comparisonResult)) {
+          rowIds[numMatchingRows++] = rowIds[i];
+        }
+      }
+      return numMatchingRows;
+    }
   }
 }
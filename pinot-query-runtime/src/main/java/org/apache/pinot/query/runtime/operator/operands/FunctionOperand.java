@@ -36,6 +36,7 @@ public class FunctionOperand extends TransformOperand {
   private final List<TransformOperand> _childOperandList;
   private final FunctionInvoker _functionInvoker;
   private final Object[] _reusableOperandHolder;
+  private final Object[][] _reusableOperandColumns;
 
   public FunctionOperand(RexExpression.FunctionCall functionCall, DataSchema dataSchema) {
     // iteratively resolve child operands.
@@ -55,6 +56,7 @@ public class FunctionOperand extends TransformOperand {
       _resultType = DataSchema.ColumnDataType.fromDataType(functionCall.getDataType(), true);
     }
     _reusableOperandHolder = new Object[operandExpressions.size()];
+    _reusableOperandColumns = new Object[operandExpressions.size()][];
   }
 
   @Override
@@ -65,6 +67,21 @@ public class FunctionOperand extends TransformOperand {
     return _functionInvoker.invoke(_reusableOperandHolder);
   }
 
+  @Override
+  public void apply(List<Object[]> rows, int[] rowIds, int numRows, Object[] results) {
+    int numOperands = _childOperandList.size();
+    for (int i = 0; i < numOperands; i++) {
+      _reusableOperandColumns[i] = ensureCapacity(_reusableOperandColumns[i], numRows);
+      _childOperandList.get(i).apply(rows, rowIds, numRows, _reusableOperandColumns[i]);
+    }
+    for (int i = 0; i < numRows; i++) {
+      for (int j = 0; j < numOperands; j++) {
+        _reusableOperandHolder[j] = _reusableOperandColumns[j][i];
+      }
+      results[i] = _functionInvoker.invoke(_reusableOperandHolder);
+    }
+  }
+
   private static String computeColumnName(String functionName, List<TransformOperand> childOperands) {
     StringBuilder sb = new StringBuilder();
     sb.append(functionName);
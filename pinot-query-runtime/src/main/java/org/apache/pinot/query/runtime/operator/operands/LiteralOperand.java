@@ -18,6 +18,8 @@
  */
 package org.apache.pinot.query.runtime.operator.operands;
 
+import java.util.Arrays;
+import java.util.List;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.planner.logical.RexExpression;
 
@@ -34,4 +36,9 @@ public class LiteralOperand extends TransformOperand {
   public Object apply(Object[] row) {
     return _value;
   }
+
+  @Override
+  public void apply(List<Object[]> rows, int[] rowIds, int numRows, Object[] results) {
+    Arrays.fill(results, 0, numRows, _value);
+  }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.query.runtime.operator.operands;
 
+import java.util.List;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.planner.logical.RexExpression;
 
@@ -35,4 +36,11 @@ public class ReferenceOperand extends TransformOperand {
   public Object apply(Object[] row) {
     return row[_refIndex];
   }
+
+  @Override
+  public void apply(List<Object[]> rows, int[] rowIds, int numRows, Object[] results) {
+    for (int i = 0; i < numRows; i++) {
+      results[i] = rows.get(rowIds[i])[_refIndex];
+    }
+  }
 }
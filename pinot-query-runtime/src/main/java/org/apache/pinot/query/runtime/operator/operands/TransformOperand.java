@@ -26,6 +26,12 @@ import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.runtime.operator.utils.OperatorUtils;
 
 
+/**
+ * {@code TransformOperand} evaluates an expression on the rows of a block. Besides the row at a time
+ * {@link #apply(Object[])}, operands can evaluate a batch of rows selected by a selection vector of row ids through
+ * {@link #apply(List, int[], int, Object[])}, which produces a whole column of results at once and lets the operand
+ * tree be walked once per block instead of once per row.
+ */
 public abstract class TransformOperand {
   protected String _resultName;
   protected DataSchema.ColumnDataType _resultType;
@@ -89,4 +95,21 @@ public abstract class TransformOperand {
 
   @Nullable
   public abstract Object apply(Object[] row);
+
+  /**
+   * Evaluates the operand on the rows selected by the first {@code numRows} entries of {@code rowIds}, and writes the
+   * result of {@code rows.get(rowIds[i])} into {@code results[i]}.
+   */
+  public void apply(List<Object[]> rows, int[] rowIds, int numRows, Object[] results) {
+    for (int i = 0; i < numRows; i++) {
+      results[i] = apply(rows.get(rowIds[i]));
+    }
+  }
+
+  /**
+   * Returns a buffer that can hold at least {@code numRows} values, reusing the given one when it is large enough.
+   */
+  protected static Object[] ensureCapacity(@Nullable Object[] buffer, int numRows) {
+    return buffer != null && buffer.length >= numRows ? buffer : new Object[numRows];
+  }
 }
@@ -42,6 +42,7 @@ public abstract class BlockingMultiStreamConsumer<E> implements AutoCloseable {
    */
   protected int _lastRead;
   private E _errorBlock = null;
+  private boolean _finished = false;
 
   public BlockingMultiStreamConsumer(Object id, long deadlineMs, List<? extends AsyncStream<E>> asyncProducers) {
     _id = id;
@@ -141,6 +142,66 @@ public abstract class BlockingMultiStreamConsumer<E> implements AutoCloseable {
     }
   }
 
+  public int getNumMailboxes() {
+    return _mailboxes.size();
+  }
+
+  /**
+   * Returns whether {@link #readBlockBlocking()} returned the EOS, i.e. all the mailboxes already emitted EOS.
+   */
+  public boolean isFinished() {
+    return _finished;
+  }
+
+  /**
+   * Reads the next block from the mailbox at the given index, or returns null if the mailbox is not ready. Returns the
+   * error block when the deadline is reached.
+   *
+   * Unlike {@link #readBlockBlocking()}, the EOS of the mailbox is returned as is and the mailbox is kept, so that the
+   * caller can consume the mailboxes in its own order (e.g. to merge sorted streams). The caller must not read a
+   * mailbox again after its EOS, and must not mix this method with {@link #readBlockBlocking()}.
+   *
+   * The caller should keep consuming all the mailboxes (and buffer the blocks it cannot process yet) instead of only
+   * waiting for one of them. The senders block when the receiving mailbox is full, so waiting for a single mailbox can
+   * deadlock when the sender of that mailbox is blocked on another receiver, which is in turn waiting for a sender
+   * blocked on one of the mailboxes not being read here.
+   */
+  @Nullable
+  public E pollBlock(int mailboxIndex) {
+    if (System.currentTimeMillis() > _deadlineMs) {
+      _errorBlock = onTimeout();
+      return _errorBlock;
+    }
+    AsyncStream<E> mailbox = _mailboxes.get(mailboxIndex);
+    E block = mailbox.poll();
+    if (block != null && isError(block)) {
+      LOGGER.info("==[RECEIVE]== Error block found from : " + _id + " in mailbox " + mailbox.getId());
+      _errorBlock = block;
+    }
+    return block;
+  }
+
+  /**
+   * Blocks until any mailbox has new data, to be used along with {@link #pollBlock(int)}. Returns null when new data
+   * might be available, or the error block on timeout or interruption.
+   */
+  @Nullable
+  public E awaitNewData() {
+    try {
+      long timeoutMs = _deadlineMs - System.currentTimeMillis();
+      if (_newDataReady.poll(timeoutMs, TimeUnit.MILLISECONDS) == null) {
+        if (LOGGER.isDebugEnabled()) {
+          LOGGER.debug("==[RECEIVE]== Timeout on: " + _id);
+        }
+        _errorBlock = onTimeout();
+        return _errorBlock;
+      }
+      return null;
+    } catch (InterruptedException ex) {
+      return onException(ex);
+    }
+  }
+
   /**
    * This is a utility method that reads tries to read from the different mailboxes in a circular manner.
    *
@@ -176,6 +237,7 @@ public abstract class BlockingMultiStreamConsumer<E> implements AutoCloseable {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug("==[RECEIVE]== Finished : " + _id);
       }
+      _finished = true;
       return onEos();
     }
     if (block != null) {
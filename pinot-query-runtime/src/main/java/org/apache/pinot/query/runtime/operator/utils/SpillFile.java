@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.utils;
+
+import com.google.common.base.Preconditions;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datablock.DataBlockUtils;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.plan.StageMetadata;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.utils.CommonConstants;
+
+
+/**
+ * {@code SpillFile} is an append-only local file of serialized row {@link DataBlock}s, used by multi-stage operators
+ * to move intermediate rows out of the heap when they exceed their in-memory budget.
+ *
+ * <p>Blocks are written length-prefixed through a buffered stream. Once the first read is requested the file is sealed
+ * and memory-mapped read-only, and each block is deserialized back into rows directly from the mapped buffer.
+ * {@link #close()} unmaps and deletes the file.
+ */
+@NotThreadSafe
+public class SpillFile implements Closeable, Iterable<List<Object[]>> {
+  public static final File DEFAULT_SPILL_DIR = new File(FileUtils.getTempDirectory(), "pinot-multistage-spill");
+
+  private final File _file;
+  private final DataSchema _dataSchema;
+
+  private DataOutputStream _outputStream;
+  private PinotDataBuffer _dataBuffer;
+  private long _numBytes;
+  private long _numRows;
+  private boolean _closed;
+
+  /**
+   * Returns the spill directory configured on the server for the stage, or {@link #DEFAULT_SPILL_DIR} if not set.
+   */
+  public static File getSpillDir(@Nullable StageMetadata stageMetadata) {
+    if (stageMetadata != null && stageMetadata.getCustomProperties() != null) {
+      String spillDir =
+          stageMetadata.getCustomProperties().get(CommonConstants.MultiStageQueryRunner.KEY_OF_SPILL_DIR);
+      if (spillDir != null) {
+        return new File(spillDir);
+      }
+    }
+    return DEFAULT_SPILL_DIR;
+  }
+
+  public SpillFile(File spillDir, String prefix, DataSchema dataSchema)
+      throws IOException {
+    FileUtils.forceMkdir(spillDir);
+    _file = File.createTempFile(prefix, ".spill", spillDir);
+    _dataSchema = dataSchema;
+    _outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_file)));
+  }
+
+  /**
+   * Appends the given rows as one serialized data block, returns the number of bytes written to disk.
+   */
+  public long append(List<Object[]> rows)
+      throws IOException {
+    Preconditions.checkState(_outputStream != null, "Cannot append to a sealed spill file: %s", _file);
+    if (rows.isEmpty()) {
+      return 0;
+    }
+    byte[] bytes = DataBlockBuilder.buildFromRows(rows, _dataSchema).toBytes();
+    _outputStream.writeInt(bytes.length);
+    _outputStream.write(bytes);
+    long numBytes = Integer.BYTES + bytes.length;
+    _numBytes += numBytes;
+    _numRows += rows.size();
+    return numBytes;
+  }
+
+  public long getNumBytes() {
+    return _numBytes;
+  }
+
+  public long getNumRows() {
+    return _numRows;
+  }
+
+  public DataSchema getDataSchema() {
+    return _dataSchema;
+  }
+
+  /**
+   * Returns an iterator over the spilled blocks in the order they were appended. No more rows can be appended once
+   * the file has been read.
+   */
+  @Override
+  public Iterator<List<Object[]>> iterator() {
+    Preconditions.checkState(!_closed, "Spill file: %s is already closed", _file);
+    try {
+      seal();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (_dataBuffer == null) {
+      return Collections.emptyIterator();
+    }
+    PinotDataBuffer dataBuffer = _dataBuffer;
+    return new Iterator<List<Object[]>>() {
+      private long _offset = 0;
+
+      @Override
+      public boolean hasNext() {
+        return _offset < _numBytes;
+      }
+
+      @Override
+      public List<Object[]> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int size = dataBuffer.getInt(_offset);
+        try {
+          DataBlock dataBlock =
+              DataBlockUtils.getDataBlock(dataBuffer.toDirectByteBuffer(_offset + Integer.BYTES, size));
+          _offset += Integer.BYTES + size;
+          return new TransferableBlock(dataBlock).getContainer();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    };
+  }
+
+  private void seal()
+      throws IOException {
+    if (_outputStream == null) {
+      return;
+    }
+    _outputStream.close();
+    _outputStream = null;
+    if (_numBytes > 0) {
+      _dataBuffer =
+          PinotDataBuffer.mapFile(_file, true, 0, _numBytes, ByteOrder.BIG_ENDIAN, "Spill file: " + _file.getName());
+    }
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    if (_closed) {
+      return;
+    }
+    _closed = true;
+    try {
+      if (_outputStream != null) {
+        _outputStream.close();
+        _outputStream = null;
+      }
+      if (_dataBuffer != null) {
+        _dataBuffer.close();
+        _dataBuffer = null;
+      }
+    } finally {
+      FileUtils.deleteQuietly(_file);
+    }
+  }
+}
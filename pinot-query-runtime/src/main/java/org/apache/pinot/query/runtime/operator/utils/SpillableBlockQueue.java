@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+
+
+/**
+ * {@code SpillableBlockQueue} is a FIFO queue of row blocks, which holds up to the given number of rows in memory and
+ * appends the following blocks to {@link SpillFile}s, so that an operator can buffer an input of any size (e.g. to keep
+ * consuming the mailboxes it is not reading yet) with bounded memory.
+ *
+ * <p>The blocks are always polled in the order they were added. Once a block is spilled, the following blocks are
+ * appended to the same spill file until the spill file is being read, so that the queue does not alternate between the
+ * memory and many small spill files when the memory is close to full.
+ */
+@NotThreadSafe
+public class SpillableBlockQueue implements Closeable {
+  private final File _spillDir;
+  private final String _spillFilePrefix;
+  private final int _maxRowsInMemory;
+
+  // Consecutive blocks in the order they were added, where each segment is either in memory or in a spill file
+  private final ArrayDeque<Segment> _segments = new ArrayDeque<>();
+  private int _numRowsInMemory;
+  private int _numBlocks;
+
+  public SpillableBlockQueue(File spillDir, String spillFilePrefix, int maxRowsInMemory) {
+    _spillDir = spillDir;
+    _spillFilePrefix = spillFilePrefix;
+    _maxRowsInMemory = maxRowsInMemory;
+  }
+
+  /**
+   * Adds the rows of the given data block to the end of the queue, returns the number of bytes spilled to disk.
+   */
+  public long add(TransferableBlock block)
+      throws IOException {
+    List<Object[]> rows = block.getContainer();
+    if (rows.isEmpty()) {
+      return 0;
+    }
+    _numBlocks++;
+    Segment tail = _segments.peekLast();
+    if (tail != null && tail.isAppendableSpillFile()) {
+      return tail._spillFile.append(rows);
+    }
+    if (_numRowsInMemory + rows.size() <= _maxRowsInMemory) {
+      if (tail == null || tail._blocks == null) {
+        tail = new Segment(new ArrayDeque<>(), null);
+        _segments.addLast(tail);
+      }
+      tail._blocks.addLast(rows);
+      _numRowsInMemory += rows.size();
+      return 0;
+    }
+    SpillFile spillFile = new SpillFile(_spillDir, _spillFilePrefix, block.getDataSchema());
+    _segments.addLast(new Segment(null, spillFile));
+    return spillFile.append(rows);
+  }
+
+  /**
+   * Removes and returns the first block of the queue, or returns {@code null} if the queue is empty.
+   */
+  @Nullable
+  public List<Object[]> poll()
+      throws IOException {
+    while (!_segments.isEmpty()) {
+      Segment head = _segments.peekFirst();
+      List<Object[]> rows = head.poll();
+      if (rows != null) {
+        if (head._blocks != null) {
+          _numRowsInMemory -= rows.size();
+        }
+        _numBlocks--;
+        return rows;
+      }
+      _segments.pollFirst();
+      head.close();
+    }
+    return null;
+  }
+
+  public boolean isEmpty() {
+    return _numBlocks == 0;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    IOException exception = null;
+    for (Segment segment : _segments) {
+      try {
+        segment.close();
+      } catch (IOException e) {
+        exception = e;
+      }
+    }
+    _segments.clear();
+    _numRowsInMemory = 0;
+    _numBlocks = 0;
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  private static class Segment {
+    final ArrayDeque<List<Object[]>> _blocks;
+    final SpillFile _spillFile;
+    // Set once the spill file is being read, after which no more blocks can be appended
+    Iterator<List<Object[]>> _spilledBlocks;
+
+    Segment(@Nullable ArrayDeque<List<Object[]>> blocks, @Nullable SpillFile spillFile) {
+      _blocks = blocks;
+      _spillFile = spillFile;
+    }
+
+    boolean isAppendableSpillFile() {
+      return _spillFile != null && _spilledBlocks == null;
+    }
+
+    @Nullable
+    List<Object[]> poll() {
+      if (_blocks != null) {
+        return _blocks.pollFirst();
+      }
+      if (_spilledBlocks == null) {
+        _spilledBlocks = _spillFile.iterator();
+      }
+      return _spilledBlocks.hasNext() ? _spilledBlocks.next() : null;
+    }
+
+    void close()
+        throws IOException {
+      if (_spillFile != null) {
+        _spillFile.close();
+      }
+    }
+  }
+}
@@ -45,6 +45,7 @@ import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
 import org.apache.pinot.query.runtime.operator.MinusOperator;
 import org.apache.pinot.query.runtime.operator.MultiStageOperator;
 import org.apache.pinot.query.runtime.operator.OpChain;
+import org.apache.pinot.query.runtime.operator.SortMergeJoinOperator;
 import org.apache.pinot.query.runtime.operator.SortOperator;
 import org.apache.pinot.query.runtime.operator.SortedMailboxReceiveOperator;
 import org.apache.pinot.query.runtime.operator.TransformOperator;
@@ -89,9 +90,14 @@ public class PhysicalPlanVisitor implements PlanNodeVisitor<MultiStageOperator,
   @Override
   public MultiStageOperator visitMailboxSend(MailboxSendNode node, PhysicalPlanContext context) {
     MultiStageOperator nextOperator = node.getInputs().get(0).visit(this, context);
+    if (node.isSortOnSender()) {
+      nextOperator = SortOperator.createFullSort(context.getOpChainExecutionContext(), nextOperator,
+          node.getCollationKeys(), node.getCollationDirections(), node.getCollationNullDirections(),
+          node.getDataSchema());
+    }
     return new MailboxSendOperator(context.getOpChainExecutionContext(), nextOperator, node.getDistributionType(),
         node.getPartitionKeySelector(), node.getCollationKeys(), node.getCollationDirections(), node.isSortOnSender(),
-        node.getReceiverStageId());
+        node.getReceiverStageId(), node.getSkewHandlingType(), node.getSkewSplitFactor(), node.getHotKeyStageId());
   }
 
   @Override
@@ -155,8 +161,15 @@ public class PhysicalPlanVisitor implements PlanNodeVisitor<MultiStageOperator,
     MultiStageOperator leftOperator = left.visit(this, context);
     MultiStageOperator rightOperator = right.visit(this, context);
 
-    return new HashJoinOperator(context.getOpChainExecutionContext(), leftOperator, rightOperator, left.getDataSchema(),
-        node);
+    switch (node.getJoinStrategy()) {
+      case SORT_MERGE:
+        return new SortMergeJoinOperator(context.getOpChainExecutionContext(), leftOperator, rightOperator,
+            left.getDataSchema(), node);
+      case HASH:
+      default:
+        return new HashJoinOperator(context.getOpChainExecutionContext(), leftOperator, rightOperator,
+            left.getDataSchema(), node);
+    }
   }
 
   @Override
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.query.runtime.plan.server;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
@@ -62,6 +63,9 @@ import org.slf4j.LoggerFactory;
 
 public class ServerPlanRequestUtils {
   private static final int DEFAULT_LEAF_NODE_LIMIT = Integer.MAX_VALUE;
+  // Max number of distinct values of a join key to attach as an optional dynamic filter
+  @VisibleForTesting
+  static final int MAX_NUM_OPTIONAL_DYNAMIC_FILTER_VALUES = 10_000;
   private static final Logger LOGGER = LoggerFactory.getLogger(ServerPlanRequestUtils.class);
   private static final List<String> QUERY_REWRITERS_CLASS_NAMES =
       ImmutableList.of(PredicateComparisonRewriter.class.getName(),
@@ -216,79 +220,118 @@ public class ServerPlanRequestUtils {
 
   /**
    * attach the dynamic filter to the given PinotQuery.
+   *
+   * <p>When the filter is optional (i.e. the join condition is still applied by a hash join on top of the leaf stage),
+   * the IN filter of a join key is skipped when the right table has more than
+   * {@link #MAX_NUM_OPTIONAL_DYNAMIC_FILTER_VALUES} distinct values for the key.
    */
   static void attachDynamicFilter(PinotQuery pinotQuery, JoinNode.JoinKeys joinKeys, List<Object[]> dataContainer,
-      DataSchema dataSchema) {
+      DataSchema dataSchema, boolean isOptional) {
     FieldSelectionKeySelector leftSelector = (FieldSelectionKeySelector) joinKeys.getLeftJoinKeySelector();
     FieldSelectionKeySelector rightSelector = (FieldSelectionKeySelector) joinKeys.getRightJoinKeySelector();
     List<Expression> expressions = new ArrayList<>();
     for (int i = 0; i < leftSelector.getColumnIndices().size(); i++) {
       Expression leftExpr = pinotQuery.getSelectList().get(leftSelector.getColumnIndices().get(i));
       int rightIdx = rightSelector.getColumnIndices().get(i);
+      List<Expression> values = computeInOperands(dataContainer, dataSchema, rightIdx);
+      if (values.isEmpty()) {
+        // null never matches the join condition, this is constant false filter.
+        pinotQuery.setLimit(0);
+        return;
+      }
+      if (isOptional && values.size() > MAX_NUM_OPTIONAL_DYNAMIC_FILTER_VALUES) {
+        continue;
+      }
       Expression inFilterExpr = RequestUtils.getFunctionExpression(FilterKind.IN.name());
-      List<Expression> operands = new ArrayList<>(dataContainer.size() + 1);
+      List<Expression> operands = new ArrayList<>(values.size() + 1);
       operands.add(leftExpr);
-      operands.addAll(computeInOperands(dataContainer, dataSchema, rightIdx));
+      operands.addAll(values);
       inFilterExpr.getFunctionCall().setOperands(operands);
       expressions.add(inFilterExpr);
     }
-    attachFilterExpression(pinotQuery, FilterKind.AND, expressions);
+    if (!expressions.isEmpty()) {
+      attachFilterExpression(pinotQuery, FilterKind.AND, expressions);
+    }
   }
 
+  /**
+   * Returns the sorted distinct non-null values of the given column as literal expressions.
+   */
   private static List<Expression> computeInOperands(List<Object[]> dataContainer, DataSchema dataSchema, int colIdx) {
     final DataSchema.ColumnDataType columnDataType = dataSchema.getColumnDataType(colIdx);
     final FieldSpec.DataType storedType = columnDataType.getStoredType().toDataType();
     final int numRows = dataContainer.size();
     List<Expression> expressions = new ArrayList<>();
+    int numValues = 0;
     switch (storedType) {
       case INT:
         int[] arrInt = new int[numRows];
-        for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          arrInt[rowIdx] = (int) dataContainer.get(rowIdx)[colIdx];
+        for (Object[] row : dataContainer) {
+          if (row[colIdx] != null) {
+            arrInt[numValues++] = (int) row[colIdx];
+          }
         }
-        Arrays.sort(arrInt);
-        for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrInt[rowIdx]));
+        Arrays.sort(arrInt, 0, numValues);
+        for (int i = 0; i < numValues; i++) {
+          if (i == 0 || arrInt[i] != arrInt[i - 1]) {
+            expressions.add(RequestUtils.getLiteralExpression(arrInt[i]));
+          }
         }
         break;
       case LONG:
         long[] arrLong = new long[numRows];
-        for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          arrLong[rowIdx] = (long) dataContainer.get(rowIdx)[colIdx];
+        for (Object[] row : dataContainer) {
+          if (row[colIdx] != null) {
+            arrLong[numValues++] = (long) row[colIdx];
+          }
         }
-        Arrays.sort(arrLong);
-        for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrLong[rowIdx]));
+        Arrays.sort(arrLong, 0, numValues);
+        for (int i = 0; i < numValues; i++) {
+          if (i == 0 || arrLong[i] != arrLong[i - 1]) {
+            expressions.add(RequestUtils.getLiteralExpression(arrLong[i]));
+          }
         }
         break;
       case FLOAT:
         float[] arrFloat = new float[numRows];
-        for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          arrFloat[rowIdx] = (float) dataContainer.get(rowIdx)[colIdx];
+        for (Object[] row : dataContainer) {
+          if (row[colIdx] != null) {
+            arrFloat[numValues++] = (float) row[colIdx];
+          }
         }
-        Arrays.sort(arrFloat);
-        for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrFloat[rowIdx]));
+        Arrays.sort(arrFloat, 0, numValues);
+        for (int i = 0; i < numValues; i++) {
+          if (i == 0 || Float.compare(arrFloat[i], arrFloat[i - 1]) != 0) {
+            expressions.add(RequestUtils.getLiteralExpression(arrFloat[i]));
+          }
         }
         break;
       case DOUBLE:
         double[] arrDouble = new double[numRows];
-        for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          arrDouble[rowIdx] = (double) dataContainer.get(rowIdx)[colIdx];
+        for (Object[] row : dataContainer) {
+          if (row[colIdx] != null) {
+            arrDouble[numValues++] = (double) row[colIdx];
+          }
         }
-        Arrays.sort(arrDouble);
-        for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrDouble[rowIdx]));
+        Arrays.sort(arrDouble, 0, numValues);
+        for (int i = 0; i < numValues; i++) {
+          if (i == 0 || Double.compare(arrDouble[i], arrDouble[i - 1]) != 0) {
+            expressions.add(RequestUtils.getLiteralExpression(arrDouble[i]));
+          }
         }
         break;
       case STRING:
         String[] arrString = new String[numRows];
-        for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          arrString[rowIdx] = (String) dataContainer.get(rowIdx)[colIdx];
+        for (Object[] row : dataContainer) {
+          if (row[colIdx] != null) {
+            arrString[numValues++] = (String) row[colIdx];
+          }
         }
-        Arrays.sort(arrString);
-        for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrString[rowIdx]));
+        Arrays.sort(arrString, 0, numValues);
+        for (int i = 0; i < numValues; i++) {
+          if (i == 0 || !arrString[i].equals(arrString[i - 1])) {
+            expressions.add(RequestUtils.getLiteralExpression(arrString[i]));
+          }
         }
         break;
       default:
@@ -22,7 +22,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
-import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.request.DataSource;
 import org.apache.pinot.common.request.PinotQuery;
 import org.apache.pinot.common.utils.DataSchema;
@@ -117,7 +116,8 @@ public class ServerPlanRequestVisitor implements PlanNodeVisitor<Void, ServerPla
     List<Object[]> resultDataContainer = new ArrayList<>();
     DataSchema dataSchema = dynamicSide.getDataSchema();
     for (TransferableBlock block : transferableBlocks) {
-      if (block.getType() == DataBlock.Type.ROW) {
+      // NOTE: Blocks received from the mailbox can be either ROW or COLUMNAR (encoded columnar transfer)
+      if (block.isDataBlock()) {
         resultDataContainer.addAll(block.getContainer());
       }
     }
@@ -125,7 +125,7 @@ public class ServerPlanRequestVisitor implements PlanNodeVisitor<Void, ServerPla
     if (resultDataContainer.size() > 0) {
       // rewrite SEMI-JOIN as filter clause.
       ServerPlanRequestUtils.attachDynamicFilter(context.getPinotQuery(), node.getJoinKeys(), resultDataContainer,
-          dataSchema);
+          dataSchema, node.getJoinStrategy() == JoinNode.JoinStrategy.DYNAMIC_FILTER);
     } else {
       // do not pull any data out, this is constant false filter.
       context.getPinotQuery().setLimit(0);
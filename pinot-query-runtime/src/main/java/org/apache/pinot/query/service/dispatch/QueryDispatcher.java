@@ -94,13 +94,17 @@ public class QueryDispatcher {
     try {
       submit(requestId, dispatchableSubPlan, timeoutMs, queryOptions);
       long reduceStartTimeNs = System.nanoTime();
-      ResultTable resultTable =
-          runReducer(requestId, dispatchableSubPlan, timeoutMs, executionStatsAggregator, traceEnabled,
-              _mailboxService);
+      Pair<ResultTable, Boolean> reduceResult =
+          reduce(requestId, dispatchableSubPlan, timeoutMs, executionStatsAggregator, traceEnabled, _mailboxService);
       context.setReduceTimeNanos(System.nanoTime() - reduceStartTimeNs);
-      return resultTable;
+      // The upstream stages are all done once the reduce stage received the EOS from all the upstream mailboxes. Only
+      // cancel the remaining opChains when the reduce stage stopped early, e.g. when LIMIT is satisfied while the leaf
+      // stages are still scanning segments.
+      if (!reduceResult.right) {
+        cancel(requestId, dispatchableSubPlan);
+      }
+      return reduceResult.left;
     } catch (Throwable e) {
-      // TODO: Consider always cancel when it returns (early terminate)
       cancel(requestId, dispatchableSubPlan);
       throw e;
     }
@@ -185,6 +189,15 @@ public class QueryDispatcher {
   @VisibleForTesting
   public static ResultTable runReducer(long requestId, DispatchableSubPlan dispatchableSubPlan, long timeoutMs,
       Map<Integer, ExecutionStatsAggregator> statsAggregatorMap, boolean traceEnabled, MailboxService mailboxService) {
+    return reduce(requestId, dispatchableSubPlan, timeoutMs, statsAggregatorMap, traceEnabled, mailboxService).left;
+  }
+
+  /**
+   * Runs the reduce stage, returns the result table and whether the EOS is received from all the upstream mailboxes.
+   */
+  private static Pair<ResultTable, Boolean> reduce(long requestId, DispatchableSubPlan dispatchableSubPlan,
+      long timeoutMs, Map<Integer, ExecutionStatsAggregator> statsAggregatorMap, boolean traceEnabled,
+      MailboxService mailboxService) {
     // NOTE: Reduce stage is always stage 0
     DispatchablePlanFragment dispatchablePlanFragment = dispatchableSubPlan.getQueryStageList().get(0);
     PlanFragment planFragment = dispatchablePlanFragment.getPlanFragment();
@@ -207,7 +220,7 @@ public class QueryDispatcher {
     ResultTable resultTable =
         getResultTable(receiveOperator, receiveNode.getDataSchema(), dispatchableSubPlan.getQueryResultFields());
     collectStats(dispatchableSubPlan, opChainExecutionContext.getStats(), statsAggregatorMap);
-    return resultTable;
+    return Pair.of(resultTable, receiveOperator.isFinished());
   }
 
   private static void collectStats(DispatchableSubPlan dispatchableSubPlan, @Nullable OpChainStats opChainStats,
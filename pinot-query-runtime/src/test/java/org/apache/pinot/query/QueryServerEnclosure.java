@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.query;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
@@ -73,6 +74,10 @@ public class QueryServerEnclosure {
 
 
   public QueryServerEnclosure(MockInstanceDataManagerFactory factory) {
+    this(factory, Collections.emptyMap());
+  }
+
+  public QueryServerEnclosure(MockInstanceDataManagerFactory factory, Map<String, Object> extraConfig) {
     try {
       _instanceDataManager = factory.buildInstanceDataManager();
       _helixManager = mockHelixManager(factory.buildSchemaMap());
@@ -80,6 +85,7 @@ public class QueryServerEnclosure {
       _runnerConfig.put(CommonConstants.MultiStageQueryRunner.KEY_OF_QUERY_RUNNER_PORT, _queryRunnerPort);
       _runnerConfig.put(CommonConstants.MultiStageQueryRunner.KEY_OF_QUERY_RUNNER_HOSTNAME,
           String.format("Server_%s", CommonConstants.MultiStageQueryRunner.DEFAULT_QUERY_RUNNER_HOSTNAME));
+      _runnerConfig.putAll(extraConfig);
       _queryRunner = new QueryRunner();
     } catch (Exception e) {
       throw new RuntimeException("Test Failed!", e);
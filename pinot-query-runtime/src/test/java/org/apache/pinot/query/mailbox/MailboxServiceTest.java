@@ -19,13 +19,19 @@
 package org.apache.pinot.query.mailbox;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.OpChainStats;
 import org.apache.pinot.query.runtime.operator.OperatorTestUtil;
 import org.apache.pinot.query.testutils.QueryTestUtils;
 import org.apache.pinot.spi.env.PinotConfiguration;
@@ -206,6 +212,9 @@ public class MailboxServiceTest {
     receivingMailbox.cancel();
     assertEquals(numCallbacks.get(), 1);
 
+    // Sender should be terminated right away without sending another block
+    assertTrue(sendingMailbox.isTerminated());
+
     // Data blocks will be cleaned up
     assertEquals(receivingMailbox.getNumPendingBlocks(), 0);
     TransferableBlock block = receivingMailbox.poll();
@@ -330,6 +339,109 @@ public class MailboxServiceTest {
     assertNull(receivingMailbox.poll());
   }
 
+  @Test
+  public void testRemoteCompressedHappyPath()
+      throws Exception {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_INBOUND_QUERY_DATA_BLOCK_SIZE_BYTES, 4_000_000);
+    properties.put(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_COMPRESSION_TYPE, "LZ4");
+    properties.put(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_COMPRESSION_MIN_BYTES, 1024);
+    MailboxService compressingMailboxService =
+        new MailboxService("localhost", QueryTestUtils.getAvailablePort(), new PinotConfiguration(properties));
+    compressingMailboxService.start();
+    String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, SENDER_STAGE_ID, 0, RECEIVER_STAGE_ID, 0);
+    OpChainStats opChainStats = new OpChainStats(mailboxId);
+
+    // The first block is above the compression min bytes, the second one is sent raw
+    int numRows = 10_000;
+    Object[][] rows = new Object[numRows][];
+    for (int i = 0; i < numRows; i++) {
+      rows[i] = new Object[]{i % 10};
+    }
+    SendingMailbox sendingMailbox =
+        compressingMailboxService.getSendingMailbox("localhost", _mailboxService1.getPort(), mailboxId,
+            Long.MAX_VALUE, opChainStats);
+    sendingMailbox.send(OperatorTestUtil.block(DATA_SCHEMA, rows));
+    sendingMailbox.send(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{0}));
+    sendingMailbox.send(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    sendingMailbox.complete();
+
+    // Wait until all the mails are delivered
+    ReceivingMailbox receivingMailbox = _mailboxService1.getReceivingMailbox(mailboxId);
+    receivingMailbox.registeredReader(() -> {
+    });
+    TestUtils.waitForCondition(aVoid -> receivingMailbox.getNumPendingBlocks() == 3, 1000L,
+        "Failed to deliver mails");
+
+    TransferableBlock block = receivingMailbox.poll();
+    assertNotNull(block);
+    List<Object[]> receivedRows = block.getContainer();
+    assertEquals(receivedRows.size(), numRows);
+    for (int i = 0; i < numRows; i++) {
+      assertEquals(receivedRows.get(i), rows[i]);
+    }
+    block = receivingMailbox.poll();
+    assertNotNull(block);
+    assertEquals(block.getContainer().get(0), new Object[]{0});
+    block = receivingMailbox.poll();
+    assertNotNull(block);
+    assertTrue(block.isSuccessfulEndOfStreamBlock());
+
+    assertTrue(opChainStats.getMailboxBytesSent() > 0);
+    assertTrue(opChainStats.getMailboxBytesSent() < numRows * Integer.BYTES);
+    assertEquals(receivingMailbox.getNumBytesReceived(), opChainStats.getMailboxBytesSent());
+    compressingMailboxService.shutdown();
+  }
+
+  @Test
+  public void testRemoteColumnarEncodedHappyPath()
+      throws Exception {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_INBOUND_QUERY_DATA_BLOCK_SIZE_BYTES, 4_000_000);
+    properties.put(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_COLUMNAR_ENCODING_ENABLED, true);
+    MailboxService encodingMailboxService =
+        new MailboxService("localhost", QueryTestUtils.getAvailablePort(), new PinotConfiguration(properties));
+    encodingMailboxService.start();
+    String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, SENDER_STAGE_ID, 0, RECEIVER_STAGE_ID, 0);
+    OpChainStats opChainStats = new OpChainStats(mailboxId);
+
+    // Values within a small range are bit-packed
+    int numRows = 10_000;
+    Object[][] rows = new Object[numRows][];
+    for (int i = 0; i < numRows; i++) {
+      rows[i] = new Object[]{i % 10};
+    }
+    SendingMailbox sendingMailbox =
+        encodingMailboxService.getSendingMailbox("localhost", _mailboxService1.getPort(), mailboxId, Long.MAX_VALUE,
+            opChainStats);
+    sendingMailbox.send(OperatorTestUtil.block(DATA_SCHEMA, rows));
+    sendingMailbox.send(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    sendingMailbox.complete();
+
+    // Wait until all the mails are delivered
+    ReceivingMailbox receivingMailbox = _mailboxService1.getReceivingMailbox(mailboxId);
+    receivingMailbox.registeredReader(() -> {
+    });
+    TestUtils.waitForCondition(aVoid -> receivingMailbox.getNumPendingBlocks() == 2, 1000L,
+        "Failed to deliver mails");
+
+    TransferableBlock block = receivingMailbox.poll();
+    assertNotNull(block);
+    assertEquals(block.getType(), DataBlock.Type.COLUMNAR);
+    List<Object[]> receivedRows = block.getContainer();
+    assertEquals(receivedRows.size(), numRows);
+    for (int i = 0; i < numRows; i++) {
+      assertEquals(receivedRows.get(i), rows[i]);
+    }
+    block = receivingMailbox.poll();
+    assertNotNull(block);
+    assertTrue(block.isSuccessfulEndOfStreamBlock());
+
+    // 4 bits per value
+    assertTrue(opChainStats.getMailboxBytesSent() < numRows);
+    encodingMailboxService.shutdown();
+  }
+
   @Test
   public void testRemoteHappyPathReceiveFirst()
       throws Exception {
@@ -463,6 +575,9 @@ public class MailboxServiceTest {
     receivingMailbox.cancel();
     assertEquals(numCallbacks.get(), 1);
 
+    // Sender should be notified about the cancellation without sending another block
+    TestUtils.waitForCondition(aVoid -> sendingMailbox.isTerminated(), 1000L, "Failed to terminate the sender");
+
     // Data blocks will be cleaned up
     assertEquals(receivingMailbox.getNumPendingBlocks(), 0);
     TransferableBlock block = receivingMailbox.poll();
@@ -519,6 +634,58 @@ public class MailboxServiceTest {
     assertEquals(receivingMailbox.getNumPendingBlocks(), 0);
   }
 
+  @Test
+  public void testRemoteSendBlockedUntilBlockConsumed()
+      throws Exception {
+    String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, SENDER_STAGE_ID, 0, RECEIVER_STAGE_ID, 0);
+    SendingMailbox sendingMailbox =
+        _mailboxService2.getSendingMailbox("localhost", _mailboxService1.getPort(), mailboxId,
+            System.currentTimeMillis() + 10_000);
+    ReceivingMailbox receivingMailbox = _mailboxService1.getReceivingMailbox(mailboxId);
+    receivingMailbox.registeredReader(() -> {
+    });
+
+    // Sends are non-blocking as long as the receiver grants credit
+    for (int i = 0; i < ReceivingMailbox.DEFAULT_MAX_PENDING_BLOCKS; i++) {
+      sendingMailbox.send(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{i}));
+    }
+    TestUtils.waitForCondition(
+        aVoid -> receivingMailbox.getNumPendingBlocks() == ReceivingMailbox.DEFAULT_MAX_PENDING_BLOCKS, 1000L,
+        "Failed to deliver mails");
+
+    // Next send is blocked until a block is consumed from the receiving mailbox
+    CountDownLatch sendLatch = new CountDownLatch(1);
+    Thread sender = new Thread(() -> {
+      try {
+        sendingMailbox.send(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+        sendingMailbox.complete();
+        sendLatch.countDown();
+      } catch (Exception e) {
+        // Ignored, the latch won't be counted down
+      }
+    });
+    sender.start();
+    assertFalse(sendLatch.await(100, TimeUnit.MILLISECONDS));
+    assertEquals(receivingMailbox.getNumPendingBlocks(), ReceivingMailbox.DEFAULT_MAX_PENDING_BLOCKS);
+
+    TransferableBlock block = receivingMailbox.poll();
+    assertNotNull(block);
+    assertEquals(block.getContainer().get(0), new Object[]{0});
+    assertTrue(sendLatch.await(1000, TimeUnit.MILLISECONDS));
+    TestUtils.waitForCondition(
+        aVoid -> receivingMailbox.getNumPendingBlocks() == ReceivingMailbox.DEFAULT_MAX_PENDING_BLOCKS, 1000L,
+        "Failed to deliver mails");
+    for (int i = 1; i < ReceivingMailbox.DEFAULT_MAX_PENDING_BLOCKS; i++) {
+      block = receivingMailbox.poll();
+      assertNotNull(block);
+      assertEquals(block.getContainer().get(0), new Object[]{i});
+    }
+    block = receivingMailbox.poll();
+    assertNotNull(block);
+    assertTrue(block.isSuccessfulEndOfStreamBlock());
+    sender.join();
+  }
+
   @Test
   public void testRemoteBufferFull()
       throws Exception {
@@ -539,8 +706,13 @@ public class MailboxServiceTest {
       sendingMailbox.send(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{i}));
     }
 
-    // Next send will be blocked on the receiver side and cause exception after timeout
-    sendingMailbox.send(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    // Next send will be blocked on the sender side waiting for credit, and either time out or return after the RPC
+    // is terminated by the deadline
+    try {
+      sendingMailbox.send(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    } catch (TimeoutException e) {
+      // Expected
+    }
     receiveMailLatch.await();
     assertEquals(numCallbacks.get(), ReceivingMailbox.DEFAULT_MAX_PENDING_BLOCKS + 1);
 
@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.mailbox.channel;
+
+import java.nio.ByteBuffer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class MailboxPayloadCodecTest {
+
+  @Test
+  public void shouldReusePooledBuffers() {
+    long numPooledBytes = MailboxPayloadCodec.getNumPooledBytes();
+    ByteBuffer buffer = MailboxPayloadCodec.acquireBuffer(100_000);
+    Assert.assertTrue(buffer.isDirect());
+    Assert.assertEquals(buffer.capacity(), 1 << 17);
+    Assert.assertEquals(buffer.limit(), 100_000);
+    MailboxPayloadCodec.releaseBuffer(buffer);
+    Assert.assertEquals(MailboxPayloadCodec.getNumPooledBytes(), numPooledBytes + (1 << 17));
+
+    // A buffer of the same size class is taken from the pool
+    ByteBuffer reusedBuffer = MailboxPayloadCodec.acquireBuffer(70_000);
+    Assert.assertSame(reusedBuffer, buffer);
+    Assert.assertEquals(reusedBuffer.position(), 0);
+    Assert.assertEquals(reusedBuffer.limit(), 70_000);
+    Assert.assertEquals(MailboxPayloadCodec.getNumPooledBytes(), numPooledBytes);
+    MailboxPayloadCodec.releaseBuffer(reusedBuffer);
+  }
+
+  @Test
+  public void shouldNotPoolLargeBuffers() {
+    long numPooledBytes = MailboxPayloadCodec.getNumPooledBytes();
+    ByteBuffer buffer = MailboxPayloadCodec.acquireBuffer(MailboxPayloadCodec.MAX_POOLED_BUFFER_SIZE + 1);
+    Assert.assertEquals(buffer.capacity(), MailboxPayloadCodec.MAX_POOLED_BUFFER_SIZE + 1);
+    MailboxPayloadCodec.releaseBuffer(buffer);
+    Assert.assertEquals(MailboxPayloadCodec.getNumPooledBytes(), numPooledBytes);
+  }
+}
@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.pinot.query.QueryEnvironmentTestBase;
+import org.apache.pinot.query.QueryServerEnclosure;
+import org.apache.pinot.query.mailbox.MailboxService;
+import org.apache.pinot.query.routing.QueryServerInstance;
+import org.apache.pinot.query.runtime.executor.OpChainSchedulerService;
+import org.apache.pinot.query.testutils.MockInstanceDataManagerFactory;
+import org.apache.pinot.query.testutils.QueryTestUtils;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+
+/**
+ * Runs queries with the encoded columnar mailbox transfer enabled on all the servers, where the blocks received from
+ * other servers (e.g. the pipeline breaker results of the dynamic broadcast join) are COLUMNAR instead of ROW.
+ */
+public class QueryRunnerColumnarEncodingTest extends QueryRunnerTestBase {
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    // Table b only exists on server1, so that server2 receives the dynamic broadcast build side from a remote mailbox
+    MockInstanceDataManagerFactory factory1 = new MockInstanceDataManagerFactory("server1");
+    factory1.registerTable(QueryRunnerTest.SCHEMA_BUILDER.setSchemaName("a").build(), "a_REALTIME");
+    factory1.registerTable(QueryRunnerTest.SCHEMA_BUILDER.setSchemaName("b").build(), "b_REALTIME");
+    factory1.addSegment("a_REALTIME", QueryRunnerTest.buildRows("a_REALTIME"));
+    factory1.addSegment("b_REALTIME", QueryRunnerTest.buildRows("b_REALTIME"));
+
+    MockInstanceDataManagerFactory factory2 = new MockInstanceDataManagerFactory("server2");
+    factory2.registerTable(QueryRunnerTest.SCHEMA_BUILDER.setSchemaName("a").build(), "a_REALTIME");
+    factory2.addSegment("a_REALTIME", QueryRunnerTest.buildRows("a_REALTIME"));
+    factory2.addSegment("a_REALTIME", QueryRunnerTest.buildRows("a_REALTIME"));
+
+    Map<String, Object> serverConfig =
+        Collections.singletonMap(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_COLUMNAR_ENCODING_ENABLED, true);
+    QueryServerEnclosure server1 = new QueryServerEnclosure(factory1, serverConfig);
+    QueryServerEnclosure server2 = new QueryServerEnclosure(factory2, serverConfig);
+
+    // Setting up H2 for validation
+    setH2Connection();
+    Schema schema = QueryRunnerTest.SCHEMA_BUILDER.build();
+    for (String tableName : Arrays.asList("a", "b")) {
+      addTableToH2(tableName, schema);
+      List<GenericRow> rows1 = factory1.buildTableRowsMap().get(tableName);
+      if (rows1 != null) {
+        addDataToH2(tableName, schema, rows1);
+      }
+      List<GenericRow> rows2 = factory2.buildTableRowsMap().get(tableName);
+      if (rows2 != null) {
+        addDataToH2(tableName, schema, rows2);
+      }
+    }
+
+    _reducerGrpcPort = QueryTestUtils.getAvailablePort();
+    _reducerHostname = String.format("Broker_%s", CommonConstants.MultiStageQueryRunner.DEFAULT_QUERY_RUNNER_HOSTNAME);
+    Map<String, Object> reducerConfig = new HashMap<>(serverConfig);
+    reducerConfig.put(CommonConstants.MultiStageQueryRunner.KEY_OF_QUERY_RUNNER_PORT, _reducerGrpcPort);
+    reducerConfig.put(CommonConstants.MultiStageQueryRunner.KEY_OF_QUERY_RUNNER_HOSTNAME, _reducerHostname);
+    _reducerScheduler = new OpChainSchedulerService(EXECUTOR);
+    _mailboxService =
+        new MailboxService(CommonConstants.MultiStageQueryRunner.DEFAULT_QUERY_RUNNER_HOSTNAME, _reducerGrpcPort,
+            new PinotConfiguration(reducerConfig));
+    _mailboxService.start();
+
+    _queryEnvironment =
+        QueryEnvironmentTestBase.getQueryEnvironment(_reducerGrpcPort, server1.getPort(), server2.getPort(),
+            factory1.getRegisteredSchemaMap(), factory1.buildTableSegmentNameMap(), factory2.buildTableSegmentNameMap(),
+            null);
+    server1.start();
+    server2.start();
+    int port1 = server1.getPort();
+    int port2 = server2.getPort();
+    _servers.put(new QueryServerInstance("localhost", port1, port1), server1);
+    _servers.put(new QueryServerInstance("localhost", port2, port2), server2);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    for (QueryServerEnclosure server : _servers.values()) {
+      server.shutDown();
+    }
+    _mailboxService.shutdown();
+  }
+
+  @Test(dataProvider = "testColumnarEncodingSql")
+  public void testSqlWithH2Checker(String sql)
+      throws Exception {
+    List<Object[]> resultRows = queryRunner(sql, null);
+    List<Object[]> expectedRows = queryH2(sql);
+    Assert.assertFalse(expectedRows.isEmpty());
+    compareRowEquals(resultRows, expectedRows);
+  }
+
+  @DataProvider(name = "testColumnarEncodingSql")
+  private Object[][] provideTestSql() {
+    return new Object[][]{
+        // dynamic broadcast join, where the build side is sent to the leaf stage of both servers
+        new Object[]{
+            "SELECT /*+ joinOptions(join_strategy='dynamic_broadcast') */ col1, col3 FROM a "
+                + " WHERE a.col1 IN (SELECT b.col2 FROM b WHERE b.col3 < 10) AND a.col3 > 0"
+        },
+        // regular hash join and aggregation over the columnar blocks
+        new Object[]{"SELECT a.col1, b.col3 FROM a JOIN b ON a.col1 = b.col1"},
+        new Object[]{"SELECT col2, COUNT(*), SUM(col3) FROM a GROUP BY col2"},
+    };
+  }
+}
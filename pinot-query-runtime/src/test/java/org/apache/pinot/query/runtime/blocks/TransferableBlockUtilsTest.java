@@ -25,6 +25,7 @@ import java.util.List;
 import org.apache.pinot.common.datablock.BaseDataBlock;
 import org.apache.pinot.common.datablock.ColumnarDataBlock;
 import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datablock.EncodedColumnarDataBlock;
 import org.apache.pinot.common.datablock.MetadataBlock;
 import org.apache.pinot.common.datablock.RowDataBlock;
 import org.apache.pinot.common.utils.DataSchema;
@@ -73,6 +74,10 @@ public class TransferableBlockUtilsTest {
     RowDataBlock rowBlock = DataBlockBuilder.buildFromRows(rows, dataSchema);
     validateBlocks(TransferableBlockUtils.splitBlock(new TransferableBlock(rowBlock),
         DataBlock.Type.ROW, estRowSizeInBytes * splitRowCount + 1), rows, dataSchema);
+    // compare encoded columnar split, which is split into row blocks
+    EncodedColumnarDataBlock encodedColumnarBlock = DataBlockBuilder.buildEncodedFromRows(rows, dataSchema);
+    validateBlocks(TransferableBlockUtils.splitBlock(new TransferableBlock(encodedColumnarBlock),
+        DataBlock.Type.COLUMNAR, estRowSizeInBytes * splitRowCount + 1), rows, dataSchema);
     // compare non-serialized split
     validateBlocks(TransferableBlockUtils.splitBlock(new TransferableBlock(rows, dataSchema, DataBlock.Type.ROW),
         DataBlock.Type.ROW, estRowSizeInBytes * splitRowCount + 1), rows, dataSchema);
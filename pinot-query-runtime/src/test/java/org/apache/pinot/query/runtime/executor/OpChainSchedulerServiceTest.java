@@ -19,6 +19,7 @@
 package org.apache.pinot.query.runtime.executor;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -29,6 +30,7 @@ import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
 import org.apache.pinot.query.runtime.operator.MultiStageOperator;
 import org.apache.pinot.query.runtime.operator.OpChain;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.env.PinotConfiguration;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.testng.Assert;
@@ -89,6 +91,39 @@ public class OpChainSchedulerServiceTest {
     Assert.assertTrue(latch.await(10, TimeUnit.SECONDS), "expected await to be called in less than 10 seconds");
   }
 
+  @Test
+  public void shouldScheduleOpChainOnVirtualThreadExecutor()
+      throws InterruptedException {
+    // Falls back to platform threads when virtual threads are not supported by the JVM
+    PinotConfiguration conf = new PinotConfiguration(ImmutableMap.of(
+        "pinot.query.runner.opchain" + ExecutorServiceUtils.EXECUTOR_TYPE_CONFIG_SUFFIX,
+        ExecutorServiceUtils.EXECUTOR_TYPE_VIRTUAL));
+    ExecutorService executor = ExecutorServiceUtils.create(conf, "pinot.query.runner.opchain", "virtual_worker");
+    try {
+      OpChain opChain = getChain(_operatorA);
+      OpChainSchedulerService schedulerService = new OpChainSchedulerService(executor);
+
+      CountDownLatch latch = new CountDownLatch(1);
+      Mockito.when(_operatorA.nextBlock()).thenAnswer(inv -> {
+        latch.countDown();
+        return TransferableBlockUtils.getEndOfStreamTransferableBlock();
+      });
+
+      schedulerService.register(opChain);
+
+      Assert.assertTrue(latch.await(10, TimeUnit.SECONDS), "expected await to be called in less than 10 seconds");
+    } finally {
+      ExecutorServiceUtils.close(executor);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void shouldThrowOnUnsupportedExecutorType() {
+    PinotConfiguration conf = new PinotConfiguration(ImmutableMap.of(
+        "pinot.query.runner.opchain" + ExecutorServiceUtils.EXECUTOR_TYPE_CONFIG_SUFFIX, "unknown"));
+    ExecutorServiceUtils.create(conf, "pinot.query.runner.opchain", "unknown_worker");
+  }
+
   @Test
   public void shouldScheduleSingleOpChainRegisteredBeforeStart()
       throws InterruptedException {
@@ -19,9 +19,13 @@
 package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.calcite.sql.SqlKind;
+import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.planner.logical.RexExpression;
@@ -29,11 +33,15 @@ import org.apache.pinot.query.planner.plannode.AggregateNode.AggType;
 import org.apache.pinot.query.routing.VirtualServerAddress;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.query.runtime.plan.StageMetadata;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.exception.BadQueryRequestException;
+import org.apache.pinot.spi.utils.CommonConstants;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.OngoingStubbing;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -186,6 +194,123 @@ public class AggregateOperatorTest {
     }
   }
 
+  @Test
+  public void shouldSpillGroupsAndMergeWhenExceedMaxGroupsInAggregate() {
+    // Given:
+    List<RexExpression> calls = ImmutableList.of(getSum(new RexExpression.InputRef(1)));
+    List<RexExpression> group = ImmutableList.of(new RexExpression.InputRef(0));
+
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, DOUBLE});
+    Mockito.when(_input.nextBlock())
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{1, 1.0}, new Object[]{2, 2.0}))
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{1, 3.0}, new Object[]{3, 4.0}))
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{2, 5.0}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+
+    DataSchema outSchema = new DataSchema(new String[]{"group", "sum"}, new ColumnDataType[]{INT, DOUBLE});
+    StageMetadata stageMetadata = new StageMetadata.Builder().addCustomProperties(
+        ImmutableMap.of(CommonConstants.Broker.Request.QueryOptionKey.MAX_GROUPS_IN_AGGREGATE, "2")).build();
+    OpChainExecutionContext context =
+        new OpChainExecutionContext(null, 1, 2, new VirtualServerAddress("mock", 80, 0), Long.MAX_VALUE,
+            stageMetadata, null, true);
+    AggregateOperator operator =
+        new AggregateOperator(context, _input, outSchema, inSchema, calls, group, AggType.DIRECT, null, null);
+
+    // When:
+    Map<Object, Object> results = new HashMap<>();
+    TransferableBlock block = operator.nextBlock();
+    while (block.isDataBlock()) {
+      for (Object[] row : block.getContainer()) {
+        Assert.assertNull(results.put(row[0], row[1]), "Each group should be returned once");
+      }
+      block = operator.nextBlock();
+    }
+
+    // Then:
+    Assert.assertTrue(block.isEndOfStreamBlock(), "Last block is EOS (done processing)");
+    Assert.assertEquals(results, ImmutableMap.of(1, 4.0, 2, 7.0, 3, 4.0));
+    Assert.assertTrue(context.getStats().getSpilledBytes() > 0);
+  }
+
+  @Test
+  public void shouldRepartitionSpilledPartitionWhenExceedMaxGroupsInAggregate() {
+    // Given:
+    List<RexExpression> calls = ImmutableList.of(getSum(new RexExpression.InputRef(1)));
+    List<RexExpression> group = ImmutableList.of(new RexExpression.InputRef(0));
+
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, DOUBLE});
+    // Each block holds 4 groups, so the groups are spilled after each block and each spilled partition holds more
+    // groups than the max groups in memory
+    int numGroups = 200;
+    OngoingStubbing<TransferableBlock> stubbing = Mockito.when(_input.nextBlock());
+    for (int i = 0; i < 2 * numGroups; i += 4) {
+      stubbing = stubbing.thenReturn(
+          OperatorTestUtil.block(inSchema, new Object[]{i % numGroups, 1.0}, new Object[]{(i + 1) % numGroups, 1.0},
+              new Object[]{(i + 2) % numGroups, 1.0}, new Object[]{(i + 3) % numGroups, 1.0}));
+    }
+    stubbing.thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+
+    DataSchema outSchema = new DataSchema(new String[]{"group", "sum"}, new ColumnDataType[]{INT, DOUBLE});
+    StageMetadata stageMetadata = new StageMetadata.Builder().addCustomProperties(
+        ImmutableMap.of(CommonConstants.Broker.Request.QueryOptionKey.MAX_GROUPS_IN_AGGREGATE, "4")).build();
+    OpChainExecutionContext context =
+        new OpChainExecutionContext(null, 1, 2, new VirtualServerAddress("mock", 80, 0), Long.MAX_VALUE,
+            stageMetadata, null, true);
+    AggregateOperator operator =
+        new AggregateOperator(context, _input, outSchema, inSchema, calls, group, AggType.DIRECT, null, null);
+
+    // When:
+    Map<Object, Object> results = new HashMap<>();
+    TransferableBlock block = operator.nextBlock();
+    while (block.isDataBlock()) {
+      for (Object[] row : block.getContainer()) {
+        Assert.assertNull(results.put(row[0], row[1]), "Each group should be returned once");
+      }
+      block = operator.nextBlock();
+    }
+
+    // Then:
+    Assert.assertTrue(block.isEndOfStreamBlock(), "Last block is EOS (done processing)");
+    Assert.assertEquals(results.size(), numGroups);
+    for (int i = 0; i < numGroups; i++) {
+      Assert.assertEquals(results.get(i), 2.0);
+    }
+  }
+
+  @Test
+  public void shouldFailWhenSpilledPartitionCannotBeRepartitioned() {
+    // Given:
+    List<RexExpression> calls = ImmutableList.of(getSum(new RexExpression.InputRef(1)));
+    List<RexExpression> group = ImmutableList.of(new RexExpression.InputRef(0));
+
+    // "Aa" and "BB" have the same hash code, so they are never split into different partitions
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{STRING, DOUBLE});
+    Mockito.when(_input.nextBlock())
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{"Aa", 1.0}))
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{"BB", 2.0}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+
+    DataSchema outSchema = new DataSchema(new String[]{"group", "sum"}, new ColumnDataType[]{STRING, DOUBLE});
+    StageMetadata stageMetadata = new StageMetadata.Builder().addCustomProperties(
+        ImmutableMap.of(CommonConstants.Broker.Request.QueryOptionKey.MAX_GROUPS_IN_AGGREGATE, "1")).build();
+    OpChainExecutionContext context =
+        new OpChainExecutionContext(null, 1, 2, new VirtualServerAddress("mock", 80, 0), Long.MAX_VALUE,
+            stageMetadata, null, true);
+    AggregateOperator operator =
+        new AggregateOperator(context, _input, outSchema, inSchema, calls, group, AggType.DIRECT, null, null);
+
+    // When:
+    TransferableBlock block = operator.nextBlock();
+    while (block.isDataBlock()) {
+      block = operator.nextBlock();
+    }
+
+    // Then:
+    Assert.assertTrue(block.isErrorBlock(), "Expected error block");
+    Assert.assertTrue(block.getDataBlock().getExceptions().get(QueryException.SERVER_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE)
+        .contains("reach number of groups limit"));
+  }
+
   @Test(expectedExceptions = BadQueryRequestException.class, expectedExceptionsMessageRegExp = ".*average.*")
   public void shouldThrowOnUnknownAggFunction() {
     // Given:
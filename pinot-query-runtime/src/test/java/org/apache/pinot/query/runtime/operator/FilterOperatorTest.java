@@ -253,6 +253,40 @@ public class FilterOperatorTest {
     Assert.assertEquals(result.get(0), expectedResult.get(0));
   }
 
+  @Test
+  public void shouldHandleNestedFilterOnSelectedRows() {
+    DataSchema inputSchema = new DataSchema(new String[]{"int0", "int1"}, new DataSchema.ColumnDataType[]{
+        DataSchema.ColumnDataType.INT, DataSchema.ColumnDataType.INT
+    });
+    Mockito.when(_upstreamOperator.nextBlock()).thenReturn(
+        OperatorTestUtil.block(inputSchema, new Object[]{1, 2}, new Object[]{3, 2}, new Object[]{1, 1},
+            new Object[]{2, 7}, new Object[]{0, 0}, new Object[]{null, 1}));
+    // (int0 > int1 OR NOT(int0 = 1)) AND int1 < 5
+    RexExpression.FunctionCall greaterThan =
+        new RexExpression.FunctionCall(SqlKind.GREATER_THAN, FieldSpec.DataType.BOOLEAN, "greaterThan",
+            ImmutableList.of(new RexExpression.InputRef(0), new RexExpression.InputRef(1)));
+    RexExpression.FunctionCall equals =
+        new RexExpression.FunctionCall(SqlKind.EQUALS, FieldSpec.DataType.BOOLEAN, "equals",
+            ImmutableList.of(new RexExpression.InputRef(0), new RexExpression.Literal(FieldSpec.DataType.INT, 1)));
+    RexExpression.FunctionCall not =
+        new RexExpression.FunctionCall(SqlKind.NOT, FieldSpec.DataType.BOOLEAN, "NOT", ImmutableList.of(equals));
+    RexExpression.FunctionCall or =
+        new RexExpression.FunctionCall(SqlKind.OR, FieldSpec.DataType.BOOLEAN, "OR", ImmutableList.of(greaterThan, not));
+    RexExpression.FunctionCall lessThan =
+        new RexExpression.FunctionCall(SqlKind.LESS_THAN, FieldSpec.DataType.BOOLEAN, "lessThan",
+            ImmutableList.of(new RexExpression.InputRef(1), new RexExpression.Literal(FieldSpec.DataType.INT, 5)));
+    RexExpression.FunctionCall and = new RexExpression.FunctionCall(SqlKind.AND, FieldSpec.DataType.BOOLEAN, "AND",
+        ImmutableList.of(or, lessThan));
+    FilterOperator op = new FilterOperator(OperatorTestUtil.getDefaultContext(), _upstreamOperator, inputSchema, and);
+    TransferableBlock dataBlock = op.getNextBlock();
+    Assert.assertFalse(dataBlock.isErrorBlock());
+    List<Object[]> result = dataBlock.getContainer();
+    Assert.assertEquals(result.size(), 3);
+    Assert.assertEquals(result.get(0), new Object[]{3, 2});
+    Assert.assertEquals(result.get(1), new Object[]{0, 0});
+    Assert.assertEquals(result.get(2), new Object[]{null, 1});
+  }
+
   @Test
   public void shouldHandleBooleanFunction() {
     DataSchema inputSchema = new DataSchema(new String[]{"string1"}, new DataSchema.ColumnDataType[]{
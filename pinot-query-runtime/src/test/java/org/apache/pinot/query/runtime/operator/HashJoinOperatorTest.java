@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import org.apache.calcite.rel.core.JoinRelType;
@@ -676,5 +677,141 @@ public class HashJoinOperatorTest {
         result.getDataBlock().getExceptions().get(QueryException.SERVER_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE)
             .contains("reach number of rows limit"));
   }
+
+  @Test
+  public void shouldSpillWhenHitDataRowsLimitWithSpillMode() {
+    DataSchema leftSchema = new DataSchema(new String[]{"int_col", "string_col"}, new DataSchema.ColumnDataType[]{
+        DataSchema.ColumnDataType.INT, DataSchema.ColumnDataType.STRING
+    });
+    DataSchema rightSchema = new DataSchema(new String[]{"int_col", "string_col"}, new DataSchema.ColumnDataType[]{
+        DataSchema.ColumnDataType.INT, DataSchema.ColumnDataType.STRING
+    });
+    Mockito.when(_leftOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(leftSchema, new Object[]{1, "Aa"}, new Object[]{2, "BB"}))
+        .thenReturn(OperatorTestUtil.block(leftSchema, new Object[]{4, "CC"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    Mockito.when(_rightOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{2, "Aa"}, new Object[]{2, "BB"}))
+        .thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{3, "BB"}, new Object[]{4, "DD"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+
+    List<RexExpression> joinClauses = new ArrayList<>();
+    DataSchema resultSchema = new DataSchema(new String[]{"int_col1", "string_col1", "int_co2", "string_col2"},
+        new DataSchema.ColumnDataType[]{
+            DataSchema.ColumnDataType.INT, DataSchema.ColumnDataType.STRING, DataSchema.ColumnDataType.INT,
+            DataSchema.ColumnDataType.STRING
+        });
+    Map<String, String> hintsMap = ImmutableMap.of(
+        PinotHintOptions.JoinHintOptions.JOIN_OVERFLOW_MODE, "SPILL",
+        PinotHintOptions.JoinHintOptions.MAX_ROWS_IN_JOIN, "2"
+    );
+    JoinNode node = new JoinNode(1, resultSchema, leftSchema, rightSchema, JoinRelType.FULL,
+        getJoinKeys(Arrays.asList(0), Arrays.asList(0)), joinClauses, getJoinHints(hintsMap));
+    HashJoinOperator join =
+        new HashJoinOperator(OperatorTestUtil.getDefaultContext(), _leftOperator, _rightOperator, leftSchema, node);
+
+    List<Object[]> resultRows = new ArrayList<>();
+    TransferableBlock result = join.nextBlock();
+    while (!result.isEndOfStreamBlock()) {
+      Assert.assertTrue(result.getDataBlock().getExceptions().isEmpty());
+      resultRows.addAll(result.getContainer());
+      result = join.nextBlock();
+    }
+    Assert.assertTrue(result.isSuccessfulEndOfStreamBlock());
+    join.close();
+
+    resultRows.sort(Comparator.comparing((Object[] row) -> String.valueOf(row[0]))
+        .thenComparing(row -> String.valueOf(row[3])));
+    List<Object[]> expectedRows = Arrays.asList(new Object[]{1, "Aa", null, null}, new Object[]{2, "BB", 2, "Aa"},
+        new Object[]{2, "BB", 2, "BB"}, new Object[]{4, "CC", 4, "DD"}, new Object[]{null, null, 3, "BB"});
+    Assert.assertEquals(resultRows.size(), expectedRows.size());
+    for (int i = 0; i < expectedRows.size(); i++) {
+      Assert.assertEquals(resultRows.get(i), expectedRows.get(i));
+    }
+  }
+
+  @Test
+  public void shouldRepartitionSpilledPartitionExceedingDataRowsLimit() {
+    DataSchema schema = new DataSchema(new String[]{"int_col", "string_col"}, new DataSchema.ColumnDataType[]{
+        DataSchema.ColumnDataType.INT, DataSchema.ColumnDataType.STRING
+    });
+    // Keys 1 and 3 are hashed into the same spill partition, which exceeds the limit and has to be re-partitioned
+    Mockito.when(_leftOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(schema, new Object[]{1, "x"}, new Object[]{2, "y"}, new Object[]{3, "z"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    Mockito.when(_rightOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(schema, new Object[]{1, "Aa"}, new Object[]{1, "BB"}, new Object[]{3, "CC"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+
+    DataSchema resultSchema = new DataSchema(new String[]{"int_col1", "string_col1", "int_co2", "string_col2"},
+        new DataSchema.ColumnDataType[]{
+            DataSchema.ColumnDataType.INT, DataSchema.ColumnDataType.STRING, DataSchema.ColumnDataType.INT,
+            DataSchema.ColumnDataType.STRING
+        });
+    Map<String, String> hintsMap = ImmutableMap.of(
+        PinotHintOptions.JoinHintOptions.JOIN_OVERFLOW_MODE, "SPILL",
+        PinotHintOptions.JoinHintOptions.MAX_ROWS_IN_JOIN, "2"
+    );
+    JoinNode node = new JoinNode(1, resultSchema, schema, schema, JoinRelType.INNER,
+        getJoinKeys(Arrays.asList(0), Arrays.asList(0)), new ArrayList<>(), getJoinHints(hintsMap));
+    HashJoinOperator join =
+        new HashJoinOperator(OperatorTestUtil.getDefaultContext(), _leftOperator, _rightOperator, schema, node);
+
+    List<Object[]> resultRows = new ArrayList<>();
+    TransferableBlock result = join.nextBlock();
+    while (!result.isEndOfStreamBlock()) {
+      resultRows.addAll(result.getContainer());
+      result = join.nextBlock();
+    }
+    Assert.assertTrue(result.isSuccessfulEndOfStreamBlock());
+    join.close();
+
+    resultRows.sort(Comparator.comparing((Object[] row) -> String.valueOf(row[0]))
+        .thenComparing(row -> String.valueOf(row[3])));
+    List<Object[]> expectedRows =
+        Arrays.asList(new Object[]{1, "x", 1, "Aa"}, new Object[]{1, "x", 1, "BB"}, new Object[]{3, "z", 3, "CC"});
+    Assert.assertEquals(resultRows.size(), expectedRows.size());
+    for (int i = 0; i < expectedRows.size(); i++) {
+      Assert.assertEquals(resultRows.get(i), expectedRows.get(i));
+    }
+  }
+
+  @Test
+  public void shouldThrowWhenSpilledKeyExceedsDataRowsLimit() {
+    DataSchema schema = new DataSchema(new String[]{"int_col", "string_col"}, new DataSchema.ColumnDataType[]{
+        DataSchema.ColumnDataType.INT, DataSchema.ColumnDataType.STRING
+    });
+    Mockito.when(_leftOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(schema, new Object[]{2, "x"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    // A single key with more rows than the limit can never be split by re-partitioning
+    Mockito.when(_rightOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(schema, new Object[]{2, "Aa"}, new Object[]{2, "BB"}, new Object[]{2, "CC"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+
+    DataSchema resultSchema = new DataSchema(new String[]{"int_col1", "string_col1", "int_co2", "string_col2"},
+        new DataSchema.ColumnDataType[]{
+            DataSchema.ColumnDataType.INT, DataSchema.ColumnDataType.STRING, DataSchema.ColumnDataType.INT,
+            DataSchema.ColumnDataType.STRING
+        });
+    Map<String, String> hintsMap = ImmutableMap.of(
+        PinotHintOptions.JoinHintOptions.JOIN_OVERFLOW_MODE, "SPILL",
+        PinotHintOptions.JoinHintOptions.MAX_ROWS_IN_JOIN, "2"
+    );
+    JoinNode node = new JoinNode(1, resultSchema, schema, schema, JoinRelType.INNER,
+        getJoinKeys(Arrays.asList(0), Arrays.asList(0)), new ArrayList<>(), getJoinHints(hintsMap));
+    HashJoinOperator join =
+        new HashJoinOperator(OperatorTestUtil.getDefaultContext(), _leftOperator, _rightOperator, schema, node);
+
+    TransferableBlock result = join.nextBlock();
+    while (!result.isEndOfStreamBlock()) {
+      result = join.nextBlock();
+    }
+    join.close();
+    Assert.assertTrue(result.isErrorBlock());
+    Assert.assertTrue(
+        result.getDataBlock().getExceptions().get(QueryException.SERVER_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE)
+            .contains("reach number of rows limit"));
+  }
 }
 // TODO: Add more inequi join tests.
@@ -47,6 +47,7 @@ import static org.apache.pinot.common.utils.DataSchema.ColumnDataType.INT;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 
@@ -152,7 +153,9 @@ public class MailboxReceiveOperatorTest {
       List<Object[]> actualRows = receiveOp.nextBlock().getContainer();
       assertEquals(actualRows.size(), 1);
       assertEquals(actualRows.get(0), row);
+      assertFalse(receiveOp.isFinished());
       assertTrue(receiveOp.nextBlock().isEndOfStreamBlock());
+      assertTrue(receiveOp.isFinished());
     }
   }
 
@@ -169,6 +172,7 @@ public class MailboxReceiveOperatorTest {
       TransferableBlock block = receiveOp.nextBlock();
       assertTrue(block.isErrorBlock());
       assertTrue(block.getDataBlock().getExceptions().get(QueryException.UNKNOWN_ERROR_CODE).contains(errorMessage));
+      assertFalse(receiveOp.isFinished());
     }
   }
 
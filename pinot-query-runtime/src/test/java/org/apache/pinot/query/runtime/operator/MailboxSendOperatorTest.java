@@ -40,6 +40,7 @@ import org.testng.annotations.Test;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -185,6 +186,21 @@ public class MailboxSendOperatorTest {
     assertTrue(resultMetadata.containsKey(mailboxSendOperator.getOperatorId()));
   }
 
+  @Test
+  public void shouldEarlyTerminateWithoutPullingUpstream()
+      throws Exception {
+    // Given:
+    when(_exchange.isEarlyTerminated()).thenReturn(true);
+
+    // When:
+    TransferableBlock block = getMailboxSendOperator().nextBlock();
+
+    // Then:
+    assertTrue(block.isSuccessfulEndOfStreamBlock(), "expected EOS block when all receivers are terminated");
+    verify(_sourceOperator, never()).nextBlock();
+    verify(_exchange, never()).send(any());
+  }
+
   private MailboxSendOperator getMailboxSendOperator() {
     StageMetadata stageMetadata = new StageMetadata.Builder().setWorkerMetadataList(
         Collections.singletonList(new WorkerMetadata.Builder().setVirtualServerAddress(_server).build())).build();
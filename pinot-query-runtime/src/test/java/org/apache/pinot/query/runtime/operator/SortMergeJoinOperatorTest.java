@@ -0,0 +1,216 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator;
+
+import java.util.Collections;
+import java.util.List;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.pinot.common.exception.QueryException;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.planner.partitioning.FieldSelectionKeySelector;
+import org.apache.pinot.query.planner.plannode.JoinNode;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+
+public class SortMergeJoinOperatorTest {
+  private static final DataSchema INPUT_SCHEMA = new DataSchema(new String[]{"int_col", "string_col"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING});
+  private static final DataSchema RESULT_SCHEMA =
+      new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"},
+          new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING});
+
+  private AutoCloseable _mocks;
+
+  @Mock
+  private MultiStageOperator _leftOperator;
+
+  @Mock
+  private MultiStageOperator _rightOperator;
+
+  @BeforeMethod
+  public void setUp() {
+    _mocks = MockitoAnnotations.openMocks(this);
+  }
+
+  @AfterMethod
+  public void tearDown()
+      throws Exception {
+    _mocks.close();
+  }
+
+  private SortMergeJoinOperator getOperator(JoinRelType joinType, DataSchema resultSchema) {
+    JoinNode.JoinKeys joinKeys =
+        new JoinNode.JoinKeys(new FieldSelectionKeySelector(0), new FieldSelectionKeySelector(0));
+    JoinNode node = new JoinNode(1, resultSchema, INPUT_SCHEMA, INPUT_SCHEMA, joinType, joinKeys,
+        Collections.emptyList(), Collections.emptyList());
+    return new SortMergeJoinOperator(OperatorTestUtil.getDefaultContext(), _leftOperator, _rightOperator,
+        INPUT_SCHEMA, node);
+  }
+
+  private static void assertRows(List<Object[]> resultRows, Object[]... expectedRows) {
+    Assert.assertEquals(resultRows.size(), expectedRows.length);
+    for (int i = 0; i < expectedRows.length; i++) {
+      Assert.assertEquals(resultRows.get(i), expectedRows[i]);
+    }
+  }
+
+  @Test
+  public void shouldJoinDuplicateKeysAcrossBlocks() {
+    Mockito.when(_leftOperator.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{2, "c"},
+                new Object[]{4, "d"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    // The right rows with key 2 are split across 2 blocks
+    Mockito.when(_rightOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{2, "x"}, new Object[]{2, "y"}))
+        .thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{2, "z"}, new Object[]{3, "w"}, new Object[]{4, "v"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    SortMergeJoinOperator operator = getOperator(JoinRelType.INNER, RESULT_SCHEMA);
+
+    TransferableBlock result = operator.nextBlock();
+    assertRows(result.getContainer(), new Object[]{2, "b", 2, "x"}, new Object[]{2, "b", 2, "y"},
+        new Object[]{2, "b", 2, "z"}, new Object[]{2, "c", 2, "x"}, new Object[]{2, "c", 2, "y"},
+        new Object[]{2, "c", 2, "z"}, new Object[]{4, "d", 4, "v"});
+    Assert.assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock());
+  }
+
+  @Test
+  public void shouldConsumeRightTableBeforeLeftTable() {
+    Mockito.when(_leftOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{2, "b"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    Mockito.when(_rightOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "x"}))
+        .thenReturn(OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{2, "y"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    SortMergeJoinOperator operator = getOperator(JoinRelType.INNER, RESULT_SCHEMA);
+
+    TransferableBlock result = operator.nextBlock();
+    assertRows(result.getContainer(), new Object[]{1, "a", 1, "x"}, new Object[]{2, "b", 2, "y"});
+    Assert.assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock());
+    // Reading both tables in lockstep from the mailboxes could deadlock across workers
+    InOrder inOrder = Mockito.inOrder(_rightOperator, _leftOperator);
+    inOrder.verify(_rightOperator, Mockito.times(3)).nextBlock();
+    inOrder.verify(_leftOperator, Mockito.times(2)).nextBlock();
+  }
+
+  @Test
+  public void shouldJoinLongKeysExactly() {
+    DataSchema inputSchema = new DataSchema(new String[]{"long_col", "string_col"},
+        new ColumnDataType[]{ColumnDataType.LONG, ColumnDataType.STRING});
+    DataSchema resultSchema = new DataSchema(new String[]{"long_col1", "string_col1", "long_col2", "string_col2"},
+        new ColumnDataType[]{ColumnDataType.LONG, ColumnDataType.STRING, ColumnDataType.LONG, ColumnDataType.STRING});
+    // The keys are larger than 2^53, where adjacent longs map to the same double
+    long key1 = 1L << 53;
+    long key2 = key1 + 1;
+    Mockito.when(_leftOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(inputSchema, new Object[]{key1, "a"}, new Object[]{key2, "b"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    Mockito.when(_rightOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(inputSchema, new Object[]{key1, "x"}, new Object[]{key2, "y"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    JoinNode.JoinKeys joinKeys =
+        new JoinNode.JoinKeys(new FieldSelectionKeySelector(0), new FieldSelectionKeySelector(0));
+    JoinNode node = new JoinNode(1, resultSchema, inputSchema, inputSchema, JoinRelType.INNER, joinKeys,
+        Collections.emptyList(), Collections.emptyList());
+    SortMergeJoinOperator operator = new SortMergeJoinOperator(OperatorTestUtil.getDefaultContext(), _leftOperator,
+        _rightOperator, inputSchema, node);
+
+    TransferableBlock result = operator.nextBlock();
+    assertRows(result.getContainer(), new Object[]{key1, "a", key1, "x"}, new Object[]{key2, "b", key2, "y"});
+    Assert.assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock());
+  }
+
+  @Test
+  public void shouldFullJoinWithNullKeys() {
+    // Null keys are sorted last and never match
+    Mockito.when(_leftOperator.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{3, "c"},
+                new Object[]{null, "b"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    Mockito.when(_rightOperator.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{2, "x"}, new Object[]{3, "y"},
+                new Object[]{null, "z"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    SortMergeJoinOperator operator = getOperator(JoinRelType.FULL, RESULT_SCHEMA);
+
+    TransferableBlock result = operator.nextBlock();
+    assertRows(result.getContainer(), new Object[]{1, "a", null, null}, new Object[]{null, null, 2, "x"},
+        new Object[]{3, "c", 3, "y"}, new Object[]{null, "b", null, null}, new Object[]{null, null, null, "z"});
+    Assert.assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock());
+  }
+
+  @Test
+  public void shouldSemiAndAntiJoin() {
+    Mockito.when(_leftOperator.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3, "c"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    Mockito.when(_rightOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{2, "x"}, new Object[]{2, "y"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    TransferableBlock result = getOperator(JoinRelType.SEMI, INPUT_SCHEMA).nextBlock();
+    assertRows(result.getContainer(), new Object[]{2, "b"});
+
+    Mockito.when(_leftOperator.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3, "c"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    Mockito.when(_rightOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{2, "x"}, new Object[]{2, "y"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    result = getOperator(JoinRelType.ANTI, INPUT_SCHEMA).nextBlock();
+    assertRows(result.getContainer(), new Object[]{1, "a"}, new Object[]{3, "c"});
+  }
+
+  @Test
+  public void shouldPropagateRightTableError() {
+    Mockito.when(_leftOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{2, "b"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    Mockito.when(_rightOperator.nextBlock())
+        .thenReturn(OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "x"}))
+        .thenReturn(TransferableBlockUtils.getErrorTransferableBlock(new Exception("testSortMergeJoinRightError")));
+    SortMergeJoinOperator operator = getOperator(JoinRelType.LEFT, RESULT_SCHEMA);
+
+    TransferableBlock result = operator.nextBlock();
+    Assert.assertTrue(result.isErrorBlock());
+    Assert.assertTrue(result.getDataBlock().getExceptions().get(QueryException.UNKNOWN_ERROR_CODE)
+        .contains("testSortMergeJoinRightError"));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void shouldThrowOnEmptyJoinKeys() {
+    JoinNode.JoinKeys joinKeys = new JoinNode.JoinKeys(new FieldSelectionKeySelector(Collections.emptyList()),
+        new FieldSelectionKeySelector(Collections.emptyList()));
+    JoinNode node = new JoinNode(1, RESULT_SCHEMA, INPUT_SCHEMA, INPUT_SCHEMA, JoinRelType.INNER, joinKeys,
+        Collections.emptyList(), Collections.emptyList());
+    new SortMergeJoinOperator(OperatorTestUtil.getDefaultContext(), _leftOperator, _rightOperator, INPUT_SCHEMA,
+        node);
+  }
+}
@@ -19,6 +19,7 @@
 package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -30,6 +31,9 @@ import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.routing.VirtualServerAddress;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.query.runtime.plan.StageMetadata;
+import org.apache.pinot.spi.utils.CommonConstants;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -157,6 +161,27 @@ public class SortOperatorTest {
     Assert.assertTrue(block2.isEndOfStreamBlock(), "expected EOS block to propagate");
   }
 
+  @Test
+  public void shouldCloseUpstreamWhenLimitReached() {
+    // Given:
+    DataSchema schema = new DataSchema(new String[]{"sort"}, new DataSchema.ColumnDataType[]{INT});
+    SortOperator op =
+        new SortOperator(OperatorTestUtil.getDefaultContext(), _input, ImmutableList.of(), ImmutableList.of(),
+            ImmutableList.of(), 2, 0, schema, false);
+
+    Mockito.when(_input.nextBlock()).thenReturn(block(schema, new Object[]{1}, new Object[]{2}, new Object[]{3}))
+        .thenReturn(block(schema, new Object[]{4}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+
+    // When:
+    TransferableBlock block = op.nextBlock();
+
+    // Then:
+    Assert.assertEquals(block.getNumRows(), 2);
+    Mockito.verify(_input, Mockito.times(1)).nextBlock();
+    Mockito.verify(_input).close();
+  }
+
   @Test
   public void shouldConsumeAndSortOnNonZeroIdxCollation() {
     // Given:
@@ -618,6 +643,39 @@ public class SortOperatorTest {
     Assert.assertTrue(block2.isEndOfStreamBlock(), "expected EOS block to propagate");
   }
 
+  @Test
+  public void shouldSpillSortedRunsAndMergeWhenExceedMaxRowsInSort() {
+    // Given:
+    List<RexExpression> collation = collation(0);
+    List<Direction> directions = ImmutableList.of(Direction.DESCENDING);
+    List<NullDirection> nullDirections = ImmutableList.of(NullDirection.LAST);
+    DataSchema schema = new DataSchema(new String[]{"sort", "str"}, new DataSchema.ColumnDataType[]{INT, STRING});
+    StageMetadata stageMetadata = new StageMetadata.Builder().addCustomProperties(
+        ImmutableMap.of(CommonConstants.Broker.Request.QueryOptionKey.MAX_ROWS_IN_SORT, "2")).build();
+    OpChainExecutionContext context =
+        new OpChainExecutionContext(null, 1, 2, new VirtualServerAddress("mock", 80, 0), Long.MAX_VALUE,
+            stageMetadata, null, true);
+    SortOperator op = new SortOperator(context, _input, collation, directions, nullDirections, 4, 1, schema, false);
+
+    Mockito.when(_input.nextBlock())
+        .thenReturn(block(schema, new Object[]{3, "c"}, new Object[]{1, "a"}, new Object[]{5, "e"}))
+        .thenReturn(block(schema, new Object[]{2, "b"}, new Object[]{6, "f"}, new Object[]{4, "d"}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+
+    // When:
+    TransferableBlock block = op.nextBlock(); // construct
+    TransferableBlock block2 = op.nextBlock(); // eos
+
+    // Then:
+    Assert.assertEquals(block.getNumRows(), 4);
+    Assert.assertEquals(block.getContainer().get(0), new Object[]{5, "e"});
+    Assert.assertEquals(block.getContainer().get(1), new Object[]{4, "d"});
+    Assert.assertEquals(block.getContainer().get(2), new Object[]{3, "c"});
+    Assert.assertEquals(block.getContainer().get(3), new Object[]{2, "b"});
+    Assert.assertTrue(block2.isEndOfStreamBlock(), "expected EOS block to propagate");
+    Assert.assertTrue(context.getStats().getSpilledBytes() > 0);
+  }
+
   private static List<RexExpression> collation(int... indexes) {
     return Arrays.stream(indexes).mapToObj(RexExpression.InputRef::new).collect(Collectors.toList());
   }
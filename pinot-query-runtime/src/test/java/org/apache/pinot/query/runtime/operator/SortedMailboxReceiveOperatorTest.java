@@ -51,6 +51,8 @@ import org.testng.annotations.Test;
 import static org.apache.pinot.common.utils.DataSchema.ColumnDataType.INT;
 import static org.apache.pinot.common.utils.DataSchema.ColumnDataType.STRING;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
@@ -297,4 +299,53 @@ public class SortedMailboxReceiveOperatorTest {
       assertTrue(receiveOp.nextBlock().isEndOfStreamBlock());
     }
   }
+
+  @Test
+  public void shouldMergeMailboxesSortedOnSender() {
+    when(_mailboxService.getReceivingMailbox(eq(MAILBOX_ID_1))).thenReturn(_mailbox1);
+    Object[] row1 = new Object[]{1, 1};
+    Object[] row2 = new Object[]{3, 3};
+    Object[] row3 = new Object[]{5, 5};
+    when(_mailbox1.poll()).thenReturn(OperatorTestUtil.block(DATA_SCHEMA, row1, row2),
+        OperatorTestUtil.block(DATA_SCHEMA, row3), TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    when(_mailboxService.getReceivingMailbox(eq(MAILBOX_ID_2))).thenReturn(_mailbox2);
+    Object[] row4 = new Object[]{-1, 95};
+    Object[] row5 = new Object[]{2, 4};
+    Object[] row6 = new Object[]{4, 2};
+    when(_mailbox2.poll()).thenReturn(OperatorTestUtil.block(DATA_SCHEMA, row4),
+        OperatorTestUtil.block(DATA_SCHEMA, row5, row6), TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    OpChainExecutionContext context =
+        OperatorTestUtil.getOpChainContext(_mailboxService, RECEIVER_ADDRESS, Long.MAX_VALUE, _stageMetadataBoth);
+    try (SortedMailboxReceiveOperator receiveOp = new SortedMailboxReceiveOperator(context,
+        RelDistribution.Type.HASH_DISTRIBUTED, DATA_SCHEMA, COLLATION_KEYS, COLLATION_DIRECTIONS,
+        COLLATION_NULL_DIRECTIONS, true, 1)) {
+      assertEquals(receiveOp.nextBlock().getContainer(), Arrays.asList(row4, row1, row5, row2, row6, row3));
+      assertTrue(receiveOp.nextBlock().isEndOfStreamBlock());
+    }
+  }
+
+  @Test
+  public void shouldConsumeOtherMailboxesWhileWaitingForMergedMailbox() {
+    when(_mailboxService.getReceivingMailbox(eq(MAILBOX_ID_1))).thenReturn(_mailbox1);
+    when(_mailbox1.poll()).thenReturn(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{1, 1}),
+        (TransferableBlock) null);
+    when(_mailboxService.getReceivingMailbox(eq(MAILBOX_ID_2))).thenReturn(_mailbox2);
+    when(_mailbox2.poll()).thenReturn(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{2, 2}),
+        OperatorTestUtil.block(DATA_SCHEMA, new Object[]{4, 4}),
+        TransferableBlockUtils.getEndOfStreamTransferableBlock());
+    OpChainExecutionContext context =
+        OperatorTestUtil.getOpChainContext(_mailboxService, RECEIVER_ADDRESS, System.currentTimeMillis() + 100L,
+            _stageMetadataBoth);
+    try (SortedMailboxReceiveOperator receiveOp = new SortedMailboxReceiveOperator(context,
+        RelDistribution.Type.HASH_DISTRIBUTED, DATA_SCHEMA, COLLATION_KEYS, COLLATION_DIRECTIONS,
+        COLLATION_NULL_DIRECTIONS, true, 1)) {
+      // The merge waits for the next block from mailbox 1 (which never comes), while mailbox 2 is fully consumed so
+      // that its sender is not blocked
+      TransferableBlock block = receiveOp.nextBlock();
+      assertTrue(block.isErrorBlock());
+      assertTrue(((MetadataBlock) block.getDataBlock()).getExceptions()
+          .containsKey(QueryException.EXECUTION_TIMEOUT_ERROR_CODE));
+      verify(_mailbox2, times(3)).poll();
+    }
+  }
 }
@@ -525,24 +525,80 @@ public class WindowAggregateOperatorTest {
 
   @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "Only RANGE type frames "
       + "are supported at present.*")
-  public void testShouldThrowOnCustomFramesRows() {
-    // TODO: Remove this test once custom frame support is added
+  public void testShouldThrowOnCustomFramesRowsForRank() {
     // Given:
-    List<RexExpression> calls = ImmutableList.of(getSum(new RexExpression.InputRef(1)));
+    List<RexExpression> calls = ImmutableList.of(
+        new RexExpression.FunctionCall(SqlKind.RANK, FieldSpec.DataType.INT, "RANK", ImmutableList.of()));
     List<RexExpression> group = ImmutableList.of(new RexExpression.InputRef(0));
+    List<RexExpression> order = ImmutableList.of(new RexExpression.InputRef(1));
 
     DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new DataSchema.ColumnDataType[]{INT, STRING});
     Mockito.when(_input.nextBlock()).thenReturn(OperatorTestUtil.block(inSchema, new Object[]{2, "foo"}))
         .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
 
     DataSchema outSchema =
-        new DataSchema(new String[]{"group", "arg", "sum"}, new DataSchema.ColumnDataType[]{INT, STRING, DOUBLE});
+        new DataSchema(new String[]{"group", "arg", "rank"}, new DataSchema.ColumnDataType[]{INT, STRING, LONG});
     WindowAggregateOperator operator =
-        new WindowAggregateOperator(OperatorTestUtil.getDefaultContext(), _input, group, Collections.emptyList(),
-            Collections.emptyList(), Collections.emptyList(), calls, Integer.MIN_VALUE, Integer.MAX_VALUE,
+        new WindowAggregateOperator(OperatorTestUtil.getDefaultContext(), _input, group, order,
+            Collections.emptyList(), Collections.emptyList(), calls, Integer.MIN_VALUE, 0,
             WindowNode.WindowFrameType.ROWS, Collections.emptyList(), outSchema, inSchema);
   }
 
+  @Test
+  public void testShouldWindowAggregateOverSlidingRowsFrame() {
+    // Given:
+    List<RexExpression> calls = ImmutableList.of(getSum(new RexExpression.InputRef(2)),
+        new RexExpression.FunctionCall(SqlKind.MIN, FieldSpec.DataType.INT, "MIN",
+            ImmutableList.of(new RexExpression.InputRef(2))),
+        new RexExpression.FunctionCall(SqlKind.COUNT, FieldSpec.DataType.LONG, "COUNT",
+            ImmutableList.of(new RexExpression.InputRef(2))));
+    List<RexExpression> group = ImmutableList.of(new RexExpression.InputRef(0));
+    List<RexExpression> order = ImmutableList.of(new RexExpression.InputRef(1));
+
+    DataSchema inSchema = new DataSchema(new String[]{"group", "ts", "arg"},
+        new DataSchema.ColumnDataType[]{STRING, INT, INT});
+    // Input should be in sorted order on the order by key as SortExchange will handle pre-sorting the data
+    Mockito.when(_input.nextBlock())
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{"a", 1, 3}, new Object[]{"a", 2, 1},
+            new Object[]{"b", 1, 2}, new Object[]{"a", 3, 4}))
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{"a", 4, null}, new Object[]{"a", 5, 6},
+            new Object[]{"a", 6, 5}))
+        .thenReturn(TransferableBlockUtils.getEndOfStreamTransferableBlock());
+
+    DataSchema outSchema = new DataSchema(new String[]{"group", "ts", "arg", "sum", "min", "count"},
+        new DataSchema.ColumnDataType[]{STRING, INT, INT, DOUBLE, DOUBLE, LONG});
+
+    // When: ROWS BETWEEN 1 PRECEDING AND 1 FOLLOWING
+    WindowAggregateOperator operator =
+        new WindowAggregateOperator(OperatorTestUtil.getDefaultContext(), _input, group, order,
+            Collections.emptyList(), Collections.emptyList(), calls, -1, 1, WindowNode.WindowFrameType.ROWS,
+            Collections.emptyList(), outSchema, inSchema);
+
+    TransferableBlock result = operator.getNextBlock();
+    TransferableBlock eosBlock = operator.getNextBlock();
+    List<Object[]> resultRows = result.getContainer();
+    Map<String, List<Object[]>> expectedPartitionToRowsMap = new HashMap<>();
+    expectedPartitionToRowsMap.put("a", Arrays.asList(new Object[]{"a", 1, 3, 4.0, 1.0, 2L},
+        new Object[]{"a", 2, 1, 8.0, 1.0, 3L}, new Object[]{"a", 3, 4, 5.0, 1.0, 2L},
+        new Object[]{"a", 4, null, 10.0, 4.0, 2L}, new Object[]{"a", 5, 6, 11.0, 5.0, 2L},
+        new Object[]{"a", 6, 5, 11.0, 5.0, 2L}));
+    expectedPartitionToRowsMap.put("b", Collections.singletonList(new Object[]{"b", 1, 2, 2.0, 2.0, 1L}));
+
+    Map<String, List<Object[]>> resultsPartitionToRowsMap = new HashMap<>();
+    for (Object[] row : resultRows) {
+      resultsPartitionToRowsMap.computeIfAbsent((String) row[0], k -> new ArrayList<>()).add(row);
+    }
+    Assert.assertEquals(resultsPartitionToRowsMap.keySet(), expectedPartitionToRowsMap.keySet());
+    resultsPartitionToRowsMap.forEach((key, value) -> {
+      List<Object[]> expectedRows = expectedPartitionToRowsMap.get(key);
+      Assert.assertEquals(value.size(), expectedRows.size());
+      for (int i = 0; i < value.size(); i++) {
+        Assert.assertEquals(value.get(i), expectedRows.get(i));
+      }
+    });
+    Assert.assertTrue(eosBlock.isEndOfStreamBlock(), "Second block is EOS (done processing)");
+  }
+
   @Test
   public void testShouldNotThrowCurrentRowPartitionByOrderByOnSameKey() {
     // Given:
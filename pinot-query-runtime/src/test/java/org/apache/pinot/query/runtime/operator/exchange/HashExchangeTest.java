@@ -20,7 +20,9 @@ package org.apache.pinot.query.runtime.operator.exchange;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
+import it.unimi.dsi.fastutil.ints.IntSets;
 import java.util.Iterator;
+import org.apache.calcite.rel.logical.PinotRelSkewHandlingType;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.mailbox.SendingMailbox;
@@ -28,6 +30,7 @@ import org.apache.pinot.query.planner.partitioning.KeySelector;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -45,6 +48,10 @@ public class HashExchangeTest {
   @Mock
   private SendingMailbox _mailbox2;
   @Mock
+  private SendingMailbox _hotKeyMailbox;
+  @Mock
+  private HotKeySubscriber _hotKeySubscriber;
+  @Mock
   TransferableBlock _block;
 
   @BeforeMethod
@@ -83,6 +90,124 @@ public class HashExchangeTest {
     Assert.assertEquals(captor.getValue().getContainer().get(0), new Object[]{2});
   }
 
+  @Test
+  public void shouldSplitHotKeyAcrossWorkers()
+      throws Exception {
+    // Given:
+    TestSelector selector = new TestSelector(Iterators.forArray(0, 0, 0, 0));
+    Mockito.when(_block.getContainer()).thenReturn(
+        ImmutableList.of(new Object[]{0}, new Object[]{1}, new Object[]{2}, new Object[]{3}));
+    ImmutableList<SendingMailbox> destinations = ImmutableList.of(_mailbox1, _mailbox2);
+
+    // When:
+    new HashExchange(destinations, selector, TransferableBlockUtils::splitBlock, PinotRelSkewHandlingType.SPLIT, 2,
+        new HotKeyDetector(1, 1, 4, 0.5)).route(destinations, _block);
+
+    // Then:
+    ArgumentCaptor<TransferableBlock> captor = ArgumentCaptor.forClass(TransferableBlock.class);
+
+    Mockito.verify(_mailbox1, Mockito.times(1)).send(captor.capture());
+    Assert.assertEquals(captor.getValue().getContainer().size(), 2);
+    Assert.assertEquals(captor.getValue().getContainer().get(0), new Object[]{0});
+    Assert.assertEquals(captor.getValue().getContainer().get(1), new Object[]{2});
+
+    Mockito.verify(_mailbox2, Mockito.times(1)).send(captor.capture());
+    Assert.assertEquals(captor.getValue().getContainer().size(), 2);
+    Assert.assertEquals(captor.getValue().getContainer().get(0), new Object[]{1});
+    Assert.assertEquals(captor.getValue().getContainer().get(1), new Object[]{3});
+  }
+
+  @Test
+  public void shouldReplicateRowsToSplitWorkers()
+      throws Exception {
+    // Given:
+    TestSelector selector = new TestSelector(Iterators.forArray(0, 1));
+    Mockito.when(_block.getContainer()).thenReturn(ImmutableList.of(new Object[]{0}, new Object[]{1}));
+    ImmutableList<SendingMailbox> destinations = ImmutableList.of(_mailbox1, _mailbox2);
+
+    // When:
+    new HashExchange(destinations, selector, TransferableBlockUtils::splitBlock, PinotRelSkewHandlingType.REPLICATE,
+        2).route(destinations, _block);
+
+    // Then:
+    ArgumentCaptor<TransferableBlock> captor = ArgumentCaptor.forClass(TransferableBlock.class);
+
+    Mockito.verify(_mailbox1, Mockito.times(1)).send(captor.capture());
+    Assert.assertEquals(captor.getValue().getContainer().size(), 2);
+    Assert.assertEquals(captor.getValue().getContainer().get(0), new Object[]{0});
+    Assert.assertEquals(captor.getValue().getContainer().get(1), new Object[]{1});
+
+    Mockito.verify(_mailbox2, Mockito.times(1)).send(captor.capture());
+    Assert.assertEquals(captor.getValue().getContainer().size(), 2);
+    Assert.assertEquals(captor.getValue().getContainer().get(0), new Object[]{0});
+    Assert.assertEquals(captor.getValue().getContainer().get(1), new Object[]{1});
+  }
+
+  @Test
+  public void shouldPublishSampledHotKeysBeforeSendingRows()
+      throws Exception {
+    // Given:
+    // The hashes are computed once when sampling and once when routing
+    TestSelector selector = new TestSelector(Iterators.forArray(0, 1, 0, 0, 0, 1, 0, 0));
+    Mockito.when(_block.getContainer()).thenReturn(
+        ImmutableList.of(new Object[]{0}, new Object[]{1}, new Object[]{2}, new Object[]{3}));
+    Mockito.when(_block.getNumRows()).thenReturn(4);
+    ImmutableList<SendingMailbox> destinations = ImmutableList.of(_mailbox1, _mailbox2);
+
+    // When:
+    new HashExchange(destinations, selector, TransferableBlockUtils::splitBlock, PinotRelSkewHandlingType.SPLIT, 2,
+        new HotKeyDetector(1, 1, 4, 0.5), new HotKeyPublisher(ImmutableList.of(_hotKeyMailbox)), null, 4).send(
+        _block);
+
+    // Then:
+    ArgumentCaptor<TransferableBlock> captor = ArgumentCaptor.forClass(TransferableBlock.class);
+
+    InOrder inOrder = Mockito.inOrder(_hotKeyMailbox, _mailbox1);
+    inOrder.verify(_hotKeyMailbox, Mockito.times(2)).send(captor.capture());
+    inOrder.verify(_hotKeyMailbox).complete();
+    inOrder.verify(_mailbox1).send(Mockito.any());
+    Assert.assertEquals(captor.getAllValues().get(0).getContainer().size(), 1);
+    Assert.assertEquals(captor.getAllValues().get(0).getContainer().get(0), new Object[]{0});
+    Assert.assertTrue(captor.getAllValues().get(1).isSuccessfulEndOfStreamBlock());
+
+    // Only the published hot key is split, the other key is sent to its hashed worker
+    Mockito.verify(_mailbox1, Mockito.times(1)).send(captor.capture());
+    Assert.assertEquals(captor.getValue().getContainer().size(), 2);
+    Assert.assertEquals(captor.getValue().getContainer().get(0), new Object[]{0});
+    Assert.assertEquals(captor.getValue().getContainer().get(1), new Object[]{3});
+
+    Mockito.verify(_mailbox2, Mockito.times(1)).send(captor.capture());
+    Assert.assertEquals(captor.getValue().getContainer().size(), 2);
+    Assert.assertEquals(captor.getValue().getContainer().get(0), new Object[]{1});
+    Assert.assertEquals(captor.getValue().getContainer().get(1), new Object[]{2});
+  }
+
+  @Test
+  public void shouldReplicateOnlyRowsOfReceivedHotKeys()
+      throws Exception {
+    // Given:
+    TestSelector selector = new TestSelector(Iterators.forArray(0, 1));
+    Mockito.when(_block.getContainer()).thenReturn(ImmutableList.of(new Object[]{0}, new Object[]{1}));
+    Mockito.when(_hotKeySubscriber.receive()).thenReturn(IntSets.singleton(0));
+    ImmutableList<SendingMailbox> destinations = ImmutableList.of(_mailbox1, _mailbox2);
+
+    // When:
+    new HashExchange(destinations, selector, TransferableBlockUtils::splitBlock, PinotRelSkewHandlingType.REPLICATE,
+        2, new HotKeyDetector(0.5), null, _hotKeySubscriber, 4).route(destinations, _block);
+
+    // Then:
+    ArgumentCaptor<TransferableBlock> captor = ArgumentCaptor.forClass(TransferableBlock.class);
+
+    Mockito.verify(_mailbox1, Mockito.times(1)).send(captor.capture());
+    Assert.assertEquals(captor.getValue().getContainer().size(), 1);
+    Assert.assertEquals(captor.getValue().getContainer().get(0), new Object[]{0});
+
+    Mockito.verify(_mailbox2, Mockito.times(1)).send(captor.capture());
+    Assert.assertEquals(captor.getValue().getContainer().size(), 2);
+    Assert.assertEquals(captor.getValue().getContainer().get(0), new Object[]{0});
+    Assert.assertEquals(captor.getValue().getContainer().get(1), new Object[]{1});
+  }
+
   private static class TestSelector implements KeySelector<Object[], Object[]> {
     private static final String HASH_ALGORITHM = "dummyHash";
 
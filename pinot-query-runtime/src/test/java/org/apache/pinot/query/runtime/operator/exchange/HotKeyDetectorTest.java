@@ -0,0 +1,59 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.exchange;
+
+import it.unimi.dsi.fastutil.ints.IntSets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class HotKeyDetectorTest {
+
+  @Test
+  public void shouldDetectHotKey() {
+    HotKeyDetector detector = new HotKeyDetector(1, 10, 4, 0.25);
+    for (int i = 0; i < 100; i++) {
+      // Hash 0 is half of the rows, the other ones are all distinct
+      detector.offer(i % 2 == 0 ? 0 : i);
+    }
+    Assert.assertTrue(detector.isHot(0));
+    Assert.assertFalse(detector.isHot(1));
+    Assert.assertFalse(detector.isHot(99));
+    Assert.assertEquals(detector.getHotHashes(), IntSets.singleton(0));
+  }
+
+  @Test
+  public void shouldNotDetectHotKeyBeforeMinSamples() {
+    HotKeyDetector detector = new HotKeyDetector(1, 10, 4, 0.5);
+    for (int i = 0; i < 9; i++) {
+      Assert.assertFalse(detector.offer(0));
+    }
+    Assert.assertTrue(detector.offer(0));
+  }
+
+  @Test
+  public void shouldOnlySampleEveryInterval() {
+    HotKeyDetector detector = new HotKeyDetector(4, 2, 4, 0.5);
+    // Only the 1st and 5th rows are sampled
+    for (int i = 0; i < 4; i++) {
+      Assert.assertFalse(detector.offer(0));
+    }
+    Assert.assertTrue(detector.offer(0));
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.data.table.Key;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class LookupTableTest {
+
+  @Test
+  public void shouldCreateTableByKeyType() {
+    Assert.assertTrue(LookupTable.create(ColumnDataType.INT) instanceof IntLookupTable);
+    Assert.assertTrue(LookupTable.create(ColumnDataType.LONG) instanceof LongLookupTable);
+    Assert.assertTrue(LookupTable.create(ColumnDataType.DOUBLE) instanceof DoubleLookupTable);
+    Assert.assertTrue(LookupTable.create(ColumnDataType.STRING) instanceof ObjectLookupTable);
+    Assert.assertTrue(LookupTable.create(null) instanceof ObjectLookupTable);
+  }
+
+  @Test
+  public void shouldChainRowsWithSameKeyInInsertionOrder() {
+    LookupTable table = LookupTable.create(ColumnDataType.INT);
+    table.addRow(1, new Object[]{1, "a"});
+    table.addRow(2, new Object[]{2, "b"});
+    table.addRow(1, new Object[]{1, "c"});
+    table.addRow(null, new Object[]{null, "d"});
+
+    Assert.assertEquals(table.size(), 4);
+    Assert.assertEquals(getMatchedRows(table, 1), List.of("a", "c"));
+    Assert.assertEquals(getMatchedRows(table, 2), List.of("b"));
+    Assert.assertEquals(getMatchedRows(table, null), List.of("d"));
+    Assert.assertFalse(table.containsKey(3));
+    // Keys are compared with equals, so a LONG key does not match an INT key.
+    Assert.assertFalse(table.containsKey(1L));
+
+    table.clear();
+    Assert.assertEquals(table.size(), 0);
+    Assert.assertFalse(table.containsKey(1));
+  }
+
+  @Test
+  public void shouldHandleKeysOfUnexpectedType() {
+    LookupTable table = LookupTable.create(ColumnDataType.LONG);
+    table.addRow(1L, new Object[]{1L, "a"});
+    table.addRow("1", new Object[]{"1", "b"});
+    table.addRow(1L, new Object[]{1L, "c"});
+
+    Assert.assertEquals(getMatchedRows(table, 1L), List.of("a", "c"));
+    Assert.assertEquals(getMatchedRows(table, "1"), List.of("b"));
+  }
+
+  @Test
+  public void shouldHandleCompositeKeys() {
+    LookupTable table = LookupTable.create(null);
+    table.addRow(new Key(new Object[]{1, "x"}), new Object[]{1, "x", "a"});
+    table.addRow(new Key(new Object[]{1, "y"}), new Object[]{1, "y", "b"});
+
+    Assert.assertEquals(getMatchedRows(table, new Key(new Object[]{1, "x"})), List.of("x"));
+    Assert.assertEquals(getMatchedRows(table, new Key(new Object[]{1, "y"})), List.of("y"));
+    Assert.assertFalse(table.containsKey(new Key(new Object[]{2, "x"})));
+  }
+
+  private static List<Object> getMatchedRows(LookupTable table, Object key) {
+    List<Object> values = new ArrayList<>();
+    for (int rowId = table.getFirstRowId(key); rowId >= 0; rowId = table.getNextRowId(rowId)) {
+      values.add(table.getRow(rowId)[1]);
+    }
+    return values;
+  }
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.plan.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.pinot.common.request.Expression;
+import org.apache.pinot.common.request.PinotQuery;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.common.utils.request.RequestUtils;
+import org.apache.pinot.query.planner.partitioning.FieldSelectionKeySelector;
+import org.apache.pinot.query.planner.plannode.JoinNode;
+import org.apache.pinot.sql.FilterKind;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class ServerPlanRequestUtilsTest {
+  private static final DataSchema DATA_SCHEMA =
+      new DataSchema(new String[]{"key"}, new ColumnDataType[]{ColumnDataType.INT});
+  private static final JoinNode.JoinKeys JOIN_KEYS =
+      new JoinNode.JoinKeys(new FieldSelectionKeySelector(0), new FieldSelectionKeySelector(0));
+
+  @Test
+  public void shouldAttachDistinctNonNullValuesAsInFilter() {
+    PinotQuery pinotQuery = createPinotQuery();
+    List<Object[]> rows = Arrays.asList(new Object[]{3}, new Object[]{null}, new Object[]{1}, new Object[]{3},
+        new Object[]{1});
+
+    ServerPlanRequestUtils.attachDynamicFilter(pinotQuery, JOIN_KEYS, rows, DATA_SCHEMA, false);
+
+    Expression filterExpression = pinotQuery.getFilterExpression();
+    Assert.assertEquals(filterExpression.getFunctionCall().getOperator(), FilterKind.IN.name());
+    Assert.assertEquals(filterExpression.getFunctionCall().getOperands(),
+        Arrays.asList(RequestUtils.getIdentifierExpression("col"), RequestUtils.getLiteralExpression(1),
+            RequestUtils.getLiteralExpression(3)));
+  }
+
+  @Test
+  public void shouldNotSelectAnyRowWhenAllValuesAreNull() {
+    PinotQuery pinotQuery = createPinotQuery();
+    List<Object[]> rows = Arrays.asList(new Object[]{null}, new Object[]{null});
+
+    ServerPlanRequestUtils.attachDynamicFilter(pinotQuery, JOIN_KEYS, rows, DATA_SCHEMA, true);
+
+    Assert.assertNull(pinotQuery.getFilterExpression());
+    Assert.assertEquals(pinotQuery.getLimit(), 0);
+  }
+
+  @Test
+  public void shouldSkipOptionalFilterWithTooManyValues() {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i <= ServerPlanRequestUtils.MAX_NUM_OPTIONAL_DYNAMIC_FILTER_VALUES; i++) {
+      rows.add(new Object[]{i});
+    }
+
+    PinotQuery pinotQuery = createPinotQuery();
+    ServerPlanRequestUtils.attachDynamicFilter(pinotQuery, JOIN_KEYS, rows, DATA_SCHEMA, true);
+    Assert.assertNull(pinotQuery.getFilterExpression());
+
+    // The filter is required for the SEMI-JOIN of the dynamic broadcast
+    pinotQuery = createPinotQuery();
+    ServerPlanRequestUtils.attachDynamicFilter(pinotQuery, JOIN_KEYS, rows, DATA_SCHEMA, false);
+    Assert.assertEquals(pinotQuery.getFilterExpression().getFunctionCall().getOperands().size(), rows.size() + 1);
+  }
+
+  private static PinotQuery createPinotQuery() {
+    PinotQuery pinotQuery = new PinotQuery();
+    pinotQuery.setSelectList(new ArrayList<>(Arrays.asList(RequestUtils.getIdentifierExpression("col"))));
+    pinotQuery.setLimit(10);
+    return pinotQuery;
+  }
+}
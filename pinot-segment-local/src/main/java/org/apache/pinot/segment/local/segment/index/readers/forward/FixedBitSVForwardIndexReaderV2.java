@@ -67,7 +67,9 @@ public final class FixedBitSVForwardIndexReaderV2 implements ForwardIndexReader<
     // Use bulk read if the doc ids are sequential
     if (lastDocId - firstDocId + 1 == length && length >= 64) {
       int bulkStartIndex = (firstDocId + 31) & 0xffffffe0;
-      int bulkEndIndex = lastDocId & 0xffffffe0;
+      // Include the last 32 values when the batch ends on a 32 boundary, which is the common case for the aligned
+      // batches produced by the scan based doc id iterators
+      int bulkEndIndex = (lastDocId + 1) & 0xffffffe0;
 
       for (int i = firstDocId; i < bulkStartIndex; i++) {
         dictIdBuffer[index++] = _reader.readUnchecked(i);
@@ -79,6 +81,9 @@ public final class FixedBitSVForwardIndexReaderV2 implements ForwardIndexReader<
     }
 
     // Process the remaining docs
+    if (index == length) {
+      return;
+    }
     if (lastDocId < _numDocs - 2) {
       for (int i = index; i < length; i++) {
         dictIdBuffer[i] = _reader.readUnchecked(docIds[i]);
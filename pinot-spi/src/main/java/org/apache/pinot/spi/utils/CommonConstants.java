@@ -276,6 +276,30 @@ public class CommonConstants {
     public static final String MULTI_STAGE_BROKER_REQUEST_HANDLER_TYPE = "multistage";
     public static final String DEFAULT_BROKER_REQUEST_HANDLER_TYPE = NETTY_BROKER_REQUEST_HANDLER_TYPE;
 
+    // Max number of compiled multi-stage query plans cached by the broker, set to 0 to disable the plan cache
+    public static final String CONFIG_OF_MULTI_STAGE_PLAN_CACHE_SIZE = "pinot.broker.multistage.plan.cache.size";
+    public static final int DEFAULT_MULTI_STAGE_PLAN_CACHE_SIZE = 1000;
+    // Whether to reorder the multi-stage joins based on the table row counts (sum of the total docs in the segment ZK
+    // metadata), and how often to refresh the row counts
+    public static final String CONFIG_OF_MULTI_STAGE_JOIN_REORDER_ENABLED =
+        "pinot.broker.multistage.join.reorder.enabled";
+    public static final boolean DEFAULT_MULTI_STAGE_JOIN_REORDER_ENABLED = false;
+    public static final String CONFIG_OF_MULTI_STAGE_TABLE_STATS_REFRESH_INTERVAL_MS =
+        "pinot.broker.multistage.table.stats.refresh.interval.ms";
+    public static final long DEFAULT_MULTI_STAGE_TABLE_STATS_REFRESH_INTERVAL_MS = 300_000L;
+    // Whether to choose the number of workers of the multi-stage intermediate stages from the estimated number of input
+    // rows (based on the table row counts) when the stage parallelism is not set in the query options, how many input
+    // rows to assign to each worker, and the max number of workers per server (e.g. number of cores of the servers)
+    public static final String CONFIG_OF_MULTI_STAGE_ADAPTIVE_PARALLELISM_ENABLED =
+        "pinot.broker.multistage.adaptive.parallelism.enabled";
+    public static final boolean DEFAULT_MULTI_STAGE_ADAPTIVE_PARALLELISM_ENABLED = false;
+    public static final String CONFIG_OF_MULTI_STAGE_NUM_ROWS_PER_WORKER =
+        "pinot.broker.multistage.adaptive.parallelism.num.rows.per.worker";
+    public static final long DEFAULT_MULTI_STAGE_NUM_ROWS_PER_WORKER = 1_000_000L;
+    public static final String CONFIG_OF_MULTI_STAGE_MAX_STAGE_PARALLELISM =
+        "pinot.broker.multistage.adaptive.parallelism.max.stage.parallelism";
+    public static final int DEFAULT_MULTI_STAGE_MAX_STAGE_PARALLELISM = 8;
+
     public static final String BROKER_TLS_PREFIX = "pinot.broker.tls";
     public static final String BROKER_NETTY_PREFIX = "pinot.broker.netty";
     public static final String BROKER_NETTYTLS_ENABLED = "pinot.broker.nettytls.enabled";
@@ -342,6 +366,8 @@ public class CommonConstants {
         public static final String NUM_GROUPS_LIMIT = "numGroupsLimit";
         public static final String MAX_INITIAL_RESULT_HOLDER_CAPACITY = "maxInitialResultHolderCapacity";
         public static final String GROUP_TRIM_THRESHOLD = "groupTrimThreshold";
+        public static final String GROUP_BY_COMBINE_NUM_PARTITIONS = "groupByCombineNumPartitions";
+        public static final String MAX_DOCS_PER_BLOCK = "maxDocsPerBlock";
         public static final String STAGE_PARALLELISM = "stageParallelism";
 
         // Handle IN predicate evaluation for big IN lists
@@ -353,6 +379,12 @@ public class CommonConstants {
         public static final String MAX_ROWS_IN_JOIN = "maxRowsInJoin";
         public static final String JOIN_OVERFLOW_MODE = "joinOverflowMode";
 
+        // Max rows kept in memory by multi-stage SORT before spilling sorted runs to disk
+        public static final String MAX_ROWS_IN_SORT = "maxRowsInSort";
+
+        // Max groups kept in memory by multi-stage AGGREGATE before spilling intermediate results to disk
+        public static final String MAX_GROUPS_IN_AGGREGATE = "maxGroupsInAggregate";
+
         // TODO: Remove these keys (only apply to PQL) after releasing 0.11.0
         @Deprecated
         public static final String PRESERVE_TYPE = "preserveType";
@@ -1055,5 +1087,51 @@ public class CommonConstants {
      */
     public static final String KEY_OF_JOIN_OVERFLOW_MODE = "pinot.query.join.overflow.mode";
     public static final String KEY_OF_MAX_ROWS_IN_JOIN = "pinot.query.join.max.rows";
+
+    /**
+     * Configuration for sort spilling, sort spilling is disabled when not set.
+     */
+    public static final String KEY_OF_MAX_ROWS_IN_SORT = "pinot.query.sort.max.rows";
+
+    /**
+     * Configuration for group by spilling, group by spilling is disabled when not set.
+     */
+    public static final String KEY_OF_MAX_GROUPS_IN_AGGREGATE = "pinot.query.aggregate.max.groups";
+
+    /**
+     * Configuration for the local directory of the spill files written by the join, sort and aggregate operators,
+     * defaults to {@code pinot-multistage-spill} under the JVM temp directory.
+     */
+    public static final String KEY_OF_SPILL_DIR = "pinot.query.runner.spill.dir";
+
+    /**
+     * Configuration for mailbox block compression, one of the chunk compression types (e.g. LZ4, ZSTANDARD). Blocks are
+     * sent uncompressed with PASS_THROUGH or when the serialized block is smaller than the min bytes. The compression
+     * should only be enabled once all the servers can decompress the blocks.
+     */
+    public static final String KEY_OF_MAILBOX_COMPRESSION_TYPE = "pinot.query.runner.mailbox.compression.type";
+    public static final String DEFAULT_MAILBOX_COMPRESSION_TYPE = "PASS_THROUGH";
+    public static final String KEY_OF_MAILBOX_COMPRESSION_MIN_BYTES =
+        "pinot.query.runner.mailbox.compression.min.bytes";
+    public static final int DEFAULT_MAILBOX_COMPRESSION_MIN_BYTES = 16 * 1024;
+
+    /**
+     * Configuration for the credit based flow control of the gRPC mailboxes. The sender keeps at most the given number
+     * of blocks (and bytes) in flight, i.e. sent but not yet consumed by the receiver. The max in-flight blocks should
+     * not exceed the receiving mailbox capacity, otherwise the receiver might block on a full mailbox.
+     */
+    public static final String KEY_OF_MAILBOX_MAX_IN_FLIGHT_BLOCKS = "pinot.query.runner.mailbox.max.in.flight.blocks";
+    public static final int DEFAULT_MAILBOX_MAX_IN_FLIGHT_BLOCKS = 5;
+    public static final String KEY_OF_MAILBOX_MAX_IN_FLIGHT_BYTES = "pinot.query.runner.mailbox.max.in.flight.bytes";
+    public static final long DEFAULT_MAILBOX_MAX_IN_FLIGHT_BYTES = 16 * 1024 * 1024L;
+
+    /**
+     * Configuration for sending the data blocks over the gRPC mailboxes in the encoded columnar format, where each
+     * column is encoded with dictionary, run-length or bit-packing encoding. It should only be enabled once all the
+     * servers can decode the encoded columnar blocks.
+     */
+    public static final String KEY_OF_MAILBOX_COLUMNAR_ENCODING_ENABLED =
+        "pinot.query.runner.mailbox.columnar.encoding.enabled";
+    public static final boolean DEFAULT_MAILBOX_COLUMNAR_ENCODING_ENABLED = false;
   }
 }